@@ -1,10 +1,5 @@
 package org.wickedsource.budgeteer.importer.aproda;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.wickedsource.budgeteer.imports.api.*;
 
 import java.io.IOException;
@@ -14,6 +9,10 @@ public class AprodaWorkRecordsImporter implements WorkRecordsImporter {
 
     private static int SHEET_INDEX = 2;
 
+    private static int HEADER_ROW = 2;
+
+    private static int FIRST_ENTRY_ROW = 3;
+
     private static int COLUMN_INVOICABLE = 8;
 
     private static int COLUMN_DATE = 1;
@@ -31,6 +30,24 @@ public class AprodaWorkRecordsImporter implements WorkRecordsImporter {
         return read(file);
     }
 
+    @Override
+    public void importFile(ImportFile file, RecordSink<ImportedWorkRecord> sink) throws ImportException, InvalidFileFormatException {
+        try {
+            skippedRecords.add(new LinkedList<String>());
+            //Adds the name of the imported file at the beginning of the list of skipped data sets..
+            List<String> fileName = new LinkedList<String>();
+            fileName.add(file.getFilename());
+            skippedRecords.add(fileName);
+
+            RecordsHandler handler = new RecordsHandler(file, sink);
+            if (!XlsxSheetReader.read(file.getInputStream(), SHEET_INDEX, handler) || !handler.isValidFile()) {
+                throw new InvalidFileFormatException("Invalid file", file.getFilename());
+            }
+        } catch (IOException e) {
+            throw new ImportException(e);
+        }
+    }
+
     @Override
     public String getDisplayName() {
         return "Aproda Working Hours Importer";
@@ -60,62 +77,26 @@ public class AprodaWorkRecordsImporter implements WorkRecordsImporter {
     }
 
     public List<ImportedWorkRecord> read(ImportFile file) throws ImportException, InvalidFileFormatException {
-        try {
-            skippedRecords.add(new LinkedList<String>());
-            //Adds the name of the imported file at the beginning of the list of skipped data sets..
-            List<String> fileName = new LinkedList<String>();
-            fileName.add(file.getFilename());
-            skippedRecords.add(fileName);
-
-            List<ImportedWorkRecord> resultList = new ArrayList<ImportedWorkRecord>();
-            Workbook workbook = new XSSFWorkbook(file.getInputStream());
-            if(!checkValidity(workbook)){
-                throw new InvalidFileFormatException("Invalid file", file.getFilename());
-            }
-            Sheet sheet = workbook.getSheetAt(SHEET_INDEX);
-            int i = 3;
-            Row row = sheet.getRow(i);
-            while (row != null && row.getCell(0).getStringCellValue() != null) {
-                if (isImportable(row)) {
-                    ImportedWorkRecord record = parseRow(row, file);
-                    resultList.add(record);
-                } else {
-                    skippedRecords.add(getRowAsStrings(row, i));
-                }
-                i++;
-                row = sheet.getRow(i);
-            }
-            return resultList;
-        } catch (IOException e) {
-            throw new ImportException(e);
-        }
+        List<ImportedWorkRecord> resultList = new ArrayList<ImportedWorkRecord>();
+        importFile(file, resultList::add);
+        return resultList;
     }
 
-    private boolean checkValidity(Workbook workbook) {
-        boolean isValid = workbook.getNumberOfSheets() >= SHEET_INDEX ;
-        if(isValid){
-            Sheet sheet = workbook.getSheetAt(SHEET_INDEX);
-            if(sheet.getRow(2) == null){
-                isValid = false ;
-            } else {
-                Row r = sheet.getRow(2);
-                try {
-                    isValid = r.getCell(COLUMN_PERSON).getStringCellValue().equals("Name") &&
-                            r.getCell(COLUMN_DATE).getStringCellValue().equals("Tag") &&
-                            r.getCell(COLUMN_BUDGET).getStringCellValue().equals("Subgruppe") &&
-                            r.getCell(COLUMN_HOURS).getStringCellValue().equals("Aufwand [h]");
-                }catch (Exception e){
-                    isValid = false;
-                }
-            }
+    private boolean checkValidity(XlsxRow headerRow) {
+        try {
+            return headerRow.getCell(COLUMN_PERSON).getStringCellValue().equals("Name") &&
+                    headerRow.getCell(COLUMN_DATE).getStringCellValue().equals("Tag") &&
+                    headerRow.getCell(COLUMN_BUDGET).getStringCellValue().equals("Subgruppe") &&
+                    headerRow.getCell(COLUMN_HOURS).getStringCellValue().equals("Aufwand [h]");
+        }catch (Exception e){
+            return false;
         }
-        return isValid;
     }
 
-    private List<String> getRowAsStrings(Row row, int index) {
+    private List<String> getRowAsStrings(XlsxRow row, int index) {
         List<String> result = new LinkedList<String>();
         for(short i=row.getFirstCellNum(); i<row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i);
+            XlsxCell cell = row.getCell(i);
             if(cell == null) {
                 result.add("");
                 continue;
@@ -128,7 +109,7 @@ public class AprodaWorkRecordsImporter implements WorkRecordsImporter {
         return result;
     }
 
-    private ImportedWorkRecord parseRow(Row row, ImportFile file) throws ImportException {
+    private ImportedWorkRecord parseRow(XlsxRow row, ImportFile file) throws ImportException {
         try {
             String personName = row.getCell(COLUMN_PERSON).getStringCellValue();
             Date date = row.getCell(COLUMN_DATE).getDateCellValue();
@@ -153,11 +134,59 @@ public class AprodaWorkRecordsImporter implements WorkRecordsImporter {
         }
     }
 
-    private boolean isImportable(Row row) {
+    private boolean isImportable(XlsxRow row) {
         return row != null && ("ja".equalsIgnoreCase(row.getCell(COLUMN_INVOICABLE).getStringCellValue()))
                 && (row.getCell(COLUMN_BUDGET).getStringCellValue() != null)
                 && (!"".equals(row.getCell(COLUMN_BUDGET).getStringCellValue().trim()))
                 && (row.getCell(COLUMN_PERSON).getStringCellValue() != null)
                 && (!"".equals(row.getCell(COLUMN_PERSON).getStringCellValue().trim()));
     }
+
+    /**
+     * Checks the header row and parses the following rows up to the first missing row.
+     */
+    private class RecordsHandler implements XlsxRowHandler {
+
+        private final ImportFile file;
+
+        private final RecordSink<ImportedWorkRecord> sink;
+
+        private boolean validFile;
+
+        private int nextRowNum = FIRST_ENTRY_ROW;
+
+        RecordsHandler(ImportFile file, RecordSink<ImportedWorkRecord> sink) {
+            this.file = file;
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean handleRow(XlsxRow row) throws ImportException, InvalidFileFormatException {
+            if (!validFile) {
+                if (row.getRowNum() < HEADER_ROW) {
+                    return true;
+                }
+                validFile = row.getRowNum() == HEADER_ROW && checkValidity(row);
+                if (!validFile) {
+                    throw new InvalidFileFormatException("Invalid file", file.getFilename());
+                }
+                return true;
+            }
+            if (row.getRowNum() != nextRowNum || row.getCell(0).getStringCellValue() == null) {
+                return false;
+            }
+            if (isImportable(row)) {
+                ImportedWorkRecord record = parseRow(row, file);
+                sink.accept(record);
+            } else {
+                skippedRecords.add(getRowAsStrings(row, nextRowNum));
+            }
+            nextRowNum++;
+            return true;
+        }
+
+        boolean isValidFile() {
+            return validFile;
+        }
+    }
 }
@@ -8,4 +8,16 @@ public interface PlanRecordsImporter extends Importer {
 
     List<ImportedPlanRecord> importFile(ImportFile file, CurrencyUnit currencyUnit) throws ImportException, InvalidFileFormatException;
 
+    /**
+     * Passes the records of the given file to the given sink as they are parsed. Importers that can read their files
+     * record by record should override this method and implement {@link #importFile(ImportFile, CurrencyUnit)} by
+     * collecting the records of this one. By default, the records of {@link #importFile(ImportFile, CurrencyUnit)}
+     * are passed to the sink after the whole file has been parsed.
+     */
+    default void importFile(ImportFile file, CurrencyUnit currencyUnit, RecordSink<ImportedPlanRecord> sink) throws ImportException, InvalidFileFormatException {
+        for (ImportedPlanRecord record : importFile(file, currencyUnit)) {
+            sink.accept(record);
+        }
+    }
+
 }
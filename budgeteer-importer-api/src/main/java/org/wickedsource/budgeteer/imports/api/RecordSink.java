@@ -0,0 +1,15 @@
+package org.wickedsource.budgeteer.imports.api;
+
+/**
+ * Receives the records of an import file one at a time while the file is still being parsed, so the caller can
+ * process them in chunks instead of waiting for the whole file.
+ */
+public interface RecordSink<T extends ImportedRecord> {
+
+    /**
+     * @param record the next record of the file, in the order of the file
+     * @throws ImportException if the record cannot be processed. Parsing of the file is aborted.
+     */
+    void accept(T record) throws ImportException;
+
+}
@@ -6,4 +6,16 @@ public interface WorkRecordsImporter extends Importer {
 
     List<ImportedWorkRecord> importFile(ImportFile file) throws ImportException, InvalidFileFormatException;
 
+    /**
+     * Passes the records of the given file to the given sink as they are parsed. Importers that can read their files
+     * record by record should override this method and implement {@link #importFile(ImportFile)} by collecting the
+     * records of this one. By default, the records of {@link #importFile(ImportFile)} are passed to the sink after
+     * the whole file has been parsed.
+     */
+    default void importFile(ImportFile file, RecordSink<ImportedWorkRecord> sink) throws ImportException, InvalidFileFormatException {
+        for (ImportedWorkRecord record : importFile(file)) {
+            sink.accept(record);
+        }
+    }
+
 }
@@ -0,0 +1,121 @@
+package org.wickedsource.budgeteer.imports.api;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.LocaleUtil;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * A cell read by the {@link XlsxSheetReader}. The accessors behave like those of POI's XSSFCell, so importers can
+ * switch from the DOM-based workbook to the streaming reader without changing their parsing rules.
+ */
+public class XlsxCell {
+
+    private final int columnIndex;
+
+    private final CellType type;
+
+    /**
+     * The type of the cached result of a formula cell, the type of the cell otherwise.
+     */
+    private final CellType valueType;
+
+    private final String value;
+
+    private final String formula;
+
+    private final boolean dateFormatted;
+
+    private final boolean date1904;
+
+    XlsxCell(int columnIndex, CellType type, CellType valueType, String value, String formula, boolean dateFormatted, boolean date1904) {
+        this.columnIndex = columnIndex;
+        this.type = type;
+        this.valueType = valueType;
+        this.value = value;
+        this.formula = formula;
+        this.dateFormatted = dateFormatted;
+        this.date1904 = date1904;
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public CellType getCellType() {
+        return type;
+    }
+
+    /**
+     * @return the string value of a string cell or a formula cell with a string result, an empty string for a blank cell.
+     * @throws IllegalStateException if the cell contains a value of another type
+     */
+    public String getStringCellValue() {
+        if (type == CellType.BLANK) {
+            return "";
+        }
+        if (valueType != CellType.STRING) {
+            throw typeMismatch(CellType.STRING);
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of a numeric cell or a formula cell with a numeric result, 0 for a blank cell.
+     * @throws IllegalStateException if the cell contains a value of another type
+     */
+    public double getNumericCellValue() {
+        if (type == CellType.BLANK) {
+            return 0.0;
+        }
+        if (valueType != CellType.NUMERIC) {
+            throw typeMismatch(CellType.NUMERIC);
+        }
+        return value == null || value.isEmpty() ? 0.0 : Double.parseDouble(value);
+    }
+
+    /**
+     * @return the numeric value interpreted as date, null for a blank cell.
+     * @throws IllegalStateException if the cell contains a value of another type
+     */
+    public Date getDateCellValue() {
+        if (type == CellType.BLANK) {
+            return null;
+        }
+        return DateUtil.getJavaDate(getNumericCellValue(), date1904);
+    }
+
+    /**
+     * @return the value of the cell as displayed by XSSFCell#toString(): dates are formatted as dd-MMM-yyyy, other
+     * numbers as doubles and formula cells are represented by their formula.
+     */
+    @Override
+    public String toString() {
+        switch (type) {
+            case BLANK:
+                return "";
+            case BOOLEAN:
+                return "1".equals(value) || "true".equalsIgnoreCase(value) ? "TRUE" : "FALSE";
+            case FORMULA:
+                return formula == null || formula.isEmpty() ? String.valueOf(value) : formula;
+            case NUMERIC:
+                double numericValue = getNumericCellValue();
+                if (dateFormatted && DateUtil.isValidExcelDate(numericValue)) {
+                    DateFormat format = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+                    format.setTimeZone(LocaleUtil.getUserTimeZone());
+                    return format.format(getDateCellValue());
+                }
+                return Double.toString(numericValue);
+            default:
+                return value;
+        }
+    }
+
+    private IllegalStateException typeMismatch(CellType expectedType) {
+        return new IllegalStateException(String.format("Cannot get a %s value from a %s%s cell", expectedType,
+                valueType, type == CellType.FORMULA ? " formula" : ""));
+    }
+}
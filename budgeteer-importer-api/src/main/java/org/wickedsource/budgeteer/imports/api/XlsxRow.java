@@ -0,0 +1,68 @@
+package org.wickedsource.budgeteer.imports.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A row read by the {@link XlsxSheetReader}. It only lives as long as the
+ * {@link XlsxRowHandler#handleRow(XlsxRow)} call it is passed to.
+ */
+public class XlsxRow {
+
+    private final int rowNum;
+
+    /**
+     * The cells of the row, ordered by column.
+     */
+    private final List<XlsxCell> cells = new ArrayList<XlsxCell>();
+
+    XlsxRow(int rowNum) {
+        this.rowNum = rowNum;
+    }
+
+    void addCell(XlsxCell cell) {
+        cells.add(cell);
+    }
+
+    /**
+     * @return the 0-based index of the row.
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * @param columnIndex 0-based column index
+     * @return the cell in the given column or null if the sheet contains no cell there.
+     */
+    public XlsxCell getCell(int columnIndex) {
+        int low = 0;
+        int high = cells.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleColumn = cells.get(middle).getColumnIndex();
+            if (middleColumn < columnIndex) {
+                low = middle + 1;
+            } else if (middleColumn > columnIndex) {
+                high = middle - 1;
+            } else {
+                return cells.get(middle);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the index of the first column containing a cell or -1 if the row is empty.
+     */
+    public short getFirstCellNum() {
+        return (short) (cells.isEmpty() ? -1 : cells.get(0).getColumnIndex());
+    }
+
+    /**
+     * @return the index of the last column containing a cell plus one or -1 if the row is empty.
+     */
+    public short getLastCellNum() {
+        return (short) (cells.isEmpty() ? -1 : cells.get(cells.size() - 1).getColumnIndex() + 1);
+    }
+}
@@ -0,0 +1,15 @@
+package org.wickedsource.budgeteer.imports.api;
+
+/**
+ * Receives the rows of a sheet from the {@link XlsxSheetReader}, one at a time and in the order of the file.
+ * Rows that do not exist in the sheet are not passed to the handler.
+ */
+public interface XlsxRowHandler {
+
+    /**
+     * @param row the next existing row of the sheet
+     * @return true to continue with the next row, false to stop reading the sheet.
+     */
+    boolean handleRow(XlsxRow row) throws ImportException, InvalidFileFormatException;
+
+}
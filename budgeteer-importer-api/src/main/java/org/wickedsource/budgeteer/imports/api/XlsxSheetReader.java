@@ -0,0 +1,289 @@
+package org.wickedsource.budgeteer.imports.api;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads a single sheet of an xlsx file row by row with POI's event API. In contrast to loading the file into an
+ * XSSFWorkbook, only the shared strings table and the current row are held in memory, so the memory needed does not
+ * grow with the number of rows.
+ */
+public class XlsxSheetReader {
+
+    private XlsxSheetReader() {
+    }
+
+    /**
+     * Passes the rows of the sheet with the given index to the given handler until the sheet ends or the handler
+     * returns false. The input stream is buffered in a temporary file, so the zip entries can be read without
+     * unpacking the whole file into memory.
+     *
+     * @param in         the xlsx file
+     * @param sheetIndex 0-based index of the sheet to read
+     * @return false if the file contains no sheet with the given index.
+     * @throws IOException if the file cannot be read or is no valid xlsx file
+     */
+    public static boolean read(InputStream in, int sheetIndex, XlsxRowHandler handler) throws IOException, ImportException, InvalidFileFormatException {
+        Path file = Files.createTempFile("import-", ".xlsx");
+        try {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+            try {
+                return read(pkg, sheetIndex, handler);
+            } finally {
+                pkg.revert();
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static boolean read(OPCPackage pkg, int sheetIndex, XlsxRowHandler handler) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException, ImportException, InvalidFileFormatException {
+        XSSFReader reader = new XSSFReader(pkg);
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+        StylesTable styles = reader.getStylesTable();
+        boolean date1904 = isDate1904(reader);
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        for (int i = 0; sheets.hasNext(); i++) {
+            try (InputStream sheet = sheets.next()) {
+                if (i == sheetIndex) {
+                    parse(sheet, new SheetHandler(strings, styles, date1904, handler));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException, ImportException, InvalidFileFormatException {
+        WorkbookPropertiesHandler handler = new WorkbookPropertiesHandler();
+        try (InputStream workbook = reader.getWorkbookData()) {
+            parse(workbook, handler);
+        }
+        return handler.date1904;
+    }
+
+    private static void parse(InputStream in, DefaultHandler contentHandler) throws IOException, SAXException, ParserConfigurationException, ImportException, InvalidFileFormatException {
+        XMLReader xmlReader = SAXHelper.newXMLReader();
+        xmlReader.setContentHandler(contentHandler);
+        try {
+            xmlReader.parse(new InputSource(in));
+        } catch (StopReadingException e) {
+            // the handler has seen all rows it needs
+        } catch (HandlerException e) {
+            if (e.getException() instanceof ImportException) {
+                throw (ImportException) e.getException();
+            }
+            throw (InvalidFileFormatException) e.getException();
+        }
+    }
+
+    /**
+     * Thrown to end parsing before the end of the document.
+     */
+    private static class StopReadingException extends SAXException {
+    }
+
+    /**
+     * Carries an exception of the {@link XlsxRowHandler} through the SAX parser.
+     */
+    private static class HandlerException extends SAXException {
+
+        HandlerException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private static class WorkbookPropertiesHandler extends DefaultHandler {
+
+        private boolean date1904;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("workbookPr".equals(localName)) {
+                String value = attributes.getValue("date1904");
+                date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+                throw new StopReadingException();
+            } else if ("sheets".equals(localName)) {
+                throw new StopReadingException();
+            }
+        }
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable strings;
+
+        private final StylesTable styles;
+
+        private final boolean date1904;
+
+        private final XlsxRowHandler handler;
+
+        /**
+         * Whether the cell style with a given index is a date format.
+         */
+        private final Map<Integer, Boolean> dateStyles = new HashMap<Integer, Boolean>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private final StringBuilder inlineString = new StringBuilder();
+
+        private boolean collectingText;
+
+        private boolean inInlineString;
+
+        private XlsxRow row;
+
+        private int lastRowNum = -1;
+
+        private int lastColumnIndex;
+
+        private int columnIndex;
+
+        private String cellType;
+
+        private int styleIndex;
+
+        private String value;
+
+        private String formula;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, boolean date1904, XlsxRowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                String rowReference = attributes.getValue("r");
+                row = new XlsxRow(rowReference == null ? lastRowNum + 1 : Integer.parseInt(rowReference) - 1);
+                lastColumnIndex = -1;
+            } else if ("c".equals(localName)) {
+                String cellReference = attributes.getValue("r");
+                columnIndex = cellReference == null ? lastColumnIndex + 1 : new CellReference(cellReference).getCol();
+                cellType = attributes.getValue("t");
+                String style = attributes.getValue("s");
+                styleIndex = style == null ? 0 : Integer.parseInt(style);
+                value = null;
+                formula = null;
+            } else if ("v".equals(localName) || "f".equals(localName) || ("t".equals(localName) && inInlineString)) {
+                text.setLength(0);
+                collectingText = true;
+            } else if ("is".equals(localName)) {
+                inlineString.setLength(0);
+                inInlineString = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("v".equals(localName)) {
+                value = text.toString();
+                collectingText = false;
+            } else if ("f".equals(localName)) {
+                formula = text.toString();
+                collectingText = false;
+            } else if ("t".equals(localName) && inInlineString) {
+                inlineString.append(text);
+                collectingText = false;
+            } else if ("is".equals(localName)) {
+                value = inlineString.toString();
+                inInlineString = false;
+            } else if ("c".equals(localName)) {
+                row.addCell(createCell());
+                lastColumnIndex = columnIndex;
+            } else if ("row".equals(localName)) {
+                lastRowNum = row.getRowNum();
+                boolean continueReading;
+                try {
+                    continueReading = handler.handleRow(row);
+                } catch (ImportException | InvalidFileFormatException e) {
+                    throw new HandlerException(e);
+                }
+                row = null;
+                if (!continueReading) {
+                    throw new StopReadingException();
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collectingText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private XlsxCell createCell() {
+            CellType valueType;
+            String cellValue = value;
+            if ("s".equals(cellType)) {
+                valueType = CellType.STRING;
+                if (value != null && !value.isEmpty()) {
+                    cellValue = strings.getEntryAt(Integer.parseInt(value.trim()));
+                }
+            } else if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+                valueType = CellType.STRING;
+            } else if ("b".equals(cellType)) {
+                valueType = CellType.BOOLEAN;
+            } else if ("e".equals(cellType)) {
+                valueType = CellType.ERROR;
+            } else {
+                valueType = CellType.NUMERIC;
+            }
+            CellType type;
+            if (formula != null) {
+                type = CellType.FORMULA;
+            } else if (cellValue == null || cellValue.isEmpty() && valueType != CellType.STRING) {
+                type = CellType.BLANK;
+            } else {
+                type = valueType;
+            }
+            return new XlsxCell(columnIndex, type, valueType, cellValue, formula,
+                    valueType == CellType.NUMERIC && isDateStyle(styleIndex), date1904);
+        }
+
+        private boolean isDateStyle(int index) {
+            if (styles == null || index >= styles.getNumCellStyles()) {
+                return false;
+            }
+            Boolean dateStyle = dateStyles.get(index);
+            if (dateStyle == null) {
+                XSSFCellStyle style = styles.getStyleAt(index);
+                dateStyle = style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+                dateStyles.put(index, dateStyle);
+            }
+            return dateStyle;
+        }
+    }
+}
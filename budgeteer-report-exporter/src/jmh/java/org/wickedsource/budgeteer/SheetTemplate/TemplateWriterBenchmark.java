@@ -0,0 +1,91 @@
+package org.wickedsource.budgeteer.SheetTemplate;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the {@link TemplateWriter} takes to write a sheet with a growing number of entries. The time
+ * of {@link #write()} and {@link #insertRows()} should grow linearly with the number of rows, while
+ * {@link #previousInsertRows()}, which shifts the trailing rows once per inserted row, grows quadratically.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+public class TemplateWriterBenchmark {
+
+    @Param({"250", "500", "1000", "2000"})
+    private int numberOfRows;
+
+    private List<BenchmarkDTO> entries;
+
+    private Sheet sheet;
+
+    @Setup(Level.Trial)
+    public void createEntries() {
+        entries = new ArrayList<BenchmarkDTO>();
+        for (int i = 0; i < numberOfRows; i++) {
+            entries.add(new BenchmarkDTO("Budget " + i, (double) i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createSheet() {
+        XSSFWorkbook wb = new XSSFWorkbook();
+        sheet = wb.createSheet("Budgets");
+        sheet.createRow(0).createCell(0).setCellValue("Name");
+        Row templateRow = sheet.createRow(1);
+        templateRow.createCell(0).setCellValue("{name}");
+        templateRow.createCell(1).setCellValue("{value}");
+        templateRow.createCell(2).setCellFormula("B2*2");
+        // rows below the template rows, which have to be moved for every inserted row
+        for (int i = 3; i < 53; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue("Footer " + i);
+            row.createCell(1).setCellFormula("SUM(B2:B2)");
+        }
+    }
+
+    @Benchmark
+    public Sheet write() {
+        TemplateWriter<BenchmarkDTO> writer = new TemplateWriter<BenchmarkDTO>(new SheetTemplate(BenchmarkDTO.class, sheet), entries);
+        writer.write();
+        return sheet;
+    }
+
+    @Benchmark
+    public Sheet insertRows() {
+        TemplateWriter<BenchmarkDTO> writer = new TemplateWriter<BenchmarkDTO>(new SheetTemplate(BenchmarkDTO.class, sheet), entries);
+        writer.insertRows();
+        return sheet;
+    }
+
+    @Benchmark
+    public Sheet previousInsertRows() {
+        SheetTemplate template = new SheetTemplate(BenchmarkDTO.class, sheet);
+        TemplateWriter<BenchmarkDTO> writer = new TemplateWriter<BenchmarkDTO>(template);
+        for (int i = 0; i < numberOfRows - 1; i++) {
+            writer.copyRow(sheet, template.getTemplateRowIndex() + i);
+        }
+        return sheet;
+    }
+
+    public static class BenchmarkDTO {
+
+        private String name;
+
+        private Double value;
+
+        BenchmarkDTO(String name, Double value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.wickedsource.budgeteer.SheetTemplate;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Row;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * Writes the values of the template tags of one column into a row. The content of the template cell is split into
+ * literal text and tags when the writer is compiled, so writing a row needs no regular expressions.
+ */
+class ColumnWriter {
+
+	private final int columnIndex;
+	private final boolean formula;
+	private final boolean onlyOneTemplateTag;
+	// the text before, between and after the tags, there is always one more literal than there are tags
+	private final String[] literals;
+	private final FieldAccessor[] accessors;
+
+	private ColumnWriter(int columnIndex, boolean formula, boolean onlyOneTemplateTag, List<String> literals, List<FieldAccessor> accessors) {
+		this.columnIndex = columnIndex;
+		this.formula = formula;
+		this.onlyOneTemplateTag = onlyOneTemplateTag;
+		this.literals = literals.toArray(new String[0]);
+		this.accessors = accessors.toArray(new FieldAccessor[0]);
+	}
+
+	/**
+	 * @param templateCell a cell of the template row
+	 * @param accessorsByTag the accessors of the tags that are mapped to the column of the cell
+	 */
+	static ColumnWriter compile(Cell templateCell, Map<String, FieldAccessor> accessorsByTag) {
+		boolean formula = templateCell.getCellTypeEnum().equals(CellType.FORMULA);
+		String cellValue = formula ? templateCell.getCellFormula() : templateCell.getStringCellValue();
+
+		List<String> literals = new ArrayList<>();
+		List<FieldAccessor> accessors = new ArrayList<>();
+		Matcher matcher = SheetTemplate.TEMPLATE_TAG_PATTERN.matcher(cellValue);
+		int literalStart = 0;
+		while(matcher.find()) {
+			String tagname = matcher.group("attribute") == null ? matcher.group(1) : matcher.group(1) + "." + matcher.group("attribute");
+			FieldAccessor accessor = accessorsByTag.get(tagname);
+			if(null != accessor) {
+				literals.add(cellValue.substring(literalStart, matcher.start()));
+				accessors.add(accessor);
+				literalStart = matcher.end();
+			}
+		}
+		literals.add(cellValue.substring(literalStart));
+
+		boolean onlyOneTemplateTag = !formula && SheetTemplate.TEMPLATE_TAG_PATTERN.matcher(cellValue).matches() && accessors.size() == 1;
+		return new ColumnWriter(templateCell.getColumnIndex(), formula, onlyOneTemplateTag, literals, accessors);
+	}
+
+	void write(Object dto, Row row) {
+		Cell cell = row.getCell(columnIndex);
+		if(onlyOneTemplateTag) {
+			mapFieldValueToCell(accessors[0].read(dto), cell);
+			return;
+		}
+		StringBuilder value = new StringBuilder(literals[0]);
+		for(int i = 0; i < accessors.length; i++) {
+			Object fieldValue = accessors[i].read(dto);
+			if(null != fieldValue) {
+				value.append(fieldValue);
+			}
+			value.append(literals[i+1]);
+		}
+		if(formula) {
+			cell.setCellFormula(value.toString());
+		} else {
+			cell.setCellValue(value.toString());
+		}
+	}
+
+	private void mapFieldValueToCell(Object fieldValue, Cell cell) {
+		if(null == fieldValue) {
+			cell.setCellType(CellType.BLANK);
+			return;
+		}
+		if (Double.class.isInstance(fieldValue)) {
+			cell.setCellValue(Double.class.cast(fieldValue));
+		} else if (String.class.isInstance(fieldValue)) {
+			cell.setCellValue(String.class.cast(fieldValue));
+		} else if (Boolean.class.isInstance(fieldValue)) {
+			cell.setCellValue(Boolean.class.cast(fieldValue));
+		} else if (Date.class.isInstance(fieldValue)) {
+			cell.setCellValue(Date.class.cast(fieldValue));
+		} else if (RichTextString.class.isInstance(fieldValue)) {
+			cell.setCellValue(RichTextString.class.cast(fieldValue));
+		} else if (Calendar.class.isInstance(fieldValue)) {
+			cell.setCellValue(Calendar.class.cast(fieldValue));
+		} else {
+			throw new IllegalArgumentException();
+		}
+	}
+}
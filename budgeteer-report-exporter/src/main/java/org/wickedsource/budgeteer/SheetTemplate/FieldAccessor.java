@@ -0,0 +1,75 @@
+package org.wickedsource.budgeteer.SheetTemplate;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the value of a template tag from a dto. The field is looked up once and read through a method handle, for
+ * dynamic fields like {dynamic.name} the attribute key is split off in advance.
+ */
+class FieldAccessor {
+
+	private final String fieldName;
+	private final String attributeKey;
+	private final MethodHandle getter;
+
+	/**
+	 * @param dtoClass the class of the dtos to read
+	 * @param fieldName the name of the declared field to read
+	 * @param attributeKey the key of the attribute to read from a list or map field, null to read the field itself
+	 */
+	FieldAccessor(Class<?> dtoClass, String fieldName, String attributeKey) {
+		this.fieldName = fieldName;
+		this.attributeKey = attributeKey;
+		try {
+			Field field = dtoClass.getDeclaredField(fieldName);
+			field.setAccessible(true);
+			MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+			if(Modifier.isStatic(field.getModifiers())) {
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			this.getter = handle.asType(MethodType.methodType(Object.class, Object.class));
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			throw new IllegalArgumentException("The field " + fieldName + " cannot be read from " + dtoClass.getName(), e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	Object read(Object dto) {
+		Object fieldValue = get(dto);
+		if(null == attributeKey || null == fieldValue) {
+			return fieldValue;
+		}
+		if(fieldValue instanceof List) {
+			List<SheetTemplateSerializable> listObject = (List<SheetTemplateSerializable>) fieldValue;
+			// the last attribute with the key wins, like it did when the list was put into a map
+			for(int i = listObject.size() - 1; i >= 0; i--) {
+				SheetTemplateSerializable listEntry = listObject.get(i);
+				if(attributeKey.equals(listEntry.getName())) {
+					return listEntry.getValue();
+				}
+			}
+			return null;
+		} else if(fieldValue instanceof Map) {
+			return ((Map<String, Object>) fieldValue).get(attributeKey);
+		} else {
+			// fields of other types do not have attributes, the tag is left empty
+			return null;
+		}
+	}
+
+	private Object get(Object dto) {
+		try {
+			return (Object) getter.invokeExact(dto);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("The field " + fieldName + " cannot be read.", e);
+		}
+	}
+}
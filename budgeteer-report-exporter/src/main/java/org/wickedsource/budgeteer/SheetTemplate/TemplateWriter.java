@@ -2,17 +2,14 @@ package org.wickedsource.budgeteer.SheetTemplate;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
-import java.lang.reflect.Field;
 import java.util.*;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
 
 public class TemplateWriter<T> {
 	
-	private static final String TEMPLATE_TAG_FORMAT = "\\{%s\\}";
-	
 	private SheetTemplate template;
 	private Sheet sheet;
 	private List<T> entries;
@@ -20,11 +17,14 @@ public class TemplateWriter<T> {
 
 	private int currentRowIndex;
 	private Row currentRow;
+	private RowCopy templateRowCopy;
+	private List<ColumnWriter> columnWriters;
 
 	public TemplateWriter(SheetTemplate sheetTemplate) {
 		this.template = sheetTemplate;
 		this.sheet = sheetTemplate.getSheet();
 		flagMapping = ArrayListMultimap.create();
+		compileColumnWriters();
 	}
 	
 	public TemplateWriter(SheetTemplate sheetTemplate, List<T> entries) {
@@ -32,6 +32,36 @@ public class TemplateWriter<T> {
 		this.sheet = sheetTemplate.getSheet();
 		this.entries = entries;
 		flagMapping = ArrayListMultimap.create();
+		compileColumnWriters();
+	}
+
+	/**
+	 * Compiles the template row into one writer per column that contains template tags. This has to happen before
+	 * any rows are written, since the first entry is written into the template row itself.
+	 */
+	private void compileColumnWriters() {
+		columnWriters = new ArrayList<>();
+		if(null == sheet) {
+			return;
+		}
+		Row templateRow = sheet.getRow(template.getTemplateRowIndex());
+		Multimap<Integer, String> tagsByColumn = Multimaps.invertFrom(template.getFieldMapping(), ArrayListMultimap.create());
+		Map<String, FieldAccessor> accessors = new HashMap<>();
+		for(Integer columnIndex : tagsByColumn.keySet()) {
+			Map<String, FieldAccessor> accessorsByTag = new HashMap<>();
+			for(String tagname : tagsByColumn.get(columnIndex)) {
+				accessorsByTag.put(tagname, accessors.computeIfAbsent(tagname, this::createFieldAccessor));
+			}
+			columnWriters.add(ColumnWriter.compile(templateRow.getCell(columnIndex), accessorsByTag));
+		}
+	}
+
+	private FieldAccessor createFieldAccessor(String tagname) {
+		if(isDynamicField(tagname)) {
+			return new FieldAccessor(template.getDtoClass(), getFieldnameOf(tagname), subkeyOf(tagname));
+		} else {
+			return new FieldAccessor(template.getDtoClass(), tagname, null);
+		}
 	}
 	
 	public void setEntries(List<T> entries) {
@@ -46,104 +76,85 @@ public class TemplateWriter<T> {
 		}
 	}
 
-	void insert(T dto) {
-		currentRow = sheet.getRow(currentRowIndex);
-		replaceTemplateTags(dto);
-		setCellStyle(dto);
-		currentRowIndex++;
-	}
-
-	@SuppressWarnings("unchecked")
-	private void replaceTemplateTags(T dto) {
-		Multimap<String, Integer> fieldMapping = template.getFieldMapping();
-
-		for (Entry<String, Integer> entry : fieldMapping.entries()) {
-			Cell currentCell = currentRow.getCell(entry.getValue());
-			String tagname = entry.getKey();
-
-			Object fieldValue = null;
-			try {
-				if (isDynamicField(tagname)) {
-					Field field = dto.getClass().getDeclaredField(getFieldnameOf(tagname));
-					field.setAccessible(true);
-					Object fieldObject = field.get(dto);
-					if(fieldObject instanceof List) {
-						List<SheetTemplateSerializable> listObject = (List<SheetTemplateSerializable>) fieldObject;
-						HashMap<String,Object> map = new HashMap<String,Object>();
-						listObject.stream().forEach(listEntry -> map.put(listEntry.getName(), listEntry.getValue()));
-						fieldValue = map.get(subkeyOf(tagname));
-					} else if(fieldObject instanceof Map) {
-						Map<String,Object> mapObject = (Map<String, Object>) fieldObject;
-						fieldValue = mapObject.get(subkeyOf(tagname));
-					} else if (fieldObject == null) {
-						// do nothing
-					} else {
-						throw new IllegalArgumentException("The field " + field.getName() + " uses an unsupported type.");
-					}
-				} else {
-					Field field = dto.getClass().getDeclaredField(tagname);
-					field.setAccessible(true);
-					fieldValue = field.get(dto);
-				}
-			} catch (IllegalArgumentException | IllegalAccessException | NoSuchFieldException | SecurityException e) {
-				e.printStackTrace();
-			}
-			replaceTemplateTagByFieldValueIntoCell(tagname, fieldValue, currentCell);
+	/**
+	 * Prepares the sheet for {@link #stream(SXSSFWorkbook)}: the rows below the template row are shifted once to
+	 * make room for all entries and the template row is removed from the sheet. Other templates on the same sheet,
+	 * like a summary, can be written after this and before the entries are streamed.
+	 */
+	public void prepareStreaming() {
+		int numberOfRows = (null != entries) ? entries.size() : 0;
+		if(numberOfRows == 0) {
+			insertRows();
+			return;
 		}
-	}
-
-	private void replaceTemplateTagByFieldValueIntoCell(String fieldname, Object fieldValue, Cell currentCell) {
-		if(containsOnlyOneTemplateTag(currentCell)) {
-			mapFieldValueToCell(fieldValue,currentCell);
-		} else {
-			replaceTemplateTagInCell(fieldname,fieldValue,currentCell);
+		int templateRowIndex = template.getTemplateRowIndex();
+		Row templateRow = sheet.getRow(templateRowIndex);
+		templateRowCopy = new RowCopy(templateRow);
+		sheet.removeRow(templateRow);
+		if(numberOfRows > 1 && templateRowIndex < sheet.getLastRowNum()) {
+			sheet.shiftRows(templateRowIndex+1, sheet.getLastRowNum(), numberOfRows-1);
 		}
 	}
 
-	private void replaceTemplateTagInCell(String fieldname, Object fieldValue, Cell currentCell) {
-		String fieldValueString = (null != fieldValue) ? fieldValue.toString() : "";
-		if(currentCell.getCellTypeEnum().equals(CellType.FORMULA)) {
-			String formula = currentCell.getCellFormula();
-			String templateTag = String.format(TEMPLATE_TAG_FORMAT, fieldname);
-			String newFormula = formula.replaceAll(templateTag, fieldValueString);
-			currentCell.setCellFormula(newFormula);
-		} else {
-			String cellValue= currentCell.getStringCellValue();
-			String templateTag = String.format(TEMPLATE_TAG_FORMAT, fieldname);
-			String newCellValue = cellValue.replaceAll(templateTag, fieldValueString);
-			currentCell.setCellValue(newCellValue);
+	/**
+	 * Streams the entries into the given workbook, which must wrap the workbook of the template sheet. Only the rows
+	 * within the window of the streaming workbook are kept in memory. The rows below the entries are moved into the
+	 * streamed part of the sheet as well, because streamed rows can only be appended after the rows of the template.
+	 * {@link #prepareStreaming()} must be called first.
+	 */
+	public void stream(SXSSFWorkbook workbook) {
+		if(null == templateRowCopy) {
+			return;
 		}
-		
+		Sheet streamingSheet = workbook.getSheet(sheet.getSheetName());
+		SortedMap<Integer, RowCopy> followingRows = removeFollowingRows();
+		currentRowIndex = template.getTemplateRowIndex();
+		for(T dto : entries) {
+			currentRow = streamingSheet.createRow(currentRowIndex);
+			templateRowCopy.copyTo(currentRow);
+			replaceTemplateTags(dto);
+			setCellStyle(dto);
+			currentRowIndex++;
+		}
+		for(Map.Entry<Integer, RowCopy> followingRow : followingRows.entrySet()) {
+			Row streamedRow = streamingSheet.createRow(followingRow.getKey());
+			streamedRow.setHeight(followingRow.getValue().getHeight());
+			followingRow.getValue().copyTo(streamedRow);
+		}
+		templateRowCopy = null;
 	}
 
-	private void mapFieldValueToCell(Object fieldValue, Cell cell) {
-			if(null == fieldValue) {
-				cell.setCellType(CellType.BLANK);
-				return;
-			}
-			if (Double.class.isInstance(fieldValue)) {
-				cell.setCellValue(Double.class.cast(fieldValue));
-			} else if (String.class.isInstance(fieldValue)) {
-				cell.setCellValue(String.class.cast(fieldValue));
-			} else if (Boolean.class.isInstance(fieldValue)) {
-				cell.setCellValue(Boolean.class.cast(fieldValue));
-			} else if (Date.class.isInstance(fieldValue)) {
-				cell.setCellValue(Date.class.cast(fieldValue));
-			} else if (RichTextString.class.isInstance(fieldValue)) {
-				cell.setCellValue(RichTextString.class.cast(fieldValue));
-			} else if (Calendar.class.isInstance(fieldValue)) {
-				cell.setCellValue(Calendar.class.cast(fieldValue));
-			} else {
-				throw new IllegalArgumentException();
+	/**
+	 * Copies the rows that {@link #prepareStreaming()} has shifted below the entries and removes them from the
+	 * template sheet. The streaming workbook refuses to create a row above the last row of the template sheet, so
+	 * they have to be gone before the first entry is streamed. This is done when streaming starts rather than while
+	 * preparing, because other templates in these rows, like a summary, are written in between.
+	 *
+	 * @return the copied rows by their index
+	 */
+	private SortedMap<Integer, RowCopy> removeFollowingRows() {
+		SortedMap<Integer, RowCopy> followingRows = new TreeMap<>();
+		int lastRowIndex = sheet.getLastRowNum();
+		for(int i = template.getTemplateRowIndex(); i <= lastRowIndex; i++) {
+			Row row = sheet.getRow(i);
+			if(null != row) {
+				followingRows.put(i, new RowCopy(row));
+				sheet.removeRow(row);
 			}
 		}
+		return followingRows;
+	}
+
+	void insert(T dto) {
+		currentRow = sheet.getRow(currentRowIndex);
+		replaceTemplateTags(dto);
+		setCellStyle(dto);
+		currentRowIndex++;
+	}
 
-	boolean containsOnlyOneTemplateTag(Cell currentCell) {
-		try {
-			Matcher matcher = SheetTemplate.TEMPLATE_TAG_PATTERN.matcher(currentCell.getStringCellValue());
-			return matcher.matches();
-		} catch(Exception e) {
-			return false;
+	private void replaceTemplateTags(T dto) {
+		for(ColumnWriter columnWriter : columnWriters) {
+			columnWriter.write(dto, currentRow);
 		}
 	}
 
@@ -182,17 +193,30 @@ public class TemplateWriter<T> {
 		} 
 		
 		// copy template row numberOfRows-1 times
-		for(int i = 0; i < numberOfRows-1; i++) {
-			copyRow(sheet,template.getTemplateRowIndex()+i);
+		if(numberOfRows > 1) {
+			copyRows(sheet, template.getTemplateRowIndex(), numberOfRows-1);
 		}
 	}
 	
 	void copyRow(Sheet sheet, int from) {
+		copyRows(sheet, from, 1);
+	}
+
+	/**
+	 * Inserts count copies of a row directly below it. The rows below are shifted only once to make room for all
+	 * copies, since every shift moves all following rows and rewrites their formulas and merged regions.
+	 */
+	void copyRows(Sheet sheet, int from, int count) {
 		if(from < sheet.getLastRowNum()) {
-			sheet.shiftRows(from+1, sheet.getLastRowNum(), 1);
+			sheet.shiftRows(from+1, sheet.getLastRowNum(), count);
 		}
 		Row copyRow = sheet.getRow(from);
-		Row insertRow = sheet.createRow(from+1);
+		for(int i = 1; i <= count; i++) {
+			copyCells(copyRow, sheet.createRow(from+i));
+		}
+	}
+
+	private void copyCells(Row copyRow, Row insertRow) {
 		for(Cell copyCell : copyRow) {
 			Cell insertCell = insertRow.createCell(copyCell.getColumnIndex());
 			copyCellValues(copyCell,insertCell);
@@ -222,15 +246,18 @@ public class TemplateWriter<T> {
 		}
 	}
 
+	/**
+	 * Applies the styles of the flags of the given dto to the current row. The style of a flag replaces the style
+	 * of the cell completely and belongs to the same workbook, so it is shared by all flagged cells instead of
+	 * creating a copy per cell. Excel only supports a limited number of distinct cell styles.
+	 */
 	void setCellStyle(T dto) {
 		if(flagMapping.containsKey(dto)) {
 			for(FieldFlag flag : flagMapping.get(dto)) {
 				String fieldname = flag.getField();
-				String flagname = flag.getFlag();
+				CellStyle flagStyle = template.getFlagTemplate().getCellStyleFor(flag.getFlag());
 				for(Integer columnIndex : template.getFieldMapping().get(fieldname)) {
-					Cell cell = currentRow.getCell(columnIndex);
-					cell.setCellStyle(sheet.getWorkbook().createCellStyle());
-					cell.getCellStyle().cloneStyleFrom(template.getFlagTemplate().getCellStyleFor(flagname));
+					currentRow.getCell(columnIndex).setCellStyle(flagStyle);
 				}
 			}
 		}
@@ -249,4 +276,72 @@ public class TemplateWriter<T> {
 			sheet.getWorkbook().removeSheetAt(sheetIndex);
 		}
 	}
+
+	/**
+	 * A copy of the cells and the height of a row that stays usable after the row has been removed from its sheet.
+	 */
+	private static class RowCopy {
+
+		private final short height;
+		private final List<Integer> columnIndexes = new ArrayList<>();
+		private final List<CellType> cellTypes = new ArrayList<>();
+		private final List<Object> values = new ArrayList<>();
+		private final List<CellStyle> cellStyles = new ArrayList<>();
+
+		RowCopy(Row row) {
+			height = row.getHeight();
+			for(Cell cell : row) {
+				columnIndexes.add(cell.getColumnIndex());
+				cellTypes.add(cell.getCellTypeEnum());
+				cellStyles.add(cell.getCellStyle());
+				switch (cell.getCellTypeEnum()) {
+				case STRING:
+					values.add(cell.getStringCellValue());
+					break;
+				case BOOLEAN:
+					values.add(cell.getBooleanCellValue());
+					break;
+				case BLANK:
+					values.add(null);
+					break;
+				case FORMULA:
+					values.add(cell.getCellFormula());
+					break;
+				case NUMERIC:
+					values.add(cell.getNumericCellValue());
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown Type"); // should not occure
+				}
+			}
+		}
+
+		short getHeight() {
+			return height;
+		}
+
+		void copyTo(Row row) {
+			for(int i = 0; i < columnIndexes.size(); i++) {
+				Cell cell = row.createCell(columnIndexes.get(i));
+				switch (cellTypes.get(i)) {
+				case STRING:
+					cell.setCellValue((String) values.get(i));
+					break;
+				case BOOLEAN:
+					cell.setCellValue((Boolean) values.get(i));
+					break;
+				case FORMULA:
+					cell.setCellFormula((String) values.get(i));
+					break;
+				case NUMERIC:
+					cell.setCellValue((Double) values.get(i));
+					break;
+				default:
+					cell.setCellType(CellType.BLANK);
+					break;
+				}
+				cell.setCellStyle(cellStyles.get(i));
+			}
+		}
+	}
 }
@@ -1,15 +1,24 @@
 package org.wickedsource.budgeteer.SheetTemplate;
 
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.*;
 
@@ -71,6 +80,105 @@ class TemplateWriterTest {
 		assertEquals("Musterfrau, Marina",row.getCell(8).getStringCellValue());
 	}
 
+	@Test
+	void testStream() throws Exception {
+		tw.setEntries(Arrays.asList(dto1,dto2));
+		tw.addFlag(dto1, "dynamic.vorname" , "warning1");
+		tw.prepareStreaming();
+		SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(wb);
+		tw.stream(streamingWorkbook);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		streamingWorkbook.write(out);
+		streamingWorkbook.dispose();
+
+		Sheet writtenSheet = WorkbookFactory.create(new ByteArrayInputStream(out.toByteArray())).getSheetAt(0);
+		assertNotNull(writtenSheet.getRow(2));
+		Row row = writtenSheet.getRow(4);
+		assertEquals("Foo",row.getCell(0).getStringCellValue());
+		assertEquals("Mustermann, Max",row.getCell(8).getStringCellValue());
+		assertEquals(template.getFlagTemplate().getCellStyleFor("warning1").getFillForegroundColor(),
+				row.getCell(6).getCellStyle().getFillForegroundColor());
+		row = writtenSheet.getRow(5);
+		assertEquals("Bar",row.getCell(0).getStringCellValue());
+		assertEquals("Musterfrau, Marina",row.getCell(8).getStringCellValue());
+		assertEquals("Ein Footer",writtenSheet.getRow(10).getCell(0).getStringCellValue());
+	}
+
+	@Test
+	void testStreamMovesFollowingRowsBelowEntries() throws Exception {
+		tw.setEntries(Collections.nCopies(5, dto1));
+		tw.prepareStreaming();
+		SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(wb);
+		tw.stream(streamingWorkbook);
+		assertTrue(sheet.getLastRowNum() < 4);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		streamingWorkbook.write(out);
+		streamingWorkbook.dispose();
+
+		Sheet writtenSheet = WorkbookFactory.create(new ByteArrayInputStream(out.toByteArray())).getSheetAt(0);
+		for(int i = 4; i < 9; i++) {
+			assertEquals("Foo",writtenSheet.getRow(i).getCell(0).getStringCellValue());
+		}
+		assertNull(writtenSheet.getRow(9));
+		assertEquals("Ein Footer",writtenSheet.getRow(13).getCell(0).getStringCellValue());
+	}
+
+	@Test
+	void testWriteCellsWithTextAndTags() throws Exception {
+		Consumer<Row> templateChange = templateRow -> {
+			templateRow.createCell(10).setCellValue("Test: {test}, Foo: {foo}, Bar: {bar}");
+			templateRow.createCell(11).setCellValue("{test}{test} and {dynamic.nachname}");
+		};
+		Row row = writeRow(dto1, templateChange);
+
+		assertEquals("Foo - 123.4567899",row.getCell(1).getStringCellValue());
+		assertEquals("Test: Foo, Foo: 123.4567899, Bar: true",row.getCell(10).getStringCellValue());
+		assertEquals("FooFoo and Mustermann",row.getCell(11).getStringCellValue());
+		assertSameCells(writeRowWithReflection(dto1, templateChange), row);
+	}
+
+	@Test
+	void testWriteSeveralDynamicAttributesInOneCell() throws Exception {
+		TestDTO dto = new TestDTO();
+		dto.setTest("Foo");
+		dto.setDynamic(Arrays.asList(new Attribute("vorname", "Max"), new Attribute("nachname", "Mustermann"), new Attribute("vorname", "Moritz")));
+		Consumer<Row> templateChange = templateRow -> templateRow.createCell(10).setCellValue("{dynamic.vorname} {dynamic.nachname} ({dynamic.vorname})");
+		Row row = writeRow(dto, templateChange);
+
+		assertEquals("Moritz",row.getCell(6).getStringCellValue());
+		assertEquals("Mustermann, Moritz",row.getCell(8).getStringCellValue());
+		assertEquals("Moritz Mustermann (Moritz)",row.getCell(10).getStringCellValue());
+		assertSameCells(writeRowWithReflection(dto, templateChange), row);
+	}
+
+	@Test
+	void testWriteFormulaCells() throws Exception {
+		Consumer<Row> templateChange = templateRow -> {
+			templateRow.createCell(10).setCellFormula("LEN(\"{test}\")+\"{foo}\"");
+			templateRow.createCell(11).setCellFormula("IF(\"{bar}\"=\"true\",1,0)");
+		};
+		Row row = writeRow(dto1, templateChange);
+
+		assertEquals("LEN(\"Foo\")+\"123.4567899\"",row.getCell(10).getCellFormula());
+		assertEquals("IF(\"true\"=\"true\",1,0)",row.getCell(11).getCellFormula());
+		assertSameCells(writeRowWithReflection(dto1, templateChange), row);
+	}
+
+	@Test
+	void testWriteUnknownFieldName() throws Exception {
+		Consumer<Row> templateChange = templateRow -> {
+			templateRow.createCell(10).setCellValue("{test} {unknown}");
+			templateRow.createCell(11).setCellValue("{unknown}");
+			templateRow.createCell(12).setCellValue("{dynamic.unknown}");
+		};
+		Row row = writeRow(dto1, templateChange);
+
+		assertEquals("Foo {unknown}",row.getCell(10).getStringCellValue());
+		assertEquals("{unknown}",row.getCell(11).getStringCellValue());
+		assertEquals(CellType.BLANK,row.getCell(12).getCellTypeEnum());
+		assertSameCells(writeRowWithReflection(dto1, templateChange), row);
+	}
+
 	@Test
 	void testInsertZeroRows() {
 		int lastRowNumber = sheet.getLastRowNum();
@@ -95,6 +203,17 @@ class TemplateWriterTest {
 		assertEquals(lastRowNumber+4,sheet.getLastRowNum());
 	}
 
+	@Test
+	void testInsertMultipleRowsKeepsFollowingRows() {
+		tw.setEntries(Collections.nCopies(5, new TestDTO()));
+		tw.insertRows();
+		for(int i = 4; i < 9; i++) {
+			assertEquals("{test}",sheet.getRow(i).getCell(0).getStringCellValue());
+		}
+		assertNull(sheet.getRow(9));
+		assertEquals("Ein Footer",sheet.getRow(13).getCell(0).getStringCellValue());
+	}
+
 	@Test
 	void testCopyRow() {
 		tw.copyRow(sheet, 4);
@@ -142,6 +261,25 @@ class TemplateWriterTest {
 		
 	}
 
+	@Test
+	void testSetFlagOnManyRowsCreatesNoStyles() {
+		int numberOfCellStyles = wb.getNumCellStyles();
+		List<TestDTO> entries = new ArrayList<>();
+		for(int i = 0; i < 10000; i++) {
+			TestDTO dto = new TestDTO();
+			dto.setTest("Test " + i);
+			dto.setDynamic(Arrays.asList(new Attribute("vorname", "Max " + i)));
+			entries.add(dto);
+			tw.addFlag(dto, "dynamic.vorname", i % 2 == 0 ? "warning1" : "warning2");
+		}
+		tw.setEntries(entries);
+		tw.write();
+
+		assertEquals(numberOfCellStyles, wb.getNumCellStyles());
+		assertEquals(template.getFlagTemplate().getCellStyleFor("warning1"), sheet.getRow(4).getCell(6).getCellStyle());
+		assertEquals(template.getFlagTemplate().getCellStyleFor("warning2"), sheet.getRow(10003).getCell(6).getCellStyle());
+	}
+
 	@Test
 	void testRemoveFlagSheet() {
 		tw.removeFlagSheet();
@@ -172,4 +310,83 @@ class TemplateWriterTest {
 		String result = tw.subkeyOf("test");
 		assertNull(result);
 	}
+
+	private Sheet loadTemplateSheet(Consumer<Row> templateChange) throws Exception {
+		Sheet templateSheet = WorkbookFactory.create(new FileInputStream("test-mapping.xlsx")).getSheetAt(0);
+		templateChange.accept(templateSheet.getRow(4));
+		return templateSheet;
+	}
+
+	private Row writeRow(TestDTO dto, Consumer<Row> templateChange) throws Exception {
+		Sheet templateSheet = loadTemplateSheet(templateChange);
+		TemplateWriter<TestDTO> writer = new TemplateWriter<TestDTO>(new SheetTemplate(TestDTO.class, templateSheet));
+		writer.setEntries(Collections.singletonList(dto));
+		writer.write();
+		return templateSheet.getRow(4);
+	}
+
+	/**
+	 * Writes the dto into the template row the way the TemplateWriter did before it compiled the template row into
+	 * column writers: each tag is read by reflection and replaced by a regular expression in its cell.
+	 */
+	@SuppressWarnings("unchecked")
+	private Row writeRowWithReflection(TestDTO dto, Consumer<Row> templateChange) throws Exception {
+		Sheet templateSheet = loadTemplateSheet(templateChange);
+		SheetTemplate reflectionTemplate = new SheetTemplate(TestDTO.class, templateSheet);
+		Row row = templateSheet.getRow(reflectionTemplate.getTemplateRowIndex());
+		for(Map.Entry<String, Integer> entry : reflectionTemplate.getFieldMapping().entries()) {
+			Cell cell = row.getCell(entry.getValue());
+			String tagname = entry.getKey();
+			Field field = TestDTO.class.getDeclaredField(tw.isDynamicField(tagname) ? tw.getFieldnameOf(tagname) : tagname);
+			field.setAccessible(true);
+			Object fieldValue = field.get(dto);
+			if(tw.isDynamicField(tagname) && null != fieldValue) {
+				Map<String, Object> attributes = new HashMap<String, Object>();
+				((List<Attribute>) fieldValue).forEach(attribute -> attributes.put(attribute.getName(), attribute.getValue()));
+				fieldValue = attributes.get(tw.subkeyOf(tagname));
+			}
+			String templateTag = String.format("\\{%s\\}", tagname);
+			String fieldValueString = (null != fieldValue) ? fieldValue.toString() : "";
+			if(cell.getCellTypeEnum().equals(CellType.FORMULA)) {
+				cell.setCellFormula(cell.getCellFormula().replaceAll(templateTag, fieldValueString));
+			} else if(!SheetTemplate.TEMPLATE_TAG_PATTERN.matcher(cell.getStringCellValue()).matches()) {
+				cell.setCellValue(cell.getStringCellValue().replaceAll(templateTag, fieldValueString));
+			} else if(null == fieldValue) {
+				cell.setCellType(CellType.BLANK);
+			} else if(fieldValue instanceof Double) {
+				cell.setCellValue((Double) fieldValue);
+			} else if(fieldValue instanceof Boolean) {
+				cell.setCellValue((Boolean) fieldValue);
+			} else if(fieldValue instanceof Date) {
+				cell.setCellValue((Date) fieldValue);
+			} else {
+				cell.setCellValue((String) fieldValue);
+			}
+		}
+		return row;
+	}
+
+	private void assertSameCells(Row expected, Row actual) {
+		assertEquals(expected.getPhysicalNumberOfCells(), actual.getPhysicalNumberOfCells());
+		for(Cell expectedCell : expected) {
+			Cell actualCell = actual.getCell(expectedCell.getColumnIndex());
+			assertEquals(expectedCell.getCellTypeEnum(), actualCell.getCellTypeEnum());
+			switch(expectedCell.getCellTypeEnum()) {
+			case NUMERIC:
+				assertEquals(expectedCell.getNumericCellValue(), actualCell.getNumericCellValue(), 10e-8);
+				break;
+			case STRING:
+				assertEquals(expectedCell.getStringCellValue(), actualCell.getStringCellValue());
+				break;
+			case BOOLEAN:
+				assertEquals(expectedCell.getBooleanCellValue(), actualCell.getBooleanCellValue());
+				break;
+			case FORMULA:
+				assertEquals(expectedCell.getCellFormula(), actualCell.getCellFormula());
+				break;
+			default:
+				break;
+			}
+		}
+	}
 }
@@ -1,11 +1,6 @@
 package org.wickedsource.budgeteer.importer.resourceplan;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellReference;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.wickedsource.budgeteer.imports.api.*;
@@ -33,76 +28,62 @@ public class ResourcePlanImporter implements PlanRecordsImporter {
 
     @Override
     public List<ImportedPlanRecord> importFile(ImportFile file, CurrencyUnit currencyUnit) throws ImportException, InvalidFileFormatException {
+        List<ImportedPlanRecord> resultList = new ArrayList<ImportedPlanRecord>();
+        importFile(file, currencyUnit, resultList::add);
+        return resultList;
+    }
+
+    @Override
+    public void importFile(ImportFile file, CurrencyUnit currencyUnit, RecordSink<ImportedPlanRecord> sink) throws ImportException, InvalidFileFormatException {
         skippedRecords.add(new LinkedList<String>());
         LinkedList<String> filenameList = new LinkedList<String>();
         filenameList.add(file.getFilename());
         skippedRecords.add(filenameList);
 
         try {
-            List<ImportedPlanRecord> resultList = new ArrayList<ImportedPlanRecord>();
-            Workbook workbook = new XSSFWorkbook(file.getInputStream());
-            if(!isValid(workbook)){
+            RecordsHandler handler = new RecordsHandler(file, currencyUnit, sink);
+            if (!XlsxSheetReader.read(file.getInputStream(), RESOURCE_PLAN_SHEET_INDEX, handler) || !handler.isValidFile()) {
                 throw new InvalidFileFormatException("Invalid file", file.getFilename());
             }
-            Sheet sheet = workbook.getSheetAt(RESOURCE_PLAN_SHEET_INDEX);
-            List<DateColumn> dateColumns = getDateColumns(sheet);
-            int i = FIRST_ENTRY_ROW;
-            Row row = sheet.getRow(i);
-            while (row != null && row.getCell(0).getStringCellValue() != null) {
-                List<ImportedPlanRecord> records = parseRow(row, dateColumns, currencyUnit, skippedRecords);
-                resultList.addAll(records);
-                row = sheet.getRow(++i);
-            }
-            return resultList;
         } catch (IOException e) {
             throw new ImportException(e);
         }
     }
 
-    private boolean isValid(Workbook workbook) {
-        boolean result = workbook.getNumberOfSheets() >= RESOURCE_PLAN_SHEET_INDEX;
-        if(result){
-            try {
-                Sheet s = workbook.getSheetAt(RESOURCE_PLAN_SHEET_INDEX);
-                Row r = s.getRow(FIRST_ENTRY_ROW - 1);
-                if (r == null) {
-                    result = false;
-                } else{
-                    result = r.getCell(COLUMN_PERSON).getStringCellValue().equals("Person") &&
-                            r.getCell(COLUMN_BUDGET).getStringCellValue().equals("Budget");
-                }
-            } catch (Exception e){
-                result = false;
-            }
+    private boolean isValid(XlsxRow headerRow) {
+        try {
+            return headerRow.getCell(COLUMN_PERSON).getStringCellValue().equals("Person") &&
+                    headerRow.getCell(COLUMN_BUDGET).getStringCellValue().equals("Budget");
+        } catch (Exception e){
+            return false;
         }
-        return result;
     }
 
-    private List<DateColumn> getDateColumns(Sheet sheet) {
+    private List<DateColumn> getDateColumns(XlsxRow headerRow) {
         List<DateColumn> columns = new ArrayList<DateColumn>();
         int i = FIRST_ENTRY_COLUMN;
-        Cell dateCell = sheet.getRow(0).getCell(i);
+        XlsxCell dateCell = headerRow.getCell(i);
         while (dateCell != null && dateCell.getDateCellValue() != null) {
             Date date = dateCell.getDateCellValue();
             DateColumn dateColumn = new DateColumn(date, i);
             columns.add(dateColumn);
-            dateCell = sheet.getRow(0).getCell(++i);
+            dateCell = headerRow.getCell(++i);
         }
         return columns;
     }
 
-    private List<ImportedPlanRecord> parseRow(Row row, List<DateColumn> dateColumns, CurrencyUnit currencyUnit, List<List<String>> skippedRecords) throws ImportException {
+    private List<ImportedPlanRecord> parseRow(XlsxRow row, List<DateColumn> dateColumns, CurrencyUnit currencyUnit, List<List<String>> skippedRecords) throws ImportException {
         List<ImportedPlanRecord> recordsList = new ArrayList<ImportedPlanRecord>();
 
         for (DateColumn dateColumn : dateColumns) {
 
-            Cell hoursCell = row.getCell(dateColumn.getColumnIndex());
+            XlsxCell hoursCell = row.getCell(dateColumn.getColumnIndex());
             if (hoursCell != null) {
                 double hoursPlanned = 0d;
                 try {
                     hoursPlanned = row.getCell(dateColumn.getColumnIndex()).getNumericCellValue();
                 } catch (IllegalStateException e) {
-                    CellReference ref = new CellReference(row.getCell(dateColumn.getColumnIndex()));
+                    CellReference ref = new CellReference(row.getRowNum(), dateColumn.getColumnIndex());
                     throw new ImportException(String.format("Error importing field in row %d and column %s", row.getRowNum() + 1, ref.getCellRefParts()[2]));
                 }
                 if (hoursPlanned > 0) {
@@ -159,4 +140,49 @@ public class ResourcePlanImporter implements PlanRecordsImporter {
         }
         return skippedRecords;
     }
+
+    /**
+     * Checks the header row, reads the date columns from it and parses the following rows up to the first missing row.
+     */
+    private class RecordsHandler implements XlsxRowHandler {
+
+        private final ImportFile file;
+
+        private final CurrencyUnit currencyUnit;
+
+        private final RecordSink<ImportedPlanRecord> sink;
+
+        private List<DateColumn> dateColumns;
+
+        private int nextRowNum = FIRST_ENTRY_ROW;
+
+        RecordsHandler(ImportFile file, CurrencyUnit currencyUnit, RecordSink<ImportedPlanRecord> sink) {
+            this.file = file;
+            this.currencyUnit = currencyUnit;
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean handleRow(XlsxRow row) throws ImportException, InvalidFileFormatException {
+            if (dateColumns == null) {
+                if (row.getRowNum() != FIRST_ENTRY_ROW - 1 || !isValid(row)) {
+                    throw new InvalidFileFormatException("Invalid file", file.getFilename());
+                }
+                dateColumns = getDateColumns(row);
+                return true;
+            }
+            if (row.getRowNum() != nextRowNum || row.getCell(0).getStringCellValue() == null) {
+                return false;
+            }
+            for (ImportedPlanRecord record : parseRow(row, dateColumns, currencyUnit, skippedRecords)) {
+                sink.accept(record);
+            }
+            nextRowNum++;
+            return true;
+        }
+
+        boolean isValidFile() {
+            return dateColumns != null;
+        }
+    }
 }
@@ -1,10 +1,5 @@
 package org.wickedsource.budgeteer.importer.ubw;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.wickedsource.budgeteer.imports.api.*;
 
 import java.io.IOException;
@@ -14,6 +9,10 @@ public class UBWWorkRecordsImporter implements WorkRecordsImporter {
 
     private static final int SHEET_INDEX = 2;
 
+    private static final int HEADER_ROW = 2;
+
+    private static final int FIRST_ENTRY_ROW = 3;
+
     private static final int COLUMN_INVOICABLE = 11;
 
     private static final int COLUMN_DATE = 3;
@@ -28,6 +27,13 @@ public class UBWWorkRecordsImporter implements WorkRecordsImporter {
 
     @Override
     public List<ImportedWorkRecord> importFile(ImportFile file) throws ImportException, InvalidFileFormatException {
+        List<ImportedWorkRecord> resultList = new ArrayList<ImportedWorkRecord>();
+        importFile(file, resultList::add);
+        return resultList;
+    }
+
+    @Override
+    public void importFile(ImportFile file, RecordSink<ImportedWorkRecord> sink) throws ImportException, InvalidFileFormatException {
         try {
             skippedRecords.add(new LinkedList<String>());
             //Adds the name of the imported file at the beginning of the list of skipped data sets..
@@ -35,35 +41,18 @@ public class UBWWorkRecordsImporter implements WorkRecordsImporter {
             fileName.add(file.getFilename());
             skippedRecords.add(fileName);
 
-            List<ImportedWorkRecord> resultList = new ArrayList<ImportedWorkRecord>();
-            Workbook workbook = new XSSFWorkbook(file.getInputStream());
-            if(!checkValidity(workbook)){
+            RecordsHandler handler = new RecordsHandler(file, sink);
+            if (!XlsxSheetReader.read(file.getInputStream(), SHEET_INDEX, handler) || !handler.isValidFile()) {
                 throw new InvalidFileFormatException("Invalid file", file.getFilename());
             }
-            Sheet sheet = workbook.getSheetAt(SHEET_INDEX);
-            int i = 3;
-            Row row = sheet.getRow(i);
-            while (row != null && row.getCell(0) != null && row.getCell(0).getStringCellValue() != null) {
-                if (isImportable(row)) {
-                    ImportedWorkRecord record = parseRow(row, file);
-                    resultList.add(record);
-                } else {
-                    if(!isCompletelyEmpty(row)) {
-                        skippedRecords.add(getRowAsStrings(row, i));
-                    }
-                }
-                i++;
-                row = sheet.getRow(i);
-            }
-            return resultList;
         } catch (IOException e) {
             throw new ImportException(e);
         }
     }
 
-    private boolean isCompletelyEmpty(Row row) {
+    private boolean isCompletelyEmpty(XlsxRow row) {
         for(short i=row.getFirstCellNum(); i<row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i);
+            XlsxCell cell = row.getCell(i);
             if (!isBlank(cell.toString())) {
                 return false;
             }
@@ -104,33 +93,22 @@ public class UBWWorkRecordsImporter implements WorkRecordsImporter {
     }
 
 
-    boolean checkValidity(Workbook workbook) {
-        boolean isValid = workbook.getNumberOfSheets() >= SHEET_INDEX ;
-        if(isValid){
-            Sheet sheet = workbook.getSheetAt(SHEET_INDEX);
-            int headerRowIndex = 2;
-            if(sheet.getRow(headerRowIndex) == null){
-                isValid = false ;
-            } else {
-                Row r = sheet.getRow(headerRowIndex);
-                try {
-                    isValid = r.getCell(COLUMN_PERSON).getStringCellValue().equals("Name") &&
-                            r.getCell(COLUMN_DATE).getStringCellValue().equals("Tag") &&
-                            r.getCell(COLUMN_BUDGET).getStringCellValue().equals("Subgruppe") &&
-                            r.getCell(COLUMN_HOURS).getStringCellValue().equals("Aufwand [h]")&&
-                            r.getCell(COLUMN_INVOICABLE).getStringCellValue().equals("KV");
-                }catch (Exception e){
-                    isValid = false;
-                }
-            }
+    boolean checkValidity(XlsxRow headerRow) {
+        try {
+            return headerRow.getCell(COLUMN_PERSON).getStringCellValue().equals("Name") &&
+                    headerRow.getCell(COLUMN_DATE).getStringCellValue().equals("Tag") &&
+                    headerRow.getCell(COLUMN_BUDGET).getStringCellValue().equals("Subgruppe") &&
+                    headerRow.getCell(COLUMN_HOURS).getStringCellValue().equals("Aufwand [h]")&&
+                    headerRow.getCell(COLUMN_INVOICABLE).getStringCellValue().equals("KV");
+        }catch (Exception e){
+            return false;
         }
-        return isValid;
     }
 
-    private List<String> getRowAsStrings(Row row, int index) {
+    private List<String> getRowAsStrings(XlsxRow row, int index) {
         List<String> result = new LinkedList<String>();
         for(short i=row.getFirstCellNum(); i<row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i);
+            XlsxCell cell = row.getCell(i);
             if(cell == null) {
                 result.add("");
                 continue;
@@ -143,7 +121,7 @@ public class UBWWorkRecordsImporter implements WorkRecordsImporter {
         return result;
     }
 
-    private ImportedWorkRecord parseRow(Row row, ImportFile file) throws ImportException {
+    private ImportedWorkRecord parseRow(XlsxRow row, ImportFile file) throws ImportException {
         try {
             String personName = row.getCell(COLUMN_PERSON).getStringCellValue();
             Date date = row.getCell(COLUMN_DATE).getDateCellValue();
@@ -168,11 +146,62 @@ public class UBWWorkRecordsImporter implements WorkRecordsImporter {
         }
     }
 
-    private boolean isImportable(Row row) {
+    private boolean isImportable(XlsxRow row) {
         return row != null && ("ja".equalsIgnoreCase(row.getCell(COLUMN_INVOICABLE).getStringCellValue()))
                 && (row.getCell(COLUMN_BUDGET).getStringCellValue() != null)
                 && (!"".equals(row.getCell(COLUMN_BUDGET).getStringCellValue().trim()))
                 && (row.getCell(COLUMN_PERSON).getStringCellValue() != null)
                 && (!"".equals(row.getCell(COLUMN_PERSON).getStringCellValue().trim()));
     }
+
+    /**
+     * Checks the header row and parses the following rows up to the first missing row or the first row without a
+     * value in the first column.
+     */
+    private class RecordsHandler implements XlsxRowHandler {
+
+        private final ImportFile file;
+
+        private final RecordSink<ImportedWorkRecord> sink;
+
+        private boolean validFile;
+
+        private int nextRowNum = FIRST_ENTRY_ROW;
+
+        RecordsHandler(ImportFile file, RecordSink<ImportedWorkRecord> sink) {
+            this.file = file;
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean handleRow(XlsxRow row) throws ImportException, InvalidFileFormatException {
+            if (!validFile) {
+                if (row.getRowNum() < HEADER_ROW) {
+                    return true;
+                }
+                validFile = row.getRowNum() == HEADER_ROW && checkValidity(row);
+                if (!validFile) {
+                    throw new InvalidFileFormatException("Invalid file", file.getFilename());
+                }
+                return true;
+            }
+            if (row.getRowNum() != nextRowNum || row.getCell(0) == null || row.getCell(0).getStringCellValue() == null) {
+                return false;
+            }
+            if (isImportable(row)) {
+                ImportedWorkRecord record = parseRow(row, file);
+                sink.accept(record);
+            } else {
+                if(!isCompletelyEmpty(row)) {
+                    skippedRecords.add(getRowAsStrings(row, nextRowNum));
+                }
+            }
+            nextRowNum++;
+            return true;
+        }
+
+        boolean isValidFile() {
+            return validFile;
+        }
+    }
 }
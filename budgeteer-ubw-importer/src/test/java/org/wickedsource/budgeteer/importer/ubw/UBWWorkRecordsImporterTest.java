@@ -1,16 +1,16 @@
 package org.wickedsource.budgeteer.importer.ubw;
 
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 import org.wickedsource.budgeteer.imports.api.ExampleFile;
 import org.wickedsource.budgeteer.imports.api.ImportFile;
 import org.wickedsource.budgeteer.imports.api.ImportedWorkRecord;
+import org.wickedsource.budgeteer.imports.api.XlsxSheetReader;
 
-import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.*;
 
@@ -29,6 +29,16 @@ class UBWWorkRecordsImporterTest {
         assertEquals(format.parse("06.07.2016"), records.get(0).getDate());
     }
 
+    @Test
+    void testReadWithSink() throws Exception {
+        UBWWorkRecordsImporter importer = new UBWWorkRecordsImporter();
+        List<ImportedWorkRecord> records = new ArrayList<ImportedWorkRecord>();
+        importer.importFile(new ImportFile("file.xslx", importer.getExampleFile().getInputStream()), records::add);
+        assertEquals(15, records.size());
+        assertEquals("Mustermann, Max", records.get(0).getPersonName());
+        assertEquals(format.parse("06.07.2016"), records.get(0).getDate());
+    }
+
     @Test
     void testGetSkippedDataSets() throws Exception {
         UBWWorkRecordsImporter importer = new UBWWorkRecordsImporter();
@@ -49,9 +59,16 @@ class UBWWorkRecordsImporterTest {
     }
 
     @Test
-    void testValidity() throws IOException {
+    void testValidity() throws Exception {
         UBWWorkRecordsImporter importer = new UBWWorkRecordsImporter();
-        Workbook workbook = new XSSFWorkbook(importer.getExampleFile().getInputStream());
-        assertTrue(importer.checkValidity(workbook));
+        AtomicBoolean valid = new AtomicBoolean();
+        XlsxSheetReader.read(importer.getExampleFile().getInputStream(), 2, row -> {
+            if (row.getRowNum() < 2) {
+                return true;
+            }
+            valid.set(importer.checkValidity(row));
+            return false;
+        });
+        assertTrue(valid.get());
     }
 }
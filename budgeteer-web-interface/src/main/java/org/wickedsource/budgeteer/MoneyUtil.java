@@ -22,6 +22,18 @@ public class MoneyUtil {
         return Money.ofMinor(DEFAULT_CURRENCY, cents);
     }
 
+    /**
+     * Converts minutes multiplied with a daily rate in cents into cents, assuming 8 hours per day. This is the only
+     * place such values are rounded: callers sum up the undivided values first and convert the sum once, and queries
+     * that convert in the database use floor(sum / 480.0), which gives the same result.
+     *
+     * @param centMinutes minutes multiplied with the daily rate in cents
+     * @return the monetary value in cents, rounded down.
+     */
+    public static long centMinutesToCents(long centMinutes) {
+        return Math.floorDiv(centMinutes, 60 * 8);
+    }
+
     public static List<Double> toDouble(List<Money> moneyList) {
         List<Double> doubleValues = new ArrayList<Double>();
         for (Money moneyValue : moneyList) {
@@ -3,6 +3,7 @@ package org.wickedsource.budgeteer.persistence.budget;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.joda.money.Money;
 import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 import org.wickedsource.budgeteer.persistence.person.DailyRateEntity;
@@ -41,6 +42,7 @@ public class BudgetEntity {
     private ProjectEntity project;
 
     @OneToMany(orphanRemoval = true, cascade = CascadeType.ALL, fetch = FetchType.EAGER, mappedBy = "budget")
+    @BatchSize(size = 50)
     private List<BudgetTagEntity> tags = new ArrayList<BudgetTagEntity>();
 
     @OneToMany(mappedBy = "budget", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
@@ -1,6 +1,7 @@
 package org.wickedsource.budgeteer.persistence.contract;
 
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import org.joda.money.Money;
 import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
 import org.wickedsource.budgeteer.persistence.invoice.InvoiceEntity;
@@ -38,6 +39,7 @@ public class ContractEntity implements Serializable {
 
     @OneToMany(orphanRemoval = true, cascade = CascadeType.ALL)
     @JoinColumn(name="CONTRACT_ID")
+    @BatchSize(size = 50)
     private List<ContractFieldEntity> contractFields = new LinkedList<ContractFieldEntity>();
 
     @Column(name="BUDGET")
@@ -58,6 +60,7 @@ public class ContractEntity implements Serializable {
     private ContractType type;
 
     @OneToMany(mappedBy="contract")
+    @BatchSize(size = 50)
     private List<BudgetEntity> budgets = new LinkedList<BudgetEntity>();
 
     @Column(name = "LINK")
@@ -71,12 +74,14 @@ public class ContractEntity implements Serializable {
     private String fileName;
 
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "contract")
+    @BatchSize(size = 50)
     private List<InvoiceEntity> invoices;
 
     /**
      * A list of possible dynamic fields that a invoice that belongs to this contract can use
      */
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, mappedBy = "contract", fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private Set<ContractInvoiceField> invoiceFields;
 
     @Override
@@ -0,0 +1,28 @@
+package org.wickedsource.budgeteer.persistence.contract;
+
+import lombok.Data;
+
+/**
+ * A monetary sum belonging to a single month of a contract, as returned by the "grouped by month" queries.
+ */
+@Data
+public class ContractMonthlySumBean {
+
+    private int year;
+
+    /**
+     * Month is 0-based;
+     */
+    private int month;
+
+    /**
+     * sum in cents
+     */
+    private long valueInCents;
+
+    public ContractMonthlySumBean(int year, int month, Number valueInCents) {
+        this.year = year;
+        this.month = month;
+        this.valueInCents = valueInCents == null ? 0 : valueInCents.longValue();
+    }
+}
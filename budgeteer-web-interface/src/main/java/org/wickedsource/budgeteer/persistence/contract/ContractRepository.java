@@ -22,17 +22,17 @@ public interface ContractRepository extends CrudRepository<ContractEntity, Long>
      */
     @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean(:year+0," +
             "case when (abs(cast(c.budget AS double)) < 10e-16) then null else (" +
-            "(SELECT coalesce(sum(wr.minutes * wr.dailyRate/ 60 / 8),0)" +
+            "(SELECT coalesce(floor(sum(wr.centMinutes) / 480.0),0)" +
             " FROM WorkRecordEntity wr" +
             " WHERE wr.budget.contract.id = :contractId AND(wr.year < :year OR (wr.year = :year AND wr.month <= :month)))" +
             " / cast(c.budget AS double)" +
             ") end, " +
-            "(c.budget - coalesce((select sum(wr.minutes * wr.dailyRate/ 60 / 8) " +
+            "(c.budget - coalesce((select floor(sum(wr.centMinutes) / 480.0) " +
             "from WorkRecordEntity wr where wr.budget.contract.id = :contractId " +
             "AND (wr.year < :year OR (wr.year = :year AND wr.month <= :month))" +
             "),0l)" +
             ")," +
-            "coalesce((select sum(wr.minutes * wr.dailyRate/ 60 / 8)" +
+            "coalesce((select floor(sum(wr.centMinutes) / 480.0)" +
             "from WorkRecordEntity wr where wr.budget.contract.id = :contractId "+
             "AND (wr.year < :year OR (wr.year = :year AND wr.month <= :month))" +
             "),0l)," +
@@ -47,17 +47,17 @@ public interface ContractRepository extends CrudRepository<ContractEntity, Long>
      */
     @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean(:year+0," +
             "case when (abs(cast(c.budget AS double)) < 10e-16) then null else (" +
-            "(SELECT coalesce(sum(wr.minutes * wr.dailyRate/ 60 / 8),0)" +
+            "(SELECT coalesce(floor(sum(wr.centMinutes) / 480.0),0)" +
             " FROM WorkRecordEntity wr" +
             " WHERE wr.budget.contract.id = :contractId AND (wr.year < :year OR (wr.year = :year AND wr.month <= :month)))" +
             " / cast(c.budget AS double)" +
             ") end, " +
-            "(c.budget - coalesce((select sum(wr.minutes * wr.dailyRate/ 60 / 8) " +
+            "(c.budget - coalesce((select floor(sum(wr.centMinutes) / 480.0) " +
             "from WorkRecordEntity wr where wr.budget.contract.id = :contractId " +
             "AND (wr.year = :year AND wr.month = :month)" +
             "),0l)" +
             ")," +
-            "coalesce((select sum(wr.minutes * wr.dailyRate/ 60 / 8)" +
+            "coalesce((select floor(sum(wr.centMinutes) / 480.0)" +
             "from WorkRecordEntity wr where wr.budget.contract.id = :contractId "+
             "AND (wr.year = :year AND wr.month = :month)" +
             "),0l)," +
@@ -66,12 +66,57 @@ public interface ContractRepository extends CrudRepository<ContractEntity, Long>
             ") from ContractEntity c where c.id = :contractId")
     ContractStatisticBean getContractStatisticByMonthAndYear(@Param("contractId") Long contractId, @Param("month") Integer month, @Param("year") Integer year);
 
-    @Query("select coalesce(sum(wr.minutes * wr.dailyRate/ 60 / 8),0) from WorkRecordEntity wr where wr.budget.contract.id = :contractId")
+    @Query("select coalesce(floor(sum(wr.centMinutes) / 480.0),0) from WorkRecordEntity wr where wr.budget.contract.id = :contractId")
     Double getSpentBudgetByContractId(@Param("contractId") long contractId);
 
-    @Query("select (c.budget - coalesce((select sum(wr.minutes * wr.dailyRate)/ 60 / 8 from WorkRecordEntity wr where wr.budget.contract.id = :contractId) ,0)) from ContractEntity c where c.id = :contractId")
+    @Query("select (c.budget - coalesce((select floor(sum(wr.centMinutes) / 480.0) from WorkRecordEntity wr where wr.budget.contract.id = :contractId) ,0)) from ContractEntity c where c.id = :contractId")
     Double getBudgetLeftByContractId(@Param("contractId") long contractId);
     
+    /**
+     * Returns the spent budget of each of the given contracts. Contracts without work records are not contained in
+     * the result.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractSumBean(wr.budget.contract.id, floor(sum(wr.centMinutes) / 480.0)) from WorkRecordEntity wr where wr.budget.contract.id in (:contractIds) group by wr.budget.contract.id")
+    List<ContractSumBean> getSpentBudgetByContractIds(@Param("contractIds") List<Long> contractIds);
+
+    /**
+     * Returns the spent budget of each of the given contracts until the end of the given month.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractSumBean(wr.budget.contract.id, floor(sum(wr.centMinutes) / 480.0)) from WorkRecordEntity wr where wr.budget.contract.id in (:contractIds) AND (wr.year < :year OR (wr.year = :year AND wr.month <= :month)) group by wr.budget.contract.id")
+    List<ContractSumBean> getSpentBudgetByContractIdsUntilDate(@Param("contractIds") List<Long> contractIds, @Param("month") Integer month, @Param("year") Integer year);
+
+    /**
+     * Returns the spent budget of each of the given contracts within the given month.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractSumBean(wr.budget.contract.id, floor(sum(wr.centMinutes) / 480.0)) from WorkRecordEntity wr where wr.budget.contract.id in (:contractIds) AND wr.year = :year AND wr.month = :month group by wr.budget.contract.id")
+    List<ContractSumBean> getSpentBudgetByContractIdsInMonth(@Param("contractIds") List<Long> contractIds, @Param("month") Integer month, @Param("year") Integer year);
+
+    /**
+     * Returns the invoiced budget of each of the given contracts until the end of the given month.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractSumBean(i.contract.id, sum(i.invoiceSum)) from InvoiceEntity i where i.contract.id in (:contractIds) AND (i.year < :year OR (i.year = :year AND i.month <= :month)) group by i.contract.id")
+    List<ContractSumBean> getInvoicedBudgetByContractIdsUntilDate(@Param("contractIds") List<Long> contractIds, @Param("month") Integer month, @Param("year") Integer year);
+
+    /**
+     * Returns the invoiced budget of each of the given contracts within the given month.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractSumBean(i.contract.id, sum(i.invoiceSum)) from InvoiceEntity i where i.contract.id in (:contractIds) AND i.year = :year AND i.month = :month group by i.contract.id")
+    List<ContractSumBean> getInvoicedBudgetByContractIdsInMonth(@Param("contractIds") List<Long> contractIds, @Param("month") Integer month, @Param("year") Integer year);
+
+    /**
+     * Returns the spent budget of the given contract for each month that contains work records, ordered by year and
+     * month.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractMonthlySumBean(wr.year, wr.month, floor(sum(wr.centMinutes) / 480.0)) from WorkRecordEntity wr where wr.budget.contract.id = :contractId group by wr.year, wr.month order by wr.year, wr.month")
+    List<ContractMonthlySumBean> getSpentBudgetByContractIdGroupedByMonth(@Param("contractId") long contractId);
+
+    /**
+     * Returns the invoiced budget of the given contract for each month that contains invoices, ordered by year and
+     * month.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.contract.ContractMonthlySumBean(i.year, i.month, sum(i.invoiceSum)) from InvoiceEntity i where i.contract.id = :contractId group by i.year, i.month order by i.year, i.month")
+    List<ContractMonthlySumBean> getInvoicedBudgetByContractIdGroupedByMonth(@Param("contractId") long contractId);
+
     @Modifying
     @Query("delete from ContractEntity c where c.project.id = :projectId")
     void deleteByProjectId(@Param(value = "projectId") long projectId);
@@ -86,10 +131,10 @@ public interface ContractRepository extends CrudRepository<ContractEntity, Long>
     @Query("Select e from ContractFieldEntity e where e.contract.id = :contractID")
     List<ContractFieldEntity> findContractFieldsByContractId(@Param("contractID") Long contractID);
 
-    @Query("select coalesce(sum(wr.minutes * wr.dailyRate/ 60 / 8),0) from WorkRecordEntity wr where wr.budget.contract.id = :contractId AND (wr.year < :year OR (wr.year = :year AND wr.month <= :month))")
+    @Query("select coalesce(floor(sum(wr.centMinutes) / 480.0),0) from WorkRecordEntity wr where wr.budget.contract.id = :contractId AND (wr.year < :year OR (wr.year = :year AND wr.month <= :month))")
 	Double getSpentBudgetByContractIdUntilDate(@Param("contractId") Long contractId, @Param("month") Integer month, @Param("year") Integer year);
 
-    @Query("select ( coalesce(sum(wr.minutes * wr.dailyRate/ 60 / 8),0)*"
+    @Query("select ( coalesce(floor(sum(wr.centMinutes) / 480.0),0)*"
     		+ "coalesce((select 1.0+c.taxRate/100.0 from ContractEntity c where c.id = :contractId),1.0)) "
     		+ "from WorkRecordEntity wr where wr.budget.contract.id = :contractId")
 	Double getSpentBudgetGrossByContractId(@Param("contractId") Long contractId);
@@ -0,0 +1,22 @@
+package org.wickedsource.budgeteer.persistence.contract;
+
+import lombok.Data;
+
+/**
+ * A monetary sum belonging to a single contract, as returned by the grouped "per contract" queries.
+ */
+@Data
+public class ContractSumBean {
+
+    private long contractId;
+
+    /**
+     * sum in cents
+     */
+    private long valueInCents;
+
+    public ContractSumBean(long contractId, Number valueInCents) {
+        this.contractId = contractId;
+        this.valueInCents = valueInCents == null ? 0 : valueInCents.longValue();
+    }
+}
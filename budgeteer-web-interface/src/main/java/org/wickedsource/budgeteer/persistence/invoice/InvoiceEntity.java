@@ -3,6 +3,7 @@ package org.wickedsource.budgeteer.persistence.invoice;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.joda.money.Money;
 import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 
@@ -77,6 +78,7 @@ public class InvoiceEntity {
      */
     @OneToMany(orphanRemoval = true, cascade = CascadeType.ALL)
     @JoinColumn(name="INVOICE_ID")
+    @BatchSize(size = 50)
     private List<InvoiceFieldEntity> dynamicFields = new LinkedList<InvoiceFieldEntity>();
 
     @Override
@@ -0,0 +1,41 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.wickedsource.budgeteer.MoneyUtil;
+
+import java.math.BigDecimal;
+
+/**
+ * One result row of an {@link AggregationQuery}. Depending on the query, year and period (week or month), title
+ * and tax rate may not be set.
+ */
+@Data
+@AllArgsConstructor
+public class AggregatedRow {
+
+    private RecordType recordType;
+
+    private int year;
+
+    private int period;
+
+    private String title;
+
+    private BigDecimal taxRate;
+
+    private long minutes;
+
+    /**
+     * Sum of minutes multiplied with the daily rate in cents, see {@link RecordRollupEntity#getCentMinutes()}.
+     */
+    private long centMinutes;
+
+    public double getHours() {
+        return minutes / 60d;
+    }
+
+    public long getValueInCents() {
+        return MoneyUtil.centMinutesToCents(centMinutes);
+    }
+}
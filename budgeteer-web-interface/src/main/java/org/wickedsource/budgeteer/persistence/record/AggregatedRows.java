@@ -0,0 +1,121 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Converts the rows of an {@link AggregationQuery} into the aggregated record beans used by the services. Rows of
+ * the requested record type are summed up over all dimensions the target bean does not contain, so a single query
+ * grouped by title can serve both a per-title series and a total series.
+ */
+public class AggregatedRows {
+
+    private AggregatedRows() {
+    }
+
+    public static List<WeeklyAggregatedRecordBean> toWeeklyBeans(List<AggregatedRow> rows, RecordType type) {
+        List<WeeklyAggregatedRecordBean> result = new ArrayList<WeeklyAggregatedRecordBean>();
+        for (AggregatedRow row : sumUp(rows, type, false, false)) {
+            result.add(new WeeklyAggregatedRecordBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents()));
+        }
+        return result;
+    }
+
+    public static List<WeeklyAggregatedRecordWithTaxBean> toWeeklyBeansWithTax(List<AggregatedRow> rows, RecordType type) {
+        List<WeeklyAggregatedRecordWithTaxBean> result = new ArrayList<WeeklyAggregatedRecordWithTaxBean>();
+        for (AggregatedRow row : sumUp(rows, type, false, true)) {
+            result.add(new WeeklyAggregatedRecordWithTaxBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents(), row.getTaxRate()));
+        }
+        return result;
+    }
+
+    public static List<WeeklyAggregatedRecordWithTitleBean> toWeeklyBeansWithTitle(List<AggregatedRow> rows, RecordType type) {
+        List<WeeklyAggregatedRecordWithTitleBean> result = new ArrayList<WeeklyAggregatedRecordWithTitleBean>();
+        for (AggregatedRow row : sumUp(rows, type, true, false)) {
+            result.add(new WeeklyAggregatedRecordWithTitleBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents(), row.getTitle()));
+        }
+        return result;
+    }
+
+    public static List<WeeklyAggregatedRecordWithTitleAndTaxBean> toWeeklyBeansWithTitleAndTax(List<AggregatedRow> rows, RecordType type) {
+        List<WeeklyAggregatedRecordWithTitleAndTaxBean> result = new ArrayList<WeeklyAggregatedRecordWithTitleAndTaxBean>();
+        for (AggregatedRow row : sumUp(rows, type, true, true)) {
+            result.add(new WeeklyAggregatedRecordWithTitleAndTaxBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents(), row.getTaxRate(), row.getTitle()));
+        }
+        return result;
+    }
+
+    public static List<MonthlyAggregatedRecordBean> toMonthlyBeans(List<AggregatedRow> rows, RecordType type) {
+        List<MonthlyAggregatedRecordBean> result = new ArrayList<MonthlyAggregatedRecordBean>();
+        for (AggregatedRow row : sumUp(rows, type, false, false)) {
+            result.add(new MonthlyAggregatedRecordBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents()));
+        }
+        return result;
+    }
+
+    public static List<MonthlyAggregatedRecordWithTaxBean> toMonthlyBeansWithTax(List<AggregatedRow> rows, RecordType type) {
+        List<MonthlyAggregatedRecordWithTaxBean> result = new ArrayList<MonthlyAggregatedRecordWithTaxBean>();
+        for (AggregatedRow row : sumUp(rows, type, false, true)) {
+            result.add(new MonthlyAggregatedRecordWithTaxBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents(), row.getTaxRate()));
+        }
+        return result;
+    }
+
+    public static List<MonthlyAggregatedRecordWithTitleBean> toMonthlyBeansWithTitle(List<AggregatedRow> rows, RecordType type) {
+        List<MonthlyAggregatedRecordWithTitleBean> result = new ArrayList<MonthlyAggregatedRecordWithTitleBean>();
+        for (AggregatedRow row : sumUp(rows, type, true, false)) {
+            result.add(new MonthlyAggregatedRecordWithTitleBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents(), row.getTitle()));
+        }
+        return result;
+    }
+
+    public static List<MonthlyAggregatedRecordWithTitleAndTaxBean> toMonthlyBeansWithTitleAndTax(List<AggregatedRow> rows, RecordType type) {
+        List<MonthlyAggregatedRecordWithTitleAndTaxBean> result = new ArrayList<MonthlyAggregatedRecordWithTitleAndTaxBean>();
+        for (AggregatedRow row : sumUp(rows, type, true, true)) {
+            result.add(new MonthlyAggregatedRecordWithTitleAndTaxBean(row.getYear(), row.getPeriod(), row.getHours(), row.getValueInCents(), row.getTitle(), row.getTaxRate()));
+        }
+        return result;
+    }
+
+    public static List<ShareBean> toShareBeans(List<AggregatedRow> rows, RecordType type) {
+        List<ShareBean> result = new ArrayList<ShareBean>();
+        for (AggregatedRow row : sumUp(rows, type, true, false)) {
+            result.add(new ShareBean(row.getTitle(), row.getValueInCents()));
+        }
+        return result;
+    }
+
+    /**
+     * Sums up all rows of the given type that only differ in the dimensions that are not kept.
+     * If the title is kept, the order of the rows is retained, otherwise the result is ordered by year and period.
+     */
+    private static List<AggregatedRow> sumUp(List<AggregatedRow> rows, RecordType type, boolean keepTitle, boolean keepTaxRate) {
+        Map<List<Object>, AggregatedRow> sums = new LinkedHashMap<List<Object>, AggregatedRow>();
+        for (AggregatedRow row : rows) {
+            if (row.getRecordType() != type) {
+                continue;
+            }
+            String title = keepTitle ? row.getTitle() : null;
+            BigDecimal taxRate = keepTaxRate ? row.getTaxRate() : null;
+            List<Object> key = Arrays.<Object>asList(title, row.getYear(), row.getPeriod(), taxRate);
+            AggregatedRow sum = sums.get(key);
+            if (sum == null) {
+                sums.put(key, new AggregatedRow(type, row.getYear(), row.getPeriod(), title, taxRate, row.getMinutes(), row.getCentMinutes()));
+            } else {
+                sum.setMinutes(sum.getMinutes() + row.getMinutes());
+                sum.setCentMinutes(sum.getCentMinutes() + row.getCentMinutes());
+            }
+        }
+        List<AggregatedRow> result = new ArrayList<AggregatedRow>(sums.values());
+        if (!keepTitle) {
+            Collections.sort(result, new Comparator<AggregatedRow>() {
+                @Override
+                public int compare(AggregatedRow o1, AggregatedRow o2) {
+                    int comparison = Integer.compare(o1.getYear(), o2.getYear());
+                    return comparison != 0 ? comparison : Integer.compare(o1.getPeriod(), o2.getPeriod());
+                }
+            });
+        }
+        return result;
+    }
+}
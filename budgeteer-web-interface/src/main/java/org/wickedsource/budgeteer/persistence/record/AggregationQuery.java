@@ -0,0 +1,119 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Describes an aggregation over the weekly or monthly record rollups: which records to include (filters), how to
+ * group them (time grain and an optional title dimension) and whether the tax rate of the budget's contract is needed.
+ * Work and plan records are aggregated by the same query, each result row states which type it belongs to.
+ */
+@Getter
+public class AggregationQuery {
+
+    public enum Grain {
+        WEEK,
+        MONTH,
+        /**
+         * No grouping by time, all matching records are summed up.
+         */
+        TOTAL
+    }
+
+    public enum Dimension {
+        NONE,
+        BUDGET,
+        PERSON
+    }
+
+    private final Grain grain;
+
+    private Set<RecordType> recordTypes = EnumSet.allOf(RecordType.class);
+
+    private Long projectId;
+
+    private Long budgetId;
+
+    private Long personId;
+
+    private List<String> budgetTags = Collections.emptyList();
+
+    private Integer startYear;
+
+    private Integer startPeriod;
+
+    private Dimension titleDimension = Dimension.NONE;
+
+    private boolean withTax;
+
+    private AggregationQuery(Grain grain) {
+        this.grain = grain;
+    }
+
+    public static AggregationQuery byWeek() {
+        return new AggregationQuery(Grain.WEEK);
+    }
+
+    public static AggregationQuery byMonth() {
+        return new AggregationQuery(Grain.MONTH);
+    }
+
+    public static AggregationQuery total() {
+        return new AggregationQuery(Grain.TOTAL);
+    }
+
+    public AggregationQuery forProject(long projectId) {
+        this.projectId = projectId;
+        return this;
+    }
+
+    public AggregationQuery forBudget(long budgetId) {
+        this.budgetId = budgetId;
+        return this;
+    }
+
+    public AggregationQuery forPerson(long personId) {
+        this.personId = personId;
+        return this;
+    }
+
+    /**
+     * Restricts the query to budgets that have at least one of the given tags. An empty list does not filter.
+     */
+    public AggregationQuery withBudgetTags(List<String> tags) {
+        this.budgetTags = tags == null ? Collections.<String>emptyList() : tags;
+        return this;
+    }
+
+    /**
+     * Restricts the query to the week or month containing the given date and all later ones. Weeks are counted in
+     * the year they belong to, e.g. the week starting on 30.12.2019 is the first week of 2020.
+     */
+    public AggregationQuery startingAt(Date startDate) {
+        Calendar c = Calendar.getInstance();
+        c.setTime(startDate);
+        this.startYear = grain == Grain.WEEK ? c.getWeekYear() : c.get(Calendar.YEAR);
+        this.startPeriod = grain == Grain.WEEK ? c.get(Calendar.WEEK_OF_YEAR) : c.get(Calendar.MONTH);
+        return this;
+    }
+
+    public AggregationQuery titledBy(Dimension dimension) {
+        this.titleDimension = dimension;
+        return this;
+    }
+
+    /**
+     * Groups the results additionally by the tax rate of the budget's contract. Budgets without contract are not
+     * included in such a query.
+     */
+    public AggregationQuery withTax() {
+        this.withTax = true;
+        return this;
+    }
+
+    public AggregationQuery only(RecordType recordType) {
+        this.recordTypes = EnumSet.of(recordType);
+        return this;
+    }
+}
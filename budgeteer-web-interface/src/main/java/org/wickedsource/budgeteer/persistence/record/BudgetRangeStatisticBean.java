@@ -0,0 +1,41 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Data;
+import org.wickedsource.budgeteer.MoneyUtil;
+
+/**
+ * Figures of the work records of a single budget for a time range, as returned by
+ * {@link WorkRecordRepository#getStatisticsInTimeRangeByBudgetIds(java.util.List, java.util.Date, java.util.Date)}.
+ */
+@Data
+public class BudgetRangeStatisticBean {
+
+    private long budgetId;
+
+    /**
+     * Monetary value in cents of the records within the time range.
+     */
+    private long spentCentsInRange;
+
+    private long minutesInRange;
+
+    /**
+     * Monetary value in cents of all records up to the end of the time range.
+     */
+    private long spentCentsUntilEnd;
+
+    /**
+     * @param centMinutesInRange    sum of minutes multiplied with the daily rate in cents within the time range
+     * @param centMinutesUntilEnd   same sum for all records up to the end of the time range
+     */
+    public BudgetRangeStatisticBean(long budgetId, Number centMinutesInRange, Number minutesInRange, Number centMinutesUntilEnd) {
+        this.budgetId = budgetId;
+        this.spentCentsInRange = centMinutesInRange == null ? 0 : MoneyUtil.centMinutesToCents(centMinutesInRange.longValue());
+        this.minutesInRange = minutesInRange == null ? 0 : minutesInRange.longValue();
+        this.spentCentsUntilEnd = centMinutesUntilEnd == null ? 0 : MoneyUtil.centMinutesToCents(centMinutesUntilEnd.longValue());
+    }
+
+    public double getHoursInRange() {
+        return minutesInRange / 60.0;
+    }
+}
@@ -0,0 +1,45 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Data;
+import org.wickedsource.budgeteer.MoneyUtil;
+
+import java.util.Date;
+
+/**
+ * Figures of all work or plan records of a single budget, as returned by the grouped "per budget" queries.
+ */
+@Data
+public class BudgetRecordStatisticBean {
+
+    private long budgetId;
+
+    private Date latestRecordDate;
+
+    private long minutes;
+
+    /**
+     * Sum of minutes multiplied with the daily rate in cents.
+     */
+    private long centMinutes;
+
+    public BudgetRecordStatisticBean(long budgetId, Date latestRecordDate, Number minutes, Number centMinutes) {
+        this.budgetId = budgetId;
+        this.latestRecordDate = latestRecordDate;
+        this.minutes = minutes == null ? 0 : minutes.longValue();
+        this.centMinutes = centMinutes == null ? 0 : centMinutes.longValue();
+    }
+
+    /**
+     * @return monetary value of the records in cents.
+     */
+    public long getValueInCents() {
+        return MoneyUtil.centMinutesToCents(centMinutes);
+    }
+
+    /**
+     * @return monetary value of the average daily rate in cents, weighted by the minutes of each record.
+     */
+    public long getAverageDailyRateInCents() {
+        return minutes == 0 ? 0 : Math.round((double) centMinutes / minutes);
+    }
+}
@@ -0,0 +1,24 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "RECORD_ROLLUP_MONTH",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "UNIQUE_RECORD_ROLLUP_MONTH", columnNames = {"RECORD_TYPE", "BUDGET_ID", "PERSON_ID", "RECORD_YEAR", "RECORD_MONTH"})
+        },
+        indexes = {
+                @Index(name = "RECORD_ROLLUP_MONTH_BUDGET_IDX", columnList = "BUDGET_ID, RECORD_YEAR, RECORD_MONTH"),
+                @Index(name = "RECORD_ROLLUP_MONTH_PERSON_IDX", columnList = "PERSON_ID, RECORD_YEAR, RECORD_MONTH")
+        })
+@Getter @Setter @NoArgsConstructor
+public class MonthlyRecordRollupEntity extends RecordRollupEntity {
+
+    @Column(name = "RECORD_MONTH", nullable = false)
+    private int month;
+
+}
@@ -5,7 +5,11 @@ import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "PLAN_RECORD", indexes = {@Index(name = "PLAN_RECORD_BUDGET_ID_IDX", columnList = "BUDGET_ID")})
+@Table(name = "PLAN_RECORD", indexes = {
+        @Index(name = "PLAN_RECORD_PROJECT_DATE_IDX", columnList = "PROJECT_ID, RECORD_DATE"),
+        @Index(name = "PLAN_RECORD_BUDGET_MONTH_IDX", columnList = "BUDGET_ID, RECORD_YEAR, RECORD_MONTH"),
+        @Index(name = "PLAN_RECORD_PERSON_DATE_IDX", columnList = "PERSON_ID, RECORD_DATE")
+})
 public class PlanRecordEntity extends RecordEntity {
 
 }
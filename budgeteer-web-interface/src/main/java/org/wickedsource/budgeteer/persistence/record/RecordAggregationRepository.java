@@ -0,0 +1,19 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import java.util.List;
+
+/**
+ * Aggregates the values of work and plan records along the dimensions described by an {@link AggregationQuery}.
+ * Each query is answered by a single statement against the weekly or monthly record rollups.
+ */
+public interface RecordAggregationRepository {
+
+    /**
+     * Executes the given query.
+     *
+     * @param query describes filters, time grain and grouping of the aggregation
+     * @return the aggregated rows ordered by title, year, period and record type
+     */
+    List<AggregatedRow> aggregate(AggregationQuery query);
+
+}
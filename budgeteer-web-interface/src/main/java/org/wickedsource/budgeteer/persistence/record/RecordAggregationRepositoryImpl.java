@@ -0,0 +1,121 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.math.BigDecimal;
+import java.util.*;
+
+@Repository
+public class RecordAggregationRepositoryImpl implements RecordAggregationRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AggregatedRow> aggregate(AggregationQuery query) {
+        boolean byTime = query.getGrain() != AggregationQuery.Grain.TOTAL;
+        String entity = query.getGrain() == AggregationQuery.Grain.WEEK ? "WeeklyRecordRollupEntity" : "MonthlyRecordRollupEntity";
+        String period = query.getGrain() == AggregationQuery.Grain.WEEK ? "r.week" : "r.month";
+        String title = null;
+        if (query.getTitleDimension() == AggregationQuery.Dimension.BUDGET) {
+            title = "b.name";
+        } else if (query.getTitleDimension() == AggregationQuery.Dimension.PERSON) {
+            title = "p.name";
+        }
+
+        List<String> groupBy = new ArrayList<String>();
+        groupBy.add("r.recordType");
+        if (byTime) {
+            groupBy.add("r.year");
+            groupBy.add(period);
+        }
+        if (title != null) {
+            groupBy.add(title);
+        }
+        if (query.isWithTax()) {
+            groupBy.add("c.taxRate");
+        }
+
+        StringBuilder jpql = new StringBuilder("select ");
+        for (String column : groupBy) {
+            jpql.append(column).append(", ");
+        }
+        jpql.append("sum(r.minutes), sum(r.centMinutes) from ").append(entity).append(" r join r.budget b");
+        if (query.getTitleDimension() == AggregationQuery.Dimension.PERSON) {
+            jpql.append(" join r.person p");
+        }
+        if (query.isWithTax()) {
+            jpql.append(" join b.contract c");
+        }
+
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        jpql.append(" where r.recordType in (:recordTypes)");
+        parameters.put("recordTypes", query.getRecordTypes());
+        if (query.getProjectId() != null) {
+            jpql.append(" and b.project.id = :projectId");
+            parameters.put("projectId", query.getProjectId());
+        }
+        if (query.getBudgetId() != null) {
+            jpql.append(" and b.id = :budgetId");
+            parameters.put("budgetId", query.getBudgetId());
+        }
+        if (query.getPersonId() != null) {
+            jpql.append(" and r.person.id = :personId");
+            parameters.put("personId", query.getPersonId());
+        }
+        if (!query.getBudgetTags().isEmpty()) {
+            jpql.append(" and b.id in (select t.budget.id from BudgetTagEntity t where t.tag in (:tags))");
+            parameters.put("tags", query.getBudgetTags());
+        }
+        if (byTime && query.getStartYear() != null) {
+            jpql.append(" and (r.year > :startYear or (r.year = :startYear and ").append(period).append(" >= :startPeriod))");
+            parameters.put("startYear", query.getStartYear());
+            parameters.put("startPeriod", query.getStartPeriod());
+        }
+
+        jpql.append(" group by ");
+        appendList(jpql, groupBy);
+        List<String> orderBy = new ArrayList<String>();
+        if (title != null) {
+            orderBy.add(title);
+        }
+        if (byTime) {
+            orderBy.add("r.year");
+            orderBy.add(period);
+        }
+        orderBy.add("r.recordType");
+        jpql.append(" order by ");
+        appendList(jpql, orderBy);
+
+        TypedQuery<Object[]> typedQuery = entityManager.createQuery(jpql.toString(), Object[].class);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            typedQuery.setParameter(parameter.getKey(), parameter.getValue());
+        }
+
+        List<AggregatedRow> result = new ArrayList<AggregatedRow>();
+        for (Object[] tuple : typedQuery.getResultList()) {
+            int column = 0;
+            RecordType recordType = (RecordType) tuple[column++];
+            int year = byTime ? ((Number) tuple[column++]).intValue() : 0;
+            int periodValue = byTime ? ((Number) tuple[column++]).intValue() : 0;
+            String titleValue = title != null ? (String) tuple[column++] : null;
+            BigDecimal taxRate = query.isWithTax() ? (BigDecimal) tuple[column++] : null;
+            long minutes = ((Number) tuple[column++]).longValue();
+            long centMinutes = ((Number) tuple[column]).longValue();
+            result.add(new AggregatedRow(recordType, year, periodValue, titleValue, taxRate, minutes, centMinutes));
+        }
+        return result;
+    }
+
+    private void appendList(StringBuilder jpql, List<String> columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                jpql.append(", ");
+            }
+            jpql.append(columns.get(i));
+        }
+    }
+}
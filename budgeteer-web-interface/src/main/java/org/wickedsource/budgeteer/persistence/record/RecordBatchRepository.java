@@ -0,0 +1,33 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import java.util.Collection;
+
+/**
+ * Writes large numbers of new work or plan records, e.g. during an import, without letting the persistence context
+ * grow with every record written.
+ */
+public interface RecordBatchRepository {
+
+    /**
+     * Number of records that are sent to the database with one JDBC batch.
+     */
+    int BATCH_SIZE = 500;
+
+    /**
+     * Inserts the given new records with JDBC batches of {@link #BATCH_SIZE} records. Pending changes of the
+     * persistence context are flushed first, so that new persons, budgets and imports the records refer to exist.
+     * The records are never attached to the persistence context and don't get their generated ids, later changes to
+     * them are not saved.
+     *
+     * @param records new records that have not been persisted yet
+     */
+    void insert(Collection<? extends RecordEntity> records);
+
+    /**
+     * Writes pending changes of the given records to the database and removes them from the persistence context.
+     *
+     * @param records records that were loaded from the database
+     */
+    void flushAndDetach(Collection<? extends RecordEntity> records);
+
+}
@@ -0,0 +1,98 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class RecordBatchRepositoryImpl implements RecordBatchRepository {
+
+    private static final String INSERT_WORK_RECORD = "insert into WORK_RECORD (PERSON_ID, BUDGET_ID, PROJECT_ID, RECORD_DATE, RECORD_YEAR, RECORD_MONTH, " +
+            "RECORD_DAY, RECORD_WEEK, MINUTES, DAILY_RATE, IMPORT_ID, EDITED_MANUALLY, CENT_MINUTES) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_PLAN_RECORD = "insert into PLAN_RECORD (PERSON_ID, BUDGET_ID, PROJECT_ID, RECORD_DATE, RECORD_YEAR, RECORD_MONTH, " +
+            "RECORD_DAY, RECORD_WEEK, MINUTES, DAILY_RATE, IMPORT_ID) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The ids are assigned by identity columns, so Hibernate would send every insert on its own. Plain JDBC batches
+     * leave the ids to the database as well, but send a whole batch at once.
+     */
+    @Override
+    public void insert(Collection<? extends RecordEntity> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        List<WorkRecordEntity> workRecords = new ArrayList<WorkRecordEntity>();
+        List<PlanRecordEntity> planRecords = new ArrayList<PlanRecordEntity>();
+        for (RecordEntity record : records) {
+            if (record instanceof WorkRecordEntity) {
+                workRecords.add((WorkRecordEntity) record);
+            } else {
+                planRecords.add((PlanRecordEntity) record);
+            }
+        }
+        if (!workRecords.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_WORK_RECORD, workRecords, BATCH_SIZE, (statement, record) -> {
+                int index = setRecordValues(statement, record);
+                if (record.isEditedManually() == null) {
+                    statement.setNull(index++, Types.BOOLEAN);
+                } else {
+                    statement.setBoolean(index++, record.isEditedManually());
+                }
+                statement.setLong(index, record.getDailyRate().getAmountMinorLong() * record.getMinutes());
+            });
+        }
+        if (!planRecords.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PLAN_RECORD, planRecords, BATCH_SIZE, RecordBatchRepositoryImpl::setRecordValues);
+        }
+    }
+
+    /**
+     * Sets the values of the columns all records have.
+     *
+     * @return the index of the next parameter
+     */
+    private static int setRecordValues(PreparedStatement statement, RecordEntity record) throws SQLException {
+        ProjectEntity project = record.getProject() != null ? record.getProject() : record.getBudget().getProject();
+        statement.setLong(1, record.getPerson().getId());
+        statement.setLong(2, record.getBudget().getId());
+        statement.setLong(3, project.getId());
+        statement.setDate(4, new java.sql.Date(record.getDate().getTime()));
+        statement.setInt(5, record.getYear());
+        statement.setInt(6, record.getMonth());
+        statement.setInt(7, record.getDay());
+        statement.setInt(8, record.getWeek());
+        statement.setInt(9, record.getMinutes());
+        statement.setLong(10, record.getDailyRate().getAmountMinorLong());
+        statement.setLong(11, record.getImportRecord().getId());
+        return 12;
+    }
+
+    @Override
+    public void flushAndDetach(Collection<? extends RecordEntity> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        for (RecordEntity record : records) {
+            entityManager.detach(record);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.joda.money.Money;
 import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
 import org.wickedsource.budgeteer.persistence.imports.ImportEntity;
 import org.wickedsource.budgeteer.persistence.person.PersonEntity;
+import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
 
 import javax.persistence.*;
 import java.util.Calendar;
@@ -28,6 +29,14 @@ public abstract class RecordEntity {
     @JoinColumn(name = "BUDGET_ID")
     private BudgetEntity budget;
 
+    /**
+     * The project of the record's budget. Stored redundantly so that project-wide queries don't have to join the
+     * BUDGET table.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "PROJECT_ID")
+    private ProjectEntity project;
+
     @Temporal(TemporalType.DATE)
     @Column(name="RECORD_DATE", nullable = false)
     private Date date;
@@ -55,6 +64,13 @@ public abstract class RecordEntity {
     private ImportEntity importRecord;
 
 
+    @PrePersist
+    private void initProject() {
+        if (project == null && budget != null) {
+            project = budget.getProject();
+        }
+    }
+
     public void setDate(Date date) {
         Calendar c = Calendar.getInstance();
         c.setTime(date);
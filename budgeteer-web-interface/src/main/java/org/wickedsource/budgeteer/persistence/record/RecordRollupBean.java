@@ -0,0 +1,27 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Sum of the records of one person in one budget for a single day-independent period (year, month and week).
+ * This is the finest granularity from which both the weekly and the monthly rollups can be derived.
+ */
+@Data
+@AllArgsConstructor
+public class RecordRollupBean {
+
+    private long budgetId;
+
+    private long personId;
+
+    private int year;
+
+    private int month;
+
+    private int week;
+
+    private long minutes;
+
+    private long centMinutes;
+}
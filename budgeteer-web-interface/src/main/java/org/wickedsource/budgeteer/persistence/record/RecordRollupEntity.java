@@ -0,0 +1,56 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
+import org.wickedsource.budgeteer.persistence.person.PersonEntity;
+
+import javax.persistence.*;
+
+/**
+ * Pre-aggregated values of all work or plan records of one person in one budget within a single period.
+ * The rollups are maintained incrementally whenever records are imported, deleted or their daily rates change.
+ */
+@MappedSuperclass
+@Getter @Setter @NoArgsConstructor
+public abstract class RecordRollupEntity {
+
+    @Id
+    @GeneratedValue
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "RECORD_TYPE", nullable = false, length = 10)
+    private RecordType recordType;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "BUDGET_ID")
+    private BudgetEntity budget;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "PERSON_ID")
+    private PersonEntity person;
+
+    @Column(name = "RECORD_YEAR", nullable = false)
+    private int year;
+
+    @Column(nullable = false)
+    private long minutes;
+
+    /**
+     * Sum of minutes multiplied with the daily rate in cents. Divided by 60 * 8 this is the monetary value in cents.
+     * Keeping the undivided value allows summing up rollups without accumulating rounding errors.
+     */
+    @Column(name = "CENT_MINUTES", nullable = false)
+    private long centMinutes;
+
+    public void add(long minutes, long centMinutes) {
+        this.minutes += minutes;
+        this.centMinutes += centMinutes;
+    }
+
+    public boolean isEmpty() {
+        return minutes == 0 && centMinutes == 0;
+    }
+}
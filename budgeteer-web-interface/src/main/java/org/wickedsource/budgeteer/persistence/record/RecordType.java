@@ -0,0 +1,12 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+/**
+ * Distinguishes the aggregated values of work records from those of plan records within the rollup tables.
+ */
+public enum RecordType {
+
+    WORK,
+
+    PLAN
+
+}
@@ -0,0 +1,23 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Data;
+
+/**
+ * Fingerprint of the work records of a project. It changes whenever records are imported, deleted or their values
+ * are edited, so two reports created with the same fingerprint are based on the same data.
+ */
+@Data
+public class RecordsVersionBean {
+
+    private long count;
+
+    private long maxId;
+
+    private long centMinutes;
+
+    public RecordsVersionBean(Number count, Number maxId, Number centMinutes) {
+        this.count = count == null ? 0 : count.longValue();
+        this.maxId = maxId == null ? 0 : maxId.longValue();
+        this.centMinutes = centMinutes == null ? 0 : centMinutes.longValue();
+    }
+}
@@ -0,0 +1,24 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "RECORD_ROLLUP_WEEK",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "UNIQUE_RECORD_ROLLUP_WEEK", columnNames = {"RECORD_TYPE", "BUDGET_ID", "PERSON_ID", "RECORD_YEAR", "RECORD_WEEK"})
+        },
+        indexes = {
+                @Index(name = "RECORD_ROLLUP_WEEK_BUDGET_IDX", columnList = "BUDGET_ID, RECORD_YEAR, RECORD_WEEK"),
+                @Index(name = "RECORD_ROLLUP_WEEK_PERSON_IDX", columnList = "PERSON_ID, RECORD_YEAR, RECORD_WEEK")
+        })
+@Getter @Setter @NoArgsConstructor
+public class WeeklyRecordRollupEntity extends RecordRollupEntity {
+
+    @Column(name = "RECORD_WEEK", nullable = false)
+    private int week;
+
+}
@@ -0,0 +1,35 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Maintains the weekly rollup rows of work and plan records. The aggregated values are read through
+ * {@link RecordAggregationRepository}.
+ */
+public interface WeeklyRecordRollupRepository extends CrudRepository<WeeklyRecordRollupEntity, Long> {
+
+    @Query("select r from WeeklyRecordRollupEntity r where r.recordType = :type and r.budget.id in (:budgetIds) and r.year between :fromYear and :toYear")
+    List<WeeklyRecordRollupEntity> findByBudgetsAndYears(@Param("type") RecordType type, @Param("budgetIds") List<Long> budgetIds, @Param("fromYear") int fromYear, @Param("toYear") int toYear);
+
+    @Modifying
+    @Query("delete from WeeklyRecordRollupEntity r where r.recordType = :type and r.budget.id = :budgetId and r.person.id = :personId")
+    void deleteByBudgetAndPerson(@Param("type") RecordType type, @Param("budgetId") long budgetId, @Param("personId") long personId);
+
+    @Modifying
+    @Query("delete from WeeklyRecordRollupEntity r where r.budget.id = :budgetId")
+    void deleteByBudgetId(@Param("budgetId") long budgetId);
+
+    @Modifying
+    @Query("delete from WeeklyRecordRollupEntity r where r.person.id = :personId")
+    void deleteByPersonId(@Param("personId") long personId);
+
+    @Modifying
+    @Query("delete from WeeklyRecordRollupEntity r where r.budget.id in ( select b.id from BudgetEntity b where b.project.id = :projectId)")
+    void deleteByProjectId(@Param("projectId") long projectId);
+}
+
@@ -1,20 +1,36 @@
 package org.wickedsource.budgeteer.persistence.record;
 
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.Index;
-import javax.persistence.Table;
+import javax.persistence.*;
 
 @Entity
 @Table(name = "WORK_RECORD", indexes = {
-        @Index(name = "WORK_RECORD_BUDGET_ID_IDX", columnList = "BUDGET_ID"),
-        @Index(name = "WORK_RECORD_PERSON_ID_IDX", columnList = "PERSON_ID")
+        @Index(name = "WORK_RECORD_PROJECT_DATE_IDX", columnList = "PROJECT_ID, RECORD_DATE"),
+        @Index(name = "WORK_RECORD_BUDGET_MONTH_IDX", columnList = "BUDGET_ID, RECORD_YEAR, RECORD_MONTH, CENT_MINUTES"),
+        @Index(name = "WORK_RECORD_PERSON_DATE_IDX", columnList = "PERSON_ID, RECORD_DATE")
 })
 public class WorkRecordEntity extends RecordEntity {
 
     @Column(name="EDITED_MANUALLY")
     private Boolean editedManually;
 
+    /**
+     * Minutes multiplied with the daily rate in cents, like {@link RecordRollupEntity#getCentMinutes()}. Stored so that
+     * aggregations can simply sum it up instead of computing it for each record. The sum is converted into cents with
+     * {@link org.wickedsource.budgeteer.MoneyUtil#centMinutesToCents(long)}, so no rounding error accumulates.
+     */
+    @Column(name="CENT_MINUTES")
+    private Long centMinutes;
+
+    @PrePersist
+    @PreUpdate
+    private void updateCentMinutes() {
+        centMinutes = getDailyRate() == null ? null : getDailyRate().getAmountMinorLong() * getMinutes();
+    }
+
+    public Long getCentMinutes() {
+        return centMinutes;
+    }
+
     public Boolean isEditedManually() {
         return editedManually;
     }
@@ -0,0 +1,52 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import com.querydsl.core.types.Predicate;
+
+import java.util.List;
+
+/**
+ * Lists work records matching a Querydsl predicate on {@link QWorkRecordEntity#workRecordEntity} as flat
+ * {@link WorkRecordRowBean}s, page by page.
+ */
+public interface WorkRecordListRepository {
+
+    /**
+     * Name of the sort property used when none or an unknown one is given.
+     */
+    String DEFAULT_SORT_PROPERTY = "date";
+
+    /**
+     * Loads one page of the matching work records.
+     *
+     * @param filter       predicate the records have to match
+     * @param sortProperty name of the {@link WorkRecordRowBean} property to sort by
+     * @param ascending    sort direction
+     * @param offset       index of the first record to load
+     * @param limit        maximum number of records to load
+     * @return the records of the requested page
+     */
+    List<WorkRecordRowBean> findRows(Predicate filter, String sortProperty, boolean ascending, long offset, long limit);
+
+    /**
+     * Loads all matching work records.
+     *
+     * @param filter       predicate the records have to match
+     * @param sortProperty name of the {@link WorkRecordRowBean} property to sort by
+     * @param ascending    sort direction
+     * @return all matching records
+     */
+    List<WorkRecordRowBean> findRows(Predicate filter, String sortProperty, boolean ascending);
+
+    /**
+     * @param filter predicate the records have to match
+     * @return number of matching work records
+     */
+    long countRows(Predicate filter);
+
+    /**
+     * @param filter predicate the records have to match
+     * @return monetary value of all matching work records in cents
+     */
+    long sumBurnedCents(Predicate filter);
+
+}
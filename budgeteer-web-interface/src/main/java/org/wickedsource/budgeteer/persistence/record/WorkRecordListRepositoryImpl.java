@@ -0,0 +1,99 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.stereotype.Repository;
+import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.budget.QBudgetEntity;
+import org.wickedsource.budgeteer.persistence.person.QPersonEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class WorkRecordListRepositoryImpl implements WorkRecordListRepository {
+
+    private static final QWorkRecordEntity record = QWorkRecordEntity.workRecordEntity;
+
+    private static final QBudgetEntity budget = QBudgetEntity.budgetEntity;
+
+    private static final QPersonEntity person = QPersonEntity.personEntity;
+
+    private static final Map<String, ComparableExpressionBase<?>> sortExpressions = new HashMap<String, ComparableExpressionBase<?>>();
+
+    static {
+        sortExpressions.put("budgetName", budget.name);
+        sortExpressions.put("personName", person.name);
+        sortExpressions.put("date", record.date);
+        sortExpressions.put("minutes", record.minutes);
+        sortExpressions.put("dailyRate", record.dailyRate);
+        sortExpressions.put("centMinutes", record.centMinutes);
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<WorkRecordRowBean> findRows(Predicate filter, String sortProperty, boolean ascending, long offset, long limit) {
+        return createRowQuery(filter, sortProperty, ascending)
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+
+    @Override
+    public List<WorkRecordRowBean> findRows(Predicate filter, String sortProperty, boolean ascending) {
+        return createRowQuery(filter, sortProperty, ascending).fetch();
+    }
+
+    @Override
+    public long countRows(Predicate filter) {
+        Long count = new JPAQuery<Void>(entityManager)
+                .select(record.count())
+                .from(record)
+                .where(filter)
+                .fetchOne();
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long sumBurnedCents(Predicate filter) {
+        Long sum = new JPAQuery<Void>(entityManager)
+                .select(record.centMinutes.sum())
+                .from(record)
+                .where(filter)
+                .fetchOne();
+        return sum == null ? 0 : MoneyUtil.centMinutesToCents(sum);
+    }
+
+    private JPAQuery<WorkRecordRowBean> createRowQuery(Predicate filter, String sortProperty, boolean ascending) {
+        ComparableExpressionBase<?> sortExpression = sortExpressions.get(sortProperty);
+        if (sortExpression == null) {
+            sortExpression = sortExpressions.get(DEFAULT_SORT_PROPERTY);
+        }
+        Order order = ascending ? Order.ASC : Order.DESC;
+        return new JPAQuery<Void>(entityManager)
+                .select(Projections.constructor(WorkRecordRowBean.class,
+                        record.id,
+                        budget.name,
+                        person.name,
+                        record.date,
+                        record.minutes,
+                        record.dailyRate,
+                        record.centMinutes,
+                        record.editedManually))
+                .from(record)
+                .join(record.budget, budget)
+                .join(record.person, person)
+                .where(filter)
+                // the ID makes the order of records with equal sort values stable across pages
+                .orderBy(new OrderSpecifier(order, sortExpression), new OrderSpecifier<Long>(order, record.id));
+    }
+}
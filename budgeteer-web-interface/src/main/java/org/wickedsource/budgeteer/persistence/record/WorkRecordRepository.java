@@ -8,6 +8,7 @@ import org.springframework.data.querydsl.QueryDslPredicateExecutor;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
+import org.wickedsource.budgeteer.persistence.imports.ImportEntity;
 import org.wickedsource.budgeteer.persistence.person.PersonEntity;
 import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
 
@@ -22,7 +23,7 @@ public interface WorkRecordRepository extends CrudRepository<WorkRecordEntity, L
      * @param budgetId ID of the budget whose spending to aggregate.
      * @return aggregated monetary value of the spent budget in cents.
      */
-    @Query("select sum(record.minutes * record.dailyRate) / 60 / 8 from WorkRecordEntity record where record.budget.id = :budgetId")
+    @Query("select cast(floor(sum(record.centMinutes) / 480.0) AS double) from WorkRecordEntity record where record.budget.id = :budgetId")
     Double getSpentBudget(@Param("budgetId") long budgetId);
 
     /**
@@ -34,15 +35,39 @@ public interface WorkRecordRepository extends CrudRepository<WorkRecordEntity, L
     @Query("select case when (sum(record.minutes) = 0) then 0 else (sum(record.dailyRate * record.minutes) / sum(record.minutes)) end from WorkRecordEntity record where record.budget.id=:budgetId")
     Double getAverageDailyRate(@Param("budgetId") long budgetId);
 
-    @Query("select sum(record.minutes * record.dailyRate) / 60 / 8 from WorkRecordEntity record where record.budget.id = :budgetId and record.date <= :untilDate")
+    @Query("select cast(floor(sum(record.centMinutes) / 480.0) AS double) from WorkRecordEntity record where record.budget.id = :budgetId and record.date <= :untilDate")
     Double getSpentBudgetUntilDate(@Param("budgetId") long budgetId, @Param("untilDate") Date untilDate);
     
-    @Query("select sum(record.minutes * record.dailyRate) / 60 / 8 from WorkRecordEntity record where record.budget.id = :budgetId and :fromDate <= record.date and record.date <= :untilDate")
+    @Query("select cast(floor(sum(record.centMinutes) / 480.0) AS double) from WorkRecordEntity record where record.budget.id = :budgetId and :fromDate <= record.date and record.date <= :untilDate")
     Double getSpentBudgetInTimeRange(@Param("budgetId") long budgetId, @Param("fromDate") Date fromDate, @Param("untilDate") Date untilDate);
     
     @Query("select max(record.date) from WorkRecordEntity record where record.budget.id=:budgetId")
     Date getLatestWorkRecordDate(@Param("budgetId") long budgetId);
 
+    /**
+     * Aggregates the date of the latest work record, the minutes and the monetary value of the work records of each
+     * of the given budgets. Budgets without work records are not contained in the result.
+     *
+     * @param budgetIds IDs of the budgets whose work records to aggregate
+     * @return one bean per budget that has work records
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.record.BudgetRecordStatisticBean(record.budget.id, max(record.date), sum(record.minutes), sum(record.centMinutes)) from WorkRecordEntity record where record.budget.id in (:budgetIds) group by record.budget.id")
+    List<BudgetRecordStatisticBean> getStatisticsByBudgetIds(@Param("budgetIds") List<Long> budgetIds);
+
+    /**
+     * @return a fingerprint of the work records of the given project which changes with every import or edit.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.record.RecordsVersionBean(count(record), max(record.id), sum(record.centMinutes)) from WorkRecordEntity record where record.project.id = :projectId")
+    RecordsVersionBean getRecordsVersion(@Param("projectId") long projectId);
+
+    /**
+     * Aggregates the work records of each of the given budgets for the given time range: the monetary value and the
+     * minutes of the records within the range and the monetary value of all records up to the end of the range.
+     * Budgets without work records up to the end of the range are not contained in the result.
+     */
+    @Query("select new org.wickedsource.budgeteer.persistence.record.BudgetRangeStatisticBean(record.budget.id, sum(case when record.date >= :fromDate then record.centMinutes else 0 end), sum(case when record.date >= :fromDate then record.minutes else 0 end), sum(record.centMinutes)) from WorkRecordEntity record where record.budget.id in (:budgetIds) and record.date <= :untilDate group by record.budget.id")
+    List<BudgetRangeStatisticBean> getStatisticsInTimeRangeByBudgetIds(@Param("budgetIds") List<Long> budgetIds, @Param("fromDate") Date fromDate, @Param("untilDate") Date untilDate);
+
     @Query("select min(record.date) from WorkRecordEntity record where record.budget.id=:budgetId")
     Date getFirstWorkRecordDate(@Param("budgetId") long budgetId);
     
@@ -71,7 +96,12 @@ public interface WorkRecordRepository extends CrudRepository<WorkRecordEntity, L
 
     @Override
     @Modifying
-    @Query("delete from WorkRecordEntity r where r.budget.id in ( select b.id from BudgetEntity b where b.project.id = :projectId)")
+    @Query("update WorkRecordEntity r set r.project = (select b.project from BudgetEntity b where b = r.budget) where r.project is null")
+    int updateMissingProjects();
+
+    @Override
+    @Modifying
+    @Query("delete from WorkRecordEntity r where r.project.id = :projectId")
     void deleteByProjectId(@Param("projectId") long projectId);
 
     @Query("select new org.wickedsource.budgeteer.persistence.record.MissingDailyRateBean(r.person.id, r.person.name, min(r.date), max(r.date)) from WorkRecordEntity r where r.dailyRate = 0 and r.person.project.id = :projectId group by r.person.id, r.person.name")
@@ -81,209 +111,87 @@ public interface WorkRecordRepository extends CrudRepository<WorkRecordEntity, L
     List<MissingDailyRateForBudgetBean> getMissingDailyRatesForPerson(@Param("personId") long personId);
 
 
-    @Override
+    /**
+     * Recomputes the burned value of the records affected by {@link #updateDailyRates(long, long, Date, Date, Money)}.
+     */
     @Modifying
-    @Query("update WorkRecordEntity r set r.dailyRate = :dailyRate where r.editedManually = false AND r.budget.id=:budgetId and r.person.id=:personId and r.date between :fromDate and :toDate")
-    void updateDailyRates(@Param("budgetId") long budgetId, @Param("personId") long personId, @Param("fromDate") Date fromDate, @Param("toDate") Date toDate, @Param("dailyRate") Money dailyRate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.person.id=:personId group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekAndPerson(@Param("personId") long personId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.person.id=:personId group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthAndPerson(@Param("personId") long personId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.id=:budgetId group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekAndBudget(@Param("budgetId") long budgetId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate) from WorkRecordEntity r where r.budget.id=:budgetId group by r.year, r.week, r.budget.contract.taxRate order by r.year, r.week")
-    List<WeeklyAggregatedRecordWithTaxBean> aggregateByWeekAndBudgetWithTax(@Param("budgetId") long budgetId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.id=:budgetId group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthAndBudget(@Param("budgetId") long budgetId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r where r.budget.id=:budgetId group by r.year, r.month, r.budget.contract.taxRate order by r.year, r.month")
-    List<MonthlyAggregatedRecordWithTaxBean> aggregateByMonthAndBudgetWithTax(@Param("budgetId") long budgetId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekAndBudgetTags(@Param("projectId") long projectId, @Param("tags") List<String> tags);
+    @Query("update WorkRecordEntity r set r.centMinutes = r.minutes * r.dailyRate where r.budget.id=:budgetId and r.person.id=:personId and r.date between :fromDate and :toDate")
+    void updateCentMinutes(@Param("budgetId") long budgetId, @Param("personId") long personId, @Param("fromDate") Date fromDate, @Param("toDate") Date toDate);
 
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) group by r.year, r.week, r.budget.contract.taxRate order by r.year, r.week")
-    List<WeeklyAggregatedRecordWithTaxBean> aggregateByWeekAndBudgetTagsWithTax(@Param("projectId") long projectId, @Param("tags") List<String> tags);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthAndBudgetTags(@Param("projectId") long projectId, @Param("tags") List<String> tags);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) group by r.year, r.month, r.budget.contract.taxRate order by r.year, r.month")
-    List<MonthlyAggregatedRecordWithTaxBean> aggregateByMonthAndBudgetTagsWithTax(@Param("projectId") long projectId, @Param("tags") List<String> tags);
+    /**
+     * Computes the burned value of all records that were stored before the value was persisted.
+     *
+     * @return number of updated records
+     */
+    @Modifying
+    @Query("update WorkRecordEntity r set r.centMinutes = r.minutes * r.dailyRate where r.centMinutes is null")
+    int updateMissingCentMinutes();
 
     @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.project.id=:projectId and r.date >= :startDate group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekForProject(@Param("projectId") long projectId, @Param("startDate") Date start);
+    @Modifying
+    @Query("update WorkRecordEntity r set r.dailyRate = :dailyRate where r.editedManually = false AND r.budget.id=:budgetId and r.person.id=:personId and r.date between :fromDate and :toDate")
+    void updateDailyRates(@Param("budgetId") long budgetId, @Param("personId") long personId, @Param("fromDate") Date fromDate, @Param("toDate") Date toDate, @Param("dailyRate") Money dailyRate);
 
-    @Query("select new org.wickedsource.budgeteer.persistence.record.DailyAverageRateBean(r.year, r.month, r.day, avg(r.dailyRate)) from WorkRecordEntity r where r.budget.project.id = :projectId and r.date >= :startDate group by r.year, r.month, r.day order by r.year, r.month, r.day")
+    @Query("select new org.wickedsource.budgeteer.persistence.record.DailyAverageRateBean(r.year, r.month, r.day, avg(r.dailyRate)) from WorkRecordEntity r where r.project.id = :projectId and r.date >= :startDate group by r.year, r.month, r.day order by r.year, r.month, r.day")
     List<DailyAverageRateBean> getAverageDailyRatesPerDay(@Param("projectId") long projectId, @Param("startDate") Date startDate);
 
-    @Query("select new org.wickedsource.budgeteer.persistence.record.ShareBean(b.name, sum(r.minutes * r.dailyRate) / 60 / 8) from WorkRecordEntity r join r.budget b where r.person.id = :personId group by b.name")
-    List<ShareBean> getBudgetShareForPerson(@Param("personId") long personId);
-
-    @Query("select new org.wickedsource.budgeteer.persistence.record.ShareBean(p.name, sum(r.minutes * r.dailyRate) / 60 / 8) from WorkRecordEntity r join r.person p where r.budget.id = :budgetId group by p.name")
-    List<ShareBean> getPersonShareForBudget(@Param("budgetId") long budgetId);
-
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.person.id=:personId and r.date >= :startDate group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekForPerson(@Param("personId") long personId, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, b.name ) from WorkRecordEntity r join r.budget b where r.person.id=:personId and r.date >= :startDate group by r.year, r.week, b.name order by b.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleBean> aggregateByWeekAndBudgetForPerson(@Param("personId") long personId, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name ) from WorkRecordEntity r join r.person p where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.week, p.name order by p.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleBean> aggregateByWeekAndPersonForBudget(@Param("budgetId") long budgetId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleAndTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate, p.name ) from WorkRecordEntity r join r.person p where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.week, r.budget.contract.taxRate, p.name order by p.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleAndTaxBean> aggregateByWeekAndPersonForBudgetWithTax(@Param("budgetId") long budgetId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekForBudget(@Param("budgetId") long budgetId, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.week, r.budget.contract.taxRate order by r.year, r.week")
-    List<WeeklyAggregatedRecordWithTaxBean> aggregateByWeekForBudgetWithTax(@Param("budgetId") long budgetId, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.project.id=:projectId and r.date >= :startDate group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekForBudgets(@Param("projectId") long projectId, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.project.id=:projectId group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeek(@Param("projectId") long projectId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r where r.budget.project.id=:projectId group by r.year, r.week, r.budget.contract.taxRate order by r.year, r.week, r.budget.contract.taxRate")
-    List<WeeklyAggregatedRecordWithTaxBean> aggregateByWeekWithTax(@Param("projectId") long projectId);
-
     @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name ) from WorkRecordEntity r join r.person p join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.week, p.name order by p.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleBean> aggregateByWeekAndPersonForBudgets(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name ) from WorkRecordEntity r join r.person p join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.week, p.name order by p.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleBean> aggregateByWeekAndPersonForBudgets(@Param("projectId") long projectId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleAndTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate, p.name ) from WorkRecordEntity r join r.person p join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.week, r.budget.contract.taxRate, p.name order by p.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleAndTaxBean> aggregateByWeekAndPersonForBudgetsWithTax(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTitleAndTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate, p.name ) from WorkRecordEntity r join r.person p join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.week, r.budget.contract.taxRate, p.name order by p.name, r.year, r.week")
-    List<WeeklyAggregatedRecordWithTitleAndTaxBean> aggregateByWeekAndPersonForBudgetsWithTax(@Param("projectId") long projectId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.week order by r.year, r.week")
-    List<WeeklyAggregatedRecordBean> aggregateByWeekForBudgets(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.week, r.budget.contract.taxRate order by r.year, r.week")
-    List<WeeklyAggregatedRecordWithTaxBean> aggregateByWeekForBudgetsWithTax(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithTaxBean(r.year, r.week, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.week, r.budget.contract.taxRate order by r.year, r.week")
-    List<WeeklyAggregatedRecordWithTaxBean> aggregateByWeekForBudgetsWithTax(@Param("projectId") long projectId, @Param("startDate") Date start);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.person.id=:personId and r.date >= :startDate group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthForPerson(@Param("personId") long personId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, b.name ) from WorkRecordEntity r join r.budget b where r.person.id=:personId and r.date >= :startDate group by r.year, r.month, b.name order by b.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleBean> aggregateByMonthAndBudgetForPerson(@Param("personId") long personId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthForBudget(@Param("budgetId") long budgetId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate) from WorkRecordEntity r where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordWithTaxBean> aggregateByMonthForBudgetWithTax(@Param("budgetId") long budgetId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name ) from WorkRecordEntity r join r.person p where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.month, p.name order by p.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleBean> aggregateByMonthAndPersonForBudget(@Param("budgetId") long budgetId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleAndTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name, r.budget.contract.taxRate ) from WorkRecordEntity r join r.person p where r.budget.id=:budgetId and r.date >= :startDate group by r.year, r.month, p.name, r.budget.contract.taxRate order by p.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleAndTaxBean> aggregateByMonthAndPersonForBudgetWithTax(@Param("budgetId") long budgetId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthForBudgets(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonthForBudgets(@Param("projectId") long projectId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.month, r.budget.contract.taxRate order by r.year, r.month")
-    List<MonthlyAggregatedRecordWithTaxBean> aggregateByMonthForBudgetsWithTax(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate ) from WorkRecordEntity r join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.month, r.budget.contract.taxRate order by r.year, r.month")
-    List<MonthlyAggregatedRecordWithTaxBean> aggregateByMonthForBudgetsWithTax(@Param("projectId") long projectId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8 ) from WorkRecordEntity r join r.budget b where b.project.id=:projectId group by r.year, r.month order by r.year, r.month")
-    List<MonthlyAggregatedRecordBean> aggregateByMonth(@Param("projectId") long projectId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, r.budget.contract.taxRate) from WorkRecordEntity r join r.budget b where b.project.id=:projectId group by r.year, r.month, r.budget.contract.taxRate order by r.year, r.month")
-    List<MonthlyAggregatedRecordWithTaxBean> aggregateByMonthWithTax(@Param("projectId") long projectId);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name ) from WorkRecordEntity r join r.person p join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.month, p.name order by p.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleBean> aggregateByMonthAndPersonForBudgets(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name ) from WorkRecordEntity r join r.person p join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.month, p.name order by p.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleBean> aggregateByMonthAndPersonForBudgets(@Param("projectId") long projectId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleAndTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name, r.budget.contract.taxRate ) from WorkRecordEntity r join r.person p join r.budget b join b.tags t where b.project.id=:projectId and t.tag in (:tags) and r.date >= :startDate group by r.year, r.month, p.name, r.budget.contract.taxRate order by p.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleAndTaxBean> aggregateByMonthAndPersonForBudgetsWithTax(@Param("projectId") long projectId, @Param("tags") List<String> tags, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select new org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordWithTitleAndTaxBean(r.year, r.month, sum(r.minutes) / 60.0, sum(r.minutes * r.dailyRate) / 60 / 8, p.name, r.budget.contract.taxRate ) from WorkRecordEntity r join r.person p join r.budget b where b.project.id=:projectId and r.date >= :startDate group by r.year, r.month, p.name, r.budget.contract.taxRate order by p.name, r.year, r.month")
-    List<MonthlyAggregatedRecordWithTitleAndTaxBean> aggregateByMonthAndPersonForBudgetsWithTax(@Param("projectId") long projectId, @Param("startDate") Date startDate);
-
-    @Override
-    @Query("select count (wre.id) from WorkRecordEntity wre where wre.budget.project.id = :projectId")
+    @Query("select count (wre.id) from WorkRecordEntity wre where wre.project.id = :projectId")
     Long countByProjectId(@Param("projectId") long projectId);
 
-    @Query("select wr from WorkRecordEntity wr where wr.budget.project.id = :projectId AND wr.editedManually = true AND wr.date >= :startDate AND wr.date <= :endDate")
+    @Query("select wr from WorkRecordEntity wr where wr.project.id = :projectId AND wr.editedManually = true AND wr.date >= :startDate AND wr.date <= :endDate")
     List<WorkRecordEntity> findManuallyEditedEntries(@Param("projectId") long projectId, @Param("startDate") Date earliestRecordDate, @Param("endDate") Date latestRecordDate);
 
     @Query("select wr from WorkRecordEntity wr where wr.budget = :budget AND wr.person = :person AND wr.date = :recordDate AND wr.minutes = :workedMinutes AND wr.editedManually = false")
     List<WorkRecordEntity> findDuplicateEntries(@Param("budget") BudgetEntity budget, @Param("person") PersonEntity person, @Param("recordDate") Date recordDate, @Param("workedMinutes") int workedMinutes);
 
-    @Query("select wr from WorkRecordEntity wr where wr.budget.project = :project AND wr.date >= :start and wr.date <= :end")
+    /**
+     * Finds the records that were not edited manually but have the same budget, person, date and minutes as one of the
+     * manually edited records of the given project and date range, i.e. the results of
+     * {@link #findDuplicateEntries(BudgetEntity, PersonEntity, Date, int)} for all results of
+     * {@link #findManuallyEditedEntries(long, Date, Date)} at once.
+     */
+    @Query("select distinct wr from WorkRecordEntity wr, WorkRecordEntity edited where edited.project.id = :projectId AND edited.editedManually = true AND edited.date >= :startDate AND edited.date <= :endDate " +
+            "AND wr.budget = edited.budget AND wr.person = edited.person AND wr.date = edited.date AND wr.minutes = edited.minutes AND wr.editedManually = false order by wr.id")
+    List<WorkRecordEntity> findDuplicatesOfManuallyEditedEntries(@Param("projectId") long projectId, @Param("startDate") Date earliestRecordDate, @Param("endDate") Date latestRecordDate);
+
+    /**
+     * Finds the records of the given project within the given date range that belong to one of the given budgets and
+     * one of the given persons but not to the given import, i.e. the records a batch of imported records has to be
+     * compared with during a delta import.
+     */
+    @Query("select wr from WorkRecordEntity wr where wr.project.id = :projectId AND wr.date >= :startDate AND wr.date <= :endDate " +
+            "AND wr.budget.id in (:budgetIds) AND wr.person.id in (:personIds) AND wr.importRecord.id <> :importId order by wr.id")
+    List<WorkRecordEntity> findForDeltaImport(@Param("projectId") long projectId, @Param("startDate") Date startDate, @Param("endDate") Date endDate,
+                                              @Param("budgetIds") List<Long> budgetIds, @Param("personIds") List<Long> personIds, @Param("importId") long importId);
+
+    /**
+     * Moves the given records to the given import without loading them.
+     */
+    @Modifying
+    @Query("update WorkRecordEntity r set r.importRecord = :importRecord where r.id in (:ids)")
+    void updateImport(@Param("ids") List<Long> ids, @Param("importRecord") ImportEntity importRecord);
+
+    @Query("select wr from WorkRecordEntity wr where wr.project = :project AND wr.date >= :start and wr.date <= :end")
     List<WorkRecordEntity> findByProjectAndDateRange(@Param("project")ProjectEntity project, @Param("start") Date start, @Param("end") Date end);
 
     @Override
-    @Query("select wr from WorkRecordEntity wr where wr.budget.project.id = :projectId")
+    @Query("select wr from WorkRecordEntity wr where wr.project.id = :projectId")
     List<WorkRecordEntity> findByProjectId(@Param("projectId") long projectId);
 
     
     
     
+
+    @Override
+    @Query("select new org.wickedsource.budgeteer.persistence.record.RecordRollupBean(r.budget.id, r.person.id, r.year, r.month, r.week, sum(r.minutes), sum(r.minutes * r.dailyRate)) from WorkRecordEntity r where r.importRecord.id = :importId group by r.budget.id, r.person.id, r.year, r.month, r.week")
+    List<RecordRollupBean> aggregateForRollupByImport(@Param("importId") long importId);
+
+    @Override
+    @Query("select new org.wickedsource.budgeteer.persistence.record.RecordRollupBean(r.budget.id, r.person.id, r.year, r.month, r.week, sum(r.minutes), sum(r.minutes * r.dailyRate)) from WorkRecordEntity r where r.budget.id = :budgetId and r.person.id = :personId group by r.budget.id, r.person.id, r.year, r.month, r.week")
+    List<RecordRollupBean> aggregateForRollupByBudgetAndPerson(@Param("budgetId") long budgetId, @Param("personId") long personId);
+
+    @Override
+    @Query("select new org.wickedsource.budgeteer.persistence.record.RecordRollupBean(r.budget.id, r.person.id, r.year, r.month, r.week, sum(r.minutes), sum(r.minutes * r.dailyRate)) from WorkRecordEntity r where r.project.id = :projectId group by r.budget.id, r.person.id, r.year, r.month, r.week")
+    List<RecordRollupBean> aggregateForRollupByProject(@Param("projectId") long projectId);
 }
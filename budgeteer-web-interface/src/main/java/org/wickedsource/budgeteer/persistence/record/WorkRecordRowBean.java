@@ -0,0 +1,44 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import lombok.Data;
+import org.joda.money.Money;
+
+import java.util.Date;
+
+/**
+ * Flat projection of a single work record with the names of its budget and person, used to list records without
+ * loading the record, budget and person entities.
+ */
+@Data
+public class WorkRecordRowBean {
+
+    private long id;
+
+    private String budgetName;
+
+    private String personName;
+
+    private Date date;
+
+    private int minutes;
+
+    private Money dailyRate;
+
+    /**
+     * Minutes multiplied with the daily rate in cents, see {@link WorkRecordEntity#getCentMinutes()}.
+     */
+    private Long centMinutes;
+
+    private boolean editedManually;
+
+    public WorkRecordRowBean(Long id, String budgetName, String personName, Date date, Integer minutes, Money dailyRate, Long centMinutes, Boolean editedManually) {
+        this.id = id;
+        this.budgetName = budgetName;
+        this.personName = personName;
+        this.date = date;
+        this.minutes = minutes == null ? 0 : minutes;
+        this.dailyRate = dailyRate;
+        this.centMinutes = centMinutes;
+        this.editedManually = editedManually != null && editedManually;
+    }
+}
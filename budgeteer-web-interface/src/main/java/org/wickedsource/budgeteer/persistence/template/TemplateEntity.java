@@ -14,6 +14,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.zip.CRC32;
 
 
 @Entity
@@ -50,6 +51,10 @@ public class TemplateEntity implements Serializable {
     @Lob
     private byte[] wbArr;
 
+    //Checksum of the template bytes, used to tell whether a cached copy of the workbook is still up to date.
+    @Column(name="TEMPLATE_VERSION", nullable = true)
+    private Long templateVersion;
+
     public TemplateEntity( String name, String description, ReportType type, XSSFWorkbook workbook, boolean isDefault, long projectID){
         this.name = name;
         this.description = description;
@@ -85,6 +90,31 @@ public class TemplateEntity implements Serializable {
         }
     }
 
+    /**
+     * Creates a TemplateEntity from the already serialized bytes of a workbook, so it does not have to be parsed.
+     */
+    public TemplateEntity(long id, String name, String description, ReportType type, byte[] workbookBytes, boolean isDefault, long projectID){
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.type = type;
+        this.wbArr = workbookBytes;
+        this.projectId = projectID;
+        this.isDefault = isDefault;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateTemplateVersion() {
+        if (wbArr == null) {
+            templateVersion = null;
+        } else {
+            CRC32 checksum = new CRC32();
+            checksum.update(wbArr);
+            templateVersion = checksum.getValue();
+        }
+    }
+
     /**
      * Create a new Template object from our data.
      * @return A new Template from this TemplateEntity
@@ -0,0 +1,39 @@
+package org.wickedsource.budgeteer.persistence.template;
+
+import lombok.Data;
+import org.wickedsource.budgeteer.service.ReportType;
+
+import java.io.Serializable;
+
+/**
+ * The data of a {@link TemplateEntity} without the template bytes, so templates can be listed without loading
+ * their workbooks.
+ */
+@Data
+public class TemplateMetadataBean implements Serializable {
+
+    private long id;
+
+    private long projectId;
+
+    private String name;
+
+    private String description;
+
+    private ReportType type;
+
+    private boolean isDefault;
+
+    private Long templateVersion;
+
+    public TemplateMetadataBean(Long id, Long projectId, String name, String description, ReportType type, Boolean isDefault, Long templateVersion) {
+        this.id = id;
+        this.projectId = projectId;
+        this.name = name;
+        this.description = description;
+        //Templates of old databases do not have a type, see TemplateEntity.getType()
+        this.type = type == null ? ReportType.BUDGET_REPORT : type;
+        this.isDefault = isDefault != null && isDefault;
+        this.templateVersion = templateVersion;
+    }
+}
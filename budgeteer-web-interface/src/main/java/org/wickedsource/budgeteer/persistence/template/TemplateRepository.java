@@ -1,9 +1,32 @@
 package org.wickedsource.budgeteer.persistence.template;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.wickedsource.budgeteer.service.ReportType;
 
 import java.util.List;
 
 public interface TemplateRepository extends CrudRepository<TemplateEntity, Long> {
     List<TemplateEntity> findByProjectId(long projectId);
-}
\ No newline at end of file
+
+    @Query("select new org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean(t.id, t.projectId, t.name, t.description, t.type, t.isDefault, t.templateVersion) from TemplateEntity t where t.id = :id")
+    TemplateMetadataBean findMetadataById(@Param("id") long id);
+
+    @Query("select new org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean(t.id, t.projectId, t.name, t.description, t.type, t.isDefault, t.templateVersion) from TemplateEntity t where t.projectId = :projectId order by t.id")
+    List<TemplateMetadataBean> findMetadataByProjectId(@Param("projectId") long projectId);
+
+    @Query("select new org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean(t.id, t.projectId, t.name, t.description, t.type, t.isDefault, t.templateVersion) from TemplateEntity t order by t.id")
+    List<TemplateMetadataBean> findAllMetadata();
+
+    @Query("select new org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean(t.id, t.projectId, t.name, t.description, t.type, t.isDefault, t.templateVersion) from TemplateEntity t where t.projectId = :projectId and t.type = :type and t.isDefault = true")
+    List<TemplateMetadataBean> findDefaultMetadata(@Param("projectId") long projectId, @Param("type") ReportType type);
+
+    @Query("select t.wbArr from TemplateEntity t where t.id = :id")
+    byte[] findTemplateBytes(@Param("id") long id);
+
+    @Modifying
+    @Query("update TemplateEntity t set t.isDefault = false where t.type = :type and t.id <> :templateId and t.isDefault = true")
+    void resetDefaults(@Param("type") ReportType type, @Param("templateId") long templateId);
+}
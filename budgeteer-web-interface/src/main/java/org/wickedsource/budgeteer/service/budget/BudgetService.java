@@ -13,26 +13,30 @@ import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
 import org.wickedsource.budgeteer.persistence.person.DailyRateRepository;
 import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
 import org.wickedsource.budgeteer.persistence.project.ProjectRepository;
+import org.wickedsource.budgeteer.persistence.record.BudgetRecordStatisticBean;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
 import org.wickedsource.budgeteer.service.UnknownEntityException;
 import org.wickedsource.budgeteer.service.contract.ContractDataMapper;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 import org.wickedsource.budgeteer.web.BudgeteerSession;
 import org.wickedsource.budgeteer.web.components.listMultipleChoiceWithGroups.OptionGroup;
 
 import javax.transaction.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 
 @Service
 @Transactional
 public class BudgetService {
 
+    /**
+     * Maximum number of budget IDs passed to a single "in" clause. Oracle does not accept more than 1000 values.
+     */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     @Autowired
     private BudgetRepository budgetRepository;
 
@@ -54,6 +58,9 @@ public class BudgetService {
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private RecordRollupService recordRollupService;
+
     @Autowired
     private ContractDataMapper contractDataMapper;
 
@@ -119,30 +126,60 @@ public class BudgetService {
      */
     public BudgetDetailData loadBudgetDetailData(long budgetId) {
         BudgetEntity budget = budgetRepository.findOne(budgetId);
-        return enrichBudgetEntity(budget);
+        return enrichBudgetEntities(Collections.singletonList(budget)).get(0);
     }
 
-    private BudgetDetailData enrichBudgetEntity(BudgetEntity entity) {
-        Date lastUpdated = workRecordRepository.getLatestWorkRecordDate(entity.getId());
-        Double spentBudgetInCents = workRecordRepository.getSpentBudget(entity.getId());
-        Double plannedBudgetInCents = planRecordRepository.getPlannedBudget(entity.getId());
-        Double avgDailyRateInCents = workRecordRepository.getAverageDailyRate(entity.getId());
-        Double taxCoefficient = budgetRepository.getTaxCoefficientByBudget(entity.getId());
+    /**
+     * Enriches the given budgets with their spent and planned values. The record figures of all budgets are loaded
+     * with one grouped query for work records and one for plan records per {@link #MAX_IDS_PER_QUERY} budgets.
+     */
+    private List<BudgetDetailData> enrichBudgetEntities(List<BudgetEntity> entities) {
+        List<BudgetDetailData> dataList = new ArrayList<BudgetDetailData>();
+        if (entities.isEmpty()) {
+            return dataList;
+        }
+        List<Long> budgetIds = new ArrayList<Long>();
+        for (BudgetEntity entity : entities) {
+            budgetIds.add(entity.getId());
+        }
+        Map<Long, BudgetRecordStatisticBean> workStatistics = new HashMap<Long, BudgetRecordStatisticBean>();
+        Map<Long, BudgetRecordStatisticBean> planStatistics = new HashMap<Long, BudgetRecordStatisticBean>();
+        for (int i = 0; i < budgetIds.size(); i += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = budgetIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, budgetIds.size()));
+            workStatistics.putAll(mapByBudgetId(workRecordRepository.getStatisticsByBudgetIds(chunk)));
+            planStatistics.putAll(mapByBudgetId(planRecordRepository.getStatisticsByBudgetIds(chunk)));
+        }
+        for (BudgetEntity entity : entities) {
+            dataList.add(enrichBudgetEntity(entity, workStatistics.get(entity.getId()), planStatistics.get(entity.getId())));
+        }
+        return dataList;
+    }
+
+    private Map<Long, BudgetRecordStatisticBean> mapByBudgetId(List<BudgetRecordStatisticBean> statistics) {
+        Map<Long, BudgetRecordStatisticBean> result = new HashMap<Long, BudgetRecordStatisticBean>();
+        for (BudgetRecordStatisticBean bean : statistics) {
+            result.put(bean.getBudgetId(), bean);
+        }
+        return result;
+    }
+
+    private BudgetDetailData enrichBudgetEntity(BudgetEntity entity, BudgetRecordStatisticBean workStatistic, BudgetRecordStatisticBean planStatistic) {
+        double taxCoefficient = getTaxCoefficient(entity.getContract());
 
         BudgetDetailData data = new BudgetDetailData();
         data.setId(entity.getId());
-        data.setLastUpdated(lastUpdated);
+        data.setLastUpdated(workStatistic == null ? null : workStatistic.getLatestRecordDate());
         data.setName(entity.getName());
         data.setDescription(entity.getDescription());
         data.setTags(mapEntitiesToTags(entity.getTags()));
         // Money
-        data.setSpent(toMoneyNullsafe(spentBudgetInCents));
+        data.setSpent(toMoneyNullsafe(workStatistic == null ? null : workStatistic.getValueInCents()));
         data.setSpent_gross(data.getSpent().multipliedBy(taxCoefficient, RoundingMode.FLOOR));
         data.setTotal(entity.getTotal());
         data.setTotal_gross(data.getTotal().multipliedBy(taxCoefficient, RoundingMode.FLOOR));
-        data.setAvgDailyRate(toMoneyNullsafe(avgDailyRateInCents));
+        data.setAvgDailyRate(toMoneyNullsafe(workStatistic == null ? null : workStatistic.getAverageDailyRateInCents()));
         data.setAvgDailyRate_gross(data.getAvgDailyRate().multipliedBy(taxCoefficient, RoundingMode.FLOOR));
-        data.setUnplanned(entity.getTotal().minus(toMoneyNullsafe(plannedBudgetInCents)));
+        data.setUnplanned(entity.getTotal().minus(toMoneyNullsafe(planStatistic == null ? null : planStatistic.getValueInCents())));
         data.setUnplanned_gross(data.getUnplanned().multipliedBy(taxCoefficient, RoundingMode.FLOOR));
         // Money end
         data.setContractName(entity.getContract() == null ? null : entity.getContract().getName() );
@@ -150,11 +187,21 @@ public class BudgetService {
         return data;
     }
 
-    private Money toMoneyNullsafe(Double cents) {
+    /**
+     * Same as {@link BudgetRepository#getTaxCoefficientByBudget(long)}, but computed from the already loaded contract.
+     */
+    private double getTaxCoefficient(ContractEntity contract) {
+        if (contract == null || contract.getTaxRate() == null) {
+            return 1.0;
+        }
+        return 1.0 + contract.getTaxRate().doubleValue() / 100.0;
+    }
+
+    private Money toMoneyNullsafe(Long cents) {
         if (cents == null) {
             return MoneyUtil.createMoneyFromCents(0l);
         } else {
-            return MoneyUtil.createMoneyFromCents(Math.round(cents));
+            return MoneyUtil.createMoneyFromCents(cents);
         }
     }
 
@@ -188,12 +235,7 @@ public class BudgetService {
      */
     public List<BudgetDetailData> loadBudgetsDetailData(long projectId, BudgetTagFilter filter) {
         List<BudgetEntity> budgets = loadBudgetEntities(projectId, filter);
-        List<BudgetDetailData> dataList = new ArrayList<BudgetDetailData>();
-        for (BudgetEntity entity : budgets) {
-            // TODO: 4 additional database queries per loop! These can yet be optimized to 4 queries total!
-            dataList.add(enrichBudgetEntity(entity));
-        }
-        return dataList;
+        return enrichBudgetEntities(budgets);
     }
 
     /**
@@ -295,18 +337,16 @@ public class BudgetService {
     }
 
     public void deleteBudget(long id) {
+        recordRollupService.deleteByBudget(id);
         budgetRepository.delete(id);
     }
 
     public List<BudgetDetailData> loadBudgetByContract(long cId){
-        List<BudgetDetailData> result = new LinkedList<BudgetDetailData>();
         List<BudgetEntity> temp =budgetRepository.findByContractId(cId);
-        if(temp != null){
-            for(BudgetEntity b : temp){
-                result.add(enrichBudgetEntity(b));
-            }
+        if(temp == null){
+            return new LinkedList<BudgetDetailData>();
         }
-        return result;
+        return enrichBudgetEntities(temp);
     }
 
     public List<OptionGroup<BudgetBaseData>> getPossibleBudgetDataForPersonAndProject(long projectId, long personId){
@@ -1,16 +1,16 @@
 package org.wickedsource.budgeteer.service.budget.report;
 
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.joda.money.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.SheetTemplate.SheetTemplate;
 import org.wickedsource.budgeteer.SheetTemplate.SheetTemplateSerializable;
 import org.wickedsource.budgeteer.SheetTemplate.TemplateWriter;
+import org.wickedsource.budgeteer.persistence.record.BudgetRangeStatisticBean;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
 import org.wickedsource.budgeteer.service.DateRange;
 import org.wickedsource.budgeteer.service.budget.BudgetDetailData;
@@ -28,14 +28,21 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class BudgetReportService {
 
+	/**
+	 * Maximum number of budget IDs passed to a single "in" clause. Oracle does not accept more than 1000 values.
+	 */
+	private static final int MAX_IDS_PER_QUERY = 1000;
+
 	@Autowired
 	private BudgetService budgetService;
 
@@ -49,22 +56,26 @@ public class BudgetReportService {
 	private TemplateService templateService;
 
 	/**
-	 * Creates an excel spreadsheet containing the budgets informations
+	 * Creates an excel spreadsheet containing the budgets informations.
+	 * The header and the summary of each sheet are written into the template first, the budgets are then streamed
+	 * into the sheets, so only a window of rows is held in memory. Formulas are calculated when the file is opened.
      * @param projectId ProjectId
 	 * @param filter TagFilter of the selected Budgets
 	 * @param metaInformationen Necessary informations about the report
 	 * @return Excel spreadsheet file
 	 */
     public File createReportFile(long templateId, long projectId, BudgetTagFilter filter, ReportMetaInformation metaInformationen) {
-		List<BudgetReportData> overallBudgetReportList = loadOverallBudgetReportData(projectId, filter,
-				metaInformationen);
-		List<BudgetReportData> monthlyBudgetReportList = loadMonthlyBudgetReportData(projectId, filter,
-				metaInformationen);
+		List<BudgetDetailData> budgets = budgetService.loadBudgetsDetailData(projectId, filter);
+		Map<Long, ContractBaseData> contracts = loadContracts(budgets);
+		List<BudgetReportData> overallBudgetReportList = loadBudgetReportData(budgets, contracts,
+				metaInformationen.getOverallTimeRange());
+		List<BudgetReportData> monthlyBudgetReportList = loadBudgetReportData(budgets, contracts,
+				metaInformationen.getMonthlyTimeRange());
 
 		XSSFWorkbook wb = getSheetWorkbook(templateId);
 
-		writeBudgetData(wb.getSheetAt(0), overallBudgetReportList);
-		writeBudgetData(wb.getSheetAt(1), monthlyBudgetReportList);
+		TemplateWriter<BudgetReportData> overallWriter = prepareBudgetData(wb.getSheetAt(0), overallBudgetReportList);
+		TemplateWriter<BudgetReportData> monthlyWriter = prepareBudgetData(wb.getSheetAt(1), monthlyBudgetReportList);
 
 		List<BudgetSummary> overallSummary = createBudgetSummary(overallBudgetReportList);
 		List<BudgetSummary> monthlySummary = createBudgetSummary(monthlyBudgetReportList);
@@ -72,8 +83,11 @@ public class BudgetReportService {
 		writeSummary(wb.getSheetAt(0), overallSummary);
 		writeSummary(wb.getSheetAt(1), monthlySummary);
 
-		XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
-		return createOutputFile(wb);
+		SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(wb);
+		overallWriter.stream(streamingWorkbook);
+		monthlyWriter.stream(streamingWorkbook);
+		streamingWorkbook.setForceFormulaRecalculation(true);
+		return createOutputFile(streamingWorkbook);
 	}
 
 	private void writeSummary(XSSFSheet sheet, List<BudgetSummary> summary) {
@@ -84,12 +98,13 @@ public class BudgetReportService {
 		tw.removeFlagSheet();
 	}
 
-	private void writeBudgetData(Sheet sheet, List<BudgetReportData> budgetList) {
+	private TemplateWriter<BudgetReportData> prepareBudgetData(Sheet sheet, List<BudgetReportData> budgetList) {
 		SheetTemplate template = new SheetTemplate(BudgetReportData.class, sheet);
         TemplateWriter<BudgetReportData> tw = new TemplateWriter<>(template);
 		tw.setEntries(budgetList);
 		setWarnings(budgetList, tw);
-		tw.write();
+		tw.prepareStreaming();
+		return tw;
 	}
 
 	private void setWarnings(List<BudgetReportData> budgetList, TemplateWriter<BudgetReportData> tw) {
@@ -115,7 +130,7 @@ public class BudgetReportService {
 	}
 
 	private XSSFWorkbook getSheetWorkbook(long id) {
-    	return templateService.getById(id).getWb();
+    	return templateService.getWorkbook(id);
 	}
 
 	private String getAttribute(String string, List<? extends SheetTemplateSerializable> list) {
@@ -130,58 +145,77 @@ public class BudgetReportService {
 		return "";
 	}
 
-	private File createOutputFile(XSSFWorkbook wb) {
+	private File createOutputFile(SXSSFWorkbook wb) {
 		File outputFile = null;
-        FileOutputStream out;
 		try {
 			outputFile = File.createTempFile("report-", ".xlsx");
 			outputFile.deleteOnExit();
-			out = new FileOutputStream(outputFile);
-			wb.write(out);
+			try (FileOutputStream out = new FileOutputStream(outputFile)) {
+				wb.write(out);
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
+		} finally {
+			wb.dispose();
 		}
 		return outputFile;
 	}
 
-	public List<BudgetReportData> loadOverallBudgetReportData(long projectId, BudgetTagFilter filter,
-			ReportMetaInformation metaInformation) {
-		List<BudgetDetailData> budgets = budgetService.loadBudgetsDetailData(projectId, filter);
-		List<BudgetReportData> data = budgets.stream()
-				.map(budget -> enrichReportData(budget, metaInformation.getOverallTimeRange()))
-				.collect(Collectors.toList());
-		return data;
+	/**
+	 * Loads the contracts of the given budgets, each contract only once.
+	 * @return the contracts by their ID
+	 */
+	private Map<Long, ContractBaseData> loadContracts(List<BudgetDetailData> budgets) {
+		Map<Long, ContractBaseData> contracts = new HashMap<>();
+		for (BudgetDetailData budget : budgets) {
+			if (budget.getContractId() != 0L && !contracts.containsKey(budget.getContractId())) {
+				contracts.put(budget.getContractId(), contractService.getContractById(budget.getContractId()));
+			}
+		}
+		return contracts;
 	}
 
-	public List<BudgetReportData> loadMonthlyBudgetReportData(long projectId, BudgetTagFilter filter,
-			ReportMetaInformation metaInformation) {
-		List<BudgetDetailData> budgets = budgetService.loadBudgetsDetailData(projectId, filter);
-		List<BudgetReportData> data = budgets.stream()
-				.map(budget -> enrichReportData(budget, metaInformation.getMonthlyTimeRange()))
+	/**
+	 * Creates the report data of the given budgets for the given time range. The work records of the budgets are
+	 * aggregated by a single query per {@link #MAX_IDS_PER_QUERY} budgets.
+	 */
+	private List<BudgetReportData> loadBudgetReportData(List<BudgetDetailData> budgets,
+			Map<Long, ContractBaseData> contracts, DateRange dateRange) {
+		Map<Long, BudgetRangeStatisticBean> statistics = new HashMap<>();
+		List<Long> budgetIds = budgets.stream().map(BudgetDetailData::getId).collect(Collectors.toList());
+		for (int i = 0; i < budgetIds.size(); i += MAX_IDS_PER_QUERY) {
+			List<Long> chunk = budgetIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, budgetIds.size()));
+			for (BudgetRangeStatisticBean bean : workRecordRepository.getStatisticsInTimeRangeByBudgetIds(chunk,
+					dateRange.getStartDate(), dateRange.getEndDate())) {
+				statistics.put(bean.getBudgetId(), bean);
+			}
+		}
+		return budgets.stream()
+				.map(budget -> enrichReportData(budget, contracts.get(budget.getContractId()),
+						statistics.get(budget.getId()), dateRange))
 				.collect(Collectors.toList());
-		return data;
 	}
 
-    private BudgetReportData enrichReportData(BudgetDetailData budget, DateRange dateRange) {
-        ContractBaseData contract;
+    private BudgetReportData enrichReportData(BudgetDetailData budget, ContractBaseData contract,
+			BudgetRangeStatisticBean statistic, DateRange dateRange) {
 		List<? extends SheetTemplateSerializable> attributes = null;
 		double taxRate = 0.0;
-		if (budget.getContractId() != 0L) {
-			contract = contractService.getContractById(budget.getContractId());
+		if (contract != null) {
 			taxRate = contract.getTaxRate();
 			attributes = contract.getContractAttributes();
 		}
 
-		Double spentMoneyInPeriodInCents = workRecordRepository.getSpentBudgetInTimeRange(budget.getId(),
-				dateRange.getStartDate(), dateRange.getEndDate());
-		double spentMoneyInPeriod = toMoneyNullsafe(spentMoneyInPeriodInCents).getAmount().doubleValue();
-		Double spentMoneyInCents = workRecordRepository.getSpentBudgetUntilDate(budget.getId(), dateRange.getEndDate());
-		double spentMoney = toMoneyNullsafe(spentMoneyInCents).getAmount().doubleValue();
+		double spentMoneyInPeriod = 0.0;
+		double spentMoney = 0.0;
+		double totalHours = 0.0;
+		if (statistic != null) {
+			spentMoneyInPeriod = MoneyUtil.createMoneyFromCents(statistic.getSpentCentsInRange()).getAmount().doubleValue();
+			spentMoney = MoneyUtil.createMoneyFromCents(statistic.getSpentCentsUntilEnd()).getAmount().doubleValue();
+			totalHours = statistic.getHoursInRange();
+		}
 		double taxCoefficient = 1.0 + taxRate / 100;
 		double totalMoney = budget.getTotal().getAmount().doubleValue();
         Double progress = (Math.abs(totalMoney) < Math.ulp(1.0) && Math.abs(spentMoney) < Math.ulp(1.0)) ? null : spentMoney / totalMoney;
-		double totalHours = workRecordRepository.getTotalHoursInTimeRange(budget.getId(), dateRange.getStartDate(),
-				dateRange.getEndDate());
 
 		BudgetReportData data = new BudgetReportData();
 		data.setName(budget.getName());
@@ -217,12 +251,4 @@ public class BudgetReportService {
 		LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
 		return Date.from(firstOfMonth.minus(1, ChronoUnit.MONTHS).atStartOfDay(ZoneId.systemDefault()).toInstant());
 	}
-
-	private Money toMoneyNullsafe(Double cents) {
-		if (cents == null) {
-            return MoneyUtil.createMoneyFromCents(0L);
-		} else {
-			return MoneyUtil.createMoneyFromCents(Math.round(cents));
-		}
-	}
 }
\ No newline at end of file
@@ -1,14 +1,12 @@
 package org.wickedsource.budgeteer.service.contract;
 
 
-import org.joda.money.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractFieldEntity;
-import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
 import org.wickedsource.budgeteer.persistence.invoice.InvoiceEntity;
 import org.wickedsource.budgeteer.persistence.project.ProjectContractField;
 import org.wickedsource.budgeteer.service.AbstractMapper;
@@ -26,18 +24,22 @@ public class ContractDataMapper extends AbstractMapper<ContractEntity, ContractB
     private InvoiceDataMapper invoiceDataMapper;
     
     @Autowired
-    private ContractRepository contractRepository;
+    private ContractStatisticsLoader contractStatisticsLoader;
 
     @Override
     public ContractBaseData map(ContractEntity entity) {
         if(entity == null)
             return null;
+        return map(entity, contractStatisticsLoader.loadSpentBudgets(Collections.singletonList(entity)).get(entity.getId()));
+    }
+
+    private ContractBaseData map(ContractEntity entity, long spentBudgetInCents) {
         ContractBaseData result = new ContractBaseData();
         result.setContractName(entity.getName());
         result.setContractId(entity.getId());
         result.setBudget(entity.getBudget());
-        result.setBudgetLeft(toMoneyNullsafe(contractRepository.getBudgetLeftByContractId(entity.getId())));
-        result.setBudgetSpent(toMoneyNullsafe(contractRepository.getSpentBudgetByContractId(entity.getId())));
+        result.setBudgetSpent(MoneyUtil.createMoneyFromCents(spentBudgetInCents));
+        result.setBudgetLeft(entity.getBudget() == null ? MoneyUtil.createMoneyFromCents(0l) : entity.getBudget().minus(result.getBudgetSpent()));
         result.setInternalNumber(entity.getInternalNumber());
         result.setProjectId(entity.getProject().getId());
         result.setType(entity.getType());
@@ -69,17 +71,10 @@ public class ContractDataMapper extends AbstractMapper<ContractEntity, ContractB
 
     public List<ContractBaseData> map(List<ContractEntity> entityList){
         List<ContractBaseData> result = new LinkedList<ContractBaseData>();
+        Map<Long, Long> spentBudgets = contractStatisticsLoader.loadSpentBudgets(entityList);
         for(ContractEntity entity : entityList){
-            result.add(map(entity));
+            result.add(map(entity, spentBudgets.get(entity.getId())));
         }
         return result;
     }
-    
-    private Money toMoneyNullsafe(Double cents) {
-        if (cents == null) {
-            return MoneyUtil.createMoneyFromCents(0l);
-        } else {
-            return MoneyUtil.createMoneyFromCents(Math.round(cents));
-        }
-    }
 }
@@ -0,0 +1,189 @@
+package org.wickedsource.budgeteer.service.contract;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
+import org.wickedsource.budgeteer.persistence.contract.ContractMonthlySumBean;
+import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
+import org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean;
+import org.wickedsource.budgeteer.persistence.contract.ContractSumBean;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Loads the spent and invoiced budgets of a list of contracts with one grouped query per figure and
+ * {@link #MAX_IDS_PER_QUERY} contracts. All results are keyed by contract id.
+ */
+@Component
+public class ContractStatisticsLoader {
+
+    /**
+     * Maximum number of contract IDs passed to a single "in" clause. Oracle does not accept more than 1000 values.
+     */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    /**
+     * @return the spent budget in cents of each given contract. Contracts without work records are mapped to 0.
+     */
+    public Map<Long, Long> loadSpentBudgets(List<ContractEntity> contracts) {
+        List<Long> contractIds = getIds(contracts);
+        if (contractIds.isEmpty()) {
+            return new HashMap<Long, Long>();
+        }
+        return withDefaults(contractIds, loadSums(contractIds, contractRepository::getSpentBudgetByContractIds));
+    }
+
+    /**
+     * Same as {@link ContractRepository#getContractStatisticAggregatedByMonthAndYear(Long, Integer, Integer)} for a
+     * list of contracts.
+     *
+     * @param month 0-based month
+     */
+    public Map<Long, ContractStatisticBean> loadStatisticsAggregatedByMonthAndYear(List<ContractEntity> contracts, int month, int year) {
+        List<Long> contractIds = getIds(contracts);
+        Map<Long, ContractStatisticBean> result = new HashMap<Long, ContractStatisticBean>();
+        if (contractIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, Long> spentUntil = loadSums(contractIds, ids -> contractRepository.getSpentBudgetByContractIdsUntilDate(ids, month, year));
+        Map<Long, Long> invoicedUntil = loadSums(contractIds, ids -> contractRepository.getInvoicedBudgetByContractIdsUntilDate(ids, month, year));
+        for (ContractEntity contract : contracts) {
+            long spent = getOrZero(spentUntil, contract.getId());
+            result.put(contract.getId(), new ContractStatisticBean(year, getProgress(contract, spent),
+                    getBudgetInCents(contract) - spent, spent, getOrZero(invoicedUntil, contract.getId()), month));
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link ContractRepository#getContractStatisticByMonthAndYear(Long, Integer, Integer)} for a list of
+     * contracts.
+     *
+     * @param month 0-based month
+     */
+    public Map<Long, ContractStatisticBean> loadStatisticsByMonthAndYear(List<ContractEntity> contracts, int month, int year) {
+        List<Long> contractIds = getIds(contracts);
+        Map<Long, ContractStatisticBean> result = new HashMap<Long, ContractStatisticBean>();
+        if (contractIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, Long> spentUntil = loadSums(contractIds, ids -> contractRepository.getSpentBudgetByContractIdsUntilDate(ids, month, year));
+        Map<Long, Long> spentInMonth = loadSums(contractIds, ids -> contractRepository.getSpentBudgetByContractIdsInMonth(ids, month, year));
+        Map<Long, Long> invoicedInMonth = loadSums(contractIds, ids -> contractRepository.getInvoicedBudgetByContractIdsInMonth(ids, month, year));
+        for (ContractEntity contract : contracts) {
+            long spent = getOrZero(spentInMonth, contract.getId());
+            result.put(contract.getId(), new ContractStatisticBean(year, getProgress(contract, getOrZero(spentUntil, contract.getId())),
+                    getBudgetInCents(contract) - spent, spent, getOrZero(invoicedInMonth, contract.getId()), month));
+        }
+        return result;
+    }
+
+    /**
+     * Returns one {@link ContractStatisticBean} for each month from the month of the given start date up to the
+     * current month. The whole series is computed from one grouped query for work records and one for invoices.
+     *
+     * @param aggregated if true, spent and invoiced budget of each bean are summed up until the end of its month (see
+     *                   {@link ContractRepository#getContractStatisticAggregatedByMonthAndYear(Long, Integer, Integer)}),
+     *                   otherwise they only contain the values of the month itself (see
+     *                   {@link ContractRepository#getContractStatisticByMonthAndYear(Long, Integer, Integer)}).
+     */
+    public List<ContractStatisticBean> loadMonthlyStatistics(ContractEntity contract, Date startDate, boolean aggregated) {
+        List<ContractStatisticBean> result = new LinkedList<ContractStatisticBean>();
+        Iterator<ContractMonthlySumBean> spentIterator = contractRepository.getSpentBudgetByContractIdGroupedByMonth(contract.getId()).iterator();
+        Iterator<ContractMonthlySumBean> invoicedIterator = contractRepository.getInvoicedBudgetByContractIdGroupedByMonth(contract.getId()).iterator();
+        ContractMonthlySumBean nextSpent = spentIterator.hasNext() ? spentIterator.next() : null;
+        ContractMonthlySumBean nextInvoiced = invoicedIterator.hasNext() ? invoicedIterator.next() : null;
+        long spentUntil = 0;
+        long invoicedUntil = 0;
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(startDate);
+        Calendar currentDate = Calendar.getInstance();
+        currentDate.setTime(new Date());
+        while (cal.before(currentDate)) {
+            int year = cal.get(Calendar.YEAR);
+            int month = cal.get(Calendar.MONTH);
+            long spentInMonth = 0;
+            while (nextSpent != null && !isAfter(nextSpent, year, month)) {
+                spentUntil += nextSpent.getValueInCents();
+                if (nextSpent.getYear() == year && nextSpent.getMonth() == month) {
+                    spentInMonth = nextSpent.getValueInCents();
+                }
+                nextSpent = spentIterator.hasNext() ? spentIterator.next() : null;
+            }
+            long invoicedInMonth = 0;
+            while (nextInvoiced != null && !isAfter(nextInvoiced, year, month)) {
+                invoicedUntil += nextInvoiced.getValueInCents();
+                if (nextInvoiced.getYear() == year && nextInvoiced.getMonth() == month) {
+                    invoicedInMonth = nextInvoiced.getValueInCents();
+                }
+                nextInvoiced = invoicedIterator.hasNext() ? invoicedIterator.next() : null;
+            }
+            Double progress = getProgress(contract, spentUntil);
+            if (aggregated) {
+                result.add(new ContractStatisticBean(year, progress, getBudgetInCents(contract) - spentUntil, spentUntil, invoicedUntil, month));
+            } else {
+                result.add(new ContractStatisticBean(year, progress, getBudgetInCents(contract) - spentInMonth, spentInMonth, invoicedInMonth, month));
+            }
+            cal.add(Calendar.MONTH, 1);
+        }
+        return result;
+    }
+
+    private boolean isAfter(ContractMonthlySumBean bean, int year, int month) {
+        return bean.getYear() > year || (bean.getYear() == year && bean.getMonth() > month);
+    }
+
+    private Double getProgress(ContractEntity contract, long spentInCents) {
+        long budget = getBudgetInCents(contract);
+        if (budget == 0) {
+            return null;
+        }
+        return (double) spentInCents / budget;
+    }
+
+    private long getBudgetInCents(ContractEntity contract) {
+        return contract.getBudget() == null ? 0 : contract.getBudget().getAmountMinorLong();
+    }
+
+    private List<Long> getIds(List<ContractEntity> contracts) {
+        List<Long> ids = new ArrayList<Long>();
+        for (ContractEntity contract : contracts) {
+            ids.add(contract.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Runs the given grouped query for chunks of at most {@link #MAX_IDS_PER_QUERY} of the given contract IDs and
+     * merges the results.
+     */
+    private Map<Long, Long> loadSums(List<Long> contractIds, Function<List<Long>, List<ContractSumBean>> query) {
+        Map<Long, Long> result = new HashMap<Long, Long>();
+        for (int i = 0; i < contractIds.size(); i += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = contractIds.subList(i, Math.min(i + MAX_IDS_PER_QUERY, contractIds.size()));
+            for (ContractSumBean sum : query.apply(chunk)) {
+                result.put(sum.getContractId(), sum.getValueInCents());
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, Long> withDefaults(List<Long> contractIds, Map<Long, Long> values) {
+        for (Long contractId : contractIds) {
+            if (!values.containsKey(contractId)) {
+                values.put(contractId, 0L);
+            }
+        }
+        return values;
+    }
+
+    private long getOrZero(Map<Long, Long> values, long contractId) {
+        Long value = values.get(contractId);
+        return value == null ? 0 : value;
+    }
+}
@@ -5,9 +5,9 @@ import org.springframework.stereotype.Component;
 import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractFieldEntity;
-import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
 import org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean;
 import org.wickedsource.budgeteer.service.DateRange;
+import org.wickedsource.budgeteer.service.contract.ContractStatisticsLoader;
 import org.wickedsource.budgeteer.service.contract.DynamicAttributeField;
 
 import java.time.LocalDate;
@@ -18,11 +18,13 @@ import java.util.*;
 public class ContractReportDataMapper {
 
 	@Autowired
-	private ContractRepository contractRepository;
+	private ContractStatisticsLoader contractStatisticsLoader;
 	
 	public ContractReportData map(ContractEntity contract, Date endDate) {
-		LocalDate end = endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-		ContractStatisticBean statistics = contractRepository.getContractStatisticAggregatedByMonthAndYear(contract.getId(), end.getMonthValue()-1, end.getYear());
+		return map(Collections.singletonList(contract), endDate).get(0);
+	}
+
+	private ContractReportData map(ContractEntity contract, Date endDate, ContractStatisticBean statistics) {
 		DateRange dateRange = new DateRange(contract.getStartDate(), endDate);
 		
 		ContractReportData report = new ContractReportData();
@@ -53,8 +55,10 @@ public class ContractReportDataMapper {
 
     public List<ContractReportData> map(List<ContractEntity> entityList, Date endDate){
         List<ContractReportData> result = new LinkedList<ContractReportData>();
+        LocalDate end = endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        Map<Long, ContractStatisticBean> statistics = contractStatisticsLoader.loadStatisticsAggregatedByMonthAndYear(entityList, end.getMonthValue()-1, end.getYear());
         for(ContractEntity entity : entityList){
-            result.add(map(entity,endDate));
+            result.add(map(entity, endDate, statistics.get(entity.getId())));
         }
         return result;
     }
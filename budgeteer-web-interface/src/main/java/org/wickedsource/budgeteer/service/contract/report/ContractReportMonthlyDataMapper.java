@@ -5,8 +5,8 @@ import org.springframework.stereotype.Component;
 import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractFieldEntity;
-import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
 import org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean;
+import org.wickedsource.budgeteer.service.contract.ContractStatisticsLoader;
 import org.wickedsource.budgeteer.service.contract.DynamicAttributeField;
 
 import java.time.LocalDate;
@@ -17,12 +17,14 @@ import java.util.*;
 public class ContractReportMonthlyDataMapper {
 
     @Autowired
-    private ContractRepository contractRepository;
+    private ContractStatisticsLoader contractStatisticsLoader;
 
     public ContractReportData map(ContractEntity contract, Date endDate) {
-        LocalDate end = endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-        ContractStatisticBean statistics = contractRepository.getContractStatisticByMonthAndYear(contract.getId(), end.getMonthValue()-1, end.getYear());
+        return map(Collections.singletonList(contract), endDate).get(0);
+    }
 
+    private ContractReportData map(ContractEntity contract, Date endDate, ContractStatisticBean statistics, ContractStatisticBean aggregatedStatistics) {
+        LocalDate end = endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
         LocalDate firstOfMonth = end.withDayOfMonth(1);
 
         ContractReportData report = new ContractReportData();
@@ -39,7 +41,7 @@ public class ContractReportMonthlyDataMapper {
         report.setFrom(Date.from(firstOfMonth.atStartOfDay().atZone(ZoneId.systemDefault()).toInstant()));
         report.setUntil(endDate);
         report.setBudgetSpent_net(MoneyUtil.createMoneyFromCents(statistics.getSpentBudget()).getAmount().doubleValue());
-        report.setBudgetLeft_net(contract.getBudget().getAmount().doubleValue() - MoneyUtil.createMoneyFromCents(contractRepository.getSpentBudgetByContractIdUntilDate(contract.getId(),end.getMonthValue()-1,end.getYear()).longValue()).getAmount().doubleValue());
+        report.setBudgetLeft_net(contract.getBudget().getAmount().doubleValue() - MoneyUtil.createMoneyFromCents(aggregatedStatistics.getSpentBudget()).getAmount().doubleValue());
         report.setBudgetTotal_net(contract.getBudget().getAmount().doubleValue());
 
         double taxCoefficient = 1.0 + report.getTaxRate().doubleValue();
@@ -53,8 +55,11 @@ public class ContractReportMonthlyDataMapper {
 
     public List<ContractReportData> map(List<ContractEntity> entityList, Date endDate){
         List<ContractReportData> result = new LinkedList<ContractReportData>();
+        LocalDate end = endDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        Map<Long, ContractStatisticBean> statistics = contractStatisticsLoader.loadStatisticsByMonthAndYear(entityList, end.getMonthValue()-1, end.getYear());
+        Map<Long, ContractStatisticBean> aggregatedStatistics = contractStatisticsLoader.loadStatisticsAggregatedByMonthAndYear(entityList, end.getMonthValue()-1, end.getYear());
         for(ContractEntity entity : entityList){
-            result.add(map(entity,endDate));
+            result.add(map(entity, endDate, statistics.get(entity.getId()), aggregatedStatistics.get(entity.getId())));
         }
         return result;
     }
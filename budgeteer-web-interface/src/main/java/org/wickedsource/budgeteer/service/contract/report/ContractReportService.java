@@ -1,6 +1,6 @@
 package org.wickedsource.budgeteer.service.contract.report;
 
-import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,25 +35,33 @@ public class ContractReportService {
 	@Autowired
 	private TemplateService templateService;
 	
+	/**
+	 * Creates an excel spreadsheet containing the contracts. The header and the summary of each sheet are written
+	 * into the template first, the contracts are then streamed into the sheets, so only a window of rows is held in
+	 * memory. Formulas are calculated when the file is opened.
+	 */
 	public File createReportFile(long templateId, long projectId,Date endDate) {
 		XSSFWorkbook wb = getSheetWorkbook(templateId);
 
 		// Overal summary
 		List<ContractReportData> contractReportList = loadContractReportData(projectId, endDate);
-		writeContractData(wb.getSheetAt(0),contractReportList);
+		TemplateWriter<ContractReportData> overallWriter = prepareContractData(wb.getSheetAt(0),contractReportList);
 
 		List<ContractReportSummary> summary = createSummary(contractReportList);
 		writeSummary(wb.getSheetAt(0), summary,false);
 
 		 // Monthly summary
 		List<ContractReportData> monthlyContractReportList = loadMonthlyContractReportData(projectId, endDate);
-		writeContractData(wb.getSheetAt(1),monthlyContractReportList);
+		TemplateWriter<ContractReportData> monthlyWriter = prepareContractData(wb.getSheetAt(1),monthlyContractReportList);
 
 		List<ContractReportSummary> monthlySummary = createSummary(monthlyContractReportList);
 		writeSummary(wb.getSheetAt(1), monthlySummary,true);
 
-		XSSFFormulaEvaluator.evaluateAllFormulaCells(wb);
-		return outputfile(wb);
+		SXSSFWorkbook streamingWorkbook = new SXSSFWorkbook(wb);
+		overallWriter.stream(streamingWorkbook);
+		monthlyWriter.stream(streamingWorkbook);
+		streamingWorkbook.setForceFormulaRecalculation(true);
+		return outputfile(streamingWorkbook);
 	}
 
 	private void writeSummary(XSSFSheet sheet, List<ContractReportSummary> summary, boolean removeFlagSheet) {
@@ -88,27 +96,29 @@ public class ContractReportService {
 		return "";
 	}
 
-	private File outputfile(XSSFWorkbook wb) {
+	private File outputfile(SXSSFWorkbook wb) {
 		File outputFile = null;
-		FileOutputStream out;
 		try {
 			outputFile = File.createTempFile("contract-report-", ".xlsx");
 			outputFile.deleteOnExit();
-			out = new FileOutputStream(outputFile);
-			wb.write(out);
+			try (FileOutputStream out = new FileOutputStream(outputFile)) {
+				wb.write(out);
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
+		} finally {
+			wb.dispose();
 		}
 		return outputFile;
 	}
 
-	private void writeContractData(XSSFSheet sheet, List<ContractReportData> reportList) {
+	private TemplateWriter<ContractReportData> prepareContractData(XSSFSheet sheet, List<ContractReportData> reportList) {
 		SheetTemplate template = new SheetTemplate(ContractReportData.class, sheet);
 		TemplateWriter<ContractReportData> tw = new TemplateWriter<>(template);
 		tw.setEntries(reportList);
 		setWarnings(reportList, tw);
-		tw.write();
-		
+		tw.prepareStreaming();
+		return tw;
 	}
 
 	private void setWarnings(List<ContractReportData> list, TemplateWriter<ContractReportData> tw) {
@@ -139,6 +149,6 @@ public class ContractReportService {
 	}
 
     private XSSFWorkbook getSheetWorkbook(long id) {
-		return templateService.getById(id).getWb();
+		return templateService.getWorkbook(id);
     }
 }
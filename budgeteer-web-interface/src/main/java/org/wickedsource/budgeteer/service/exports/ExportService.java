@@ -1,6 +1,5 @@
 package org.wickedsource.budgeteer.service.exports;
 
-import org.apache.wicket.markup.html.list.ListView;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -12,13 +11,14 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 @Service
 public class ExportService implements ApplicationContextAware {
 
     private ApplicationContext applicationContext;
 
-    public File generateCSVFileFromRecords(ListView<WorkRecord> records) {
+    public File generateCSVFileFromRecords(List<WorkRecord> records) {
         File csvFile = null;
         try {
             csvFile = new File("export.csv");
@@ -35,7 +35,7 @@ public class ExportService implements ApplicationContextAware {
                         "Hours",
                         "Budget"));
 
-                for (WorkRecord record : records.getList()) {
+                for (WorkRecord record : records) {
                     CSVUtils.writeLine(writer, Arrays.asList(
                             record.getBudgetName(),
                             record.getPersonName(),
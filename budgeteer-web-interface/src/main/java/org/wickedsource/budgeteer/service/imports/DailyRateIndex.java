@@ -0,0 +1,109 @@
+package org.wickedsource.budgeteer.service.imports;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.joda.money.Money;
+import org.wickedsource.budgeteer.persistence.person.DailyRateEntity;
+
+import java.util.*;
+
+/**
+ * Resolves the daily rate of a person in a budget on a given date. The validity periods of each combination of budget
+ * and person are split into disjoint segments once, so that a rate can be found with a binary search instead of
+ * scanning all rates of the project for every imported record.
+ * <p>
+ * If several periods contain the same date, the rate that comes first in the list the index was built from wins.
+ * A period without start or end date is open towards the past or the future.
+ */
+class DailyRateIndex {
+
+    private final Map<RateKey, Segments> segmentsByKey = new HashMap<RateKey, Segments>();
+
+    DailyRateIndex(List<DailyRateEntity> rates) {
+        Map<RateKey, List<DailyRateEntity>> ratesByKey = new HashMap<RateKey, List<DailyRateEntity>>();
+        for (DailyRateEntity rate : rates) {
+            RateKey key = new RateKey(rate.getBudget().getImportKey(), rate.getPerson().getImportKey());
+            List<DailyRateEntity> keyRates = ratesByKey.get(key);
+            if (keyRates == null) {
+                keyRates = new ArrayList<DailyRateEntity>();
+                ratesByKey.put(key, keyRates);
+            }
+            keyRates.add(rate);
+        }
+        for (Map.Entry<RateKey, List<DailyRateEntity>> entry : ratesByKey.entrySet()) {
+            segmentsByKey.put(entry.getKey(), new Segments(entry.getValue()));
+        }
+    }
+
+    /**
+     * @return the rate of the given person in the given budget on the given date or null if no rate period contains
+     * the date.
+     */
+    Money getRate(String budgetImportKey, String personImportKey, Date date) {
+        Segments segments = segmentsByKey.get(new RateKey(budgetImportKey, personImportKey));
+        if (segments == null) {
+            return null;
+        }
+        return segments.getRate(date.getTime());
+    }
+
+    private static long getStart(DailyRateEntity rate) {
+        return rate.getDateStart() == null ? Long.MIN_VALUE : rate.getDateStart().getTime();
+    }
+
+    private static long getEnd(DailyRateEntity rate) {
+        return rate.getDateEnd() == null ? Long.MAX_VALUE : rate.getDateEnd().getTime();
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class RateKey {
+        private String budgetImportKey;
+        private String personImportKey;
+    }
+
+    /**
+     * The rates of one budget and person. Segment i starts at starts[i] and ends right before starts[i + 1], the last
+     * segment is open-ended. All dates within a segment are contained in the same rate periods, so each segment has
+     * exactly one rate (or none).
+     */
+    private static class Segments {
+
+        private final long[] starts;
+
+        private final Money[] rates;
+
+        Segments(List<DailyRateEntity> periods) {
+            SortedSet<Long> boundaries = new TreeSet<Long>();
+            for (DailyRateEntity period : periods) {
+                boundaries.add(getStart(period));
+                long end = getEnd(period);
+                if (end != Long.MAX_VALUE) {
+                    boundaries.add(end + 1);
+                }
+            }
+            starts = new long[boundaries.size()];
+            rates = new Money[boundaries.size()];
+            int i = 0;
+            for (long start : boundaries) {
+                starts[i] = start;
+                for (DailyRateEntity period : periods) {
+                    if (getStart(period) <= start && start <= getEnd(period)) {
+                        rates[i] = period.getRate();
+                        break;
+                    }
+                }
+                i++;
+            }
+        }
+
+        Money getRate(long date) {
+            int index = Arrays.binarySearch(starts, date);
+            if (index < 0) {
+                // the date lies within the segment before the insertion point
+                index = -index - 2;
+            }
+            return index < 0 ? null : rates[index];
+        }
+    }
+}
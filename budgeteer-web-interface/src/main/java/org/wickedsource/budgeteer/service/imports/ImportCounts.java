@@ -0,0 +1,18 @@
+package org.wickedsource.budgeteer.service.imports;
+
+import lombok.Data;
+
+/**
+ * Numbers of work records an import has added to the database, changed in the database or found unchanged in the
+ * database. Records are only updated or found unchanged by a delta import.
+ */
+@Data
+public class ImportCounts {
+
+    private int insertedRecords;
+
+    private int updatedRecords;
+
+    private int unchangedRecords;
+
+}
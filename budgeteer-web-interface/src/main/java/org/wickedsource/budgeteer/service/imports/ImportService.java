@@ -12,6 +12,7 @@ import org.wickedsource.budgeteer.persistence.imports.ImportEntity;
 import org.wickedsource.budgeteer.persistence.imports.ImportRepository;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 
 import javax.transaction.Transactional;
 import java.util.ArrayList;
@@ -34,10 +35,19 @@ public class ImportService implements ApplicationContextAware {
     @Autowired
     private PlanRecordRepository planRecordRepository;
 
+    @Autowired
+    private RecordRollupService recordRollupService;
+
     private ApplicationContext applicationContext;
 
     @Getter
     private List<List<String>> skippedRecords;
+
+    /**
+     * What the last import of work records has done, null after an import of plan records.
+     */
+    @Getter
+    private ImportCounts importCounts;
     /**
      * Loads all data imports the given user has made from the database.
      *
@@ -66,13 +76,15 @@ public class ImportService implements ApplicationContextAware {
      * @param importId ID of the import whose records shall be deleted.
      */
     public void deleteImport(long importId) {
+        recordRollupService.removeImport(importId);
         workRecordRepository.deleteByImport(importId);
         planRecordRepository.deleteByImport(importId);
         importRepository.delete(importId);
     }
 
     /**
-     * Returns all currently registered file importers using the java ServiceLoader mechanism.
+     * Returns all file importers registered using the java ServiceLoader mechanism. The returned instances are shared,
+     * imports are done with a new instance of the given importer.
      *
      * @return all currently registered file importers.
      */
@@ -91,17 +103,40 @@ public class ImportService implements ApplicationContextAware {
      */
     @Transactional(rollbackOn = ImportException.class)
     public void doImport(long projectId, Importer importer, List<ImportFile> importFiles) throws ImportException, InvalidFileFormatException {
+        doImport(projectId, importer, importFiles, false);
+    }
+
+    /**
+     * Imports the data from the given inputstreams using the given importer.
+     *
+     * @param importer    an importer that understands the format of the files represented by the input streams.
+     * @param importFiles the files to be imported
+     * @param deltaImport if true, work records that are already in the database are not imported again and existing
+     *                    records whose minutes or daily rate have changed are updated, so that re-importing an export
+     *                    that overlaps with earlier imports only adds what is new. Matched records become part of this
+     *                    import. Plan imports always replace the plan records from the earliest date of the file on,
+     *                    so the flag does not affect them.
+     */
+    @Transactional(rollbackOn = ImportException.class)
+    public void doImport(long projectId, Importer importer, List<ImportFile> importFiles, boolean deltaImport) throws ImportException, InvalidFileFormatException {
         skippedRecords = new LinkedList<List<String>>();
+        importCounts = null;
+        // the given importer may be shared with other imports, so the files are read with a fresh one
+        importer = importerRegistry.createImporter(importer);
         if (importer instanceof WorkRecordsImporter) {
             WorkRecordsImporter workRecordsImporter = (WorkRecordsImporter) importer;
             WorkRecordDatabaseImporter dbImporter = applicationContext.getBean(WorkRecordDatabaseImporter.class, projectId, workRecordsImporter.getDisplayName());
+            dbImporter.setDeltaImport(deltaImport);
             for (ImportFile file : importFiles) {
-                List<ImportedWorkRecord> records = workRecordsImporter.importFile(file);
-                dbImporter.importRecords(records);
+                dbImporter.importFile(workRecordsImporter, file);
             }
             skippedRecords.addAll(workRecordsImporter.getSkippedRecords());
             skippedRecords.addAll(dbImporter.getSkippedRecords());
-            skippedRecords.addAll(dbImporter.findAndRemoveManuallyEditedEntries());
+            if (!deltaImport) {
+                // a delta import matches imported records with the existing ones, including the manually edited ones
+                skippedRecords.addAll(dbImporter.findAndRemoveManuallyEditedEntries());
+            }
+            importCounts = dbImporter.getImportCounts();
         } else if (importer instanceof PlanRecordsImporter) {
             PlanRecordsImporter planRecordsImporter = (PlanRecordsImporter) importer;
             PlanRecordDatabaseImporter dbImporter = applicationContext.getBean(PlanRecordDatabaseImporter.class, projectId, planRecordsImporter.getDisplayName());
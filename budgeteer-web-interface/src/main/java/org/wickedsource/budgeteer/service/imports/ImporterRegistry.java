@@ -1,32 +1,105 @@
 package org.wickedsource.budgeteer.service.imports;
 
 import org.springframework.stereotype.Component;
+import org.wickedsource.budgeteer.imports.api.Importer;
 import org.wickedsource.budgeteer.imports.api.PlanRecordsImporter;
 import org.wickedsource.budgeteer.imports.api.WorkRecordsImporter;
 
-import java.util.HashSet;
-import java.util.ServiceLoader;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * Discovers the available importers with the java ServiceLoader mechanism once when the application starts. The
+ * discovered importers never change afterwards, so they can be read without locking.
+ * <p>
+ * Importers keep state of the files they have imported. The instances held by the registry only describe the
+ * importers, each import gets a fresh instance from {@link #createImporter(Importer)}.
+ */
 @Component
 public class ImporterRegistry {
 
-    public synchronized Set<WorkRecordsImporter> getWorkingRecordsImporters() {
-        ServiceLoader<WorkRecordsImporter> loader = ServiceLoader.load(WorkRecordsImporter.class);
-        Set<WorkRecordsImporter> importers = new HashSet<WorkRecordsImporter>();
-        for (WorkRecordsImporter importer : loader) {
-            importers.add(importer);
+    private final List<WorkRecordsImporter> workRecordsImporters;
+
+    private final List<PlanRecordsImporter> planRecordsImporters;
+
+    private final Map<String, Importer> importersByDisplayName;
+
+    private final Map<String, List<Importer>> importersByFileExtension;
+
+    public ImporterRegistry() {
+        workRecordsImporters = load(WorkRecordsImporter.class);
+        planRecordsImporters = load(PlanRecordsImporter.class);
+
+        List<Importer> importers = new ArrayList<Importer>();
+        importers.addAll(workRecordsImporters);
+        importers.addAll(planRecordsImporters);
+        Map<String, Importer> byDisplayName = new HashMap<String, Importer>();
+        Map<String, List<Importer>> byFileExtension = new HashMap<String, List<Importer>>();
+        for (Importer importer : importers) {
+            byDisplayName.put(importer.getDisplayName(), importer);
+            for (String extension : importer.getSupportedFileExtensions()) {
+                String key = extension.toLowerCase();
+                List<Importer> extensionImporters = byFileExtension.get(key);
+                if (extensionImporters == null) {
+                    extensionImporters = new ArrayList<Importer>();
+                    byFileExtension.put(key, extensionImporters);
+                }
+                extensionImporters.add(importer);
+            }
+        }
+        for (Map.Entry<String, List<Importer>> entry : byFileExtension.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
         }
-        return importers;
+        importersByDisplayName = Collections.unmodifiableMap(byDisplayName);
+        importersByFileExtension = Collections.unmodifiableMap(byFileExtension);
     }
 
-    public synchronized Set<PlanRecordsImporter> getPlanRecordsImporters() {
-        ServiceLoader<PlanRecordsImporter> loader = ServiceLoader.load(PlanRecordsImporter.class);
-        Set<PlanRecordsImporter> importers = new HashSet<PlanRecordsImporter>();
-        for (PlanRecordsImporter importer : loader) {
+    private static <T extends Importer> List<T> load(Class<T> importerType) {
+        List<T> importers = new ArrayList<T>();
+        for (T importer : ServiceLoader.load(importerType)) {
             importers.add(importer);
         }
-        return importers;
+        return Collections.unmodifiableList(importers);
+    }
+
+    public List<WorkRecordsImporter> getWorkingRecordsImporters() {
+        return workRecordsImporters;
+    }
+
+    public List<PlanRecordsImporter> getPlanRecordsImporters() {
+        return planRecordsImporters;
+    }
+
+    /**
+     * @return the registered importer with the given display name or null if there is none.
+     */
+    public Importer getImporter(String displayName) {
+        return importersByDisplayName.get(displayName);
+    }
+
+    /**
+     * @param fileExtension file extension with leading ".", case is ignored
+     * @return the registered importers that understand files with the given extension.
+     */
+    public List<Importer> getImporters(String fileExtension) {
+        List<Importer> importers = importersByFileExtension.get(fileExtension.toLowerCase());
+        return importers == null ? Collections.<Importer>emptyList() : importers;
+    }
+
+    /**
+     * Creates a new instance of the given importer, so that an import does not share the state of the importer with
+     * other imports.
+     *
+     * @param importer a registered importer or another instance of the same class
+     * @return a new importer of the same class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Importer> T createImporter(T importer) {
+        try {
+            // ServiceLoader requires a public no-arg constructor, so every registered importer has one
+            return (T) importer.getClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(String.format("Importer of type %s cannot be instantiated!", importer.getClass()), e);
+        }
     }
 
 }
@@ -1,10 +1,5 @@
 package org.wickedsource.budgeteer.service.imports;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
-import org.joda.money.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
@@ -15,6 +10,10 @@ import org.wickedsource.budgeteer.persistence.person.PersonEntity;
 import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordEntity;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
+import org.wickedsource.budgeteer.persistence.record.RecordBatchRepository;
+import org.wickedsource.budgeteer.persistence.record.RecordRollupBean;
+import org.wickedsource.budgeteer.persistence.record.RecordType;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 
 import javax.annotation.PostConstruct;
 import java.text.SimpleDateFormat;
@@ -27,9 +26,20 @@ public class PlanRecordDatabaseImporter extends RecordDatabaseImporter {
     @Autowired
     private PlanRecordRepository planRecordRepository;
 
+    @Autowired
+    private RecordBatchRepository recordBatchRepository;
+
     @Autowired
     private DailyRateRepository dailyRateRepository;
 
+    @Autowired
+    private RecordRollupService recordRollupService;
+
+    /**
+     * Number of record IDs that are moved to the current import with one statement.
+     */
+    private static final int UPDATE_BATCH_SIZE = 500;
+
     private List<List<String>> skippedRecords;
 
     private SimpleDateFormat formatter = new SimpleDateFormat();
@@ -50,17 +60,52 @@ public class PlanRecordDatabaseImporter extends RecordDatabaseImporter {
 
     public void importRecords(List<ImportedPlanRecord> records, String filename) {
         skippedRecords = new LinkedList<List<String>>();
-        Map<RecordKey, List<ImportedPlanRecord>> groupedRecords = groupRecords(records);
+        Date earliestImportedDate = null;
+        Date latestImportedDate = null;
+
+        List<PlanRecordEntity> importedEntities = new ArrayList<PlanRecordEntity>();
+        for (ImportedPlanRecord record : records) {
+            BudgetEntity budget = getBudget(record.getBudgetName());
+            PersonEntity person = getPerson(record.getPersonName());
+            ProjectEntity project = budget.getProject();
+
+            PlanRecordEntity recordEntity = new PlanRecordEntity();
+            recordEntity.setDate(record.getDate());
+            recordEntity.setPerson(person);
+            recordEntity.setBudget(budget);
+            recordEntity.setProject(project);
+            recordEntity.setMinutes(record.getMinutesPlanned());
+            recordEntity.setImportRecord(getImportRecord());
+            recordEntity.setDailyRate(record.getDailyRate());
 
-        //Because of Issue #70 all PlanRecords that are after the earliest of the imported ones, should be deleted
+            if((project.getProjectEnd() != null && record.getDate().after(project.getProjectEnd())) ||
+                    (project.getProjectStart() != null && record.getDate().before(project.getProjectStart()))){
+                skippedRecords.add(getRecordAsString(recordEntity, filename));
+            } else {
+                importedEntities.add(recordEntity);
+
+                if (latestImportedDate == null || record.getDate().after(latestImportedDate)) {
+                    latestImportedDate = record.getDate();
+                }
+                if (earliestImportedDate == null || record.getDate().before(earliestImportedDate)) {
+                    earliestImportedDate = record.getDate();
+                }
+            }
+        }
+
+        //Because of Issue #70 all PlanRecords that are after the earliest of the imported ones are replaced by the imported ones
         Date earliestDate = findEarliestDate(records);
-        planRecordRepository.deleteByProjectIdAndDate(getProjectId(), earliestDate);
+        if (earliestDate != null) {
+            replaceRecords(planRecordRepository.findByProjectIdAndDate(getProjectId(), earliestDate), importedEntities);
+        }
 
-        for (RecordKey key : groupedRecords.keySet()) {
-            List<ImportedPlanRecord> importedPlanRecords = groupedRecords.get(key);
-            List<List<String>> skippedPlanRecords = importRecordGroup(key, importedPlanRecords, filename);
-            if(skippedPlanRecords != null && !skippedPlanRecords.isEmpty()){
-                skippedRecords.addAll(skippedPlanRecords);
+        if (earliestImportedDate != null) {
+            // updating start and end date for import record
+            if (getImportRecord().getStartDate() == null || getImportRecord().getStartDate().after(earliestImportedDate)) {
+                getImportRecord().setStartDate(earliestImportedDate);
+            }
+            if (getImportRecord().getEndDate() == null || getImportRecord().getEndDate().before(latestImportedDate)) {
+                getImportRecord().setEndDate(latestImportedDate);
             }
         }
         //If all records haven been skipped the startDate of the import is new Date(Long.MAX_VALUE) and the EndDate is null.
@@ -85,69 +130,87 @@ public class PlanRecordDatabaseImporter extends RecordDatabaseImporter {
         return da;
     }
 
-    private Map<RecordKey, List<ImportedPlanRecord>> groupRecords(List<ImportedPlanRecord> records) {
-        Map<RecordKey, List<ImportedPlanRecord>> result = new HashMap<RecordKey, List<ImportedPlanRecord>>();
-        for (ImportedPlanRecord record : records) {
-            RecordKey key = new RecordKey(record.getPersonName(), record.getBudgetName(), record.getDailyRate());
-            List<ImportedPlanRecord> keyList = result.get(key);
-            if (keyList == null) {
-                keyList = new ArrayList<ImportedPlanRecord>();
-                result.put(key, keyList);
-            }
-            keyList.add(record);
-        }
-        return result;
-    }
-
     /**
-     * Imports a list of records with the same person, budget and daily rate.
+     * Replaces the given existing records by the given imported ones, writing only what differs. An existing record
+     * with the same budget, person, day, minutes and daily rate as an imported record is kept, the remaining existing
+     * records of a day are updated to the remaining imported records of that day, further imported records are
+     * inserted and further existing records are deleted. Afterwards, all records belong to the current import.
      */
-    private List<List<String>> importRecordGroup(RecordKey groupKey, List<ImportedPlanRecord> records, String filename) {
-        List<List<String>> skippedRecords = new LinkedList<List<String>>();
-        Date earliestDate = new Date(Long.MAX_VALUE);
-        Date latestDate = new Date(0);
-
-        BudgetEntity budget = getBudget(groupKey.getBudgetName());
-        PersonEntity person = getPerson(groupKey.getPersonName());
-        ProjectEntity project = budget.getProject();
-
-        List<PlanRecordEntity> entitiesToImport = new ArrayList<PlanRecordEntity>();
-        for (ImportedPlanRecord record : records) {
-            PlanRecordEntity recordEntity = new PlanRecordEntity();
-            recordEntity.setDate(record.getDate());
-            recordEntity.setPerson(person);
-            recordEntity.setBudget(budget);
-            recordEntity.setMinutes(record.getMinutesPlanned());
-            recordEntity.setImportRecord(getImportRecord());
-            recordEntity.setDailyRate(record.getDailyRate());
-
-           if((project.getProjectEnd() != null && record.getDate().after(project.getProjectEnd())) ||
-                    (project.getProjectStart() != null && record.getDate().before(project.getProjectStart()))){
-                skippedRecords.add(getRecordAsString(recordEntity, filename));
-           }else {
-
-                entitiesToImport.add(recordEntity);
+    private void replaceRecords(List<PlanRecordEntity> existingEntities, List<PlanRecordEntity> importedEntities) {
+        Map<RecordDayKey, List<PlanRecordEntity>> existingByKey = new HashMap<RecordDayKey, List<PlanRecordEntity>>();
+        for (PlanRecordEntity existing : existingEntities) {
+            RecordDayKey key = new RecordDayKey(existing);
+            List<PlanRecordEntity> dayRecords = existingByKey.get(key);
+            if (dayRecords == null) {
+                dayRecords = new LinkedList<PlanRecordEntity>();
+                existingByKey.put(key, dayRecords);
+            }
+            dayRecords.add(existing);
+        }
 
-                if (record.getDate().after(latestDate)) {
-                    latestDate = record.getDate();
-                }
-                if (record.getDate().before(earliestDate)) {
-                    earliestDate = record.getDate();
-                }
+        // exact matches first, so that an unchanged record is never used to apply a change
+        List<Long> unchangedIds = new ArrayList<Long>();
+        List<PlanRecordEntity> changedEntities = new ArrayList<PlanRecordEntity>();
+        for (PlanRecordEntity entity : importedEntities) {
+            PlanRecordEntity existing = matchExistingRecord(existingByKey, entity, true);
+            if (existing != null) {
+                unchangedIds.add(existing.getId());
+            } else {
+                changedEntities.add(entity);
             }
         }
-        if(entitiesToImport != null && !entitiesToImport.isEmpty()) {
-            planRecordRepository.save(entitiesToImport);
 
-            // updating start and end date for import record
-            if (getImportRecord().getStartDate() == null || getImportRecord().getStartDate().after(earliestDate)) {
-                getImportRecord().setStartDate(earliestDate);
+        List<PlanRecordEntity> newEntities = new ArrayList<PlanRecordEntity>();
+        List<RecordRollupBean> removedRollups = new ArrayList<RecordRollupBean>();
+        List<RecordRollupBean> addedRollups = new ArrayList<RecordRollupBean>();
+        for (PlanRecordEntity entity : changedEntities) {
+            PlanRecordEntity existing = matchExistingRecord(existingByKey, entity, false);
+            if (existing == null) {
+                newEntities.add(entity);
+                addedRollups.add(RecordRollupService.toRollupBean(entity));
+            } else {
+                removedRollups.add(RecordRollupService.toRollupBean(existing));
+                existing.setMinutes(entity.getMinutes());
+                existing.setDailyRate(entity.getDailyRate());
+                existing.setImportRecord(getImportRecord());
+                addedRollups.add(RecordRollupService.toRollupBean(existing));
             }
-            if (getImportRecord().getEndDate() == null || getImportRecord().getEndDate().before(latestDate)) {
-                getImportRecord().setEndDate(latestDate);
+        }
+        List<PlanRecordEntity> deletedEntities = new ArrayList<PlanRecordEntity>();
+        for (List<PlanRecordEntity> dayRecords : existingByKey.values()) {
+            deletedEntities.addAll(dayRecords);
+        }
+        removedRollups.addAll(RecordRollupService.toRollupBeans(deletedEntities));
+
+        planRecordRepository.delete(deletedEntities);
+        recordBatchRepository.insert(newEntities);
+        recordBatchRepository.flushAndDetach(existingEntities);
+        // unchanged records only move to the current import, so their rows are updated without writing the entities
+        for (int i = 0; i < unchangedIds.size(); i += UPDATE_BATCH_SIZE) {
+            planRecordRepository.updateImport(unchangedIds.subList(i, Math.min(i + UPDATE_BATCH_SIZE, unchangedIds.size())), getImportRecord());
+        }
+        recordRollupService.updateRollups(RecordType.PLAN, removedRollups, addedRollups);
+    }
+
+    /**
+     * Removes an existing record of the same budget, person and day as the given imported record from the given map.
+     *
+     * @param unchanged if true, only an existing record with the same minutes and daily rate is matched
+     * @return the matched record or null if there is none
+     */
+    private PlanRecordEntity matchExistingRecord(Map<RecordDayKey, List<PlanRecordEntity>> existingByKey, PlanRecordEntity entity, boolean unchanged) {
+        List<PlanRecordEntity> dayRecords = existingByKey.get(new RecordDayKey(entity));
+        if (dayRecords == null) {
+            return null;
+        }
+        for (Iterator<PlanRecordEntity> iterator = dayRecords.iterator(); iterator.hasNext(); ) {
+            PlanRecordEntity existing = iterator.next();
+            if (!unchanged || (existing.getMinutes() == entity.getMinutes() && Objects.equals(existing.getDailyRate(), entity.getDailyRate()))) {
+                iterator.remove();
+                return existing;
             }
         }
-        return skippedRecords;
+        return null;
     }
 
     private List<String> getRecordAsString(PlanRecordEntity recordEntity, String filename) {
@@ -166,22 +229,4 @@ public class PlanRecordDatabaseImporter extends RecordDatabaseImporter {
         return result;
     }
 
-    @Data
-    @AllArgsConstructor
-    class RecordKey {
-        private String personName;
-        private String budgetName;
-        private Money dailyRate;
-
-        @Override
-        public boolean equals(Object o) {
-            return EqualsBuilder.reflectionEquals(this, o);
-        }
-
-        @Override
-        public int hashCode() {
-            return HashCodeBuilder.reflectionHashCode(this);
-        }
-    }
-
 }
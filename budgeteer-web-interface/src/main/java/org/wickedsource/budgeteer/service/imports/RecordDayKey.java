@@ -0,0 +1,30 @@
+package org.wickedsource.budgeteer.service.imports;
+
+import lombok.EqualsAndHashCode;
+import org.wickedsource.budgeteer.persistence.record.RecordEntity;
+
+/**
+ * Budget, person and day of a work or plan record. Imported records are compared with the records of the same key
+ * that are already in the database.
+ */
+@EqualsAndHashCode
+class RecordDayKey {
+
+    private final long budgetId;
+
+    private final long personId;
+
+    private final int year;
+
+    private final int month;
+
+    private final int day;
+
+    RecordDayKey(RecordEntity record) {
+        budgetId = record.getBudget().getId();
+        personId = record.getPerson().getId();
+        year = record.getYear();
+        month = record.getMonth();
+        day = record.getDay();
+    }
+}
@@ -1,44 +1,83 @@
 package org.wickedsource.budgeteer.service.imports;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import org.apache.commons.lang3.time.DateUtils;
 import org.joda.money.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.imports.api.ImportException;
+import org.wickedsource.budgeteer.imports.api.ImportFile;
 import org.wickedsource.budgeteer.imports.api.ImportedWorkRecord;
+import org.wickedsource.budgeteer.imports.api.InvalidFileFormatException;
+import org.wickedsource.budgeteer.imports.api.WorkRecordsImporter;
 import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
-import org.wickedsource.budgeteer.persistence.person.DailyRateEntity;
 import org.wickedsource.budgeteer.persistence.person.DailyRateRepository;
 import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
+import org.wickedsource.budgeteer.persistence.record.RecordBatchRepository;
+import org.wickedsource.budgeteer.persistence.record.RecordRollupBean;
+import org.wickedsource.budgeteer.persistence.record.RecordType;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordEntity;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 
 import javax.annotation.PostConstruct;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Component
 @Scope("prototype")
 public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
 
+    /**
+     * Number of records that are persisted at once while a file is being parsed. Each batch is inserted with one
+     * JDBC batch and never enters the persistence context, so memory usage does not grow with the size of the file.
+     */
+    static final int BATCH_SIZE = RecordBatchRepository.BATCH_SIZE;
+
     @Autowired
     private WorkRecordRepository workRecordRepository;
 
+    @Autowired
+    private RecordBatchRepository recordBatchRepository;
+
     @Autowired
     private DailyRateRepository rateRepository;
 
+    @Autowired
+    private RecordRollupService recordRollupService;
+
     @Getter @Setter
     private Date earliestRecordDate = new Date(Long.MAX_VALUE);
 
     @Getter @Setter
     private Date latestRecordDate = new Date(1l);
 
-    private List<DailyRateEntity> dailyRates;
+    private DailyRateIndex dailyRates;
+
+    /**
+     * If true, imported records are compared with the records already in the database: records that exist with the
+     * same minutes and daily rate are not imported again and existing records whose minutes or daily rate differ are
+     * updated instead of adding a new record.
+     */
+    @Setter
+    private boolean deltaImport;
+
+    @Getter
+    private final ImportCounts importCounts = new ImportCounts();
 
     public WorkRecordDatabaseImporter(long projectId, String importType) {
         super(projectId, importType);
@@ -50,7 +89,7 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
     @PostConstruct
     public void init() {
         super.init();
-        dailyRates = getDailyRateCache(getProjectId());
+        dailyRates = new DailyRateIndex(rateRepository.findByProjectIdFetch(getProjectId()));
     }
 
     @Override
@@ -58,7 +97,29 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
         return skippedRecords;
     }
 
+    /**
+     * Imports the given file with the given importer. The records are persisted in batches of {@link #BATCH_SIZE}
+     * while the file is parsed, so the parsed records of a file never have to be held in memory all at once.
+     */
+    public void importFile(WorkRecordsImporter importer, ImportFile file) throws ImportException, InvalidFileFormatException {
+        List<ImportedWorkRecord> batch = new ArrayList<ImportedWorkRecord>(BATCH_SIZE);
+        importer.importFile(file, record -> {
+            batch.add(record);
+            if (batch.size() == BATCH_SIZE) {
+                persistRecords(batch);
+                batch.clear();
+            }
+        });
+        persistRecords(batch);
+        finishFile();
+    }
+
     public void importRecords(List<ImportedWorkRecord> records) {
+        persistRecords(records);
+        finishFile();
+    }
+
+    private void persistRecords(List<ImportedWorkRecord> records) {
         List<WorkRecordEntity> entitiesToImport = new ArrayList<WorkRecordEntity>();
         for (ImportedWorkRecord record : records) {
 
@@ -71,6 +132,7 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
             WorkRecordEntity entity = new WorkRecordEntity();
             entity.setPerson(getPerson(record.getPersonName()));
             entity.setBudget(budget);
+            entity.setProject(project);
             entity.setMinutes(record.getMinutesWorked());
             entity.setDate(record.getDate());
             entity.setDailyRate(getDailyRateForRecord(record));
@@ -90,10 +152,123 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
                 entitiesToImport.add(entity);
             }
         }
+        if (deltaImport && !entitiesToImport.isEmpty()) {
+            entitiesToImport = mergeWithExistingRecords(entitiesToImport);
+        }
         if(!entitiesToImport.isEmpty()) {
-            workRecordRepository.save(entitiesToImport);
+            recordBatchRepository.insert(entitiesToImport);
+            recordRollupService.addRecords(RecordType.WORK, entitiesToImport);
+        }
+        importCounts.setInsertedRecords(importCounts.getInsertedRecords() + entitiesToImport.size());
+    }
+
+    /**
+     * Compares the given imported records with the records of the same budget, person and day that are already in the
+     * database. An imported record with the same minutes and daily rate as an existing record is unchanged and
+     * dropped. The remaining existing records of a day are updated to the minutes and daily rates of the remaining
+     * imported records, so that rates added or corrected since an earlier import are applied like in a full import.
+     * Records whose daily rate was edited manually keep their rate. All matched existing records are moved to the
+     * current import, so deleting an earlier import does not delete them.
+     *
+     * @return the imported records without counterpart in the database, which have to be inserted.
+     */
+    private List<WorkRecordEntity> mergeWithExistingRecords(List<WorkRecordEntity> importedEntities) {
+        Date startDate = null;
+        Date endDate = null;
+        Set<Long> budgetIds = new HashSet<Long>();
+        Set<Long> personIds = new HashSet<Long>();
+        for (WorkRecordEntity entity : importedEntities) {
+            if (startDate == null || entity.getDate().before(startDate)) {
+                startDate = entity.getDate();
+            }
+            if (endDate == null || entity.getDate().after(endDate)) {
+                endDate = entity.getDate();
+            }
+            budgetIds.add(entity.getBudget().getId());
+            personIds.add(entity.getPerson().getId());
+        }
+        List<WorkRecordEntity> existingRecords = workRecordRepository.findForDeltaImport(getProjectId(), DateUtils.truncate(startDate, Calendar.DATE),
+                endDate, new ArrayList<Long>(budgetIds), new ArrayList<Long>(personIds), getImportRecord().getId());
+        Map<RecordDayKey, List<WorkRecordEntity>> existingByKey = new HashMap<RecordDayKey, List<WorkRecordEntity>>();
+        // records matched by an earlier batch already belong to the current import and are not found again
+        for (WorkRecordEntity existing : existingRecords) {
+            RecordDayKey key = new RecordDayKey(existing);
+            List<WorkRecordEntity> dayRecords = existingByKey.get(key);
+            if (dayRecords == null) {
+                dayRecords = new LinkedList<WorkRecordEntity>();
+                existingByKey.put(key, dayRecords);
+            }
+            dayRecords.add(existing);
         }
 
+        // exact matches first, so that an unchanged record is never used to apply a change
+        List<Long> matchedIds = new ArrayList<Long>();
+        List<WorkRecordEntity> changedEntities = new ArrayList<WorkRecordEntity>();
+        for (WorkRecordEntity entity : importedEntities) {
+            WorkRecordEntity existing = matchExistingRecord(existingByKey, entity, true);
+            if (existing != null) {
+                matchedIds.add(existing.getId());
+                importCounts.setUnchangedRecords(importCounts.getUnchangedRecords() + 1);
+            } else {
+                changedEntities.add(entity);
+            }
+        }
+
+        List<WorkRecordEntity> newEntities = new ArrayList<WorkRecordEntity>();
+        List<RecordRollupBean> removedRollups = new ArrayList<RecordRollupBean>();
+        List<RecordRollupBean> addedRollups = new ArrayList<RecordRollupBean>();
+        for (WorkRecordEntity entity : changedEntities) {
+            WorkRecordEntity existing = matchExistingRecord(existingByKey, entity, false);
+            if (existing == null) {
+                newEntities.add(entity);
+            } else {
+                matchedIds.add(existing.getId());
+                removedRollups.add(RecordRollupService.toRollupBean(existing));
+                existing.setMinutes(entity.getMinutes());
+                if (!isEditedManually(existing)) {
+                    existing.setDailyRate(entity.getDailyRate());
+                }
+                addedRollups.add(RecordRollupService.toRollupBean(existing));
+                importCounts.setUpdatedRecords(importCounts.getUpdatedRecords() + 1);
+            }
+        }
+        recordRollupService.updateRollups(RecordType.WORK, removedRollups, addedRollups);
+        recordBatchRepository.flushAndDetach(existingRecords);
+        // matched records only move to the current import, so their rows are updated without writing the entities
+        for (int i = 0; i < matchedIds.size(); i += BATCH_SIZE) {
+            workRecordRepository.updateImport(matchedIds.subList(i, Math.min(i + BATCH_SIZE, matchedIds.size())), getImportRecord());
+        }
+        return newEntities;
+    }
+
+    /**
+     * Removes an existing record of the same budget, person and day as the given imported record from the given map.
+     *
+     * @param unchanged if true, only an existing record with the same minutes and, unless its rate was edited manually,
+     *                  the same daily rate is matched
+     * @return the matched record or null if there is none
+     */
+    private WorkRecordEntity matchExistingRecord(Map<RecordDayKey, List<WorkRecordEntity>> existingByKey, WorkRecordEntity entity, boolean unchanged) {
+        List<WorkRecordEntity> dayRecords = existingByKey.get(new RecordDayKey(entity));
+        if (dayRecords == null) {
+            return null;
+        }
+        for (Iterator<WorkRecordEntity> iterator = dayRecords.iterator(); iterator.hasNext(); ) {
+            WorkRecordEntity existing = iterator.next();
+            if (!unchanged || (existing.getMinutes() == entity.getMinutes()
+                    && (isEditedManually(existing) || Objects.equals(existing.getDailyRate(), entity.getDailyRate())))) {
+                iterator.remove();
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isEditedManually(WorkRecordEntity record) {
+        return Boolean.TRUE.equals(record.isEditedManually());
+    }
+
+    private void finishFile() {
         //If all records haven been skipped the startDate of the import is new Date(Long.MAX_VALUE) and the EndDate is null.
         // This causes problems in our application, so they have to be set to properly values...
         if(earliestRecordDate == null || earliestRecordDate.equals(new Date(Long.MAX_VALUE))){
@@ -121,21 +296,30 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
         deletedRecordList.add(headline);
         //Find duplicate Records, where the dailyRate was edited manually
         List<WorkRecordEntity> manuallyEditedEntries = workRecordRepository.findManuallyEditedEntries(super.getProjectId(), getEarliestRecordDate(), getLatestRecordDate() );
+        Map<DuplicateKey, LinkedList<WorkRecordEntity>> duplicatesByKey = getDuplicatesOfManuallyEditedEntries();
+        List<WorkRecordEntity> deletedDuplicates = new ArrayList<WorkRecordEntity>();
+        List<WorkRecordEntity> keptEntries = new ArrayList<WorkRecordEntity>();
         for(int i = manuallyEditedEntries.size() -1; i >= 0; i--) {
             WorkRecordEntity editedEntry = manuallyEditedEntries.get(i);
-            List<WorkRecordEntity> duplicateEntryList = workRecordRepository.findDuplicateEntries(editedEntry.getBudget(), editedEntry.getPerson(), editedEntry.getDate(), editedEntry.getMinutes());
-            if (!duplicateEntryList.isEmpty()) {
-                deletedRecordList.add(getRecordAsString(duplicateEntryList.get(0), "There was a manually edited entry associated with this one already in the database"));
-                workRecordRepository.delete(duplicateEntryList.get(0));
+            LinkedList<WorkRecordEntity> duplicates = duplicatesByKey.get(new DuplicateKey(editedEntry));
+            if (duplicates != null && !duplicates.isEmpty()) {
+                // every duplicate replaces only one manually edited entry
+                WorkRecordEntity duplicate = duplicates.removeFirst();
+                deletedRecordList.add(getRecordAsString(duplicate, "There was a manually edited entry associated with this one already in the database"));
+                deletedDuplicates.add(duplicate);
                 //Update the import-reference of the the manually edited record so that it belongs to the current import
-                editedEntry.setImportRecord(duplicateEntryList.get(0).getImportRecord());
-                workRecordRepository.save(editedEntry);
+                editedEntry.setImportRecord(duplicate.getImportRecord());
+                keptEntries.add(editedEntry);
 
-                manuallyEditedEntries.remove(editedEntry);
+                manuallyEditedEntries.remove(i);
             }
         }
+        recordRollupService.removeRecords(RecordType.WORK, deletedDuplicates);
+        workRecordRepository.delete(deletedDuplicates);
+        workRecordRepository.save(keptEntries);
         //if there are still any manually edited records in the list, there weren't any associated entries in the current import
         // -> remove all  left manually-edited-records in the database
+        recordRollupService.removeRecords(RecordType.WORK, manuallyEditedEntries);
         for(WorkRecordEntity leftRecord : manuallyEditedEntries){
             workRecordRepository.delete(leftRecord);
             deletedRecordList.add(getRecordAsString(leftRecord, "The record was edited manually in the application but didn't has a corresponding entry in the import -> deleted"));
@@ -146,6 +330,24 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
         return deletedRecordList;
     }
 
+    /**
+     * Loads all records that are not edited manually but duplicate a manually edited record within the date range of
+     * this import with one query, grouped by the values that make them duplicates.
+     */
+    private Map<DuplicateKey, LinkedList<WorkRecordEntity>> getDuplicatesOfManuallyEditedEntries() {
+        Map<DuplicateKey, LinkedList<WorkRecordEntity>> duplicatesByKey = new HashMap<DuplicateKey, LinkedList<WorkRecordEntity>>();
+        for (WorkRecordEntity duplicate : workRecordRepository.findDuplicatesOfManuallyEditedEntries(getProjectId(), getEarliestRecordDate(), getLatestRecordDate())) {
+            DuplicateKey key = new DuplicateKey(duplicate);
+            LinkedList<WorkRecordEntity> duplicates = duplicatesByKey.get(key);
+            if (duplicates == null) {
+                duplicates = new LinkedList<WorkRecordEntity>();
+                duplicatesByKey.put(key, duplicates);
+            }
+            duplicates.add(duplicate);
+        }
+        return duplicatesByKey;
+    }
+
     private List<String> getRecordAsString(WorkRecordEntity entity){
         return getRecordAsString(entity, "Record is out of project-date-range");
     }
@@ -163,21 +365,27 @@ public class WorkRecordDatabaseImporter extends RecordDatabaseImporter {
     }
 
     private Money getDailyRateForRecord(ImportedWorkRecord record) {
-        for (DailyRateEntity rate : dailyRates) {
-            // TODO: this is far from performant, should be reworked when large data proves to be an issue
-            if (rate.getBudget().getImportKey().equals(record.getBudgetName()) &&
-                    rate.getPerson().getImportKey().equals(record.getPersonName()) &&
-                    !rate.getDateStart().after(record.getDate()) &&
-                    !rate.getDateEnd().before(record.getDate())) {
-                return rate.getRate();
-            }
-        }
-        return MoneyUtil.createMoneyFromCents(0l);
+        Money rate = dailyRates.getRate(record.getBudgetName(), record.getPersonName(), record.getDate());
+        return rate != null ? rate : MoneyUtil.createMoneyFromCents(0l);
     }
 
+    /**
+     * Budget, person, date and minutes of a work record. A record that was edited manually and an imported record
+     * with the same key are considered duplicates.
+     */
+    @EqualsAndHashCode
+    private static class DuplicateKey {
+        private final long budgetId;
+        private final long personId;
+        private final long date;
+        private final int minutes;
 
-    private List<DailyRateEntity> getDailyRateCache(long projectId) {
-        return rateRepository.findByProjectIdFetch(projectId);
+        DuplicateKey(WorkRecordEntity record) {
+            budgetId = record.getBudget().getId();
+            personId = record.getPerson().getId();
+            date = record.getDate().getTime();
+            minutes = record.getMinutes();
+        }
     }
 
 }
@@ -6,13 +6,17 @@ import org.wickedsource.budgeteer.persistence.budget.BudgetRepository;
 import org.wickedsource.budgeteer.persistence.person.DailyRateEntity;
 import org.wickedsource.budgeteer.persistence.person.PersonEntity;
 import org.wickedsource.budgeteer.persistence.person.PersonRepository;
+import org.wickedsource.budgeteer.persistence.record.RecordType;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
 import org.wickedsource.budgeteer.service.DateRange;
 import org.wickedsource.budgeteer.service.budget.BudgetBaseData;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 
 import javax.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -33,6 +37,9 @@ public class PersonService {
     @Autowired
     private WorkRecordRepository workRecordRepository;
 
+    @Autowired
+    private RecordRollupService recordRollupService;
+
     /**
      * Returns all people the given user can make use of to manage budgets.
      *
@@ -94,6 +101,7 @@ public class PersonService {
         personEntity.setImportKey(person.getImportKey());
 
         List<DailyRateEntity> dailyRates = new ArrayList<DailyRateEntity>();
+        Set<Long> changedBudgetIds = new HashSet<Long>();
         for (PersonRate rate : person.getRates()) {
             DailyRateEntity rateEntity = new DailyRateEntity();
             rateEntity.setRate(rate.getRate());
@@ -103,6 +111,11 @@ public class PersonService {
             rateEntity.setDateEnd(rate.getDateRange().getEndDate());
             dailyRates.add(rateEntity);
             workRecordRepository.updateDailyRates(rate.getBudget().getId(), person.getPersonId(), rate.getDateRange().getStartDate(), rate.getDateRange().getEndDate(), rate.getRate());
+            workRecordRepository.updateCentMinutes(rate.getBudget().getId(), person.getPersonId(), rate.getDateRange().getStartDate(), rate.getDateRange().getEndDate());
+            changedBudgetIds.add(rate.getBudget().getId());
+        }
+        for (Long budgetId : changedBudgetIds) {
+            recordRollupService.rebuildBudgetAndPerson(RecordType.WORK, budgetId, person.getPersonId());
         }
 
         personEntity.getDailyRates().clear();
@@ -121,6 +134,7 @@ public class PersonService {
     }
 
     public void deletePerson(long personId) {
+        recordRollupService.deleteByPerson(personId);
         personRepository.delete(personId);
     }
 
@@ -15,6 +15,7 @@ import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
 import org.wickedsource.budgeteer.persistence.user.UserEntity;
 import org.wickedsource.budgeteer.persistence.user.UserRepository;
 import org.wickedsource.budgeteer.service.DateRange;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 import org.wickedsource.budgeteer.web.pages.administration.Project;
 
 import javax.transaction.Transactional;
@@ -57,6 +58,9 @@ public class ProjectService {
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private RecordRollupService recordRollupService;
+
     /**
      * Creates a new empty project with the given name.
      *
@@ -110,6 +114,7 @@ public class ProjectService {
      */
     public void deleteProject(long projectId) {
         dailyRateRepository.deleteByProjectId(projectId);
+        recordRollupService.deleteByProject(projectId);
         planRecordRepository.deleteByImportAndProjectId(projectId);
         workRecordRepository.deleteByImportAndProjectId(projectId);
         importRepository.deleteByProjectId(projectId);
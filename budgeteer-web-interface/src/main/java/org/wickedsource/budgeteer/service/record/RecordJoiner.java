@@ -1,5 +1,6 @@
 package org.wickedsource.budgeteer.service.record;
 
+import org.joda.money.Money;
 import org.springframework.stereotype.Component;
 import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean;
@@ -9,6 +10,11 @@ import org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordWithT
 
 import java.util.*;
 
+/**
+ * Joins aggregated work records and plan records by week or month. Both inputs are sorted by a primitive period key
+ * (year * 100 + week or month) and merged in a single pass, so beans of the same period with different tax rates are
+ * summed up on the way.
+ */
 @Component
 public class RecordJoiner {
 
@@ -16,222 +22,204 @@ public class RecordJoiner {
      * Joins the given work records and the given plan records since it is not possible to join them in the database with JPA.
      */
     public List<AggregatedRecord> joinWeekly(List<WeeklyAggregatedRecordBean> workRecords, List<WeeklyAggregatedRecordBean> planRecords) {
-        RecordMap recordMap = new RecordMap();
-        for (WeeklyAggregatedRecordBean bean : planRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecord(bean);
-            record.setBudgetPlanned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-        }
-        for (WeeklyAggregatedRecordBean bean : workRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecord(bean);
-            record.setBudgetBurned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-            record.setHours(bean.getHours());
-        }
-        List<AggregatedRecord> records = new ArrayList<AggregatedRecord>(recordMap.values());
-        Collections.sort(records, new AggregatedRecordComparator());
-        return records;
+        return join(Periods.ofWeeks(workRecords), Periods.ofWeeks(planRecords), new PeriodBoundaries(Calendar.WEEK_OF_YEAR));
     }
 
     /**
      * Joins the given work records and the given plan records with calculating the taxes since it is not possible to join them in the database with JPA.
+     * Records of the same week with different tax rates are summed up.
      */
     public List<AggregatedRecord> joinWeeklyWithTax(List<WeeklyAggregatedRecordWithTaxBean> workRecords, List<WeeklyAggregatedRecordWithTaxBean> planRecords) {
-        RecordMap recordMap = new RecordMap();
-
-        // Create a record for each bean
-        for (WeeklyAggregatedRecordWithTaxBean bean : planRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecordWithTax(bean);
-
-            record.setBudgetPlanned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-            record.setBudgetPlanned_gross(bean.getValueWithTaxes());
-        }
-        for (WeeklyAggregatedRecordWithTaxBean bean : workRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecordWithTax(bean);
-
-            record.setBudgetBurned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-            record.setBudgetBurned_gross(bean.getValueWithTaxes());
-            record.setHours(bean.getHours());
-        }
-
-        List<AggregatedRecord> records = new ArrayList<AggregatedRecord>(recordMap.values());
-        Collections.sort(records, new AggregatedRecordComparator());
-
-        //Sum up records of the same week
-        records = sumRecordsForEachPeriod(records);
+        return join(Periods.ofWeeksWithTax(workRecords), Periods.ofWeeksWithTax(planRecords), new PeriodBoundaries(Calendar.WEEK_OF_YEAR));
+    }
 
-        return records;
+    public List<AggregatedRecord> joinMonthly(List<MonthlyAggregatedRecordBean> workRecords, List<MonthlyAggregatedRecordBean> planRecords) {
+        return join(Periods.ofMonths(workRecords), Periods.ofMonths(planRecords), new PeriodBoundaries(Calendar.MONTH));
     }
 
     /**
-     * Goes through a list of records by time periods and sums up the money of all records for each period.
-     * @param records a list of records to sum up
-     * @return a list of the summed records
+     * Records of the same month with different tax rates are summed up.
      */
-    private List<AggregatedRecord> sumRecordsForEachPeriod(List<AggregatedRecord> records)
-    {
-        int i = 0;
-        while(i<records.size()-1){
-            AggregatedRecord current = records.get(i);
-            AggregatedRecord next = records.get(i + 1);
-
-            // Create new record as a sum
-            if (current.getAggregationPeriodStart().equals(next.getAggregationPeriodStart()) && current.getAggregationPeriodEnd().equals(next.getAggregationPeriodEnd())) {
-                AggregatedRecord sum = new AggregatedRecord();
-                sum.setAggregationPeriodTitle(current.getAggregationPeriodTitle());
-                sum.setAggregationPeriodStart(current.getAggregationPeriodStart());
-                sum.setAggregationPeriodEnd(current.getAggregationPeriodEnd());
-
-                if (current.getHours() == null) {
-                    sum.setHours(next.getHours());
-                } else if (next.getHours() == null) {
-                    sum.setHours(current.getHours());
-                } else {
-                    sum.setHours(current.getHours() + next.getHours());
-                }
-
-                sum.setBudgetPlanned_net(MoneyUtil.sumMoney(current.getBudgetPlanned_net(), next.getBudgetPlanned_net()));
-                sum.setBudgetPlanned_gross(MoneyUtil.sumMoney(current.getBudgetPlanned_gross(), next.getBudgetPlanned_gross()));
-                sum.setBudgetBurned_net(MoneyUtil.sumMoney(current.getBudgetBurned_net(), next.getBudgetBurned_net()));
-                sum.setBudgetBurned_gross(MoneyUtil.sumMoney(current.getBudgetBurned_gross(), next.getBudgetBurned_gross()));
+    public List<AggregatedRecord> joinMonthlyWithTax(List<MonthlyAggregatedRecordWithTaxBean> workRecords, List<MonthlyAggregatedRecordWithTaxBean> planRecords) {
+        return join(Periods.ofMonthsWithTax(workRecords), Periods.ofMonthsWithTax(planRecords), new PeriodBoundaries(Calendar.MONTH));
+    }
 
-                // Replace the two old records by their sum
-                records.remove(current);
-                records.remove(next);
-                records.add(i, sum);
+    private List<AggregatedRecord> join(Periods work, Periods plan, PeriodBoundaries boundaries) {
+        long[] workOrder = work.sortedByKey();
+        long[] planOrder = plan.sortedByKey();
+        List<AggregatedRecord> result = new ArrayList<AggregatedRecord>();
+        int w = 0;
+        int p = 0;
+        while (w < workOrder.length || p < planOrder.length) {
+            int key;
+            if (p == planOrder.length) {
+                key = Periods.keyOf(workOrder[w]);
+            } else if (w == workOrder.length) {
+                key = Periods.keyOf(planOrder[p]);
+            } else {
+                key = Math.min(Periods.keyOf(workOrder[w]), Periods.keyOf(planOrder[p]));
             }
-            else {
-                // Go to the next record
-                i++;
+            AggregatedRecord record = boundaries.createRecord(key);
+
+            int planStart = p;
+            long plannedNet = 0;
+            long plannedGross = 0;
+            for (; p < planOrder.length && Periods.keyOf(planOrder[p]) == key; p++) {
+                int index = Periods.indexOf(planOrder[p]);
+                plannedNet += plan.cents[index];
+                plannedGross += plan.grossCents[index];
+            }
+            if (p > planStart) {
+                record.setBudgetPlanned_net(MoneyUtil.createMoneyFromCents(plannedNet));
+                if (plan.withTax) {
+                    record.setBudgetPlanned_gross(MoneyUtil.createMoneyFromCents(plannedGross));
+                }
             }
-        }
 
-        return records;
-    }
+            int workStart = w;
+            long burnedNet = 0;
+            long burnedGross = 0;
+            Double hours = null;
+            for (; w < workOrder.length && Periods.keyOf(workOrder[w]) == key; w++) {
+                int index = Periods.indexOf(workOrder[w]);
+                burnedNet += work.cents[index];
+                burnedGross += work.grossCents[index];
+                if (work.hours[index] != null) {
+                    hours = hours == null ? work.hours[index] : hours + work.hours[index];
+                }
+            }
+            if (w > workStart) {
+                record.setBudgetBurned_net(MoneyUtil.createMoneyFromCents(burnedNet));
+                if (work.withTax) {
+                    record.setBudgetBurned_gross(MoneyUtil.createMoneyFromCents(burnedGross));
+                }
+                record.setHours(hours);
+            }
 
-    public List<AggregatedRecord> joinMonthly(List<MonthlyAggregatedRecordBean> workRecords, List<MonthlyAggregatedRecordBean> planRecords) {
-        RecordMap recordMap = new RecordMap();
-        for (MonthlyAggregatedRecordBean bean : planRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecord(bean);
-            record.setBudgetPlanned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
+            result.add(record);
         }
-        for (MonthlyAggregatedRecordBean bean : workRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecord(bean);
-            record.setBudgetBurned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-            record.setHours(bean.getHours());
-        }
-        List<AggregatedRecord> records = new ArrayList<AggregatedRecord>(recordMap.values());
-        Collections.sort(records, new AggregatedRecordComparator());
-        return records;
+        return result;
     }
 
-    public List<AggregatedRecord> joinMonthlyWithTax(List<MonthlyAggregatedRecordWithTaxBean> workRecords, List<MonthlyAggregatedRecordWithTaxBean> planRecords) {
-        RecordMap recordMap = new RecordMap();
-        for (MonthlyAggregatedRecordWithTaxBean bean : planRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecordWithTax(bean);
-            record.setBudgetPlanned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-            record.setBudgetPlanned_gross(bean.getValueWithTaxes());
-        }
-        for (MonthlyAggregatedRecordWithTaxBean bean : workRecords) {
-            AggregatedRecord record = recordMap.getOrCreateRecordWithTax(bean);
-            record.setBudgetBurned_net(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-            record.setBudgetBurned_gross(bean.getValueWithTaxes());
-            record.setHours(bean.getHours());
-        }
-        List<AggregatedRecord> records = new ArrayList<AggregatedRecord>(recordMap.values());
-        Collections.sort(records, new AggregatedRecordComparator());
+    /**
+     * The values of a list of aggregated record beans in parallel arrays.
+     */
+    private static class Periods {
 
-        //Sum up records of the same month
-        records = sumRecordsForEachPeriod(records);
+        private final int[] keys;
 
-        return records;
-    }
+        private final long[] cents;
+
+        private final long[] grossCents;
+
+        private final Double[] hours;
+
+        private final boolean withTax;
+
+        private Periods(int size, boolean withTax) {
+            this.keys = new int[size];
+            this.cents = new long[size];
+            this.grossCents = new long[size];
+            this.hours = new Double[size];
+            this.withTax = withTax;
+        }
 
-    class RecordMap extends HashMap<String, AggregatedRecord> {
-
-        public AggregatedRecord getOrCreateRecord(WeeklyAggregatedRecordBean recordBean) {
-            AggregatedRecord record = get(getKey(recordBean));
-            if (record == null) {
-                Calendar c = Calendar.getInstance(Locale.GERMAN);
-                c.clear();
-                c.set(Calendar.YEAR, recordBean.getYear());
-                c.set(Calendar.WEEK_OF_YEAR, recordBean.getWeek());
-                record = new AggregatedRecord();
-                record.setAggregationPeriodStart(c.getTime());
-                c.add(Calendar.DAY_OF_YEAR, 6);
-                record.setAggregationPeriodEnd(c.getTime());
-                record.setAggregationPeriodTitle(String.format("Week #%d", recordBean.getWeek()));
-                put(getKey(recordBean), record);
+        static Periods ofWeeks(List<WeeklyAggregatedRecordBean> beans) {
+            Periods periods = new Periods(beans.size(), false);
+            int i = 0;
+            for (WeeklyAggregatedRecordBean bean : beans) {
+                periods.set(i++, bean.getYear(), bean.getWeek(), bean.getValueInCents(), null, bean.getHours());
             }
-            return record;
+            return periods;
         }
 
-        public AggregatedRecord getOrCreateRecordWithTax(WeeklyAggregatedRecordWithTaxBean recordBean) {
-            AggregatedRecord record = get(getKey(recordBean));
-            if (record == null) {
-                Calendar c = Calendar.getInstance(Locale.GERMAN);
-                c.clear();
-                c.set(Calendar.YEAR, recordBean.getYear());
-                c.set(Calendar.WEEK_OF_YEAR, recordBean.getWeek());
-                record = new AggregatedRecord();
-                record.setAggregationPeriodStart(c.getTime());
-                c.add(Calendar.DAY_OF_YEAR, 6);
-                record.setAggregationPeriodEnd(c.getTime());
-                record.setAggregationPeriodTitle(String.format("Week #%d", recordBean.getWeek()));
-                put(getKey(recordBean), record);
+        static Periods ofWeeksWithTax(List<WeeklyAggregatedRecordWithTaxBean> beans) {
+            Periods periods = new Periods(beans.size(), true);
+            int i = 0;
+            for (WeeklyAggregatedRecordWithTaxBean bean : beans) {
+                periods.set(i++, bean.getYear(), bean.getWeek(), bean.getValueInCents(), bean.getValueWithTaxes(), bean.getHours());
             }
-            return record;
+            return periods;
         }
 
-        public AggregatedRecord getOrCreateRecord(MonthlyAggregatedRecordBean recordBean) {
-            AggregatedRecord record = get(getKey(recordBean));
-            if (record == null) {
-                Calendar c = Calendar.getInstance(Locale.GERMAN);
-                c.clear();
-                c.set(Calendar.YEAR, recordBean.getYear());
-                c.set(Calendar.MONTH, recordBean.getMonth());
-                record = new AggregatedRecord();
-                record.setAggregationPeriodStart(c.getTime());
-                c.add(Calendar.MONTH, 1);
-                c.add(Calendar.DAY_OF_YEAR, -1);
-                record.setAggregationPeriodEnd(c.getTime());
-                record.setAggregationPeriodTitle(String.format("%d/%02d", recordBean.getYear(), recordBean.getMonth() + 1));
-                put(getKey(recordBean), record);
+        static Periods ofMonths(List<MonthlyAggregatedRecordBean> beans) {
+            Periods periods = new Periods(beans.size(), false);
+            int i = 0;
+            for (MonthlyAggregatedRecordBean bean : beans) {
+                periods.set(i++, bean.getYear(), bean.getMonth(), bean.getValueInCents(), null, bean.getHours());
             }
-            return record;
+            return periods;
         }
 
-        public AggregatedRecord getOrCreateRecordWithTax(MonthlyAggregatedRecordWithTaxBean recordBean) {
-            AggregatedRecord record = get(getKey(recordBean));
-            if (record == null) {
-                Calendar c = Calendar.getInstance(Locale.GERMAN);
-                c.clear();
-                c.set(Calendar.YEAR, recordBean.getYear());
-                c.set(Calendar.MONTH, recordBean.getMonth());
-                record = new AggregatedRecord();
-                record.setAggregationPeriodStart(c.getTime());
-                c.add(Calendar.MONTH, 1);
-                c.add(Calendar.DAY_OF_YEAR, -1);
-                record.setAggregationPeriodEnd(c.getTime());
-                record.setAggregationPeriodTitle(String.format("%d/%02d", recordBean.getYear(), recordBean.getMonth() + 1));
-                put(getKey(recordBean), record);
+        static Periods ofMonthsWithTax(List<MonthlyAggregatedRecordWithTaxBean> beans) {
+            Periods periods = new Periods(beans.size(), true);
+            int i = 0;
+            for (MonthlyAggregatedRecordWithTaxBean bean : beans) {
+                periods.set(i++, bean.getYear(), bean.getMonth(), bean.getValueInCents(), bean.getValueWithTaxes(), bean.getHours());
             }
-            return record;
+            return periods;
         }
 
-        private String getKey(WeeklyAggregatedRecordBean recordBean) {
-            return String.format("%d%d", recordBean.getYear(), recordBean.getWeek());
+        private void set(int index, int year, int period, long valueInCents, Money valueWithTaxes, Double hours) {
+            this.keys[index] = year * 100 + period;
+            this.cents[index] = valueInCents;
+            this.grossCents[index] = valueWithTaxes == null ? 0 : valueWithTaxes.getAmountMinorLong();
+            this.hours[index] = hours;
         }
 
-        private String getKey(WeeklyAggregatedRecordWithTaxBean recordBean) {
-            return String.format("%d%d%s", recordBean.getYear(), recordBean.getWeek(), recordBean.getTaxRate());
+        /**
+         * @return the indexes of the beans sorted by period, each packed together with its period key into a long
+         * (see {@link #keyOf(long)} and {@link #indexOf(long)}).
+         */
+        long[] sortedByKey() {
+            long[] packed = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                packed[i] = ((long) keys[i] << 32) | i;
+            }
+            Arrays.sort(packed);
+            return packed;
         }
 
-        private String getKey(MonthlyAggregatedRecordBean recordBean) {
-            return String.format("%d%d", recordBean.getYear(), recordBean.getMonth());
+        static int keyOf(long packed) {
+            return (int) (packed >>> 32);
         }
 
-        private String getKey(MonthlyAggregatedRecordWithTaxBean recordBean) {
-            return String.format("%d%d%s", recordBean.getYear(), recordBean.getMonth(), recordBean.getTaxRate());
+        static int indexOf(long packed) {
+            return (int) packed;
         }
+    }
 
+    /**
+     * Calculates start, end and title of weeks or months from their period keys, reusing a single calendar.
+     */
+    private static class PeriodBoundaries {
+
+        private final int calendarField;
+
+        private final Calendar calendar = Calendar.getInstance(Locale.GERMAN);
+
+        PeriodBoundaries(int calendarField) {
+            this.calendarField = calendarField;
+        }
+
+        AggregatedRecord createRecord(int key) {
+            int year = key / 100;
+            int period = key % 100;
+            AggregatedRecord record = new AggregatedRecord();
+            calendar.clear();
+            calendar.set(Calendar.YEAR, year);
+            calendar.set(calendarField, period);
+            record.setAggregationPeriodStart(calendar.getTime());
+            if (calendarField == Calendar.WEEK_OF_YEAR) {
+                calendar.add(Calendar.DAY_OF_YEAR, 6);
+                record.setAggregationPeriodTitle("Week #" + period);
+            } else {
+                calendar.add(Calendar.MONTH, 1);
+                calendar.add(Calendar.DAY_OF_YEAR, -1);
+                record.setAggregationPeriodTitle(year + (period < 9 ? "/0" : "/") + (period + 1));
+            }
+            record.setAggregationPeriodEnd(calendar.getTime());
+            return record;
+        }
     }
 }
@@ -0,0 +1,47 @@
+package org.wickedsource.budgeteer.service.record;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+
+import javax.transaction.Transactional;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Fills the columns that were added to the record tables after records were stored: the project of work and plan
+ * records and the burned value of work records. Runs before the {@link RecordRollupInitializer}, since the rollups
+ * are rebuilt per project.
+ */
+@Component
+@Transactional
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RecordMigrationInitializer implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger log = getLogger(RecordMigrationInitializer.class);
+
+    @Autowired
+    private WorkRecordRepository workRecordRepository;
+
+    @Autowired
+    private PlanRecordRepository planRecordRepository;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        int workRecords = workRecordRepository.updateMissingProjects();
+        int planRecords = planRecordRepository.updateMissingProjects();
+        if (workRecords + planRecords > 0) {
+            log.info("Set the project of {} work records and {} plan records", workRecords, planRecords);
+        }
+        int burnedRecords = workRecordRepository.updateMissingCentMinutes();
+        if (burnedRecords > 0) {
+            log.info("Computed the burned value of {} work records", burnedRecords);
+        }
+    }
+}
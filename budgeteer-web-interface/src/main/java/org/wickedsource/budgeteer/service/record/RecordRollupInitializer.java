@@ -0,0 +1,60 @@
+package org.wickedsource.budgeteer.service.record;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
+import org.wickedsource.budgeteer.persistence.project.ProjectRepository;
+import org.wickedsource.budgeteer.persistence.record.MonthlyRecordRollupRepository;
+import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
+import org.wickedsource.budgeteer.persistence.record.WeeklyRecordRollupRepository;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Fills the rollup tables from the existing work and plan records when the application is started on a database
+ * that was created before the rollup tables existed.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class RecordRollupInitializer implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger log = getLogger(RecordRollupInitializer.class);
+
+    @Autowired
+    private WeeklyRecordRollupRepository weeklyRollupRepository;
+
+    @Autowired
+    private MonthlyRecordRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private WorkRecordRepository workRecordRepository;
+
+    @Autowired
+    private PlanRecordRepository planRecordRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private RecordRollupService recordRollupService;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (weeklyRollupRepository.count() > 0 || monthlyRollupRepository.count() > 0) {
+            return;
+        }
+        if (workRecordRepository.count() + planRecordRepository.count() == 0) {
+            return;
+        }
+        log.info("Rollup tables are empty, rebuilding them from the existing records");
+        for (ProjectEntity project : projectRepository.findAll()) {
+            recordRollupService.rebuildProject(project.getId());
+        }
+    }
+}
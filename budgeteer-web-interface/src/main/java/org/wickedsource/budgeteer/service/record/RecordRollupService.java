@@ -0,0 +1,244 @@
+package org.wickedsource.budgeteer.service.record;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
+import org.wickedsource.budgeteer.persistence.budget.BudgetRepository;
+import org.wickedsource.budgeteer.persistence.person.PersonEntity;
+import org.wickedsource.budgeteer.persistence.person.PersonRepository;
+import org.wickedsource.budgeteer.persistence.record.*;
+
+import javax.transaction.Transactional;
+import java.util.*;
+
+/**
+ * Keeps the weekly and monthly rollup tables in sync with the work and plan records. Every service that adds, removes
+ * or changes records has to report the change here, otherwise the aggregated charts will show outdated values.
+ */
+@Service
+@Transactional
+public class RecordRollupService {
+
+    @Autowired
+    private WeeklyRecordRollupRepository weeklyRollupRepository;
+
+    @Autowired
+    private MonthlyRecordRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private WorkRecordRepository workRecordRepository;
+
+    @Autowired
+    private PlanRecordRepository planRecordRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    /**
+     * Adds the values of the given (already saved) records to the rollups.
+     */
+    public void addRecords(RecordType type, Collection<? extends RecordEntity> records) {
+        updateRollups(type, Collections.<RecordRollupBean>emptyList(), toRollupBeans(records));
+    }
+
+    /**
+     * Subtracts the values of the given records from the rollups.
+     */
+    public void removeRecords(RecordType type, Collection<? extends RecordEntity> records) {
+        updateRollups(type, toRollupBeans(records), Collections.<RecordRollupBean>emptyList());
+    }
+
+    /**
+     * Subtracts the removed values and adds the added values in one go, so that rollup rows that would become empty
+     * in between are not deleted and recreated within the same transaction.
+     *
+     * @param type    the type of records that changed
+     * @param removed aggregated values of the records that were deleted
+     * @param added   aggregated values of the records that were created
+     */
+    public void updateRollups(RecordType type, List<RecordRollupBean> removed, List<RecordRollupBean> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        Map<RollupKey, long[]> weeklyDeltas = new HashMap<RollupKey, long[]>();
+        Map<RollupKey, long[]> monthlyDeltas = new HashMap<RollupKey, long[]>();
+        Set<Long> budgetIds = new HashSet<Long>();
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (int i = 0; i < 2; i++) {
+            List<RecordRollupBean> beans = i == 0 ? removed : added;
+            int sign = i == 0 ? -1 : 1;
+            for (RecordRollupBean bean : beans) {
+                addDelta(weeklyDeltas, new RollupKey(bean.getBudgetId(), bean.getPersonId(), bean.getYear(), bean.getWeek()), bean, sign);
+                addDelta(monthlyDeltas, new RollupKey(bean.getBudgetId(), bean.getPersonId(), bean.getYear(), bean.getMonth()), bean, sign);
+                budgetIds.add(bean.getBudgetId());
+                minYear = Math.min(minYear, bean.getYear());
+                maxYear = Math.max(maxYear, bean.getYear());
+            }
+        }
+
+        RollupEntityFactory factory = new RollupEntityFactory(type);
+
+        Map<RollupKey, WeeklyRecordRollupEntity> weeklyRows = new HashMap<RollupKey, WeeklyRecordRollupEntity>();
+        for (WeeklyRecordRollupEntity row : weeklyRollupRepository.findByBudgetsAndYears(type, new ArrayList<Long>(budgetIds), minYear, maxYear)) {
+            weeklyRows.put(new RollupKey(row.getBudget().getId(), row.getPerson().getId(), row.getYear(), row.getWeek()), row);
+        }
+        List<WeeklyRecordRollupEntity> weeklyToSave = new ArrayList<WeeklyRecordRollupEntity>();
+        List<WeeklyRecordRollupEntity> weeklyToDelete = new ArrayList<WeeklyRecordRollupEntity>();
+        for (Map.Entry<RollupKey, long[]> delta : weeklyDeltas.entrySet()) {
+            WeeklyRecordRollupEntity row = weeklyRows.get(delta.getKey());
+            if (row == null) {
+                row = new WeeklyRecordRollupEntity();
+                factory.initialize(row, delta.getKey());
+                row.setWeek(delta.getKey().getPeriod());
+            }
+            row.add(delta.getValue()[0], delta.getValue()[1]);
+            if (!row.isEmpty()) {
+                weeklyToSave.add(row);
+            } else if (row.getId() != 0) {
+                weeklyToDelete.add(row);
+            }
+        }
+        weeklyRollupRepository.delete(weeklyToDelete);
+        weeklyRollupRepository.save(weeklyToSave);
+
+        Map<RollupKey, MonthlyRecordRollupEntity> monthlyRows = new HashMap<RollupKey, MonthlyRecordRollupEntity>();
+        for (MonthlyRecordRollupEntity row : monthlyRollupRepository.findByBudgetsAndYears(type, new ArrayList<Long>(budgetIds), minYear, maxYear)) {
+            monthlyRows.put(new RollupKey(row.getBudget().getId(), row.getPerson().getId(), row.getYear(), row.getMonth()), row);
+        }
+        List<MonthlyRecordRollupEntity> monthlyToSave = new ArrayList<MonthlyRecordRollupEntity>();
+        List<MonthlyRecordRollupEntity> monthlyToDelete = new ArrayList<MonthlyRecordRollupEntity>();
+        for (Map.Entry<RollupKey, long[]> delta : monthlyDeltas.entrySet()) {
+            MonthlyRecordRollupEntity row = monthlyRows.get(delta.getKey());
+            if (row == null) {
+                row = new MonthlyRecordRollupEntity();
+                factory.initialize(row, delta.getKey());
+                row.setMonth(delta.getKey().getPeriod());
+            }
+            row.add(delta.getValue()[0], delta.getValue()[1]);
+            if (!row.isEmpty()) {
+                monthlyToSave.add(row);
+            } else if (row.getId() != 0) {
+                monthlyToDelete.add(row);
+            }
+        }
+        monthlyRollupRepository.delete(monthlyToDelete);
+        monthlyRollupRepository.save(monthlyToSave);
+    }
+
+    /**
+     * Subtracts all work and plan records of the given import from the rollups. Must be called before the records
+     * are deleted.
+     */
+    public void removeImport(long importId) {
+        updateRollups(RecordType.WORK, workRecordRepository.aggregateForRollupByImport(importId), Collections.<RecordRollupBean>emptyList());
+        updateRollups(RecordType.PLAN, planRecordRepository.aggregateForRollupByImport(importId), Collections.<RecordRollupBean>emptyList());
+    }
+
+    /**
+     * Recalculates the rollups of one person in one budget from the raw records, e.g. after daily rates
+     * have been changed by a bulk update.
+     */
+    public void rebuildBudgetAndPerson(RecordType type, long budgetId, long personId) {
+        weeklyRollupRepository.deleteByBudgetAndPerson(type, budgetId, personId);
+        monthlyRollupRepository.deleteByBudgetAndPerson(type, budgetId, personId);
+        RecordRepository recordRepository = type == RecordType.WORK ? workRecordRepository : planRecordRepository;
+        updateRollups(type, Collections.<RecordRollupBean>emptyList(), recordRepository.aggregateForRollupByBudgetAndPerson(budgetId, personId));
+    }
+
+    /**
+     * Recalculates all rollups of the given project from the raw records.
+     */
+    public void rebuildProject(long projectId) {
+        deleteByProject(projectId);
+        updateRollups(RecordType.WORK, Collections.<RecordRollupBean>emptyList(), workRecordRepository.aggregateForRollupByProject(projectId));
+        updateRollups(RecordType.PLAN, Collections.<RecordRollupBean>emptyList(), planRecordRepository.aggregateForRollupByProject(projectId));
+    }
+
+    public void deleteByProject(long projectId) {
+        weeklyRollupRepository.deleteByProjectId(projectId);
+        monthlyRollupRepository.deleteByProjectId(projectId);
+    }
+
+    public void deleteByBudget(long budgetId) {
+        weeklyRollupRepository.deleteByBudgetId(budgetId);
+        monthlyRollupRepository.deleteByBudgetId(budgetId);
+    }
+
+    public void deleteByPerson(long personId) {
+        weeklyRollupRepository.deleteByPersonId(personId);
+        monthlyRollupRepository.deleteByPersonId(personId);
+    }
+
+    /**
+     * Converts a single record into a rollup value.
+     */
+    public static RecordRollupBean toRollupBean(RecordEntity record) {
+        long rateInCents = record.getDailyRate() == null ? 0 : record.getDailyRate().getAmountMinorLong();
+        return new RecordRollupBean(record.getBudget().getId(), record.getPerson().getId(), record.getYear(),
+                record.getMonth(), record.getWeek(), record.getMinutes(), record.getMinutes() * rateInCents);
+    }
+
+    public static List<RecordRollupBean> toRollupBeans(Collection<? extends RecordEntity> records) {
+        List<RecordRollupBean> result = new ArrayList<RecordRollupBean>(records.size());
+        for (RecordEntity record : records) {
+            result.add(toRollupBean(record));
+        }
+        return result;
+    }
+
+    private void addDelta(Map<RollupKey, long[]> deltas, RollupKey key, RecordRollupBean bean, int sign) {
+        long[] delta = deltas.get(key);
+        if (delta == null) {
+            delta = new long[2];
+            deltas.put(key, delta);
+        }
+        delta[0] += sign * bean.getMinutes();
+        delta[1] += sign * bean.getCentMinutes();
+    }
+
+    @Data
+    private static class RollupKey {
+        private final long budgetId;
+        private final long personId;
+        private final int year;
+        private final int period;
+    }
+
+    /**
+     * Initializes new rollup rows and caches the budgets and persons they reference.
+     */
+    private class RollupEntityFactory {
+
+        private final RecordType type;
+
+        private final Map<Long, BudgetEntity> budgets = new HashMap<Long, BudgetEntity>();
+
+        private final Map<Long, PersonEntity> persons = new HashMap<Long, PersonEntity>();
+
+        RollupEntityFactory(RecordType type) {
+            this.type = type;
+        }
+
+        void initialize(RecordRollupEntity row, RollupKey key) {
+            BudgetEntity budget = budgets.get(key.getBudgetId());
+            if (budget == null) {
+                budget = budgetRepository.findOne(key.getBudgetId());
+                budgets.put(key.getBudgetId(), budget);
+            }
+            PersonEntity person = persons.get(key.getPersonId());
+            if (person == null) {
+                person = personRepository.findOne(key.getPersonId());
+                persons.put(key.getPersonId(), person);
+            }
+            row.setRecordType(type);
+            row.setBudget(budget);
+            row.setPerson(person);
+            row.setYear(key.getYear());
+        }
+    }
+}
@@ -3,11 +3,13 @@ package org.wickedsource.budgeteer.service.record;
 import com.querydsl.core.types.Predicate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.wickedsource.budgeteer.ListUtil;
+import org.joda.money.Money;
+import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.persistence.record.*;
 import org.wickedsource.budgeteer.service.budget.BudgetTagFilter;
 
 import javax.transaction.Transactional;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -18,13 +20,19 @@ public class RecordService {
     private WorkRecordRepository workRecordRepository;
 
     @Autowired
-    private PlanRecordRepository planRecordRepository;
+    private RecordAggregationRepository aggregationRepository;
+
+    @Autowired
+    private RecordRollupService recordRollupService;
 
     @Autowired
     private RecordJoiner recordJoiner;
 
     @Autowired
-    private WorkRecordMapper recordMapper;
+    private WorkRecordListRepository workRecordListRepository;
+
+    @Autowired
+    private WorkRecordRowMapper recordRowMapper;
 
     /**
      * Loads the actual budget burned by the given person and the budget planned for this person aggregated by week.
@@ -33,9 +41,8 @@ public class RecordService {
      * @return one record for each week from the current week to the first week that person booked hours
      */
     public List<AggregatedRecord> getWeeklyAggregationForPerson(long personId) {
-        List<WeeklyAggregatedRecordBean> planRecords = planRecordRepository.aggregateByWeekAndPerson(personId);
-        List<WeeklyAggregatedRecordBean> workRecords = workRecordRepository.aggregateByWeekAndPerson(personId);
-        return recordJoiner.joinWeekly(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forPerson(personId));
+        return recordJoiner.joinWeekly(AggregatedRows.toWeeklyBeans(rows, RecordType.WORK), AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN));
     }
 
 
@@ -46,9 +53,8 @@ public class RecordService {
      * @return one record for each month from the current month to the first month that person booked hours
      */
     public List<AggregatedRecord> getMonthlyAggregationForPerson(long personId) {
-        List<MonthlyAggregatedRecordBean> planRecords = planRecordRepository.aggregateByMonthAndPerson(personId);
-        List<MonthlyAggregatedRecordBean> workRecords = workRecordRepository.aggregateByMonthAndPerson(personId);
-        return recordJoiner.joinMonthly(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth().forPerson(personId));
+        return recordJoiner.joinMonthly(AggregatedRows.toMonthlyBeans(rows, RecordType.WORK), AggregatedRows.toMonthlyBeans(rows, RecordType.PLAN));
     }
 
     /**
@@ -58,9 +64,8 @@ public class RecordService {
      * @return one record for each week from the current week to the first week that was booked in the given budget
      */
     public List<AggregatedRecord> getWeeklyAggregationForBudget(long budgetId) {
-        List<WeeklyAggregatedRecordBean> planRecords = planRecordRepository.aggregateByWeekAndBudget(budgetId);
-        List<WeeklyAggregatedRecordBean> workRecords = workRecordRepository.aggregateByWeekAndBudget(budgetId);
-        return recordJoiner.joinWeekly(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forBudget(budgetId));
+        return recordJoiner.joinWeekly(AggregatedRows.toWeeklyBeans(rows, RecordType.WORK), AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN));
     }
 
 
@@ -70,9 +75,8 @@ public class RecordService {
      * @return one record for each week from the current week to the first week that was booked in the given budget
      */
     public List<AggregatedRecord> getWeeklyAggregationForBudgetWithTax(long budgetId) {
-        List<WeeklyAggregatedRecordWithTaxBean> planRecords = planRecordRepository.aggregateByWeekAndBudgetWithTax(budgetId);
-        List<WeeklyAggregatedRecordWithTaxBean> workRecords = workRecordRepository.aggregateByWeekAndBudgetWithTax(budgetId);
-        return recordJoiner.joinWeeklyWithTax(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forBudget(budgetId).withTax());
+        return recordJoiner.joinWeeklyWithTax(AggregatedRows.toWeeklyBeansWithTax(rows, RecordType.WORK), AggregatedRows.toWeeklyBeansWithTax(rows, RecordType.PLAN));
     }
 
     /**
@@ -82,9 +86,8 @@ public class RecordService {
      * @return one record for each month from the current month to the first month that was booked in the given budget.
      */
     public List<AggregatedRecord> getMonthlyAggregationForBudget(long budgetId) {
-        List<MonthlyAggregatedRecordBean> planRecords = planRecordRepository.aggregateByMonthAndBudget(budgetId);
-        List<MonthlyAggregatedRecordBean> workRecords = workRecordRepository.aggregateByMonthAndBudget(budgetId);
-        return recordJoiner.joinMonthly(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth().forBudget(budgetId));
+        return recordJoiner.joinMonthly(AggregatedRows.toMonthlyBeans(rows, RecordType.WORK), AggregatedRows.toMonthlyBeans(rows, RecordType.PLAN));
     }
 
     /**
@@ -94,9 +97,8 @@ public class RecordService {
      * @return one record for each month from the current month to the first month that was booked in the given budget.
      */
     public List<AggregatedRecord> getMonthlyAggregationForBudgetWithTax(long budgetId) {
-        List<MonthlyAggregatedRecordWithTaxBean> planRecords = planRecordRepository.aggregateByMonthAndBudgetWithTax(budgetId);
-        List<MonthlyAggregatedRecordWithTaxBean> workRecords = workRecordRepository.aggregateByMonthAndBudgetWithTax(budgetId);
-        return recordJoiner.joinMonthlyWithTax(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth().forBudget(budgetId).withTax());
+        return recordJoiner.joinMonthlyWithTax(AggregatedRows.toMonthlyBeansWithTax(rows, RecordType.WORK), AggregatedRows.toMonthlyBeansWithTax(rows, RecordType.PLAN));
     }
 
     /**
@@ -106,18 +108,10 @@ public class RecordService {
      * @return one record for each week from the current week to the first week that was booked in the given budget
      */
     public List<AggregatedRecord> getWeeklyAggregationForBudgets(BudgetTagFilter budgetFilter) {
-        List<WeeklyAggregatedRecordBean> planRecords;
-        List<WeeklyAggregatedRecordBean> workRecords;
-
-        if (budgetFilter.getSelectedTags().isEmpty()) {
-            planRecords = planRecordRepository.aggregateByWeek(budgetFilter.getProjectId());
-            workRecords = workRecordRepository.aggregateByWeek(budgetFilter.getProjectId());
-        } else {
-            planRecords = planRecordRepository.aggregateByWeekAndBudgetTags(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-            workRecords = workRecordRepository.aggregateByWeekAndBudgetTags(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-        }
-
-        return recordJoiner.joinWeekly(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags()));
+        return recordJoiner.joinWeekly(AggregatedRows.toWeeklyBeans(rows, RecordType.WORK), AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN));
     }
 
     /**
@@ -126,22 +120,12 @@ public class RecordService {
      * @param budgetFilter filter that identifies the set of budgets whose data to load
      * @return one record for each week from the current week to the first week that was booked in the given budget
      */
-    public List<AggregatedRecord> getWeeklyAggregationForBudgetsWithTaxes(BudgetTagFilter budgetFilter)
-    {
-        List<WeeklyAggregatedRecordWithTaxBean> planRecords;
-        List<WeeklyAggregatedRecordWithTaxBean> workRecords;
-        if(budgetFilter.getSelectedTags().isEmpty())
-        {
-            planRecords = planRecordRepository.aggregateByWeekWithTax(budgetFilter.getProjectId());
-            workRecords = workRecordRepository.aggregateByWeekWithTax(budgetFilter.getProjectId());
-        }
-        else {
-            List<String> x = budgetFilter.getSelectedTags();
-            planRecords = planRecordRepository.aggregateByWeekAndBudgetTagsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-            workRecords= workRecordRepository.aggregateByWeekAndBudgetTagsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-        }
-
-        return recordJoiner.joinWeeklyWithTax(workRecords, planRecords);
+    public List<AggregatedRecord> getWeeklyAggregationForBudgetsWithTaxes(BudgetTagFilter budgetFilter) {
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags())
+                .withTax());
+        return recordJoiner.joinWeeklyWithTax(AggregatedRows.toWeeklyBeansWithTax(rows, RecordType.WORK), AggregatedRows.toWeeklyBeansWithTax(rows, RecordType.PLAN));
     }
 
     /**
@@ -151,16 +135,10 @@ public class RecordService {
      * @return one record for each month from the current month to the first month that was booked in the given budget.
      */
     public List<AggregatedRecord> getMonthlyAggregationForBudgets(BudgetTagFilter budgetFilter) {
-        List<MonthlyAggregatedRecordBean> planRecords;
-        List<MonthlyAggregatedRecordBean> workRecords;
-        if (budgetFilter.getSelectedTags().isEmpty()) {
-            workRecords = workRecordRepository.aggregateByMonth(budgetFilter.getProjectId());
-            planRecords = planRecordRepository.aggregateByMonth(budgetFilter.getProjectId());
-        } else {
-            workRecords = workRecordRepository.aggregateByMonthAndBudgetTags(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-            planRecords = planRecordRepository.aggregateByMonthAndBudgetTags(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-        }
-        return recordJoiner.joinMonthly(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags()));
+        return recordJoiner.joinMonthly(AggregatedRows.toMonthlyBeans(rows, RecordType.WORK), AggregatedRows.toMonthlyBeans(rows, RecordType.PLAN));
     }
 
     /**
@@ -170,16 +148,11 @@ public class RecordService {
      * @return one record for each month from the current month to the first month that was booked in the given budget.
      */
     public List<AggregatedRecord> getMonthlyAggregationForBudgetsWithTax(BudgetTagFilter budgetFilter) {
-        List<MonthlyAggregatedRecordWithTaxBean> planRecords;
-        List<MonthlyAggregatedRecordWithTaxBean> workRecords;
-        if (budgetFilter.getSelectedTags().isEmpty()) {
-            workRecords = workRecordRepository.aggregateByMonthWithTax(budgetFilter.getProjectId());
-            planRecords = planRecordRepository.aggregateByMonthWithTax(budgetFilter.getProjectId());
-        } else {
-            workRecords = workRecordRepository.aggregateByMonthAndBudgetTagsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-            planRecords = planRecordRepository.aggregateByMonthAndBudgetTagsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags());
-        }
-        return recordJoiner.joinMonthlyWithTax(workRecords, planRecords);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags())
+                .withTax());
+        return recordJoiner.joinMonthlyWithTax(AggregatedRows.toMonthlyBeansWithTax(rows, RecordType.WORK), AggregatedRows.toMonthlyBeansWithTax(rows, RecordType.PLAN));
     }
 
     /**
@@ -187,17 +160,61 @@ public class RecordService {
      * will not be applied.
      *
      * @param filter the filter to apply when loading records.
-     * @return filtered list of records.
+     * @return filtered list of records sorted by date.
      */
     public List<WorkRecord> getFilteredRecords(WorkRecordFilter filter) {
         Predicate query = WorkRecordQueries.findByFilter(filter);
-        return recordMapper.map(ListUtil.toArrayList(workRecordRepository.findAll(query)));
+        return recordRowMapper.map(workRecordListRepository.findRows(query, WorkRecordListRepository.DEFAULT_SORT_PROPERTY, true));
+    }
+
+    /**
+     * Loads one page of the records that match the given filter.
+     *
+     * @param filter       the filter to apply when loading records.
+     * @param sortProperty name of the {@link WorkRecord} property to sort by. "hours" and "budgetBurned" are sorted
+     *                     by the underlying minutes and cents.
+     * @param ascending    sort direction
+     * @param first        index of the first record to load
+     * @param count        maximum number of records to load
+     * @return the records of the requested page.
+     */
+    public List<WorkRecord> getFilteredRecords(WorkRecordFilter filter, String sortProperty, boolean ascending, long first, long count) {
+        Predicate query = WorkRecordQueries.findByFilter(filter);
+        return recordRowMapper.map(workRecordListRepository.findRows(query, toRowProperty(sortProperty), ascending, first, count));
+    }
+
+    /**
+     * @param filter the filter to apply when counting records.
+     * @return the number of records that match the given filter.
+     */
+    public long countFilteredRecords(WorkRecordFilter filter) {
+        return workRecordListRepository.countRows(WorkRecordQueries.findByFilter(filter));
+    }
+
+    /**
+     * @param filter the filter to apply when summing up records.
+     * @return the budget burned by all records that match the given filter.
+     */
+    public Money getBudgetBurnedForFilteredRecords(WorkRecordFilter filter) {
+        return MoneyUtil.createMoneyFromCents(workRecordListRepository.sumBurnedCents(WorkRecordQueries.findByFilter(filter)));
+    }
+
+    private String toRowProperty(String sortProperty) {
+        if ("hours".equals(sortProperty)) {
+            return "minutes";
+        } else if ("budgetBurned".equals(sortProperty)) {
+            return "centMinutes";
+        } else {
+            return sortProperty;
+        }
     }
 
     public void saveDailyRateForWorkRecord(WorkRecord record){
         WorkRecordEntity entity = workRecordRepository.findOne(record.getId());
+        RecordRollupBean oldValues = RecordRollupService.toRollupBean(entity);
         entity.setDailyRate(record.getDailyRate());
         entity.setEditedManually(record.isEditedManually());
         workRecordRepository.save(entity);
+        recordRollupService.updateRollups(RecordType.WORK, Collections.singletonList(oldValues), Collections.singletonList(RecordRollupService.toRollupBean(entity)));
     }
 }
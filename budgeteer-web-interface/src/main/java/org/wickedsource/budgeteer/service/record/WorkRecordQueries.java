@@ -7,12 +7,13 @@ import org.wickedsource.budgeteer.persistence.record.QWorkRecordEntity;
 public class WorkRecordQueries {
 
     /**
-     * @deprecated should be re-implemented using criteria api to load "flat" objects instead of a WorkRecordEntity!!!
+     * Creates the predicate for the work records matching the given filter. It is meant to be used with the
+     * {@link org.wickedsource.budgeteer.persistence.record.WorkRecordListRepository}, which loads flat rows instead of
+     * entities.
      */
-    @Deprecated
     public static Predicate findByFilter(WorkRecordFilter filter) {
         QWorkRecordEntity record = QWorkRecordEntity.workRecordEntity;
-        BooleanExpression expression = record.budget.project.id.eq(filter.getProjectId());
+        BooleanExpression expression = record.project.id.eq(filter.getProjectId());
         if (filter.getDateRange() != null && filter.getDateRange().getStartDate() != null) {
             expression = expression.and(record.date.goe(filter.getDateRange().getStartDate()));
         }
@@ -0,0 +1,30 @@
+package org.wickedsource.budgeteer.service.record;
+
+import org.springframework.stereotype.Component;
+import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordRowBean;
+import org.wickedsource.budgeteer.service.AbstractMapper;
+
+import java.math.RoundingMode;
+
+@Component
+public class WorkRecordRowMapper extends AbstractMapper<WorkRecordRowBean, WorkRecord> {
+
+    @Override
+    public WorkRecord map(WorkRecordRowBean row) {
+        WorkRecord record = new WorkRecord();
+        record.setId(row.getId());
+        if (row.getCentMinutes() != null) {
+            record.setBudgetBurned(MoneyUtil.createMoneyFromCents(MoneyUtil.centMinutesToCents(row.getCentMinutes())));
+        } else {
+            record.setBudgetBurned(row.getDailyRate().multipliedBy(row.getMinutes()).dividedBy(60, RoundingMode.FLOOR).dividedBy(8, RoundingMode.FLOOR));
+        }
+        record.setPersonName(row.getPersonName());
+        record.setHours(row.getMinutes() / 60d);
+        record.setDate(row.getDate());
+        record.setBudgetName(row.getBudgetName());
+        record.setDailyRate(row.getDailyRate());
+        record.setEditedManually(row.isEditedManually());
+        return record;
+    }
+}
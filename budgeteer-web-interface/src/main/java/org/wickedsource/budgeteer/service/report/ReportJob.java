@@ -0,0 +1,44 @@
+package org.wickedsource.budgeteer.service.report;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * A report requested by one or more users. All fields are guarded by the {@link ReportJobService} owning the job.
+ */
+class ReportJob {
+
+    final String id = UUID.randomUUID().toString();
+
+    final long projectId;
+
+    /**
+     * Everything the content of the report depends on. Requests with equal keys are answered by the same job.
+     */
+    final List<Object> key;
+
+    final Callable<File> task;
+
+    ReportJobStatus status = ReportJobStatus.QUEUED;
+
+    File result;
+
+    /**
+     * Number of requesters that have not downloaded the result yet.
+     */
+    int pendingDownloads = 1;
+
+    long finishedAt;
+
+    ReportJob(long projectId, List<Object> key, Callable<File> task) {
+        this.projectId = projectId;
+        this.key = key;
+        this.task = task;
+    }
+
+    boolean isDone() {
+        return status != ReportJobStatus.QUEUED && status != ReportJobStatus.RUNNING;
+    }
+}
@@ -0,0 +1,240 @@
+package org.wickedsource.budgeteer.service.report;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+import org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean;
+import org.wickedsource.budgeteer.persistence.template.TemplateRepository;
+import org.wickedsource.budgeteer.service.ReportType;
+import org.wickedsource.budgeteer.service.budget.BudgetTagFilter;
+import org.wickedsource.budgeteer.service.budget.report.BudgetReportService;
+import org.wickedsource.budgeteer.service.budget.report.ReportMetaInformation;
+import org.wickedsource.budgeteer.service.contract.report.ContractReportService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Creates budget and contract reports in the background. Reports are created by a small pool of worker threads, one
+ * report per project at a time, so a single project cannot occupy all workers. The report files are kept until all
+ * requesters have downloaded them or until they expire.
+ * <p>
+ * Requests for the same template, filter and data (see {@link WorkRecordRepository#getRecordsVersion(long)}) are
+ * answered by the same job as long as that job has not finished yet.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = getLogger(ReportJobService.class);
+
+    static final int MAX_QUEUED_JOBS_PER_PROJECT = 10;
+
+    static final long RESULT_TIMEOUT_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    @Autowired
+    private BudgetReportService budgetReportService;
+
+    @Autowired
+    private ContractReportService contractReportService;
+
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Autowired
+    private WorkRecordRepository workRecordRepository;
+
+    private ExecutorService executor;
+
+    private final Map<String, ReportJob> jobs = new HashMap<String, ReportJob>();
+
+    /**
+     * Jobs that are queued or running, by their key.
+     */
+    private final Map<List<Object>, ReportJob> activeJobs = new HashMap<List<Object>, ReportJob>();
+
+    /**
+     * The active jobs of each project. The first job of a queue is the one handed to the executor.
+     */
+    private final Map<Long, Deque<ReportJob>> projectQueues = new HashMap<Long, Deque<ReportJob>>();
+
+    @PostConstruct
+    public void startWorkers() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(WORKERS, runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public synchronized void stopWorkers() {
+        executor.shutdownNow();
+        for (ReportJob job : jobs.values()) {
+            deleteResult(job);
+        }
+        jobs.clear();
+    }
+
+    /**
+     * Requests a budget report. The filter and the meta information are copied, so later changes do not affect the report.
+     *
+     * @return the ID of the job creating the report
+     */
+    public String submitBudgetReport(long templateId, long projectId, BudgetTagFilter filter, ReportMetaInformation metaInformation) {
+        final BudgetTagFilter filterCopy = new BudgetTagFilter(new ArrayList<String>(filter.getSelectedTags()), filter.getProjectId());
+        final ReportMetaInformation metaInformationCopy = new ReportMetaInformation();
+        metaInformationCopy.setOverallTimeRange(metaInformation.getOverallTimeRange());
+        metaInformationCopy.setMonthlyTimeRange(metaInformation.getMonthlyTimeRange());
+        metaInformationCopy.setTemplate(metaInformation.getTemplate());
+        List<Object> key = Arrays.asList(ReportType.BUDGET_REPORT, projectId, templateId, getTemplateVersion(templateId),
+                filterCopy.getSelectedTags(), metaInformationCopy.getOverallTimeRange(), metaInformationCopy.getMonthlyTimeRange(),
+                workRecordRepository.getRecordsVersion(projectId));
+        return submit(projectId, key, () -> budgetReportService.createReportFile(templateId, projectId, filterCopy, metaInformationCopy));
+    }
+
+    /**
+     * Requests a contract report.
+     *
+     * @return the ID of the job creating the report
+     */
+    public String submitContractReport(long templateId, long projectId, Date endDate) {
+        final Date endDateCopy = new Date(endDate.getTime());
+        List<Object> key = Arrays.asList(ReportType.CONTRACT_REPORT, projectId, templateId, getTemplateVersion(templateId),
+                endDateCopy, workRecordRepository.getRecordsVersion(projectId));
+        return submit(projectId, key, () -> contractReportService.createReportFile(templateId, projectId, endDateCopy));
+    }
+
+    synchronized String submit(long projectId, List<Object> key, Callable<File> task) {
+        removeExpiredJobs();
+        ReportJob activeJob = activeJobs.get(key);
+        if (activeJob != null) {
+            activeJob.pendingDownloads++;
+            return activeJob.id;
+        }
+        ReportJob job = new ReportJob(projectId, key, task);
+        jobs.put(job.id, job);
+        Deque<ReportJob> queue = projectQueues.computeIfAbsent(projectId, id -> new ArrayDeque<ReportJob>());
+        if (queue.size() >= MAX_QUEUED_JOBS_PER_PROJECT) {
+            job.status = ReportJobStatus.REJECTED;
+            job.finishedAt = System.currentTimeMillis();
+            return job.id;
+        }
+        activeJobs.put(key, job);
+        queue.addLast(job);
+        if (queue.size() == 1) {
+            executor.execute(() -> run(job));
+        }
+        return job.id;
+    }
+
+    /**
+     * @return the status of the given job or null if the job is unknown or its result has expired.
+     */
+    public synchronized ReportJobStatus getStatus(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        return job == null ? null : job.status;
+    }
+
+    /**
+     * @return the number of reports of the same project that are created before the given job.
+     */
+    public synchronized int getJobsAhead(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null || job.status != ReportJobStatus.QUEUED) {
+            return 0;
+        }
+        int position = 0;
+        for (ReportJob queued : projectQueues.get(job.projectId)) {
+            if (queued == job) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * @return the report file of the given job or null if the job has not finished successfully.
+     */
+    public synchronized File getResult(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        return job == null || job.status != ReportJobStatus.FINISHED ? null : job.result;
+    }
+
+    /**
+     * Called after a requester downloaded the report file of the given job. The file is deleted as soon as all
+     * requesters of the report have downloaded it.
+     */
+    public synchronized void releaseResult(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job != null && job.isDone() && --job.pendingDownloads <= 0) {
+            jobs.remove(jobId);
+            deleteResult(job);
+        }
+    }
+
+    private void run(ReportJob job) {
+        synchronized (this) {
+            job.status = ReportJobStatus.RUNNING;
+        }
+        File result = null;
+        try {
+            result = job.task.call();
+        } catch (Exception e) {
+            log.error(String.format("Could not create report of project %d", job.projectId), e);
+        } finally {
+            finish(job, result);
+        }
+    }
+
+    private synchronized void finish(ReportJob job, File result) {
+        job.result = result;
+        job.status = result == null ? ReportJobStatus.FAILED : ReportJobStatus.FINISHED;
+        job.finishedAt = System.currentTimeMillis();
+        activeJobs.remove(job.key);
+        Deque<ReportJob> queue = projectQueues.get(job.projectId);
+        queue.removeFirst();
+        if (queue.isEmpty()) {
+            projectQueues.remove(job.projectId);
+        } else {
+            ReportJob next = queue.getFirst();
+            executor.execute(() -> run(next));
+        }
+    }
+
+    private void removeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        Iterator<ReportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ReportJob job = iterator.next();
+            if (job.isDone() && now - job.finishedAt > RESULT_TIMEOUT_MILLIS) {
+                iterator.remove();
+                deleteResult(job);
+            }
+        }
+    }
+
+    private void deleteResult(ReportJob job) {
+        if (job.result != null && job.result.exists() && !job.result.delete()) {
+            log.warn(String.format("Could not delete report file %s", job.result));
+        }
+    }
+
+    private Long getTemplateVersion(long templateId) {
+        TemplateMetadataBean metadata = templateRepository.findMetadataById(templateId);
+        return metadata == null ? null : metadata.getTemplateVersion();
+    }
+}
@@ -0,0 +1,23 @@
+package org.wickedsource.budgeteer.service.report;
+
+public enum ReportJobStatus {
+
+    /**
+     * The job waits for the other report jobs of its project or for a free worker.
+     */
+    QUEUED,
+
+    RUNNING,
+
+    /**
+     * The report file is ready for download.
+     */
+    FINISHED,
+
+    FAILED,
+
+    /**
+     * The job was not accepted because too many reports of its project are waiting to be created.
+     */
+    REJECTED
+}
@@ -4,12 +4,14 @@ import org.joda.money.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
 import org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean;
 import org.wickedsource.budgeteer.persistence.invoice.InvoiceRepository;
 import org.wickedsource.budgeteer.persistence.record.*;
 import org.wickedsource.budgeteer.service.DateUtil;
 import org.wickedsource.budgeteer.service.budget.BudgetTagFilter;
+import org.wickedsource.budgeteer.service.contract.ContractStatisticsLoader;
 import org.wickedsource.budgeteer.web.pages.contract.details.contractDetailChart.ContractDetailBudgetChart;
 
 import javax.transaction.Transactional;
@@ -25,7 +27,7 @@ public class StatisticsService {
     private WorkRecordRepository workRecordRepository;
 
     @Autowired
-    private PlanRecordRepository planRecordRepository;
+    private RecordAggregationRepository aggregationRepository;
 
     @Autowired
     private DateUtil dateUtil;
@@ -36,6 +38,9 @@ public class StatisticsService {
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private ContractStatisticsLoader contractStatisticsLoader;
+
     @Autowired
     private InvoiceRepository invoiceRepository;
 
@@ -49,7 +54,8 @@ public class StatisticsService {
      */
     public List<Money> getWeeklyBudgetBurnedForProject(long projectId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordBean> weeklyBeans = workRecordRepository.aggregateByWeekForProject(projectId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forProject(projectId).startingAt(startDate).only(RecordType.WORK));
+        List<WeeklyAggregatedRecordBean> weeklyBeans = AggregatedRows.toWeeklyBeans(rows, RecordType.WORK);
         return fillInMissingWeeks(numberOfWeeks, weeklyBeans);
     }
 
@@ -62,7 +68,8 @@ public class StatisticsService {
      */
     public List<Money> getWeeklyBudgetPlannedForProject(long projectId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordBean> weeklyBeans = planRecordRepository.aggregateByWeekForProject(projectId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forProject(projectId).startingAt(startDate).only(RecordType.PLAN));
+        List<WeeklyAggregatedRecordBean> weeklyBeans = AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN);
         return fillInMissingWeeks(numberOfWeeks, weeklyBeans);
     }
 
@@ -75,7 +82,8 @@ public class StatisticsService {
      */
     public List<Money> getWeeklyBudgetBurnedForPerson(long personId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordBean> weeklyBeans = workRecordRepository.aggregateByWeekForPerson(personId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forPerson(personId).startingAt(startDate).only(RecordType.WORK));
+        List<WeeklyAggregatedRecordBean> weeklyBeans = AggregatedRows.toWeeklyBeans(rows, RecordType.WORK);
         return fillInMissingWeeks(numberOfWeeks, weeklyBeans);
     }
 
@@ -88,86 +96,25 @@ public class StatisticsService {
      */
     public List<Money> getWeeklyBudgetPlannedForPerson(long personId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordBean> weeklyBeans = planRecordRepository.aggregateByWeekForPerson(personId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forPerson(personId).startingAt(startDate).only(RecordType.PLAN));
+        List<WeeklyAggregatedRecordBean> weeklyBeans = AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN);
         return fillInMissingWeeks(numberOfWeeks, weeklyBeans);
     }
 
     private List<Money> fillInMissingWeeks(int numberOfWeeks, List<WeeklyAggregatedRecordBean> weeklyBeans) {
-        Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<Money> resultList = new ArrayList<Money>();
-
-        // adding values to result list and adding zero-values for weeks that are not included in the query result
-        Calendar c = Calendar.getInstance();
-        c.setTime(startDate);
-        for (int i = 0; i < numberOfWeeks; i++) {
-            WeeklyAggregatedRecordBean weekBean = getBeanForWeek(c.get(Calendar.YEAR), c.get(Calendar.WEEK_OF_YEAR), weeklyBeans);
-            if (weekBean == null) {
-                resultList.add(MoneyUtil.createMoneyFromCents(0l));
-            } else {
-                resultList.add(MoneyUtil.createMoneyFromCents(weekBean.getValueInCents()));
-            }
-            c.add(Calendar.WEEK_OF_YEAR, 1);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.weekly(dateUtil.weeksAgo(numberOfWeeks), numberOfWeeks);
+        for (WeeklyAggregatedRecordBean bean : weeklyBeans) {
+            builder.add(bean.getYear(), bean.getWeek(), bean.getValueInCents());
         }
-
-        return resultList;
+        return builder.getValues();
     }
 
     private List<Money> fillInMissingMonths(int numberOfMonths, List<MonthlyAggregatedRecordBean> monthlyBeans) {
-        Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<Money> resultList = new ArrayList<Money>();
-
-        // adding values to result list and adding zero-values for weeks that are not included in the query result
-        Calendar c = Calendar.getInstance();
-        c.setTime(startDate);
-        for (int i = 0; i < numberOfMonths; i++) {
-            MonthlyAggregatedRecordBean weekBean = getBeanForMonth(c.get(Calendar.YEAR), c.get(Calendar.MONTH), monthlyBeans);
-            if (weekBean == null) {
-                resultList.add(MoneyUtil.createMoneyFromCents(0l));
-            } else {
-                resultList.add(MoneyUtil.createMoneyFromCents(weekBean.getValueInCents()));
-            }
-            c.add(Calendar.MONTH, 1);
-        }
-
-        return resultList;
-    }
-
-    private WeeklyAggregatedRecordBean getBeanForWeek(int year, int week, List<WeeklyAggregatedRecordBean> beans) {
-        for (WeeklyAggregatedRecordBean bean : beans) {
-            if (bean.getYear() == year && bean.getWeek() == week) {
-                return bean;
-            }
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(dateUtil.monthsAgo(numberOfMonths), numberOfMonths);
+        for (MonthlyAggregatedRecordBean bean : monthlyBeans) {
+            builder.add(bean.getYear(), bean.getMonth(), bean.getValueInCents());
         }
-        return null;
-    }
-
-    private List<WeeklyAggregatedRecordWithTaxBean> getAllBeansForWeek(int year, int week, List<WeeklyAggregatedRecordWithTaxBean> beans) {
-        List<WeeklyAggregatedRecordWithTaxBean> result = new ArrayList<WeeklyAggregatedRecordWithTaxBean>();
-        for (WeeklyAggregatedRecordWithTaxBean bean : beans) {
-            if (bean.getYear() == year && bean.getWeek() == week) {
-                result.add(bean);
-            }
-        }
-        return result;
-    }
-
-    private List<MonthlyAggregatedRecordWithTaxBean> getAllBeansForMonth(int year, int month, List<MonthlyAggregatedRecordWithTaxBean> beans) {
-        List<MonthlyAggregatedRecordWithTaxBean> result = new ArrayList<MonthlyAggregatedRecordWithTaxBean>();
-        for (MonthlyAggregatedRecordWithTaxBean bean : beans) {
-            if (bean.getYear() == year && bean.getMonth() == month) {
-                result.add(bean);
-            }
-        }
-        return result;
-    }
-
-    private MonthlyAggregatedRecordBean getBeanForMonth(int year, int month, List<MonthlyAggregatedRecordBean> beans) {
-        for (MonthlyAggregatedRecordBean bean : beans) {
-            if (bean.getYear() == year && bean.getMonth() == month) {
-                return bean;
-            }
-        }
-        return null;
+        return builder.getValues();
     }
 
     /**
@@ -181,12 +128,19 @@ public class StatisticsService {
         Date startDate = dateUtil.daysAgo(numberOfDays);
         List<DailyAverageRateBean> rates = workRecordRepository.getAverageDailyRatesPerDay(projectId, startDate);
         List<Money> resultList = new ArrayList<Money>();
+        Map<Integer, DailyAverageRateBean> ratesByDay = new HashMap<Integer, DailyAverageRateBean>();
+        for (DailyAverageRateBean bean : rates) {
+            Integer key = dayKey(bean.getYear(), bean.getMonth(), bean.getDay());
+            if (!ratesByDay.containsKey(key)) {
+                ratesByDay.put(key, bean);
+            }
+        }
 
         // adding values to result list and adding zeros for days that are not in the query result
         Calendar c = Calendar.getInstance();
         c.setTime(startDate);
         for (int i = 0; i < numberOfDays; i++) {
-            DailyAverageRateBean dayBean = getBeanForDay(c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DAY_OF_MONTH), rates);
+            DailyAverageRateBean dayBean = ratesByDay.get(dayKey(c.get(Calendar.YEAR), c.get(Calendar.MONTH), c.get(Calendar.DAY_OF_MONTH)));
             if (dayBean == null) {
                 resultList.add(MoneyUtil.createMoneyFromCents(0l));
             } else {
@@ -198,13 +152,8 @@ public class StatisticsService {
         return resultList;
     }
 
-    private DailyAverageRateBean getBeanForDay(int year, int month, int day, List<DailyAverageRateBean> beans) {
-        for (DailyAverageRateBean bean : beans) {
-            if (bean.getYear() == year && bean.getMonth() == month && bean.getDay() == day) {
-                return bean;
-            }
-        }
-        return null;
+    private int dayKey(int year, int month, int day) {
+        return (year * 100 + month) * 100 + day;
     }
 
     /**
@@ -214,7 +163,8 @@ public class StatisticsService {
      * @return list of Share objects
      */
     public List<Share> getBudgetDistribution(long personId) {
-        List<ShareBean> shares = workRecordRepository.getBudgetShareForPerson(personId);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.total().forPerson(personId).titledBy(AggregationQuery.Dimension.BUDGET).only(RecordType.WORK));
+        List<ShareBean> shares = AggregatedRows.toShareBeans(rows, RecordType.WORK);
         return shareBeanToShareMapper.map(shares);
     }
 
@@ -225,7 +175,8 @@ public class StatisticsService {
      * @return list of Share objects
      */
     public List<Share> getPeopleDistribution(long budgetId) {
-        List<ShareBean> shares = workRecordRepository.getPersonShareForBudget(budgetId);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.total().forBudget(budgetId).titledBy(AggregationQuery.Dimension.PERSON).only(RecordType.WORK));
+        List<ShareBean> shares = AggregatedRows.toShareBeans(rows, RecordType.WORK);
         return shareBeanToShareMapper.map(shares);
     }
 
@@ -238,8 +189,9 @@ public class StatisticsService {
      */
     public TargetAndActual getWeekStatsForPerson(long personId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordWithTitleBean> burnedStats = workRecordRepository.aggregateByWeekAndBudgetForPerson(personId, startDate);
-        List<WeeklyAggregatedRecordBean> plannedStats = planRecordRepository.aggregateByWeekForPerson(personId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forPerson(personId).startingAt(startDate).titledBy(AggregationQuery.Dimension.BUDGET));
+        List<WeeklyAggregatedRecordWithTitleBean> burnedStats = AggregatedRows.toWeeklyBeansWithTitle(rows, RecordType.WORK);
+        List<WeeklyAggregatedRecordBean> plannedStats = AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN);
 
         TargetAndActual targetAndActual = new TargetAndActual();
 
@@ -254,234 +206,44 @@ public class StatisticsService {
     }
 
     private void fillInMissingWeeks(int numberOfWeeks, List<WeeklyAggregatedRecordWithTitleBean> burnedStats, TargetAndActual targetAndActual) {
-        Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        Set<String> titles = getAllTitlesWeekly(burnedStats);
-        Calendar c = Calendar.getInstance();
-        for (String title : titles) {
-            c.setTime(startDate);
-            MoneySeries titeledSeries = new MoneySeries();
-            titeledSeries.setName(title);
-            for (int i = 0; i < numberOfWeeks; i++) {
-                WeeklyAggregatedRecordWithTitleBean bean = getBeanForWeekAndTitle(c.get(Calendar.YEAR), c.get(Calendar.WEEK_OF_YEAR), title, burnedStats);
-                if (bean == null) {
-                    titeledSeries.add(MoneyUtil.createMoneyFromCents(0l));
-                } else {
-                    titeledSeries.add(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-                }
-                c.add(Calendar.WEEK_OF_YEAR, 1);
-            }
-            targetAndActual.getActualSeries().add(titeledSeries);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.weekly(dateUtil.weeksAgo(numberOfWeeks), numberOfWeeks);
+        for (WeeklyAggregatedRecordWithTitleBean bean : burnedStats) {
+            builder.add(bean.getTitle(), bean.getYear(), bean.getWeek(), bean.getValueInCents());
         }
+        targetAndActual.getActualSeries().addAll(builder.getTitledSeries());
     }
 
     private void fillInMissingWeeksWithTax(int numberOfWeeks, List<WeeklyAggregatedRecordWithTitleAndTaxBean> burnedStats, TargetAndActual targetAndActual) {
-        Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        Set<String> titles = getAllTitlesWeekly(castToWeeklyRecordWithTitle(burnedStats));
-        Calendar c = Calendar.getInstance();
-        for (String title : titles) {
-            c.setTime(startDate);
-            MoneySeries titledSeries = new MoneySeries();
-            titledSeries.setName(title);
-
-            List<Money> resultList = new ArrayList<Money>();
-            List<Money> resultList_gros = new ArrayList<Money>();
-
-            for (int i = 0; i < numberOfWeeks; i++) {
-                List<WeeklyAggregatedRecordWithTaxBean> beans = getAllBeansForWeekAndTitleWithTax(c.get(Calendar.YEAR), c.get(Calendar.WEEK_OF_YEAR), title, burnedStats);
-
-                sumMoneyAmountsOfWeekBeans(beans, resultList, resultList_gros);
-
-                c.add(Calendar.WEEK_OF_YEAR, 1);
-            }
-            titledSeries.setValues(resultList);
-            titledSeries.setValues_gross(resultList_gros);
-            targetAndActual.getActualSeries().add(titledSeries);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.weekly(dateUtil.weeksAgo(numberOfWeeks), numberOfWeeks).withTax();
+        for (WeeklyAggregatedRecordWithTitleAndTaxBean bean : burnedStats) {
+            builder.add(bean.getTitle(), bean.getYear(), bean.getWeek(), bean.getValueInCents(), bean.getTaxRate());
         }
+        targetAndActual.getActualSeries().addAll(builder.getTitledSeries());
     }
 
     private MoneySeries calculateWeeklyTargetSeries(int numberOfWeeks, List<WeeklyAggregatedRecordWithTaxBean> weeklyBeans)
     {
-        MoneySeries targetSeries = new MoneySeries();
-        targetSeries.setName("Target");
-
-        Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<Money> resultList = new ArrayList<Money>();
-        List<Money> resultList_gros = new ArrayList<Money>();
-
-        Calendar c = Calendar.getInstance();
-        c.setTime(startDate);
-
-        // Sum the money of each week and add the values to the lists
-        for (int i = 0; i < numberOfWeeks; i++) {
-            List<WeeklyAggregatedRecordWithTaxBean> weekBeans = getAllBeansForWeek(c.get(Calendar.YEAR), c.get(Calendar.WEEK_OF_YEAR), weeklyBeans);
-
-            sumMoneyAmountsOfWeekBeans(weekBeans, resultList, resultList_gros);
-
-            c.add(Calendar.WEEK_OF_YEAR, 1);
-        }
-        targetSeries.setValues(resultList);
-        targetSeries.setValues_gross(resultList_gros);
-
-        return targetSeries;
-    }
-
-    private void sumMoneyAmountsOfWeekBeans(List<WeeklyAggregatedRecordWithTaxBean> beans, List<Money> netValues, List<Money> grosValues)
-    {
-        Money netValue = MoneyUtil.createMoney(0l);
-        Money grosValue= MoneyUtil.createMoney(0l);
-
-        for(WeeklyAggregatedRecordWithTaxBean bean : beans)
-        {
-            if (bean != null) {
-                Money amount = MoneyUtil.createMoneyFromCents(bean.getValueInCents());
-                netValue = netValue.plus(amount);
-                grosValue = grosValue.plus(MoneyUtil.getMoneyWithTaxes(amount, bean.getTaxRate()));
-            }
-        }
-        netValues.add(netValue);
-        grosValues.add(grosValue);
-    }
-
-    private void sumMoneyAmountsOfMonthBeans(List<MonthlyAggregatedRecordWithTaxBean> beans, List<Money> netValues, List<Money> grosValues)
-    {
-        Money netValue = MoneyUtil.createMoney(0l);
-        Money grosValue= MoneyUtil.createMoney(0l);
-
-        for(MonthlyAggregatedRecordWithTaxBean bean : beans)
-        {
-            if (bean != null) {
-                Money amount = MoneyUtil.createMoneyFromCents(bean.getValueInCents());
-                netValue = netValue.plus(amount);
-                grosValue = grosValue.plus(MoneyUtil.getMoneyWithTaxes(amount, bean.getTaxRate()));
-            }
+        TimeSeriesBuilder builder = TimeSeriesBuilder.weekly(dateUtil.weeksAgo(numberOfWeeks), numberOfWeeks).withTax();
+        for (WeeklyAggregatedRecordWithTaxBean bean : weeklyBeans) {
+            builder.add(null, bean.getYear(), bean.getWeek(), bean.getValueInCents(), bean.getTaxRate());
         }
-        netValues.add(netValue);
-        grosValues.add(grosValue);
+        return builder.getSeries("Target");
     }
 
     private void fillInMissingMonths(int numberOfMonths, List<MonthlyAggregatedRecordWithTitleBean> burnedStats, TargetAndActual targetAndActual) {
-        Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        Set<String> titles = getAllTitlesMonthly(burnedStats);
-        Calendar c = Calendar.getInstance();
-        for (String title : titles) {
-            c.setTime(startDate);
-            MoneySeries titledSeries = new MoneySeries();
-            titledSeries.setName(title);
-            for (int i = 0; i < numberOfMonths; i++) {
-                MonthlyAggregatedRecordWithTitleBean bean = getBeanForMonthAndTitle(c.get(Calendar.YEAR), c.get(Calendar.MONTH), title, burnedStats);
-                if (bean == null) {
-                    titledSeries.add(MoneyUtil.createMoneyFromCents(0l));
-                } else {
-                    titledSeries.add(MoneyUtil.createMoneyFromCents(bean.getValueInCents()));
-                }
-                c.add(Calendar.MONTH, 1);
-            }
-            targetAndActual.getActualSeries().add(titledSeries);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(dateUtil.monthsAgo(numberOfMonths), numberOfMonths);
+        for (MonthlyAggregatedRecordWithTitleBean bean : burnedStats) {
+            builder.add(bean.getTitle(), bean.getYear(), bean.getMonth(), bean.getValueInCents());
         }
+        targetAndActual.getActualSeries().addAll(builder.getTitledSeries());
     }
 
     private void fillInMissingMonthsWithTax(int numberOfMonths, List<MonthlyAggregatedRecordWithTitleAndTaxBean> burnedStats, TargetAndActual targetAndActual) {
-        Date startDate = dateUtil.monthsAgo(numberOfMonths);
-
-        Set<String> titles = getAllTitlesMonthly(castToMonthlyRecordWithTitle(burnedStats));
-        Calendar c = Calendar.getInstance();
-
-        for (String title : titles) {
-            c.setTime(startDate);
-            MoneySeries titledSeries = new MoneySeries();
-            titledSeries.setName(title);
-
-            List<Money> resultList = new ArrayList<Money>();
-            List<Money> resultList_gros = new ArrayList<Money>();
-
-            for (int i = 0; i < numberOfMonths; i++) {
-                List<MonthlyAggregatedRecordWithTaxBean> beans = getAllBeansForMonthAndTitleWithTax(c.get(Calendar.YEAR), c.get(Calendar.MONTH), title, burnedStats);
-                sumMoneyAmountsOfMonthBeans(beans, resultList, resultList_gros);
-                c.add(Calendar.MONTH, 1);
-            }
-            titledSeries.setValues(resultList);
-            titledSeries.setValues_gross(resultList_gros);
-            targetAndActual.getActualSeries().add(titledSeries);
-        }
-    }
-
-    private List<MonthlyAggregatedRecordWithTitleBean> castToMonthlyRecordWithTitle(List<MonthlyAggregatedRecordWithTitleAndTaxBean> list)
-    {
-        List<MonthlyAggregatedRecordWithTitleBean> newList = new ArrayList<MonthlyAggregatedRecordWithTitleBean>();
-
-        for(MonthlyAggregatedRecordWithTitleAndTaxBean bean : list)
-        {
-            MonthlyAggregatedRecordWithTitleBean newBean = new MonthlyAggregatedRecordWithTitleBean(bean.getYear(), bean.getMonth(),bean.getHours() , bean.getValueInCents(), bean.getTitle());
-            newList.add(newBean);
-        }
-
-        return newList;
-    }
-
-    private Set<String> getAllTitlesWeekly(List<WeeklyAggregatedRecordWithTitleBean> beans) {
-        Set<String> budgetNames = new HashSet<String>();
-        for (WeeklyAggregatedRecordWithTitleBean bean : beans) {
-            budgetNames.add(bean.getTitle());
-        }
-        return budgetNames;
-    }
-
-    private List<WeeklyAggregatedRecordWithTitleBean> castToWeeklyRecordWithTitle(List<WeeklyAggregatedRecordWithTitleAndTaxBean> list)
-    {
-        List<WeeklyAggregatedRecordWithTitleBean> newList = new ArrayList<>();
-
-        for(WeeklyAggregatedRecordWithTitleAndTaxBean bean : list)
-        {
-            newList.add(new WeeklyAggregatedRecordWithTitleBean(bean.getYear(), bean.getWeek(), bean.getHours(), bean.getValueInCents(), bean.getTitle()));
-        }
-
-        return newList;
-    }
-
-    private Set<String> getAllTitlesMonthly(List<MonthlyAggregatedRecordWithTitleBean> beans) {
-        Set<String> budgetNames = new HashSet<String>();
-        for (MonthlyAggregatedRecordWithTitleBean bean : beans) {
-            budgetNames.add(bean.getTitle());
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(dateUtil.monthsAgo(numberOfMonths), numberOfMonths).withTax();
+        for (MonthlyAggregatedRecordWithTitleAndTaxBean bean : burnedStats) {
+            builder.add(bean.getTitle(), bean.getYear(), bean.getMonth(), bean.getValueInCents(), bean.getTaxRate());
         }
-        return budgetNames;
-    }
-
-    private WeeklyAggregatedRecordWithTitleBean getBeanForWeekAndTitle(int year, int week, String title, List<WeeklyAggregatedRecordWithTitleBean> beans) {
-        for (WeeklyAggregatedRecordWithTitleBean bean : beans) {
-            if (bean.getYear() == year && bean.getWeek() == week && bean.getTitle().equals(title)) {
-                return bean;
-            }
-        }
-        return null;
-    }
-
-    private List<WeeklyAggregatedRecordWithTaxBean> getAllBeansForWeekAndTitleWithTax(int year, int week, String title, List<WeeklyAggregatedRecordWithTitleAndTaxBean> beans) {
-        List<WeeklyAggregatedRecordWithTaxBean> result= new ArrayList<>();
-        for (WeeklyAggregatedRecordWithTitleAndTaxBean bean : beans) {
-            if (bean.getYear() == year && bean.getWeek() == week && bean.getTitle().equals(title)) {
-                result.add(bean);
-            }
-        }
-        return result;
-    }
-
-    private List<MonthlyAggregatedRecordWithTaxBean> getAllBeansForMonthAndTitleWithTax(int year, int month, String title, List<MonthlyAggregatedRecordWithTitleAndTaxBean> beans) {
-        List<MonthlyAggregatedRecordWithTaxBean> result= new ArrayList<>();
-        for (MonthlyAggregatedRecordWithTitleAndTaxBean bean : beans) {
-            if (bean.getYear() == year && bean.getMonth() == month && bean.getTitle().equals(title)) {
-                result.add(bean);
-            }
-        }
-        return result;
-    }
-
-    private MonthlyAggregatedRecordWithTitleBean getBeanForMonthAndTitle(int year, int month, String title, List<MonthlyAggregatedRecordWithTitleBean> beans) {
-        for (MonthlyAggregatedRecordWithTitleBean bean : beans) {
-            if (bean.getYear() == year && bean.getMonth() == month && bean.getTitle().equals(title)) {
-                return bean;
-            }
-        }
-        return null;
+        targetAndActual.getActualSeries().addAll(builder.getTitledSeries());
     }
 
     /**
@@ -493,8 +255,9 @@ public class StatisticsService {
      */
     public TargetAndActual getMonthStatsForPerson(long personId, int numberOfMonths) {
         Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<MonthlyAggregatedRecordWithTitleBean> burnedStats = workRecordRepository.aggregateByMonthAndBudgetForPerson(personId, startDate);
-        List<MonthlyAggregatedRecordBean> plannedStats = planRecordRepository.aggregateByMonthForPerson(personId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth().forPerson(personId).startingAt(startDate).titledBy(AggregationQuery.Dimension.BUDGET));
+        List<MonthlyAggregatedRecordWithTitleBean> burnedStats = AggregatedRows.toMonthlyBeansWithTitle(rows, RecordType.WORK);
+        List<MonthlyAggregatedRecordBean> plannedStats = AggregatedRows.toMonthlyBeans(rows, RecordType.PLAN);
 
         TargetAndActual targetAndActual = new TargetAndActual();
 
@@ -517,15 +280,13 @@ public class StatisticsService {
      */
     public TargetAndActual getWeekStatsForBudgets(BudgetTagFilter budgetFilter, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordWithTitleBean> burnedStats = new ArrayList<WeeklyAggregatedRecordWithTitleBean>();
-        List<WeeklyAggregatedRecordBean> plannedStats = new ArrayList<WeeklyAggregatedRecordBean>();
-        if (budgetFilter.getSelectedTags().isEmpty()) {
-            burnedStats = workRecordRepository.aggregateByWeekAndPersonForBudgets(budgetFilter.getProjectId(), startDate);
-            plannedStats = planRecordRepository.aggregateByWeekForBudgets(budgetFilter.getProjectId(), startDate);
-        }else{
-            burnedStats = workRecordRepository.aggregateByWeekAndPersonForBudgets(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-            plannedStats = planRecordRepository.aggregateByWeekForBudgets(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-        }
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags())
+                .startingAt(startDate)
+                .titledBy(AggregationQuery.Dimension.PERSON));
+        List<WeeklyAggregatedRecordWithTitleBean> burnedStats = AggregatedRows.toWeeklyBeansWithTitle(rows, RecordType.WORK);
+        List<WeeklyAggregatedRecordBean> plannedStats = AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN);
 
         TargetAndActual targetAndActual = new TargetAndActual();
 
@@ -548,16 +309,14 @@ public class StatisticsService {
      */
     public TargetAndActual getWeekStatsForBudgetsWithTax(BudgetTagFilter budgetFilter, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordWithTitleAndTaxBean> burnedStats = new ArrayList<WeeklyAggregatedRecordWithTitleAndTaxBean>();
-        List<WeeklyAggregatedRecordWithTaxBean> plannedStats = new ArrayList<WeeklyAggregatedRecordWithTaxBean>();
-
-        if (budgetFilter.getSelectedTags().isEmpty()) {
-            burnedStats = workRecordRepository.aggregateByWeekAndPersonForBudgetsWithTax(budgetFilter.getProjectId(), startDate);
-            plannedStats = planRecordRepository.aggregateByWeekForBudgetsWithTax(budgetFilter.getProjectId(), startDate);
-        }else{
-            burnedStats = workRecordRepository.aggregateByWeekAndPersonForBudgetsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-            plannedStats = planRecordRepository.aggregateByWeekForBudgetsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-        }
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags())
+                .startingAt(startDate)
+                .titledBy(AggregationQuery.Dimension.PERSON)
+                .withTax());
+        List<WeeklyAggregatedRecordWithTitleAndTaxBean> burnedStats = AggregatedRows.toWeeklyBeansWithTitleAndTax(rows, RecordType.WORK);
+        List<WeeklyAggregatedRecordWithTaxBean> plannedStats = AggregatedRows.toWeeklyBeansWithTax(rows, RecordType.PLAN);
 
         return calculateWeeklyTargetAndActual(numberOfWeeks, plannedStats, burnedStats);
     }
@@ -571,17 +330,13 @@ public class StatisticsService {
      */
     public TargetAndActual getMonthStatsForBudgets(BudgetTagFilter budgetFilter, int numberOfMonths) {
         Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<MonthlyAggregatedRecordWithTitleBean> burnedStats = new ArrayList<MonthlyAggregatedRecordWithTitleBean>();
-        List<MonthlyAggregatedRecordBean> plannedStats = new ArrayList<MonthlyAggregatedRecordBean>();
-        if(budgetFilter.getSelectedTags().isEmpty()){
-            // aggregate all budgets
-            burnedStats = workRecordRepository.aggregateByMonthAndPersonForBudgets(budgetFilter.getProjectId(), startDate);
-            plannedStats = planRecordRepository.aggregateByMonthForBudgets(budgetFilter.getProjectId(), startDate);
-        }else{
-            // aggregate only budgets with the selected tags
-            burnedStats = workRecordRepository.aggregateByMonthAndPersonForBudgets(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-            plannedStats = planRecordRepository.aggregateByMonthForBudgets(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-        }
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags())
+                .startingAt(startDate)
+                .titledBy(AggregationQuery.Dimension.PERSON));
+        List<MonthlyAggregatedRecordWithTitleBean> burnedStats = AggregatedRows.toMonthlyBeansWithTitle(rows, RecordType.WORK);
+        List<MonthlyAggregatedRecordBean> plannedStats = AggregatedRows.toMonthlyBeans(rows, RecordType.PLAN);
 
         TargetAndActual targetAndActual = new TargetAndActual();
 
@@ -604,17 +359,14 @@ public class StatisticsService {
      */
     public TargetAndActual getMonthStatsForBudgetsWithTax(BudgetTagFilter budgetFilter, int numberOfMonths) {
         Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<MonthlyAggregatedRecordWithTitleAndTaxBean> burnedStats = new ArrayList<MonthlyAggregatedRecordWithTitleAndTaxBean>();
-        List<MonthlyAggregatedRecordWithTaxBean> plannedStats = new ArrayList<MonthlyAggregatedRecordWithTaxBean>();
-        if(budgetFilter.getSelectedTags().isEmpty()){
-            // aggregate all budgets
-            burnedStats = workRecordRepository.aggregateByMonthAndPersonForBudgetsWithTax(budgetFilter.getProjectId(), startDate);
-            plannedStats = planRecordRepository.aggregateByMonthForBudgetsWithTax(budgetFilter.getProjectId(), startDate);
-        }else{
-            // aggregate only budgets with the selected tags
-            burnedStats = workRecordRepository.aggregateByMonthAndPersonForBudgetsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-            plannedStats = planRecordRepository.aggregateByMonthForBudgetsWithTax(budgetFilter.getProjectId(), budgetFilter.getSelectedTags(), startDate);
-        }
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth()
+                .forProject(budgetFilter.getProjectId())
+                .withBudgetTags(budgetFilter.getSelectedTags())
+                .startingAt(startDate)
+                .titledBy(AggregationQuery.Dimension.PERSON)
+                .withTax());
+        List<MonthlyAggregatedRecordWithTitleAndTaxBean> burnedStats = AggregatedRows.toMonthlyBeansWithTitleAndTax(rows, RecordType.WORK);
+        List<MonthlyAggregatedRecordWithTaxBean> plannedStats = AggregatedRows.toMonthlyBeansWithTax(rows, RecordType.PLAN);
 
         return calculateMonthlyTargetAndActual(numberOfMonths, plannedStats, burnedStats);
     }
@@ -633,30 +385,11 @@ public class StatisticsService {
 
     private MoneySeries calculateMonthlyTargetSeries(int numberOfMonths, List<MonthlyAggregatedRecordWithTaxBean> monthlyBeans)
     {
-        MoneySeries targetSeries = new MoneySeries();
-        targetSeries.setName("Target");
-
-        Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<Money> resultList = new ArrayList<Money>();
-        List<Money> resultList_gros = new ArrayList<Money>();
-
-        Calendar c = Calendar.getInstance();
-        c.setTime(startDate);
-
-        // Sum the money of each month and add the values to the lists
-        for(int i=0; i<numberOfMonths; i++)
-        {
-            List<MonthlyAggregatedRecordWithTaxBean> monthBeans = getAllBeansForMonth(c.get(Calendar.YEAR), c.get(Calendar.MONTH), monthlyBeans);
-
-            sumMoneyAmountsOfMonthBeans(monthBeans, resultList, resultList_gros);
-
-            c.add(Calendar.MONTH, 1);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(dateUtil.monthsAgo(numberOfMonths), numberOfMonths).withTax();
+        for (MonthlyAggregatedRecordWithTaxBean bean : monthlyBeans) {
+            builder.add(null, bean.getYear(), bean.getMonth(), bean.getValueInCents(), bean.getTaxRate());
         }
-
-        targetSeries.setValues(resultList);
-        targetSeries.setValues_gross(resultList_gros);
-
-        return targetSeries;
+        return builder.getSeries("Target");
     }
 
     /**
@@ -668,8 +401,9 @@ public class StatisticsService {
      */
     public TargetAndActual getWeekStatsForBudget(long budgetId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordWithTitleBean> burnedStats = workRecordRepository.aggregateByWeekAndPersonForBudget(budgetId, startDate);
-        List<WeeklyAggregatedRecordBean> plannedStats = planRecordRepository.aggregateByWeekForBudget(budgetId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forBudget(budgetId).startingAt(startDate).titledBy(AggregationQuery.Dimension.PERSON));
+        List<WeeklyAggregatedRecordWithTitleBean> burnedStats = AggregatedRows.toWeeklyBeansWithTitle(rows, RecordType.WORK);
+        List<WeeklyAggregatedRecordBean> plannedStats = AggregatedRows.toWeeklyBeans(rows, RecordType.PLAN);
 
         TargetAndActual targetAndActual = new TargetAndActual();
 
@@ -692,8 +426,9 @@ public class StatisticsService {
      */
     public TargetAndActual getWeekStatsForBudgetWithTax(long budgetId, int numberOfWeeks) {
         Date startDate = dateUtil.weeksAgo(numberOfWeeks);
-        List<WeeklyAggregatedRecordWithTitleAndTaxBean> burnedStats = workRecordRepository.aggregateByWeekAndPersonForBudgetWithTax(budgetId, startDate);
-        List<WeeklyAggregatedRecordWithTaxBean> plannedStats = planRecordRepository.aggregateByWeekForBudgetWithTax(budgetId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byWeek().forBudget(budgetId).startingAt(startDate).titledBy(AggregationQuery.Dimension.PERSON).withTax());
+        List<WeeklyAggregatedRecordWithTitleAndTaxBean> burnedStats = AggregatedRows.toWeeklyBeansWithTitleAndTax(rows, RecordType.WORK);
+        List<WeeklyAggregatedRecordWithTaxBean> plannedStats = AggregatedRows.toWeeklyBeansWithTax(rows, RecordType.PLAN);
 
         return calculateWeeklyTargetAndActual(numberOfWeeks, plannedStats, burnedStats);
     }
@@ -719,8 +454,9 @@ public class StatisticsService {
      */
     public TargetAndActual getMonthStatsForBudget(long budgetId, int numberOfMonths) {
         Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<MonthlyAggregatedRecordWithTitleBean> burnedStats = workRecordRepository.aggregateByMonthAndPersonForBudget(budgetId, startDate);
-        List<MonthlyAggregatedRecordBean> plannedStats = planRecordRepository.aggregateByMonthForBudget(budgetId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth().forBudget(budgetId).startingAt(startDate).titledBy(AggregationQuery.Dimension.PERSON));
+        List<MonthlyAggregatedRecordWithTitleBean> burnedStats = AggregatedRows.toMonthlyBeansWithTitle(rows, RecordType.WORK);
+        List<MonthlyAggregatedRecordBean> plannedStats = AggregatedRows.toMonthlyBeans(rows, RecordType.PLAN);
 
         TargetAndActual targetAndActual = new TargetAndActual();
 
@@ -736,39 +472,27 @@ public class StatisticsService {
 
     public TargetAndActual getMonthStatsForBudgetWithTax(long budgetId, int numberOfMonths) {
         Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        List<MonthlyAggregatedRecordWithTitleAndTaxBean> burnedStats = workRecordRepository.aggregateByMonthAndPersonForBudgetWithTax(budgetId, startDate);
-        List<MonthlyAggregatedRecordWithTaxBean> plannedStats = planRecordRepository.aggregateByMonthForBudgetWithTax(budgetId, startDate);
+        List<AggregatedRow> rows = aggregationRepository.aggregate(AggregationQuery.byMonth().forBudget(budgetId).startingAt(startDate).titledBy(AggregationQuery.Dimension.PERSON).withTax());
+        List<MonthlyAggregatedRecordWithTitleAndTaxBean> burnedStats = AggregatedRows.toMonthlyBeansWithTitleAndTax(rows, RecordType.WORK);
+        List<MonthlyAggregatedRecordWithTaxBean> plannedStats = AggregatedRows.toMonthlyBeansWithTax(rows, RecordType.PLAN);
 
         return calculateMonthlyTargetAndActual(numberOfMonths, plannedStats, burnedStats);
     }
 
     public List<ContractStatisticBean> getMonthlyAggregatedStatisticsForContract(long contractId, int numberOfMonths){
-        List<ContractStatisticBean> result = new LinkedList<ContractStatisticBean>();
-        Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(startDate);
-        Calendar currentDate = Calendar.getInstance();
-        currentDate.setTime(new Date());
-        while(cal.before(currentDate)){
-            ContractStatisticBean bean = contractRepository.getContractStatisticAggregatedByMonthAndYear(contractId, cal.get(Calendar.MONTH), cal.get(Calendar.YEAR));
-            result.add(bean);
-            cal.add(Calendar.MONTH, 1);
-        }
-        return result;
+        return getMonthlyStatisticsForContract(contractId, dateUtil.monthsAgo(numberOfMonths), true);
     }
 
     public List<ContractStatisticBean> getMonthlyStatisticsForContract(long contractId, Date startDate){
-        List<ContractStatisticBean> result = new LinkedList<ContractStatisticBean>();
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(startDate);
-        Calendar currentDate = Calendar.getInstance();
-        currentDate.setTime(new Date());
-        while(cal.before(currentDate)){
-            ContractStatisticBean bean = contractRepository.getContractStatisticByMonthAndYear(contractId, cal.get(Calendar.MONTH), cal.get(Calendar.YEAR));
-            result.add(bean);
-            cal.add(Calendar.MONTH, 1);
+        return getMonthlyStatisticsForContract(contractId, startDate, false);
+    }
+
+    private List<ContractStatisticBean> getMonthlyStatisticsForContract(long contractId, Date startDate, boolean aggregated){
+        ContractEntity contract = contractRepository.findOne(contractId);
+        if(contract == null){
+            return new LinkedList<ContractStatisticBean>();
         }
-        return result;
+        return contractStatisticsLoader.loadMonthlyStatistics(contract, startDate, aggregated);
     }
 
     public ContractDetailBudgetChart getMonthlyBudgetBurnedForContract(long contractId, int numberOfMonths) {
@@ -787,26 +511,10 @@ public class StatisticsService {
     }
 
     protected void fillMissingMonths(int numberOfMonths, List<MonthlyAggregatedRecordBean> bean, List<Money> resultList, Money emptyValue){
-        Date startDate = dateUtil.monthsAgo(numberOfMonths);
-        Calendar c = Calendar.getInstance();
-        c.setTime(startDate);
-        for(int i = 0; i < numberOfMonths; i++){
-            boolean monthFound = false;
-            for(MonthlyAggregatedRecordBean record : bean){
-                if(record.getMonth() == c.get(Calendar.MONTH) && record.getYear() == c.get(Calendar.YEAR)){
-                    resultList.add(MoneyUtil.createMoneyFromCents(record.getValueInCents()));
-                    monthFound = true;
-                    break;
-                }
-            }
-            if(!monthFound){
-                if(emptyValue == null) {
-                    resultList.add(MoneyUtil.createMoneyFromCents(0));
-                } else {
-                    resultList.add(emptyValue);
-                }
-            }
-            c.add(Calendar.MONTH, 1);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(dateUtil.monthsAgo(numberOfMonths), numberOfMonths);
+        for(MonthlyAggregatedRecordBean record : bean){
+            builder.add(record.getYear(), record.getMonth(), record.getValueInCents());
         }
+        resultList.addAll(emptyValue == null ? builder.getValues() : builder.getValues(emptyValue));
     }
-}
\ No newline at end of file
+}
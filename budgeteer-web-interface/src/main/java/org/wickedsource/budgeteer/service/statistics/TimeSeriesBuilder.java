@@ -0,0 +1,189 @@
+package org.wickedsource.budgeteer.service.statistics;
+
+import org.joda.money.Money;
+import org.wickedsource.budgeteer.MoneyUtil;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Builds series of monetary values for a fixed number of consecutive weeks or months. Aggregated values are added
+ * one by one and summed up into a cents array per title, indexed by the position of their week or month in the
+ * series. Weeks or months without values are reported as zero.
+ */
+public class TimeSeriesBuilder {
+
+    private final int numberOfPeriods;
+
+    /**
+     * Maps year and week or month (see {@link #key(int, int)}) to the index of the period in the series.
+     */
+    private final Map<Integer, Integer> periodIndexes = new HashMap<Integer, Integer>();
+
+    /**
+     * The index of the bucket holding the values of each period. It differs from the period's own index only if
+     * two periods share the same year and week, which happens for the last days of a year.
+     */
+    private final int[] bucketIndexes;
+
+    private final Map<String, long[]> netCents = new LinkedHashMap<String, long[]>();
+
+    private final Map<String, long[]> grossCents = new HashMap<String, long[]>();
+
+    private final Map<String, boolean[]> filledPeriods = new HashMap<String, boolean[]>();
+
+    private boolean withTax;
+
+    private TimeSeriesBuilder(Date startDate, int numberOfPeriods, int calendarField) {
+        this.numberOfPeriods = numberOfPeriods;
+        this.bucketIndexes = new int[numberOfPeriods];
+        Calendar c = Calendar.getInstance();
+        c.setTime(startDate);
+        for (int i = 0; i < numberOfPeriods; i++) {
+            int key = key(c.get(Calendar.YEAR), c.get(calendarField));
+            Integer index = periodIndexes.get(key);
+            if (index == null) {
+                index = i;
+                periodIndexes.put(key, index);
+            }
+            bucketIndexes[i] = index;
+            c.add(calendarField, 1);
+        }
+    }
+
+    /**
+     * @param startDate       a date within the first week of the series
+     * @param numberOfPeriods the number of weeks in the series
+     */
+    public static TimeSeriesBuilder weekly(Date startDate, int numberOfPeriods) {
+        return new TimeSeriesBuilder(startDate, numberOfPeriods, Calendar.WEEK_OF_YEAR);
+    }
+
+    /**
+     * @param startDate       a date within the first month of the series
+     * @param numberOfPeriods the number of months in the series
+     */
+    public static TimeSeriesBuilder monthly(Date startDate, int numberOfPeriods) {
+        return new TimeSeriesBuilder(startDate, numberOfPeriods, Calendar.MONTH);
+    }
+
+    /**
+     * Makes the series built by this builder contain gross values in addition to net values.
+     */
+    public TimeSeriesBuilder withTax() {
+        this.withTax = true;
+        return this;
+    }
+
+    /**
+     * Adds a value to the untitled series. Values outside of the series' weeks or months are ignored.
+     *
+     * @param year   the year of the value
+     * @param period the week of year or month (0-based) of the value
+     */
+    public TimeSeriesBuilder add(int year, int period, long valueInCents) {
+        return add(null, year, period, valueInCents, null);
+    }
+
+    /**
+     * Adds a value to the series with the given title. Values outside of the series' weeks or months are ignored.
+     */
+    public TimeSeriesBuilder add(String title, int year, int period, long valueInCents) {
+        return add(title, year, period, valueInCents, null);
+    }
+
+    /**
+     * Adds a value to the series with the given title. The gross value is calculated with the given tax rate.
+     * Values outside of the series' weeks or months are ignored.
+     */
+    public TimeSeriesBuilder add(String title, int year, int period, long valueInCents, BigDecimal taxRate) {
+        Integer index = periodIndexes.get(key(year, period));
+        if (index == null) {
+            return this;
+        }
+        getBuckets(netCents, title)[index] += valueInCents;
+        if (withTax) {
+            long gross = taxRate == null ? valueInCents : MoneyUtil.getMoneyWithTaxes(MoneyUtil.createMoneyFromCents(valueInCents), taxRate).getAmountMinorLong();
+            getBuckets(grossCents, title)[index] += gross;
+        }
+        boolean[] filled = filledPeriods.get(title);
+        if (filled == null) {
+            filled = new boolean[numberOfPeriods];
+            filledPeriods.put(title, filled);
+        }
+        filled[index] = true;
+        return this;
+    }
+
+    /**
+     * @return the net values of the untitled series, one per week or month.
+     */
+    public List<Money> getValues() {
+        return toMoney(netCents.get(null), null, null);
+    }
+
+    /**
+     * @param emptyValue the value to report for weeks or months to which no value was added
+     * @return the net values of the untitled series, one per week or month.
+     */
+    public List<Money> getValues(Money emptyValue) {
+        return toMoney(netCents.get(null), filledPeriods.get(null), emptyValue);
+    }
+
+    /**
+     * @param name the name of the resulting series
+     * @return the untitled series.
+     */
+    public MoneySeries getSeries(String name) {
+        return toSeries(name, null);
+    }
+
+    /**
+     * @return one series per title that values were added for, in the order the titles were first added.
+     */
+    public List<MoneySeries> getTitledSeries() {
+        List<MoneySeries> result = new ArrayList<MoneySeries>();
+        for (String title : netCents.keySet()) {
+            if (title != null) {
+                result.add(toSeries(title, title));
+            }
+        }
+        return result;
+    }
+
+    private MoneySeries toSeries(String name, String title) {
+        MoneySeries series = new MoneySeries();
+        series.setName(name);
+        series.setValues(toMoney(netCents.get(title), null, null));
+        if (withTax) {
+            series.setValues_gross(toMoney(grossCents.get(title), null, null));
+        }
+        return series;
+    }
+
+    private List<Money> toMoney(long[] cents, boolean[] filled, Money emptyValue) {
+        List<Money> result = new ArrayList<Money>(numberOfPeriods);
+        for (int i = 0; i < numberOfPeriods; i++) {
+            int bucket = bucketIndexes[i];
+            if (emptyValue != null && (filled == null || !filled[bucket])) {
+                result.add(emptyValue);
+            } else {
+                result.add(MoneyUtil.createMoneyFromCents(cents == null ? 0 : cents[bucket]));
+            }
+        }
+        return result;
+    }
+
+    private long[] getBuckets(Map<String, long[]> buckets, String title) {
+        long[] values = buckets.get(title);
+        if (values == null) {
+            values = new long[numberOfPeriods];
+            buckets.put(title, values);
+        }
+        return values;
+    }
+
+    private static int key(int year, int period) {
+        return year * 100 + period;
+    }
+}
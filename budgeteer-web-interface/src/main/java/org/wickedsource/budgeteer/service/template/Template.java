@@ -10,6 +10,8 @@ import java.io.Serializable;
  * This class contains all the data for a Template.
  * The id attribute is not auto-generated like with TemplateEntity, it is instead passed
  * into the constructor.
+ * Templates returned by the TemplateService only contain the metadata of a template, its workbook can be loaded
+ * with TemplateService.getWorkbook().
  */
 @Data
 public class Template implements Serializable {
@@ -29,7 +31,7 @@ public class Template implements Serializable {
      * @param name The name of the template.
      * @param description The description of the template.
      * @param type The type of this template
-     * @param wb The XSSFWorkbook (Excel template itself).
+     * @param wb The XSSFWorkbook (Excel template itself), may be null if only the metadata is needed.
      * @param isDefault True if this template is default for it's type
      * @param projectID The ID of the current project (Templates are specific to a project).
      */
@@ -0,0 +1,64 @@
+package org.wickedsource.budgeteer.service.template;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Caches the bytes of the most recently used templates by their id. Each entry remembers the version of the
+ * template it was loaded for and is reloaded as soon as a different version is requested. The least recently
+ * used entry is dropped when the cache is full.
+ */
+class TemplateBytesCache {
+
+    private final Map<Long, Entry> entries;
+
+    TemplateBytesCache(int maxEntries) {
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param templateId      the id of the template
+     * @param templateVersion the current version of the template
+     * @param loader          loads the bytes of the template if they are not cached for the given version
+     * @return the bytes of the template or null if the template does not contain a workbook
+     */
+    synchronized byte[] get(long templateId, Long templateVersion, LongFunction<byte[]> loader) {
+        Entry entry = entries.get(templateId);
+        if (entry == null || !equal(entry.version, templateVersion)) {
+            byte[] bytes = loader.apply(templateId);
+            if (bytes == null) {
+                entries.remove(templateId);
+                return null;
+            }
+            entry = new Entry(templateVersion, bytes);
+            entries.put(templateId, entry);
+        }
+        return entry.bytes;
+    }
+
+    synchronized void evict(long templateId) {
+        entries.remove(templateId);
+    }
+
+    private static boolean equal(Long a, Long b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static class Entry {
+
+        private final Long version;
+
+        private final byte[] bytes;
+
+        Entry(Long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+}
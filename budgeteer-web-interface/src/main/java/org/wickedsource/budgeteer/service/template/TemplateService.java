@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.wickedsource.budgeteer.imports.api.ExampleFile;
 import org.wickedsource.budgeteer.imports.api.ImportFile;
 import org.wickedsource.budgeteer.persistence.template.TemplateEntity;
+import org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean;
 import org.wickedsource.budgeteer.persistence.template.TemplateRepository;
 import org.wickedsource.budgeteer.service.ReportType;
 import org.wickedsource.budgeteer.web.pages.templates.TemplateFilter;
@@ -16,6 +17,7 @@ import org.wickedsource.budgeteer.web.pages.templates.templateimport.TemplateFor
 
 import javax.transaction.Transactional;
 import javax.validation.constraints.NotNull;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,42 +26,39 @@ import java.util.List;
 @Transactional
 public class TemplateService {
 
+    /**
+     * The number of templates whose bytes are kept in memory. Templates are at most 2 MB large.
+     */
+    private static final int CACHED_TEMPLATES = 16;
+
     @Autowired
     private TemplateRepository templateRepository;
 
+    private final TemplateBytesCache templateBytesCache = new TemplateBytesCache(CACHED_TEMPLATES);
+
     /**
-     *
+     * The returned templates only contain metadata, use {@link #getWorkbook(long)} to load the workbook of a template.
      * @return All the templates from the repository.
      */
     public List<Template> getTemplates(){
-        List<Template> result = new ArrayList<>();
-        for(TemplateEntity E : templateRepository.findAll()){
-            result.add(new Template(E.getId(), E.getName(), E.getDescription(), E.getType(), E.getWb(), E.isDefault(), E.getProjectId()));
-        }
-        return result;
+        return toTemplates(templateRepository.findAllMetadata());
     }
 
     /**
+     * The returned templates only contain metadata, use {@link #getWorkbook(long)} to load the workbook of a template.
      * @param projectID The ID of the current project.
      * @return All the templates in the current project.
      */
     public List<Template> getTemplatesInProject(long projectID){
-        List<Template> result = new ArrayList<>();
-        for(TemplateEntity E : templateRepository.findByProjectId(projectID)){
-            result.add(new Template(E.getId(), E.getName(), E.getDescription(), E.getType() , E.getWb(), E.isDefault(), E.getProjectId()));
-        }
-        return result;
+        return toTemplates(templateRepository.findMetadataByProjectId(projectID));
     }
 
     public Template getDefault(ReportType type, long projectID){
-        for(Template E : getTemplatesInProject(projectID)){
-            if(E.getType() == type){
-                if(E.isDefault()){
-                    return E;
-                }
-            }
+        List<TemplateMetadataBean> defaults = templateRepository.findDefaultMetadata(projectID, type);
+        if(defaults.isEmpty()){
+            return null;
         }
-        return null;
+        return toTemplate(defaults.get(0));
     }
 
     /**
@@ -68,10 +67,10 @@ public class TemplateService {
      */
     public List<Template> getFilteredTemplatesInProject(@NotNull TemplateFilter filter){
         List<Template> result = new ArrayList<>();
-        for(TemplateEntity E : templateRepository.findByProjectId(filter.getProjectId())){
+        for(TemplateMetadataBean E : templateRepository.findMetadataByProjectId(filter.getProjectId())){
             for(ReportType type : filter.getTypesList()){
                 if(type == E.getType()){
-                    result.add(new Template(E.getId(), E.getName(), E.getDescription(), E.getType(), E.getWb(), E.isDefault(), E.getProjectId()));
+                    result.add(toTemplate(E));
                 }
             }
         }
@@ -80,36 +79,53 @@ public class TemplateService {
 
     /**
      * Returns a template from the database given it's ID.
+     * The returned template only contains metadata, use {@link #getWorkbook(long)} to load its workbook.
      * @param templateID The ID of the template.
      * @return A new Template object.
      */
     public Template getById(long templateID){
-        for(TemplateEntity E : templateRepository.findAll()){
-            if(E.getId() == templateID){
-                return new Template(E.getId(), E.getName(), E.getDescription(), E.getType(), E.getWb(), E.isDefault(), E.getProjectId());
+        TemplateMetadataBean metadata = templateRepository.findMetadataById(templateID);
+        return metadata == null ? null : toTemplate(metadata);
+    }
+
+    /**
+     * Loads the workbook of a template. The bytes of recently used templates are cached, so only the returned
+     * workbook itself is parsed. Every call returns a new workbook which may be modified by the caller.
+     * @param templateID The ID of the template.
+     * @return A new XSSFWorkbook or null if there is no template with a workbook for the given ID.
+     */
+    public XSSFWorkbook getWorkbook(long templateID){
+        byte[] bytes = getWorkbookBytes(templateID);
+        if(bytes != null){
+            try {
+                return (XSSFWorkbook) WorkbookFactory.create(new ByteArrayInputStream(bytes));
+            } catch (IOException | InvalidFormatException e) {
+                e.printStackTrace();
             }
         }
         return null;
     }
 
+    private byte[] getWorkbookBytes(long templateID){
+        TemplateMetadataBean metadata = templateRepository.findMetadataById(templateID);
+        if(metadata == null){
+            return null;
+        }
+        return templateBytesCache.get(templateID, metadata.getTemplateVersion(), templateRepository::findTemplateBytes);
+    }
+
     /**
      * Delete a template given it's id.
      * @param templateID The ID of the template.
      */
     public void deleteTemplate(long templateID){
         templateRepository.delete(templateID);
+        templateBytesCache.evict(templateID);
     }
 
     public void resolveDefaults(long templateId, IModel<TemplateFormInputDto> temModel){
         if(temModel.getObject().isDefault()){
-            for(TemplateEntity E : templateRepository.findAll()){
-                if(E.getType() == temModel.getObject().getType() && E.getId() != templateId){
-                    if(E.isDefault()){
-                        templateRepository.save(new TemplateEntity(E.getId(), E.getName(), E.getDescription(), E.getType(),
-                                E.getWb(), false, E.getProjectId()));
-                    }
-                }
-            }
+            templateRepository.resetDefaults(temModel.getObject().getType(), templateId);
         }
     }
 
@@ -132,6 +148,7 @@ public class TemplateService {
                         temModel.getObject().isDefault(),
                         projectId);
                 templateRepository.save(temp);
+                templateBytesCache.evict(templateId);
             } catch (IOException | InvalidFormatException e) {
                 e.printStackTrace();
             }
@@ -139,7 +156,7 @@ public class TemplateService {
             temp = new TemplateEntity(templateId, temModel.getObject().getName(),
                     temModel.getObject().getDescription(),
                     temModel.getObject().getType(),
-                    getById(templateId).getWb(),
+                    getWorkbookBytes(templateId),
                     temModel.getObject().isDefault(),
                     projectId);
             templateRepository.save(temp);
@@ -167,6 +184,18 @@ public class TemplateService {
         }
     }
 
+    private List<Template> toTemplates(List<TemplateMetadataBean> metadata){
+        List<Template> result = new ArrayList<>();
+        for(TemplateMetadataBean E : metadata){
+            result.add(toTemplate(E));
+        }
+        return result;
+    }
+
+    private Template toTemplate(TemplateMetadataBean E){
+        return new Template(E.getId(), E.getName(), E.getDescription(), E.getType(), null, E.isDefault(), E.getProjectId());
+    }
+
     /**
      * Reads an example template file from disk.
      * The file must be named like in the following format:
@@ -5,9 +5,10 @@ import org.apache.wicket.markup.html.panel.Panel;
 import org.apache.wicket.model.AbstractReadOnlyModel;
 import org.apache.wicket.model.IModel;
 import org.wickedsource.budgeteer.service.exports.ExportService;
+import org.wickedsource.budgeteer.service.record.RecordService;
 import org.wickedsource.budgeteer.service.record.WorkRecordFilter;
 import org.wickedsource.budgeteer.web.components.burntable.filter.FilterPanel;
-import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsModel;
+import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsProvider;
 import org.wickedsource.budgeteer.web.components.burntable.table.BurnTable;
 
 import javax.inject.Inject;
@@ -18,6 +19,9 @@ public class BurnTableWithFilter extends Panel {
     @Inject
     private ExportService exportService;
 
+    @Inject
+    private RecordService recordService;
+
     private FilterPanel filterPanel;
 
     private BurnTable burnTable;
@@ -32,14 +36,14 @@ public class BurnTableWithFilter extends Panel {
         filterPanel = new FilterPanel("filter", initialFilter);
         add(filterPanel);
 
-        FilteredRecordsModel tableModel = new FilteredRecordsModel(initialFilter);
-        burnTable = new BurnTable("table", tableModel, dailyRateIsEditable);
+        FilteredRecordsProvider tableProvider = new FilteredRecordsProvider(initialFilter);
+        burnTable = new BurnTable("table", tableProvider, dailyRateIsEditable);
         add(burnTable);
 
         IModel<File> fileModel = new AbstractReadOnlyModel<File>() {
             @Override
             public File getObject() {
-                return exportService.generateCSVFileFromRecords(burnTable.getRows());
+                return exportService.generateCSVFileFromRecords(recordService.getFilteredRecords(burnTable.getProvider().getFilter()));
             }
         };
 
@@ -0,0 +1,87 @@
+package org.wickedsource.budgeteer.web.components.burntable.filter;
+
+import org.apache.wicket.injection.Injector;
+import org.apache.wicket.markup.repeater.data.IDataProvider;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.spring.injection.annot.SpringBean;
+import org.wickedsource.budgeteer.service.record.RecordService;
+import org.wickedsource.budgeteer.service.record.WorkRecord;
+import org.wickedsource.budgeteer.service.record.WorkRecordFilter;
+
+import java.util.Iterator;
+
+/**
+ * Provides the work records matching a {@link WorkRecordFilter} page by page, sorted by a property of
+ * {@link WorkRecord}.
+ */
+public class FilteredRecordsProvider implements IDataProvider<WorkRecord> {
+
+    @SpringBean
+    private RecordService service;
+
+    private WorkRecordFilter filter;
+
+    private String sortProperty = "date";
+
+    private boolean ascending = true;
+
+    private transient Long size;
+
+    public FilteredRecordsProvider(WorkRecordFilter filter) {
+        Injector.get().inject(this);
+        this.filter = filter;
+    }
+
+    @Override
+    public Iterator<? extends WorkRecord> iterator(long first, long count) {
+        return service.getFilteredRecords(filter, sortProperty, ascending, first, count).iterator();
+    }
+
+    @Override
+    public long size() {
+        if (size == null) {
+            size = service.countFilteredRecords(filter);
+        }
+        return size;
+    }
+
+    @Override
+    public IModel<WorkRecord> model(WorkRecord record) {
+        return Model.of(record);
+    }
+
+    @Override
+    public void detach() {
+        size = null;
+    }
+
+    /**
+     * Sorts by the given property. If the records are already sorted by this property, the sort direction is reversed.
+     */
+    public void sortBy(String property) {
+        if (property.equals(sortProperty)) {
+            ascending = !ascending;
+        } else {
+            sortProperty = property;
+            ascending = true;
+        }
+    }
+
+    public String getSortProperty() {
+        return sortProperty;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public WorkRecordFilter getFilter() {
+        return filter;
+    }
+
+    public void setFilter(WorkRecordFilter filter) {
+        this.filter = filter;
+        this.size = null;
+    }
+}
@@ -1,60 +1,77 @@
 package org.wickedsource.budgeteer.web.components.burntable.table;
 
 import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.ajax.markup.html.AjaxLink;
+import org.apache.wicket.ajax.markup.html.navigation.paging.AjaxPagingNavigator;
 import org.apache.wicket.event.IEvent;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.Form;
-import org.apache.wicket.markup.html.list.ListItem;
-import org.apache.wicket.markup.html.list.ListView;
 import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.markup.repeater.Item;
+import org.apache.wicket.markup.repeater.data.DataView;
 import org.apache.wicket.model.IModel;
 import org.joda.money.Money;
 import org.wickedsource.budgeteer.service.record.RecordService;
 import org.wickedsource.budgeteer.service.record.WorkRecord;
 import org.wickedsource.budgeteer.service.record.WorkRecordFilter;
 import org.wickedsource.budgeteer.web.ClassAwareWrappingModel;
-import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsModel;
+import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsProvider;
 import org.wickedsource.budgeteer.web.components.customFeedback.CustomFeedbackPanel;
-import org.wickedsource.budgeteer.web.components.dataTable.DataTableBehavior;
 import org.wickedsource.budgeteer.web.components.dataTable.editableMoneyField.EditableMoneyField;
 import org.wickedsource.budgeteer.web.components.money.BudgetUnitMoneyModel;
 import org.wickedsource.budgeteer.web.components.money.MoneyLabel;
 
 import javax.inject.Inject;
-import java.util.List;
 
 import static org.wicketstuff.lazymodel.LazyModel.from;
 import static org.wicketstuff.lazymodel.LazyModel.model;
 
 public class BurnTable extends Panel {
 
+    private static final int ROWS_PER_PAGE = 25;
+
     private CustomFeedbackPanel feedbackPanel;
     private boolean dailyRateIsEditable;
-    private ListView<WorkRecord> rows;
+    private FilteredRecordsProvider provider;
+    private WebMarkupContainer table;
+    private DataView<WorkRecord> rows;
 
     @Inject
     private RecordService recordService;
 
-    public BurnTable(String id, FilteredRecordsModel model){
-        this(id, model, false);
+    public BurnTable(String id, FilteredRecordsProvider provider){
+        this(id, provider, false);
     }
 
-    public BurnTable(String id, FilteredRecordsModel model, boolean dailyRateIsEditable) {
-        super(id, model);
+    public BurnTable(String id, FilteredRecordsProvider provider, boolean dailyRateIsEditable) {
+        super(id);
+        this.provider = provider;
         this.dailyRateIsEditable = dailyRateIsEditable;
 
         feedbackPanel = new CustomFeedbackPanel("feedback");
         feedbackPanel.setOutputMarkupId(true);
         add(feedbackPanel);
 
-        WebMarkupContainer table = new WebMarkupContainer("table");
-        table.add(new DataTableBehavior(DataTableBehavior.getRecommendedOptions()));
-        rows = createList("recordList", model, table);
+        table = new WebMarkupContainer("table");
+        table.setOutputMarkupId(true);
+        table.add(createSortLink("sortByBudget", "budgetName"));
+        table.add(createSortLink("sortByPerson", "personName"));
+        table.add(createSortLink("sortByDailyRate", "dailyRate"));
+        table.add(createSortLink("sortByDate", "date"));
+        table.add(createSortLink("sortByHours", "hours"));
+        table.add(createSortLink("sortByBudgetBurned", "budgetBurned"));
+        rows = createList("recordList", provider, table);
         table.add(rows);
+        table.add(new AjaxPagingNavigator("navigator", rows) {
+            @Override
+            protected void onAjaxEvent(AjaxRequestTarget target) {
+                target.add(table);
+            }
+        });
 
         add(table);
-        add(new MoneyLabel("total", new BudgetUnitMoneyModel(new TotalBudgetModel(model))));
+        add(new MoneyLabel("total", new BudgetUnitMoneyModel(new TotalBudgetModel(provider))));
     }
 
     @Override
@@ -63,15 +80,26 @@ public class BurnTable extends Panel {
         Object payload = event.getPayload();
         if (payload instanceof WorkRecordFilter) {
             WorkRecordFilter filter = (WorkRecordFilter) payload;
-            FilteredRecordsModel model = (FilteredRecordsModel) getDefaultModel();
-            model.setFilter(filter);
+            provider.setFilter(filter);
+            rows.setCurrentPage(0);
         }
     }
 
-    private ListView<WorkRecord> createList(String id, final IModel<List<WorkRecord>> model, final WebMarkupContainer table) {
-        return new ListView<WorkRecord>(id, model) {
+    private AjaxLink<Void> createSortLink(String id, final String property) {
+        return new AjaxLink<Void>(id) {
+            @Override
+            public void onClick(AjaxRequestTarget target) {
+                provider.sortBy(property);
+                rows.setCurrentPage(0);
+                target.add(table);
+            }
+        };
+    }
+
+    private DataView<WorkRecord> createList(String id, FilteredRecordsProvider provider, final WebMarkupContainer table) {
+        DataView<WorkRecord> dataView = new DataView<WorkRecord>(id, provider) {
             @Override
-            protected void populateItem(final ListItem<WorkRecord> item) {
+            protected void populateItem(final Item<WorkRecord> item) {
                 item.setOutputMarkupId(true);
                 item.add(new Label("budget", model(from(item.getModel()).getBudgetName())));
                 item.add(new Label("person", model(from(item.getModel()).getPersonName()) ));
@@ -112,14 +140,16 @@ public class BurnTable extends Panel {
             }
 
             @Override
-            protected ListItem<WorkRecord> newItem(int index, IModel<WorkRecord> itemModel) {
+            protected Item<WorkRecord> newItem(String id, int index, IModel<WorkRecord> itemModel) {
                 // wrap model to work with LazyModel
-                return super.newItem(index, new ClassAwareWrappingModel<WorkRecord>(itemModel, WorkRecord.class));
+                return super.newItem(id, index, new ClassAwareWrappingModel<WorkRecord>(itemModel, WorkRecord.class));
             }
         };
+        dataView.setItemsPerPage(ROWS_PER_PAGE);
+        return dataView;
     }
 
-    public ListView<WorkRecord> getRows() {
-        return rows;
+    public FilteredRecordsProvider getProvider() {
+        return provider;
     }
 }
@@ -1,32 +1,30 @@
 package org.wickedsource.budgeteer.web.components.burntable.table;
 
-import org.apache.wicket.model.AbstractReadOnlyModel;
-import org.apache.wicket.model.IModel;
+import org.apache.wicket.injection.Injector;
+import org.apache.wicket.model.LoadableDetachableModel;
+import org.apache.wicket.spring.injection.annot.SpringBean;
 import org.joda.money.Money;
-import org.wickedsource.budgeteer.MoneyUtil;
-import org.wickedsource.budgeteer.service.record.WorkRecord;
+import org.wickedsource.budgeteer.service.record.RecordService;
+import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsProvider;
 
-import java.util.List;
+/**
+ * Budget burned by all records matching the current filter of a {@link FilteredRecordsProvider}, summed up by the
+ * database.
+ */
+public class TotalBudgetModel extends LoadableDetachableModel<Money> {
 
-public class TotalBudgetModel extends AbstractReadOnlyModel<Money> {
+    @SpringBean
+    private RecordService service;
 
-    private IModel<List<WorkRecord>> model;
+    private FilteredRecordsProvider provider;
 
-    public TotalBudgetModel(IModel<List<WorkRecord>> model) {
-        this.model = model;
+    public TotalBudgetModel(FilteredRecordsProvider provider) {
+        Injector.get().inject(this);
+        this.provider = provider;
     }
 
     @Override
-    public Money getObject() {
-        Money sum = MoneyUtil.createMoney(0d);
-        for (WorkRecord record : model.getObject()) {
-            sum = sum.plus(record.getBudgetBurned());
-        }
-        return sum;
-    }
-
-    @Override
-    public void detach() {
-
+    protected Money load() {
+        return service.getBudgetBurnedForFilteredRecords(provider.getFilter());
     }
 }
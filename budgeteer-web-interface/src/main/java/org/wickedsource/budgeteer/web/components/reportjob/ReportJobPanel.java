@@ -0,0 +1,123 @@
+package org.wickedsource.budgeteer.web.components.reportjob;
+
+import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.behavior.AbstractAjaxBehavior;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+import org.apache.wicket.model.StringResourceModel;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.handler.resource.ResourceStreamRequestHandler;
+import org.apache.wicket.request.resource.ContentDisposition;
+import org.apache.wicket.spring.injection.annot.SpringBean;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.time.Duration;
+import org.wickedsource.budgeteer.service.report.ReportJobService;
+import org.wickedsource.budgeteer.service.report.ReportJobStatus;
+
+import java.io.File;
+
+/**
+ * Shows the progress of a report job and starts the download of the report as soon as it is created.
+ */
+public class ReportJobPanel extends Panel {
+
+    private static final Duration POLLING_INTERVAL = Duration.seconds(1);
+
+    @SpringBean
+    private ReportJobService reportJobService;
+
+    private final String fileName;
+
+    private String jobId;
+
+    private AbstractAjaxTimerBehavior pollingBehavior;
+
+    private final AbstractAjaxBehavior downloadBehavior = new AbstractAjaxBehavior() {
+        @Override
+        public void onRequest() {
+            download();
+        }
+    };
+
+    /**
+     * @param fileName the name under which the report is offered for download
+     */
+    public ReportJobPanel(String id, String fileName) {
+        super(id);
+        this.fileName = fileName;
+        setOutputMarkupPlaceholderTag(true);
+        add(downloadBehavior);
+        add(new Label("status", new AbstractReadOnlyModel<String>() {
+            @Override
+            public String getObject() {
+                return getStatusMessage();
+            }
+        }));
+    }
+
+    /**
+     * Starts showing the progress of the given job.
+     */
+    public void start(String jobId) {
+        this.jobId = jobId;
+        if (pollingBehavior != null) {
+            remove(pollingBehavior);
+        }
+        pollingBehavior = new AbstractAjaxTimerBehavior(POLLING_INTERVAL) {
+            @Override
+            protected void onTimer(AjaxRequestTarget target) {
+                ReportJobStatus status = reportJobService.getStatus(ReportJobPanel.this.jobId);
+                if (status == ReportJobStatus.FINISHED) {
+                    stop(target);
+                    target.appendJavaScript(String.format("window.location.href='%s';", downloadBehavior.getCallbackUrl()));
+                } else if (status != ReportJobStatus.QUEUED && status != ReportJobStatus.RUNNING) {
+                    stop(target);
+                }
+                target.add(ReportJobPanel.this);
+            }
+        };
+        add(pollingBehavior);
+    }
+
+    @Override
+    protected void onConfigure() {
+        super.onConfigure();
+        setVisible(jobId != null);
+    }
+
+    private String getStatusMessage() {
+        ReportJobStatus status = reportJobService.getStatus(jobId);
+        if (status == null) {
+            return getString("status.expired");
+        }
+        switch (status) {
+            case QUEUED:
+                return new StringResourceModel("status.queued", this).setParameters(reportJobService.getJobsAhead(jobId)).getString();
+            case RUNNING:
+                return getString("status.running");
+            case FINISHED:
+                return getString("status.finished");
+            case REJECTED:
+                return getString("status.rejected");
+            default:
+                return getString("status.failed");
+        }
+    }
+
+    private void download() {
+        final String finishedJobId = jobId;
+        File file = reportJobService.getResult(finishedJobId);
+        if (file == null) {
+            return;
+        }
+        getRequestCycle().scheduleRequestHandlerAfterCurrent(new ResourceStreamRequestHandler(new FileResourceStream(file)) {
+            @Override
+            public void respond(IRequestCycle requestCycle) {
+                super.respond(requestCycle);
+                reportJobService.releaseResult(finishedJobId);
+            }
+        }.setFileName(fileName).setContentDisposition(ContentDisposition.ATTACHMENT));
+    }
+}
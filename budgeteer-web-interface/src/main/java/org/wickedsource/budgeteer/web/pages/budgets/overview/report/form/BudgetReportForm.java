@@ -2,29 +2,22 @@ package org.wickedsource.budgeteer.web.pages.budgets.overview.report.form;
 
 import org.apache.wicket.markup.html.form.DropDownChoice;
 import org.apache.wicket.markup.html.form.Form;
-import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.LoadableDetachableModel;
-import org.apache.wicket.request.IRequestCycle;
-import org.apache.wicket.request.handler.resource.ResourceStreamRequestHandler;
-import org.apache.wicket.request.resource.ContentDisposition;
 import org.apache.wicket.spring.injection.annot.SpringBean;
-import org.apache.wicket.util.file.Files;
-import org.apache.wicket.util.resource.FileResourceStream;
-import org.apache.wicket.util.resource.IResourceStream;
 import org.wickedsource.budgeteer.service.DateRange;
 import org.wickedsource.budgeteer.service.ReportType;
 import org.wickedsource.budgeteer.service.budget.report.BudgetReportService;
 import org.wickedsource.budgeteer.service.budget.report.ReportMetaInformation;
+import org.wickedsource.budgeteer.service.report.ReportJobService;
 import org.wickedsource.budgeteer.service.template.Template;
 import org.wickedsource.budgeteer.service.template.TemplateService;
 import org.wickedsource.budgeteer.web.BudgeteerSession;
 import org.wickedsource.budgeteer.web.components.customFeedback.CustomFeedbackPanel;
 import org.wickedsource.budgeteer.web.components.daterange.DateRangeInputField;
 import org.wickedsource.budgeteer.web.components.notificationlist.NotificationListPanel;
+import org.wickedsource.budgeteer.web.components.reportjob.ReportJobPanel;
 import org.wickedsource.budgeteer.web.pages.base.AbstractChoiceRenderer;
-import org.wickedsource.budgeteer.web.pages.budgets.overview.report.BudgetReportFileModel;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -44,6 +37,11 @@ public class BudgetReportForm extends Form<ReportMetaInformation> {
     @SpringBean
     private TemplateService templateService;
 
+    @SpringBean
+    private ReportJobService reportJobService;
+
+    private ReportJobPanel reportJobPanel;
+
     public BudgetReportForm(String id) {
         super(id, model(from(new ReportMetaInformation())));
         Date startDate = service.getStartDateOfBudgets();
@@ -54,6 +52,8 @@ public class BudgetReportForm extends Form<ReportMetaInformation> {
 
         add(new NotificationListPanel("notificationList", new BudgetReportNotificationModel()));
         add(new CustomFeedbackPanel("feedback"));
+        reportJobPanel = new ReportJobPanel("reportJob", "report.xlsx");
+        add(reportJobPanel);
         add(new DateRangeInputField("monthlyRange", model(from(getModel()).getMonthlyTimeRange()),
                 DateRangeInputField.DROP_LOCATION.DOWN));
         add(new DateRangeInputField("overallRange", model(from(getModel()).getOverallTimeRange()),
@@ -103,23 +103,12 @@ public class BudgetReportForm extends Form<ReportMetaInformation> {
     }
 
     protected void onSubmit() {
-        String filename = "report.xlsx";
         if((getModelObject()).getTemplate() == null){
             this.error(getString("feedback.error.no.template"));
         }else {
-            this.success(getString("feedback.success"));
-            IModel<File> fileModel = new BudgetReportFileModel(BudgeteerSession.get().getProjectId(),
-                    model(from(BudgeteerSession.get().getBudgetFilter())), getModel(), model(from(getModel()).getTemplate()));
-
-            final File file = fileModel.getObject();
-            IResourceStream resourceStream = new FileResourceStream(file);
-            getRequestCycle().scheduleRequestHandlerAfterCurrent(new ResourceStreamRequestHandler(resourceStream) {
-                @Override
-                public void respond(IRequestCycle requestCycle) {
-                    super.respond(requestCycle);
-                    Files.remove(file);
-                }
-            }.setFileName(filename).setContentDisposition(ContentDisposition.ATTACHMENT));
+            String jobId = reportJobService.submitBudgetReport(getModelObject().getTemplate().getId(), BudgeteerSession.get().getProjectId(),
+                    BudgeteerSession.get().getBudgetFilter(), getModelObject());
+            reportJobPanel.start(jobId);
         }
     }
 }
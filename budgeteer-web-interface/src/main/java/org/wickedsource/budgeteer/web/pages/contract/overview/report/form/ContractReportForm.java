@@ -5,27 +5,24 @@ import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.form.IChoiceRenderer;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.LoadableDetachableModel;
-import org.apache.wicket.request.IRequestCycle;
-import org.apache.wicket.request.handler.resource.ResourceStreamRequestHandler;
-import org.apache.wicket.request.resource.ContentDisposition;
 import org.apache.wicket.spring.injection.annot.SpringBean;
-import org.apache.wicket.util.file.Files;
-import org.apache.wicket.util.resource.FileResourceStream;
-import org.apache.wicket.util.resource.IResourceStream;
 import org.wickedsource.budgeteer.service.ReportType;
 import org.wickedsource.budgeteer.service.contract.ContractService;
-import org.wickedsource.budgeteer.service.contract.report.ContractReportService;
+import org.wickedsource.budgeteer.service.report.ReportJobService;
 import org.wickedsource.budgeteer.service.template.Template;
 import org.wickedsource.budgeteer.service.template.TemplateService;
 import org.wickedsource.budgeteer.web.BudgeteerSession;
 import org.wickedsource.budgeteer.web.components.customFeedback.CustomFeedbackPanel;
 import org.wickedsource.budgeteer.web.components.notificationlist.NotificationListPanel;
+import org.wickedsource.budgeteer.web.components.reportjob.ReportJobPanel;
 import org.wickedsource.budgeteer.web.pages.base.AbstractChoiceRenderer;
 import org.wickedsource.budgeteer.web.pages.budgets.overview.report.form.BudgetReportNotificationModel;
 import org.wickedsource.budgeteer.web.pages.contract.overview.report.ContractReportMetaInformation;
 
-import java.io.File;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -44,14 +41,16 @@ public class ContractReportForm extends Form<ContractReportMetaInformation> {
 	@SpringBean
 	private ContractService contractService;
 
-    @SpringBean
-    private ContractReportService contractReportService;
+	@SpringBean
+	private ReportJobService reportJobService;
 
 	@SpringBean
 	private TemplateService templateService;
 
 	private List<FormattedDate> formattedMonths;
 
+	private ReportJobPanel reportJobPanel;
+
 	public ContractReportForm(String id) {
 		super(id, model(from(new ContractReportMetaInformation())));
 		List<Date> months = contractService.getMonthListForProjectId(BudgeteerSession.get().getProjectId());
@@ -130,6 +129,8 @@ public class ContractReportForm extends Form<ContractReportMetaInformation> {
 
 		add(new NotificationListPanel("notificationList", new BudgetReportNotificationModel()));
 		add(new CustomFeedbackPanel("feedback"));
+		reportJobPanel = new ReportJobPanel("reportJob", "contract-report.xlsx");
+		add(reportJobPanel);
 	}
 
 	private List<FormattedDate> getFormatedMonths(List<Date> months, SimpleDateFormat formatter) {
@@ -137,22 +138,25 @@ public class ContractReportForm extends Form<ContractReportMetaInformation> {
 	}
 
 	protected void onSubmit() {
-		String filename = "contract-report.xlsx";
         if((getModelObject()).getTemplate() == null){
             this.error(getString("feedback.error.no.template"));
         }else {
-            this.success(getString("feedback.success"));
-            IModel<File> fileModel = new ContractReportFileModel(BudgeteerSession.get().getProjectId(), getModel());
-            final File file = fileModel.getObject();
-            IResourceStream resourceStream = new FileResourceStream(file);
-            getRequestCycle().scheduleRequestHandlerAfterCurrent(new ResourceStreamRequestHandler(resourceStream) {
-                @Override
-                public void respond(IRequestCycle requestCycle) {
-                    super.respond(requestCycle);
-                    Files.remove(file);
-                }
-            }.setFileName(filename).setContentDisposition(ContentDisposition.ATTACHMENT));
+            String jobId = reportJobService.submitContractReport(getModelObject().getTemplate().getId(), BudgeteerSession.get().getProjectId(), getEndDate());
+            reportJobPanel.start(jobId);
         }
+	}
 
+	/**
+	 * @return the last day of the selected month or today, if the selected month has not ended yet.
+	 */
+	private Date getEndDate() {
+		LocalDate now = LocalDate.now();
+		LocalDate adjustedDate = getModelObject().getSelectedMonth().getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate()
+				.plus(1,ChronoUnit.MONTHS).minus(1,ChronoUnit.DAYS);
+		if(now.isBefore(adjustedDate)) {
+			return Date.from(now.atStartOfDay(ZoneId.systemDefault()).toInstant());
+		} else {
+			return Date.from(adjustedDate.atStartOfDay(ZoneId.systemDefault()).toInstant());
+		}
 	}
 }
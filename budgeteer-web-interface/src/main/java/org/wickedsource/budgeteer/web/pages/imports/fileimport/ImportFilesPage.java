@@ -6,6 +6,7 @@ import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.ajax.form.AjaxFormComponentUpdatingBehavior;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.form.CheckBox;
 import org.apache.wicket.markup.html.form.DropDownChoice;
 import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.form.upload.FileUpload;
@@ -25,6 +26,7 @@ import org.apache.wicket.util.time.Duration;
 import org.wickedsource.budgeteer.importer.aproda.AprodaWorkRecordsImporter;
 import org.wickedsource.budgeteer.importer.ubw.UBWWorkRecordsImporter;
 import org.wickedsource.budgeteer.imports.api.*;
+import org.wickedsource.budgeteer.service.imports.ImportCounts;
 import org.wickedsource.budgeteer.service.imports.ImportService;
 import org.wickedsource.budgeteer.web.BudgeteerSession;
 import org.wickedsource.budgeteer.web.ClassAwareWrappingModel;
@@ -49,6 +51,8 @@ public class ImportFilesPage extends DialogPageWithBacklink {
 
     private List<FileUpload> fileUploads = new ArrayList<FileUpload>();
 
+    private boolean deltaImport;
+
     private CustomFeedbackPanel feedback;
 
     private List<List<String>> skippedImports;
@@ -71,9 +75,14 @@ public class ImportFilesPage extends DialogPageWithBacklink {
                             files.add(new ImportFile(file.getClientFileName(), file.getInputStream()));
                         }
                     }
-                    service.doImport(BudgeteerSession.get().getProjectId(), importer, files);
+                    service.doImport(BudgeteerSession.get().getProjectId(), importer, files, deltaImport);
                     skippedImports = service.getSkippedRecords();
-                    success(getString("message.success"));
+                    ImportCounts counts = service.getImportCounts();
+                    if (deltaImport && counts != null) {
+                        success(String.format(getString("message.deltaSuccess"), counts.getInsertedRecords(), counts.getUpdatedRecords(), counts.getUnchangedRecords()));
+                    } else {
+                        success(getString("message.success"));
+                    }
                 } catch (IOException e) {
                     error(String.format(getString("message.ioError"), e.getMessage()));
                 } catch (ImportException e) {
@@ -139,6 +148,8 @@ public class ImportFilesPage extends DialogPageWithBacklink {
         });
         form.add(fileUpload);
 
+        form.add(new CheckBox("deltaImport", new PropertyModel<Boolean>(this, "deltaImport")));
+
         form.add(createBacklink("backlink2"));
         form.add(createExampleFileButton("exampleFileButton"));
     }
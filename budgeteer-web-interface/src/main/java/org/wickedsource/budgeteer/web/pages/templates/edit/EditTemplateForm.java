@@ -177,7 +177,7 @@ public class EditTemplateForm extends Form<TemplateFormInputDto> {
         return new Link<Void>(wicketId) {
             @Override
             public void onClick() {
-                XSSFWorkbook wb = service.getById(templateID).getWb();
+                XSSFWorkbook wb = service.getWorkbook(templateID);
                 AbstractResourceStreamWriter streamWriter = new AbstractResourceStreamWriter() {
                     @Override
                     public void write(OutputStream output) throws IOException {
@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.wickedsource.budgeteer.IntegrationTestTemplate;
 
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
 
 class ContractRepositoryTest extends IntegrationTestTemplate {
 
@@ -88,6 +90,54 @@ class ContractRepositoryTest extends IntegrationTestTemplate {
     	Assertions.assertEquals(1200, budgetSpentGross1,10e-8);
     	Assertions.assertEquals(0, budgetSpentGross2,10e-8);
     }
-    
-    
+
+    @Test
+    @DatabaseSetup("contract.xml")
+    @DatabaseTearDown(value = "contract.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetSpentBudgetByContractIds() {
+        List<ContractSumBean> sums = repository.getSpentBudgetByContractIds(Arrays.asList(1L, 2L));
+        Assertions.assertEquals(1, sums.size());
+        Assertions.assertEquals(1L, sums.get(0).getContractId());
+        Assertions.assertEquals(600, sums.get(0).getValueInCents());
+    }
+
+    @Test
+    @DatabaseSetup("contract.xml")
+    @DatabaseTearDown(value = "contract.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetSpentAndInvoicedBudgetByContractIdsUntilDate() {
+        List<ContractSumBean> spent = repository.getSpentBudgetByContractIdsUntilDate(Arrays.asList(1L, 2L), 6, 2015);
+        Assertions.assertEquals(1, spent.size());
+        Assertions.assertEquals(400, spent.get(0).getValueInCents());
+        List<ContractSumBean> invoiced = repository.getInvoicedBudgetByContractIdsUntilDate(Arrays.asList(1L, 2L), 6, 2015);
+        Assertions.assertEquals(1, invoiced.size());
+        Assertions.assertEquals(400, invoiced.get(0).getValueInCents());
+    }
+
+    @Test
+    @DatabaseSetup("contract.xml")
+    @DatabaseTearDown(value = "contract.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetSpentAndInvoicedBudgetByContractIdsInMonth() {
+        List<ContractSumBean> spent = repository.getSpentBudgetByContractIdsInMonth(Arrays.asList(1L, 2L), 2, 2016);
+        Assertions.assertEquals(1, spent.size());
+        Assertions.assertEquals(200, spent.get(0).getValueInCents());
+        List<ContractSumBean> invoiced = repository.getInvoicedBudgetByContractIdsInMonth(Arrays.asList(1L, 2L), 2, 2016);
+        Assertions.assertEquals(1, invoiced.size());
+        Assertions.assertEquals(200, invoiced.get(0).getValueInCents());
+    }
+
+    @Test
+    @DatabaseSetup("contract.xml")
+    @DatabaseTearDown(value = "contract.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetSpentAndInvoicedBudgetByContractIdGroupedByMonth() {
+        List<ContractMonthlySumBean> spent = repository.getSpentBudgetByContractIdGroupedByMonth(1L);
+        Assertions.assertEquals(3, spent.size());
+        Assertions.assertEquals(2014, spent.get(0).getYear());
+        Assertions.assertEquals(2, spent.get(0).getMonth());
+        Assertions.assertEquals(200, spent.get(0).getValueInCents());
+        Assertions.assertEquals(2016, spent.get(2).getYear());
+        List<ContractMonthlySumBean> invoiced = repository.getInvoicedBudgetByContractIdGroupedByMonth(1L);
+        Assertions.assertEquals(3, invoiced.size());
+        Assertions.assertEquals(200, invoiced.get(1).getValueInCents());
+        Assertions.assertTrue(repository.getSpentBudgetByContractIdGroupedByMonth(2L).isEmpty());
+    }
 }
@@ -0,0 +1,518 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wickedsource.budgeteer.IntegrationTestTemplate;
+import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The datasets contain the same work and plan records, so most tests check the results for both record types.
+ */
+class RecordAggregationRepositoryTest extends IntegrationTestTemplate {
+
+    private DateFormat format = new SimpleDateFormat("dd.MM.yyyy");
+
+    @Autowired
+    private RecordAggregationRepository repository;
+
+    @Autowired
+    private RecordRollupService recordRollupService;
+
+    @Test
+    @DatabaseSetup("aggregateByWeekAndPerson.xml")
+    @DatabaseTearDown(value = "aggregateByWeekAndPerson.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekAndPerson() {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forPerson(1L));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(rows, type);
+            Assertions.assertEquals(3, records.size());
+
+            Assertions.assertEquals(2014, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(1, records.get(1).getWeek());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(2).getYear());
+            Assertions.assertEquals(33, records.get(2).getWeek());
+            Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(2).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthAndPerson.xml")
+    @DatabaseTearDown(value = "aggregateByMonthAndPerson.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthAndPerson() {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forPerson(1L));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordBean> records = AggregatedRows.toMonthlyBeans(rows, type);
+            Assertions.assertEquals(3, records.size());
+
+            Assertions.assertEquals(2014, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(0, records.get(1).getMonth());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(2).getYear());
+            Assertions.assertEquals(7, records.get(2).getMonth());
+            Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(2).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByWeekAndBudget.xml")
+    @DatabaseTearDown(value = "aggregateByWeekAndBudget.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekAndBudget() {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forBudget(1L));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(rows, type);
+            Assertions.assertEquals(3, records.size());
+
+            Assertions.assertEquals(2014, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(1, records.get(1).getWeek());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(2).getYear());
+            Assertions.assertEquals(33, records.get(2).getWeek());
+            Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(2).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthAndBudget.xml")
+    @DatabaseTearDown(value = "aggregateByMonthAndBudget.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthAndBudget() {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forBudget(1L));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordBean> records = AggregatedRows.toMonthlyBeans(rows, type);
+            Assertions.assertEquals(3, records.size());
+
+            Assertions.assertEquals(2014, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(0, records.get(1).getMonth());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(2).getYear());
+            Assertions.assertEquals(7, records.get(2).getMonth());
+            Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(2).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByBudgetTags.xml")
+    @DatabaseTearDown(value = "aggregateByBudgetTags.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekAndBudgetTags() {
+        List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(aggregate(AggregationQuery.byWeek().forProject(1L).withBudgetTags(Arrays.asList("tag1"))), RecordType.WORK);
+        Assertions.assertEquals(2, records.size());
+
+        Assertions.assertEquals(2014, records.get(0).getYear());
+        Assertions.assertEquals(1, records.get(0).getWeek());
+        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+
+        Assertions.assertEquals(2015, records.get(1).getYear());
+        Assertions.assertEquals(1, records.get(1).getWeek());
+        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+
+        records = AggregatedRows.toWeeklyBeans(aggregate(AggregationQuery.byWeek().forProject(1L).withBudgetTags(Arrays.asList("tag2"))), RecordType.WORK);
+        Assertions.assertEquals(2, records.size());
+
+        Assertions.assertEquals(2015, records.get(0).getYear());
+        Assertions.assertEquals(1, records.get(0).getWeek());
+        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+
+        Assertions.assertEquals(2015, records.get(1).getYear());
+        Assertions.assertEquals(33, records.get(1).getWeek());
+        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+        Assertions.assertEquals(0L, records.get(1).getValueInCents());
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByBudgetTags.xml")
+    @DatabaseTearDown(value = "aggregateByBudgetTags.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthAndBudgetTags() {
+        List<MonthlyAggregatedRecordBean> records = AggregatedRows.toMonthlyBeans(aggregate(AggregationQuery.byMonth().forProject(1L).withBudgetTags(Arrays.asList("tag1"))), RecordType.PLAN);
+        Assertions.assertEquals(2, records.size());
+
+        Assertions.assertEquals(2014, records.get(0).getYear());
+        Assertions.assertEquals(0, records.get(0).getMonth());
+        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+
+        Assertions.assertEquals(2015, records.get(1).getYear());
+        Assertions.assertEquals(0, records.get(1).getMonth());
+        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+
+        records = AggregatedRows.toMonthlyBeans(aggregate(AggregationQuery.byMonth().forProject(1L).withBudgetTags(Arrays.asList("tag2"))), RecordType.PLAN);
+        Assertions.assertEquals(2, records.size());
+
+        Assertions.assertEquals(2015, records.get(0).getYear());
+        Assertions.assertEquals(0, records.get(0).getMonth());
+        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+
+        Assertions.assertEquals(2015, records.get(1).getYear());
+        Assertions.assertEquals(7, records.get(1).getMonth());
+        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+        Assertions.assertEquals(0L, records.get(1).getValueInCents());
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByBudgetTags.xml")
+    @DatabaseTearDown(value = "aggregateByBudgetTags.xml", type = DatabaseOperation.DELETE_ALL)
+    void testBudgetWithSeveralSelectedTagsIsCountedOnce() {
+        List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(aggregate(AggregationQuery.byWeek().forProject(1L).withBudgetTags(Arrays.asList("tag1", "tag2"))), RecordType.WORK);
+        Assertions.assertEquals(3, records.size());
+
+        Assertions.assertEquals(2015, records.get(1).getYear());
+        Assertions.assertEquals(1, records.get(1).getWeek());
+        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
+    }
+
+    @Test
+    @DatabaseSetup("aggregate.xml")
+    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekForProject() throws ParseException {
+        // the start date restricts the result to whole weeks, so the week of the start date is included completely
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forProject(1L).startingAt(format.parse("02.01.2015")));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(rows, type);
+            Assertions.assertEquals(2, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(33, records.get(1).getWeek());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(1).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateAroundNewYear.xml")
+    @DatabaseTearDown(value = "aggregateAroundNewYear.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekStartingInLastDaysOfDecember() throws ParseException {
+        // 30.12.2019 is in the first week of 2020, the weeks of 2019 must not be included
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forProject(1L).startingAt(format.parse("30.12.2019")));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(rows, type);
+            Assertions.assertEquals(2, records.size());
+
+            Assertions.assertEquals(2020, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(20000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2020, records.get(1).getYear());
+            Assertions.assertEquals(2, records.get(1).getWeek());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(20000L, records.get(1).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregate.xml")
+    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekForPerson() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forPerson(1L).startingAt(format.parse("02.01.2015")));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(rows, type);
+            Assertions.assertEquals(1, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthForPerson.xml")
+    @DatabaseTearDown(value = "aggregateByMonthForPerson.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthForPerson() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forPerson(1L).startingAt(format.parse("01.01.2015")));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordBean> records = AggregatedRows.toMonthlyBeans(rows, type);
+            Assertions.assertEquals(1, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthAndBudgetForPerson.xml")
+    @DatabaseTearDown(value = "aggregateByMonthAndBudgetForPerson.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthAndBudgetForPerson() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forPerson(1L).startingAt(format.parse("01.01.2015")).titledBy(AggregationQuery.Dimension.BUDGET));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordWithTitleBean> records = AggregatedRows.toMonthlyBeansWithTitle(rows, type);
+            Assertions.assertEquals(2, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+            Assertions.assertEquals("Budget 1", records.get(0).getTitle());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(0, records.get(1).getMonth());
+            Assertions.assertEquals(8d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(20000L, records.get(1).getValueInCents());
+            Assertions.assertEquals("Budget 2", records.get(1).getTitle());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthAndPersonForBudget.xml")
+    @DatabaseTearDown(value = "aggregateByMonthAndPersonForBudget.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthAndPersonForBudget() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forBudget(1L).startingAt(format.parse("01.01.2015")).titledBy(AggregationQuery.Dimension.PERSON));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordWithTitleBean> records = AggregatedRows.toMonthlyBeansWithTitle(rows, type);
+            Assertions.assertEquals(1, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+            Assertions.assertEquals("person1", records.get(0).getTitle());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByWeekAndBudgetForPerson.xml")
+    @DatabaseTearDown(value = "aggregateByWeekAndBudgetForPerson.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekAndBudgetForPerson() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forPerson(1L).startingAt(format.parse("01.01.2015")).titledBy(AggregationQuery.Dimension.BUDGET));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordWithTitleBean> records = AggregatedRows.toWeeklyBeansWithTitle(rows, type);
+            Assertions.assertEquals(2, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+            Assertions.assertEquals("Budget 1", records.get(0).getTitle());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(1, records.get(1).getWeek());
+            Assertions.assertEquals(8d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(20000L, records.get(1).getValueInCents());
+            Assertions.assertEquals("Budget 2", records.get(1).getTitle());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregate.xml")
+    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekAndPersonForBudget() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forBudget(1L).startingAt(format.parse("01.01.2015")).titledBy(AggregationQuery.Dimension.PERSON));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordWithTitleBean> records = AggregatedRows.toWeeklyBeansWithTitle(rows, type);
+            Assertions.assertEquals(1, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+            Assertions.assertEquals("person1", records.get(0).getTitle());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregate.xml")
+    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekAndPersonForBudgets() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forProject(1L).withBudgetTags(Arrays.asList("tag1"))
+                .startingAt(format.parse("01.01.2015")).titledBy(AggregationQuery.Dimension.PERSON));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordWithTitleBean> records = AggregatedRows.toWeeklyBeansWithTitle(rows, type);
+            Assertions.assertEquals(2, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+            Assertions.assertEquals("person1", records.get(0).getTitle());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(33, records.get(1).getWeek());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(1).getValueInCents());
+            Assertions.assertEquals("person2", records.get(1).getTitle());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthForBudget.xml")
+    @DatabaseTearDown(value = "aggregateByMonthForBudget.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthForBudget() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forBudget(1L).startingAt(format.parse("01.01.2015")));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordBean> records = AggregatedRows.toMonthlyBeans(rows, type);
+            Assertions.assertEquals(1, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByWeekForBudget.xml")
+    @DatabaseTearDown(value = "aggregateByWeekForBudget.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByWeekForBudget() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byWeek().forBudget(1L).startingAt(format.parse("01.01.2015")));
+        for (RecordType type : RecordType.values()) {
+            List<WeeklyAggregatedRecordBean> records = AggregatedRows.toWeeklyBeans(rows, type);
+            Assertions.assertEquals(1, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(1, records.get(0).getWeek());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthForBudgets.xml")
+    @DatabaseTearDown(value = "aggregateByMonthForBudgets.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthForBudgets() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forProject(1L).withBudgetTags(Arrays.asList("tag1")).startingAt(format.parse("01.01.2015")));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordBean> records = AggregatedRows.toMonthlyBeans(rows, type);
+            Assertions.assertEquals(2, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(30000L, records.get(0).getValueInCents());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(7, records.get(1).getMonth());
+            Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(1).getValueInCents());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("aggregateByMonthAndPersonForBudgets.xml")
+    @DatabaseTearDown(value = "aggregateByMonthAndPersonForBudgets.xml", type = DatabaseOperation.DELETE_ALL)
+    void testAggregateByMonthAndPersonForBudgets() throws ParseException {
+        List<AggregatedRow> rows = aggregate(AggregationQuery.byMonth().forProject(1L).withBudgetTags(Arrays.asList("tag1"))
+                .startingAt(format.parse("01.01.2015")).titledBy(AggregationQuery.Dimension.PERSON));
+        for (RecordType type : RecordType.values()) {
+            List<MonthlyAggregatedRecordWithTitleBean> records = AggregatedRows.toMonthlyBeansWithTitle(rows, type);
+            Assertions.assertEquals(3, records.size());
+
+            Assertions.assertEquals(2015, records.get(0).getYear());
+            Assertions.assertEquals(0, records.get(0).getMonth());
+            Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
+            Assertions.assertEquals(10000L, records.get(0).getValueInCents());
+            Assertions.assertEquals("person1", records.get(0).getTitle());
+
+            Assertions.assertEquals(2015, records.get(1).getYear());
+            Assertions.assertEquals(0, records.get(1).getMonth());
+            Assertions.assertEquals(8d, records.get(1).getHours(), 0.1d);
+            Assertions.assertEquals(20000L, records.get(1).getValueInCents());
+            Assertions.assertEquals("person2", records.get(1).getTitle());
+
+            Assertions.assertEquals(2015, records.get(2).getYear());
+            Assertions.assertEquals(7, records.get(2).getMonth());
+            Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
+            Assertions.assertEquals(0L, records.get(2).getValueInCents());
+            Assertions.assertEquals("person2", records.get(2).getTitle());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("getBudgetShareForPerson.xml")
+    @DatabaseTearDown(value = "getBudgetShareForPerson.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetBudgetShareForPerson() {
+        List<ShareBean> records = AggregatedRows.toShareBeans(aggregate(AggregationQuery.total().forPerson(1L).titledBy(AggregationQuery.Dimension.BUDGET).only(RecordType.WORK)), RecordType.WORK);
+        Assertions.assertEquals(4, records.size());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(10000L), records.get(0).getValue());
+        Assertions.assertEquals("Budget 1", records.get(0).getName());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(20000L), records.get(1).getValue());
+        Assertions.assertEquals("Budget 2", records.get(1).getName());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(30000L), records.get(2).getValue());
+        Assertions.assertEquals("Budget 3", records.get(2).getName());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(40000L), records.get(3).getValue());
+        Assertions.assertEquals("Budget 4", records.get(3).getName());
+    }
+
+    @Test
+    @DatabaseSetup("getPersonShareForBudget.xml")
+    @DatabaseTearDown(value = "getPersonShareForBudget.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetPersonShareForBudget() {
+        List<ShareBean> records = AggregatedRows.toShareBeans(aggregate(AggregationQuery.total().forBudget(1L).titledBy(AggregationQuery.Dimension.PERSON).only(RecordType.WORK)), RecordType.WORK);
+        Assertions.assertEquals(4, records.size());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(10000L), records.get(0).getValue());
+        Assertions.assertEquals("person1", records.get(0).getName());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(20000L), records.get(1).getValue());
+        Assertions.assertEquals("person2", records.get(1).getName());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(30000L), records.get(2).getValue());
+        Assertions.assertEquals("person3", records.get(2).getName());
+
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(40000L), records.get(3).getValue());
+        Assertions.assertEquals("person4", records.get(3).getName());
+    }
+
+    private List<AggregatedRow> aggregate(AggregationQuery query) {
+        recordRollupService.rebuildProject(1L);
+        return repository.aggregate(query);
+    }
+}
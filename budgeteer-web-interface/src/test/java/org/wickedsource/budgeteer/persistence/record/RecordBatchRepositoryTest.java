@@ -0,0 +1,88 @@
+package org.wickedsource.budgeteer.persistence.record;
+
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wickedsource.budgeteer.IntegrationTestTemplate;
+import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.budget.BudgetRepository;
+import org.wickedsource.budgeteer.persistence.imports.ImportRepository;
+import org.wickedsource.budgeteer.persistence.person.PersonRepository;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class RecordBatchRepositoryTest extends IntegrationTestTemplate {
+
+    private DateFormat format = new SimpleDateFormat("dd.MM.yyyy");
+
+    @Autowired
+    private RecordBatchRepository repository;
+
+    @Autowired
+    private WorkRecordRepository workRecordRepository;
+
+    @Autowired
+    private PlanRecordRepository planRecordRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private ImportRepository importRepository;
+
+    @Test
+    @DatabaseSetup("insertRecords.xml")
+    @DatabaseTearDown(value = "insertRecords.xml", type = DatabaseOperation.DELETE_ALL)
+    void testInsertWorkRecords() throws Exception {
+        // more than two batches, the last one incomplete
+        List<WorkRecordEntity> records = new ArrayList<WorkRecordEntity>();
+        for (int i = 0; i < 2 * RecordBatchRepository.BATCH_SIZE + 1; i++) {
+            WorkRecordEntity record = new WorkRecordEntity();
+            fill(record);
+            record.setEditedManually(false);
+            records.add(record);
+        }
+        repository.insert(records);
+
+        Assertions.assertEquals(2 * RecordBatchRepository.BATCH_SIZE + 2, workRecordRepository.count());
+        Assertions.assertEquals((2 * RecordBatchRepository.BATCH_SIZE + 2) * 10000d, workRecordRepository.getSpentBudget(1L), 0d);
+        for (WorkRecordEntity record : workRecordRepository.findAll()) {
+            Assertions.assertEquals(1L, record.getProject().getId());
+            Assertions.assertEquals(format.parse("06.01.2015"), record.getDate());
+            Assertions.assertEquals(2, record.getWeek());
+            Assertions.assertEquals(Long.valueOf(4800000L), record.getCentMinutes());
+            Assertions.assertFalse(record.isEditedManually());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("insertRecords.xml")
+    @DatabaseTearDown(value = "insertRecords.xml", type = DatabaseOperation.DELETE_ALL)
+    void testInsertPlanRecords() throws Exception {
+        PlanRecordEntity record = new PlanRecordEntity();
+        fill(record);
+        repository.insert(Collections.singletonList(record));
+
+        Assertions.assertEquals(1, planRecordRepository.count());
+        Assertions.assertEquals(10000d, planRecordRepository.getPlannedBudget(1L), 0d);
+    }
+
+    private void fill(RecordEntity record) throws Exception {
+        record.setBudget(budgetRepository.findOne(1L));
+        record.setPerson(personRepository.findOne(1L));
+        record.setImportRecord(importRepository.findOne(1L));
+        record.setDate(format.parse("06.01.2015"));
+        record.setMinutes(480);
+        record.setDailyRate(MoneyUtil.createMoneyFromCents(10000L));
+    }
+}
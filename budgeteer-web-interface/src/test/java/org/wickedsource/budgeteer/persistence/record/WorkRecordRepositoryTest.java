@@ -33,6 +33,30 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(170000d, value, 1d);
     }
 
+    @Test
+    @DatabaseSetup("getSpentBudgetFractional.xml")
+    @DatabaseTearDown(value = "getSpentBudgetFractional.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetSpentBudgetWithFractionalCents() throws Exception {
+        Assertions.assertEquals(40, repository.updateMissingCentMinutes());
+        // sum(minutes * dailyRate) / 480 of the 40 records, truncating each record first would give only 4337
+        Assertions.assertEquals(4355d, repository.getSpentBudget(1L), 0d);
+
+        // records saved through the entity get the same value as records updated by the query
+        for (WorkRecordEntity record : repository.findAll()) {
+            WorkRecordEntity copy = new WorkRecordEntity();
+            copy.setBudget(record.getBudget());
+            copy.setPerson(record.getPerson());
+            copy.setProject(record.getProject());
+            copy.setDate(record.getDate());
+            copy.setMinutes(record.getMinutes());
+            copy.setDailyRate(record.getDailyRate());
+            copy.setImportRecord(record.getImportRecord());
+            copy = repository.save(copy);
+            Assertions.assertEquals(record.getCentMinutes(), copy.getCentMinutes());
+        }
+        Assertions.assertEquals(8711d, repository.getSpentBudget(1L), 0d);
+    }
+
     @Test
     @DatabaseSetup("getAverageDailyRate.xml")
     @DatabaseTearDown(value = "getAverageDailyRate.xml", type = DatabaseOperation.DELETE_ALL)
@@ -41,6 +65,29 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(56666d, value, 1d);
     }
 
+    @Test
+    @DatabaseSetup("getAverageDailyRate.xml")
+    @DatabaseTearDown(value = "getAverageDailyRate.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetStatisticsByBudgetIds() throws Exception {
+        List<BudgetRecordStatisticBean> statistics = repository.getStatisticsByBudgetIds(Arrays.asList(1L, 2L));
+        Assertions.assertEquals(1, statistics.size());
+        Assertions.assertEquals(1L, statistics.get(0).getBudgetId());
+        Assertions.assertEquals(format.parse("15.08.2015"), statistics.get(0).getLatestRecordDate());
+        Assertions.assertEquals(1440L, statistics.get(0).getMinutes());
+        Assertions.assertEquals(170000L, statistics.get(0).getValueInCents());
+        Assertions.assertEquals(56667L, statistics.get(0).getAverageDailyRateInCents());
+    }
+
+    @Test
+    @DatabaseSetup("updateMissingProjects.xml")
+    @DatabaseTearDown(value = "updateMissingProjects.xml", type = DatabaseOperation.DELETE_ALL)
+    void testUpdateMissingProjects() throws Exception {
+        Assertions.assertEquals(0L, (long) repository.countByProjectId(1L));
+        Assertions.assertEquals(2, repository.updateMissingProjects());
+        Assertions.assertEquals(2L, (long) repository.countByProjectId(1L));
+        Assertions.assertEquals(0, repository.updateMissingProjects());
+    }
+
     @Test
     @DatabaseSetup("getSpentBudgetUntilDate.xml")
     @DatabaseTearDown(value = "getSpentBudgetUntilDate.xml", type = DatabaseOperation.DELETE_ALL)
@@ -57,6 +104,18 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(37500d, value, 1d);
     }
 
+    @Test
+    @DatabaseSetup("getSpentBudgetInTimeRange.xml")
+    @DatabaseTearDown(value = "getSpentBudgetInTimeRange.xml", type = DatabaseOperation.DELETE_ALL)
+    void testGetStatisticsInTimeRangeByBudgetIds() throws Exception {
+        List<BudgetRangeStatisticBean> statistics = repository.getStatisticsInTimeRangeByBudgetIds(Arrays.asList(1L, 2L), format.parse("15.08.2015"), format.parse("16.08.2015"));
+        Assertions.assertEquals(1, statistics.size());
+        Assertions.assertEquals(1L, statistics.get(0).getBudgetId());
+        Assertions.assertEquals(37500L, statistics.get(0).getSpentCentsInRange());
+        Assertions.assertEquals(300L, statistics.get(0).getMinutesInRange());
+        Assertions.assertEquals(43750L, statistics.get(0).getSpentCentsUntilEnd());
+    }
+
     @Test
     @DatabaseSetup("getTotalHoursInTimeRange.xml")
     @DatabaseTearDown(value = "getTotalHoursInTimeRange.xml", type = DatabaseOperation.DELETE_ALL)
@@ -166,6 +225,17 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(50000L), record.getDailyRate());
     }
 
+    @Test
+    @DatabaseSetup("updateDailyRates.xml")
+    @DatabaseTearDown(value = "updateDailyRates.xml", type = DatabaseOperation.DELETE_ALL)
+    void testUpdateCentMinutes() throws Exception {
+        repository.updateDailyRates(1L, 1L, format.parse("01.01.2015"), format.parse("15.08.2015"), MoneyUtil.createMoneyFromCents(50000L));
+        repository.updateCentMinutes(1L, 1L, format.parse("01.01.2015"), format.parse("15.08.2015"));
+        Assertions.assertEquals(Long.valueOf(24000000L), repository.findOne(1L).getCentMinutes());
+        Assertions.assertEquals(Long.valueOf(48000000L), repository.findOne(3L).getCentMinutes());
+        Assertions.assertEquals(Long.valueOf(0L), repository.findOne(4L).getCentMinutes());
+    }
+
     @Test
     @DatabaseSetup("updateDailyRates.xml")
     @DatabaseTearDown(value = "updateDailyRates.xml", type = DatabaseOperation.DELETE_ALL)
@@ -177,274 +247,6 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(10000L), record.getDailyRate());
     }
 
-    @Test
-    @DatabaseSetup("aggregateByWeekAndPerson.xml")
-    @DatabaseTearDown(value = "aggregateByWeekAndPerson.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekAndPerson() {
-        List<WeeklyAggregatedRecordBean> records = repository.aggregateByWeekAndPerson(1L);
-        Assertions.assertEquals(3, records.size());
-
-        Assertions.assertEquals(2014, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(1, records.get(1).getWeek());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(2).getYear());
-        Assertions.assertEquals(33, records.get(2).getWeek());
-        Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(2).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthAndPerson.xml")
-    @DatabaseTearDown(value = "aggregateByMonthAndPerson.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthAndPerson() {
-        List<MonthlyAggregatedRecordBean> records = repository.aggregateByMonthAndPerson(1L);
-        Assertions.assertEquals(3, records.size());
-
-        Assertions.assertEquals(2014, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(0, records.get(1).getMonth());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(2).getYear());
-        Assertions.assertEquals(7, records.get(2).getMonth());
-        Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(2).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByWeekAndBudget.xml")
-    @DatabaseTearDown(value = "aggregateByWeekAndBudget.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekAndBudget() {
-        List<WeeklyAggregatedRecordBean> records = repository.aggregateByWeekAndBudget(1L);
-        Assertions.assertEquals(3, records.size());
-
-        Assertions.assertEquals(2014, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(1, records.get(1).getWeek());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(2).getYear());
-        Assertions.assertEquals(33, records.get(2).getWeek());
-        Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(2).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthAndBudget.xml")
-    @DatabaseTearDown(value = "aggregateByMonthAndBudget.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthAndBudget() {
-        List<MonthlyAggregatedRecordBean> records = repository.aggregateByMonthAndBudget(1L);
-        Assertions.assertEquals(3, records.size());
-
-        Assertions.assertEquals(2014, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(0, records.get(1).getMonth());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(2).getYear());
-        Assertions.assertEquals(7, records.get(2).getMonth());
-        Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(2).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByBudgetTags.xml")
-    @DatabaseTearDown(value = "aggregateByBudgetTags.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregatedByWeekAndBudgetTags() {
-        List<WeeklyAggregatedRecordBean> records = repository.aggregateByWeekAndBudgetTags(1L, Arrays.asList("tag1"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2014, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(1, records.get(1).getWeek());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
-
-        records = repository.aggregateByWeekAndBudgetTags(1L, Arrays.asList("tag2"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(33, records.get(1).getWeek());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(1).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByBudgetTags.xml")
-    @DatabaseTearDown(value = "aggregateByBudgetTags.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregatedByMonthAndBudgetTags() {
-        List<MonthlyAggregatedRecordBean> records = repository.aggregateByMonthAndBudgetTags(1L, Arrays.asList("tag1"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2014, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(0, records.get(1).getMonth());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(1).getValueInCents());
-
-        records = repository.aggregateByMonthAndBudgetTags(1L, Arrays.asList("tag2"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(7, records.get(1).getMonth());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(1).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregate.xml")
-    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekForProject() throws ParseException {
-        List<WeeklyAggregatedRecordBean> records = repository.aggregateByWeekForProject(1L, format.parse("02.01.2015"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(20000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(33, records.get(1).getWeek());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(1).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregate.xml")
-    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekForPerson() throws ParseException {
-        List<WeeklyAggregatedRecordBean> records = repository.aggregateByWeekForPerson(1L, format.parse("02.01.2015"));
-        Assertions.assertEquals(1, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(20000L, records.get(0).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthForPerson.xml")
-    @DatabaseTearDown(value = "aggregateByMonthForPerson.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthForPerson() throws ParseException {
-        List<MonthlyAggregatedRecordBean> records = repository.aggregateByMonthForPerson(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(1, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthAndBudgetForPerson.xml")
-    @DatabaseTearDown(value = "aggregateByMonthAndBudgetForPerson.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthAndBudgetForPerson() throws ParseException {
-        List<MonthlyAggregatedRecordWithTitleBean> records = repository.aggregateByMonthAndBudgetForPerson(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-        Assertions.assertEquals("Budget 1", records.get(0).getTitle());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(0, records.get(1).getMonth());
-        Assertions.assertEquals(8d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(20000L, records.get(1).getValueInCents());
-        Assertions.assertEquals("Budget 2", records.get(1).getTitle());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthAndPersonForBudget.xml")
-    @DatabaseTearDown(value = "aggregateByMonthAndPersonForBudget.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthAndPersonForBudget() throws ParseException {
-        List<MonthlyAggregatedRecordWithTitleBean> records = repository.aggregateByMonthAndPersonForBudget(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(1, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-        Assertions.assertEquals("person1", records.get(0).getTitle());
-
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByWeekAndBudgetForPerson.xml")
-    @DatabaseTearDown(value = "aggregateByWeekAndBudgetForPerson.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekAndBudgetForPerson() throws ParseException {
-        List<WeeklyAggregatedRecordWithTitleBean> records = repository.aggregateByWeekAndBudgetForPerson(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-        Assertions.assertEquals("Budget 1", records.get(0).getTitle());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(1, records.get(1).getWeek());
-        Assertions.assertEquals(8d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(20000L, records.get(1).getValueInCents());
-        Assertions.assertEquals("Budget 2", records.get(1).getTitle());
-    }
-
-    @Test
-    @DatabaseSetup("aggregate.xml")
-    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekAndPersonForBudget() throws ParseException {
-        List<WeeklyAggregatedRecordWithTitleBean> records = repository.aggregateByWeekAndPersonForBudget(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(1, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-        Assertions.assertEquals("person1", records.get(0).getTitle());
-
-    }
-
     @Test
     @DatabaseSetup("getAverageDailyRatePerDay.xml")
     @DatabaseTearDown(value = "getAverageDailyRatePerDay.xml", type = DatabaseOperation.DELETE_ALL)
@@ -463,137 +265,6 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(25000L), records.get(1).getRate());
     }
 
-    @Test
-    @DatabaseSetup("getBudgetShareForPerson.xml")
-    @DatabaseTearDown(value = "getBudgetShareForPerson.xml", type = DatabaseOperation.DELETE_ALL)
-    void testGetBudgetShareForPerson() throws ParseException {
-        List<ShareBean> records = repository.getBudgetShareForPerson(1L);
-        Assertions.assertEquals(4, records.size());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(10000L), records.get(0).getValue());
-        Assertions.assertEquals("Budget 1", records.get(0).getName());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(20000L), records.get(1).getValue());
-        Assertions.assertEquals("Budget 2", records.get(1).getName());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(30000L), records.get(2).getValue());
-        Assertions.assertEquals("Budget 3", records.get(2).getName());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(40000L), records.get(3).getValue());
-        Assertions.assertEquals("Budget 4", records.get(3).getName());
-    }
-
-    @Test
-    @DatabaseSetup("getPersonShareForBudget.xml")
-    @DatabaseTearDown(value = "getPersonShareForBudget.xml", type = DatabaseOperation.DELETE_ALL)
-    void testGetPersonShareForBudget() throws ParseException {
-        List<ShareBean> records = repository.getPersonShareForBudget(1L);
-        Assertions.assertEquals(4, records.size());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(10000L), records.get(0).getValue());
-        Assertions.assertEquals("person1", records.get(0).getName());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(20000L), records.get(1).getValue());
-        Assertions.assertEquals("person2", records.get(1).getName());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(30000L), records.get(2).getValue());
-        Assertions.assertEquals("person3", records.get(2).getName());
-
-        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(40000L), records.get(3).getValue());
-        Assertions.assertEquals("person4", records.get(3).getName());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthForBudget.xml")
-    @DatabaseTearDown(value = "aggregateByMonthForBudget.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthForBudget() throws ParseException {
-        List<MonthlyAggregatedRecordBean> records = repository.aggregateByMonthForBudget(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(1, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByWeekForBudget.xml")
-    @DatabaseTearDown(value = "aggregateByWeekForBudget.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekForBudget() throws ParseException {
-        List<WeeklyAggregatedRecordBean> records = repository.aggregateByWeekForBudget(1L, format.parse("01.01.2015"));
-        Assertions.assertEquals(1, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregate.xml")
-    @DatabaseTearDown(value = "aggregate.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByWeekAndPersonForBudgets() throws ParseException {
-        List<WeeklyAggregatedRecordWithTitleBean> records = repository.aggregateByWeekAndPersonForBudgets(1L, Arrays.asList("tag1"), format.parse("01.01.2015"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(1, records.get(0).getWeek());
-        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
-        Assertions.assertEquals("person1", records.get(0).getTitle());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(33, records.get(1).getWeek());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(1).getValueInCents());
-        Assertions.assertEquals("person2", records.get(1).getTitle());
-
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthForBudgets.xml")
-    @DatabaseTearDown(value = "aggregateByMonthForBudgets.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthForBudgets() throws ParseException {
-        List<MonthlyAggregatedRecordBean> records = repository.aggregateByMonthForBudgets(1L, Arrays.asList("tag1"), format.parse("01.01.2015"));
-        Assertions.assertEquals(2, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(16d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(30000L, records.get(0).getValueInCents());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(7, records.get(1).getMonth());
-        Assertions.assertEquals(16d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(1).getValueInCents());
-    }
-
-    @Test
-    @DatabaseSetup("aggregateByMonthAndPersonForBudgets.xml")
-    @DatabaseTearDown(value = "aggregateByMonthAndPersonForBudgets.xml", type = DatabaseOperation.DELETE_ALL)
-    void testAggregateByMonthAndPersonForBudgets() throws ParseException {
-        List<MonthlyAggregatedRecordWithTitleBean> records = repository.aggregateByMonthAndPersonForBudgets(1L, Arrays.asList("tag1"), format.parse("01.01.2015"));
-        Assertions.assertEquals(3, records.size());
-
-        Assertions.assertEquals(2015, records.get(0).getYear());
-        Assertions.assertEquals(0, records.get(0).getMonth());
-        Assertions.assertEquals(8d, records.get(0).getHours(), 0.1d);
-        Assertions.assertEquals(10000L, records.get(0).getValueInCents());
-        Assertions.assertEquals("person1", records.get(0).getTitle());
-
-        Assertions.assertEquals(2015, records.get(1).getYear());
-        Assertions.assertEquals(0, records.get(1).getMonth());
-        Assertions.assertEquals(8d, records.get(1).getHours(), 0.1d);
-        Assertions.assertEquals(20000L, records.get(1).getValueInCents());
-        Assertions.assertEquals("person2", records.get(1).getTitle());
-
-        Assertions.assertEquals(2015, records.get(2).getYear());
-        Assertions.assertEquals(7, records.get(2).getMonth());
-        Assertions.assertEquals(16d, records.get(2).getHours(), 0.1d);
-        Assertions.assertEquals(0L, records.get(2).getValueInCents());
-        Assertions.assertEquals("person2", records.get(2).getTitle());
-    }
-
     @Test
     @DatabaseSetup("aggregateByMonthAndPersonForBudgets.xml")
     @DatabaseTearDown(value = "aggregateByMonthAndPersonForBudgets.xml", type = DatabaseOperation.DELETE_ALL)
@@ -651,4 +322,21 @@ class WorkRecordRepositoryTest extends IntegrationTestTemplate {
         Assertions.assertEquals(2, records.size());
 
     }
+
+    @Test
+    @DatabaseSetup("findDuplicateEntries.xml")
+    @DatabaseTearDown(value = "findDuplicateEntries.xml", type = DatabaseOperation.DELETE_ALL)
+    void testFindDuplicatesOfManuallyEditedEntries() throws ParseException {
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
+        List<WorkRecordEntity> records = repository.findDuplicatesOfManuallyEditedEntries(1L, formatter.parse("2012-01-01"), formatter.parse("2016-12-31"));
+        Assertions.assertEquals(0, records.size());
+
+        records = repository.findDuplicatesOfManuallyEditedEntries(2L, formatter.parse("2016-01-01"), formatter.parse("2016-12-31"));
+        Assertions.assertEquals(2, records.size());
+        Assertions.assertEquals(7L, records.get(0).getId());
+        Assertions.assertEquals(8L, records.get(1).getId());
+
+        records = repository.findDuplicatesOfManuallyEditedEntries(2L, formatter.parse("2016-08-16"), formatter.parse("2016-12-31"));
+        Assertions.assertEquals(0, records.size());
+    }
 }
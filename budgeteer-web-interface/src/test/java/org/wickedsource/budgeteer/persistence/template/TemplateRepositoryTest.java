@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.wickedsource.budgeteer.IntegrationTestTemplate;
+import org.wickedsource.budgeteer.service.ReportType;
 
 import java.util.List;
 
@@ -43,4 +44,31 @@ class TemplateRepositoryTest extends IntegrationTestTemplate {
         templateRepository.deleteAll();
         Assertions.assertEquals(0, templateRepository.findByProjectId(1L).size());
     }
+
+    @Test
+    @DatabaseSetup("templateTestMany.xml")
+    @DatabaseTearDown(value = "templateTest.xml", type = DatabaseOperation.DELETE_ALL)
+    void testFindMetadata() {
+        List<TemplateMetadataBean> templatesInProject = templateRepository.findMetadataByProjectId(1L);
+        Assertions.assertEquals(5, templatesInProject.size());
+        Assertions.assertEquals("test1", templatesInProject.get(0).getName());
+        Assertions.assertEquals(ReportType.BUDGET_REPORT, templatesInProject.get(0).getType());
+
+        TemplateMetadataBean template = templateRepository.findMetadataById(2L);
+        Assertions.assertEquals("test2", template.getName());
+        Assertions.assertTrue(template.isDefault());
+
+        List<TemplateMetadataBean> defaults = templateRepository.findDefaultMetadata(1L, ReportType.BUDGET_REPORT);
+        Assertions.assertEquals(1, defaults.size());
+        Assertions.assertEquals(2L, defaults.get(0).getId());
+        Assertions.assertTrue(templateRepository.findDefaultMetadata(1L, ReportType.CONTRACT_REPORT).isEmpty());
+    }
+
+    @Test
+    @DatabaseSetup("templateTestMany.xml")
+    @DatabaseTearDown(value = "templateTest.xml", type = DatabaseOperation.DELETE_ALL)
+    void testResetDefaults() {
+        templateRepository.resetDefaults(ReportType.BUDGET_REPORT, 3L);
+        Assertions.assertTrue(templateRepository.findDefaultMetadata(1L, ReportType.BUDGET_REPORT).isEmpty());
+    }
 }
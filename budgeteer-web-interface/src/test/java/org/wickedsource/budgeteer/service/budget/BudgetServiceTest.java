@@ -12,6 +12,7 @@ import org.wickedsource.budgeteer.persistence.budget.BudgetTagEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
 import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
 import org.wickedsource.budgeteer.persistence.person.DailyRateRepository;
+import org.wickedsource.budgeteer.persistence.record.BudgetRecordStatisticBean;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
 import org.wickedsource.budgeteer.service.ServiceTestTemplate;
@@ -75,24 +76,33 @@ class BudgetServiceTest extends ServiceTestTemplate {
     void testLoadBudgetDetailData() {
         Date date = new Date();
         when(budgetRepository.findOne(1L)).thenReturn(createBudgetEntity());
-        when(workRecordRepository.getLatestWorkRecordDate(1L)).thenReturn(date);
-        when(workRecordRepository.getSpentBudget(1L)).thenReturn(100000.0);
-        when(planRecordRepository.getPlannedBudget(1L)).thenReturn(200000.0);
-        when(workRecordRepository.getAverageDailyRate(1L)).thenReturn(50000.0);
+        when(workRecordRepository.getStatisticsByBudgetIds(Collections.singletonList(1L))).thenReturn(Collections.singletonList(createWorkStatistic(date)));
+        when(planRecordRepository.getStatisticsByBudgetIds(Collections.singletonList(1L))).thenReturn(Collections.singletonList(createPlanStatistic()));
         BudgetDetailData data = budgetService.loadBudgetDetailData(1L);
         Assertions.assertEquals(100000.0d, data.getSpent().getAmountMinor().doubleValue(), 1d);
         Assertions.assertEquals(-100000.0d, data.getUnplanned().getAmountMinor().doubleValue(), 1d);
         Assertions.assertEquals(50000.0d, data.getAvgDailyRate().getAmountMinor().doubleValue(), 1d);
+        Assertions.assertEquals(date, data.getLastUpdated());
+    }
+
+    @Test
+    void testLoadBudgetsDetailDataWithoutRecords() {
+        when(budgetRepository.findByProjectIdOrderByNameAsc(1L)).thenReturn(Arrays.asList(createBudgetEntity()));
+        when(workRecordRepository.getStatisticsByBudgetIds(Collections.singletonList(1L))).thenReturn(Collections.<BudgetRecordStatisticBean>emptyList());
+        when(planRecordRepository.getStatisticsByBudgetIds(Collections.singletonList(1L))).thenReturn(Collections.<BudgetRecordStatisticBean>emptyList());
+        List<BudgetDetailData> data = budgetService.loadBudgetsDetailData(1L, new BudgetTagFilter(Collections.<String>emptyList(), 1L));
+        Assertions.assertEquals(1, data.size());
+        Assertions.assertNull(data.get(0).getLastUpdated());
+        Assertions.assertEquals(0.0d, data.get(0).getSpent().getAmountMinor().doubleValue(), 1d);
+        Assertions.assertEquals(100000.0d, data.get(0).getUnplanned().getAmountMinor().doubleValue(), 1d);
     }
 
     @Test
     void testLoadBudgetsDetailData() {
         Date date = new Date();
         when(budgetRepository.findByAtLeastOneTag(1L, Arrays.asList("1", "2", "3"))).thenReturn(Arrays.asList(createBudgetEntity()));
-        when(workRecordRepository.getLatestWorkRecordDate(1L)).thenReturn(date);
-        when(workRecordRepository.getSpentBudget(1L)).thenReturn(100000.0);
-        when(planRecordRepository.getPlannedBudget(1L)).thenReturn(200000.0);
-        when(workRecordRepository.getAverageDailyRate(1L)).thenReturn(50000.0);
+        when(workRecordRepository.getStatisticsByBudgetIds(Collections.singletonList(1L))).thenReturn(Collections.singletonList(createWorkStatistic(date)));
+        when(planRecordRepository.getStatisticsByBudgetIds(Collections.singletonList(1L))).thenReturn(Collections.singletonList(createPlanStatistic()));
         List<BudgetDetailData> data = budgetService.loadBudgetsDetailData(1L, new BudgetTagFilter(Arrays.asList("1", "2", "3"), 1L));
         Assertions.assertEquals(1, data.size());
         Assertions.assertEquals(100000.0d, data.get(0).getSpent().getAmountMinor().doubleValue(), 1d);
@@ -100,6 +110,30 @@ class BudgetServiceTest extends ServiceTestTemplate {
         Assertions.assertEquals(50000.0d, data.get(0).getAvgDailyRate().getAmountMinor().doubleValue(), 1d);
     }
 
+    @Test
+    void testLoadBudgetsDetailDataSplitsBudgetIds() {
+        Date date = new Date();
+        List<BudgetEntity> budgets = new ArrayList<BudgetEntity>();
+        List<Long> budgetIds = new ArrayList<Long>();
+        for (long id = 1; id <= 1500; id++) {
+            BudgetEntity budget = createBudgetEntity();
+            budget.setId(id);
+            budgets.add(budget);
+            budgetIds.add(id);
+        }
+        when(budgetRepository.findByProjectIdOrderByNameAsc(1L)).thenReturn(budgets);
+        when(workRecordRepository.getStatisticsByBudgetIds(budgetIds.subList(0, 1000))).thenReturn(Collections.singletonList(createWorkStatistic(date)));
+        List<BudgetDetailData> data = budgetService.loadBudgetsDetailData(1L, new BudgetTagFilter(Collections.<String>emptyList(), 1L));
+
+        verify(workRecordRepository).getStatisticsByBudgetIds(budgetIds.subList(0, 1000));
+        verify(workRecordRepository).getStatisticsByBudgetIds(budgetIds.subList(1000, 1500));
+        verify(planRecordRepository).getStatisticsByBudgetIds(budgetIds.subList(0, 1000));
+        verify(planRecordRepository).getStatisticsByBudgetIds(budgetIds.subList(1000, 1500));
+        Assertions.assertEquals(1500, data.size());
+        Assertions.assertEquals(100000.0d, data.get(0).getSpent().getAmountMinor().doubleValue(), 1d);
+        Assertions.assertEquals(0.0d, data.get(1).getSpent().getAmountMinor().doubleValue(), 1d);
+    }
+
     @Test
     void testLoadBudgetToEdit() {
         BudgetEntity budget = createBudgetEntity();
@@ -202,6 +236,16 @@ class BudgetServiceTest extends ServiceTestTemplate {
         return budget;
     }
 
+    private BudgetRecordStatisticBean createWorkStatistic(Date date) {
+        // 2 days at an average daily rate of 500.00
+        return new BudgetRecordStatisticBean(1L, date, 960L, 960L * 50000L);
+    }
+
+    private BudgetRecordStatisticBean createPlanStatistic() {
+        // 4 days at a daily rate of 500.00
+        return new BudgetRecordStatisticBean(1L, null, 1920L, 1920L * 50000L);
+    }
+
     private EditBudgetData createBudgetEditEntity() {
         EditBudgetData data = new EditBudgetData();
         data.setId(1L);
@@ -0,0 +1,54 @@
+package org.wickedsource.budgeteer.service.contract;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
+import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
+import org.wickedsource.budgeteer.persistence.contract.ContractSumBean;
+import org.wickedsource.budgeteer.service.ServiceTestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+class ContractStatisticsLoaderTest extends ServiceTestTemplate {
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private ContractStatisticsLoader loader;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLoadSpentBudgetsSplitsContractIds() {
+        List<ContractEntity> contracts = new ArrayList<ContractEntity>();
+        for (long id = 1; id <= 2001; id++) {
+            ContractEntity contract = new ContractEntity();
+            contract.setId(id);
+            contracts.add(contract);
+        }
+        when(contractRepository.getSpentBudgetByContractIds(anyList())).thenAnswer(invocation -> {
+            List<ContractSumBean> sums = new ArrayList<ContractSumBean>();
+            for (Long id : (List<Long>) invocation.getArguments()[0]) {
+                sums.add(new ContractSumBean(id, id * 100));
+            }
+            return sums;
+        });
+
+        Map<Long, Long> spentBudgets = loader.loadSpentBudgets(contracts);
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(contractRepository, times(3)).getSpentBudgetByContractIds(captor.capture());
+        Assertions.assertEquals(1000, captor.getAllValues().get(0).size());
+        Assertions.assertEquals(1000, captor.getAllValues().get(1).size());
+        Assertions.assertEquals(1, captor.getAllValues().get(2).size());
+        Assertions.assertEquals(2001, spentBudgets.size());
+        Assertions.assertEquals(Long.valueOf(100L), spentBudgets.get(1L));
+        Assertions.assertEquals(Long.valueOf(200100L), spentBudgets.get(2001L));
+    }
+}
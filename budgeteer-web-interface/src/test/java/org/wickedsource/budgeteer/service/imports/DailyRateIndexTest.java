@@ -0,0 +1,92 @@
+package org.wickedsource.budgeteer.service.imports;
+
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
+import org.wickedsource.budgeteer.persistence.person.DailyRateEntity;
+import org.wickedsource.budgeteer.persistence.person.PersonEntity;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+class DailyRateIndexTest {
+
+    private SimpleDateFormat formatter = new SimpleDateFormat("dd.MM.yyyy");
+
+    @Test
+    void testOverlappingPeriodsResolveLikeLinearScan() throws ParseException {
+        List<DailyRateEntity> rates = Arrays.asList(
+                rate("budget1", "person1", "10.01.2015", "20.01.2015", 100),
+                rate("budget1", "person1", "01.01.2015", "31.01.2015", 200),
+                rate("budget1", "person1", "15.01.2015", "15.02.2015", 300),
+                rate("budget1", "person1", "20.01.2015", "20.01.2015", 400),
+                rate("budget1", "person2", "01.01.2015", "31.12.2015", 500),
+                rate("budget2", "person1", "05.01.2015", "25.01.2015", 600),
+                rate("budget1", "person1", "01.03.2015", "31.12.9999", 700));
+        DailyRateIndex index = new DailyRateIndex(rates);
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(formatter.parse("01.12.2014"));
+        while (calendar.getTime().before(formatter.parse("01.06.2015"))) {
+            Date date = calendar.getTime();
+            for (String budget : Arrays.asList("budget1", "budget2", "budget3")) {
+                for (String person : Arrays.asList("person1", "person2")) {
+                    assertEquals(String.format("%s/%s on %s", budget, person, formatter.format(date)),
+                            scan(rates, budget, person, date), index.getRate(budget, person, date));
+                }
+            }
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        }
+    }
+
+    @Test
+    void testOpenEndedPeriods() throws ParseException {
+        DailyRateIndex index = new DailyRateIndex(Arrays.asList(
+                rate("budget1", "person1", null, "31.12.2014", 100),
+                rate("budget1", "person1", "01.06.2015", null, 200)));
+
+        assertEquals(MoneyUtil.createMoneyFromCents(100), index.getRate("budget1", "person1", formatter.parse("01.01.1970")));
+        assertEquals(MoneyUtil.createMoneyFromCents(100), index.getRate("budget1", "person1", formatter.parse("31.12.2014")));
+        assertNull(index.getRate("budget1", "person1", formatter.parse("01.01.2015")));
+        assertNull(index.getRate("budget1", "person1", formatter.parse("31.05.2015")));
+        assertEquals(MoneyUtil.createMoneyFromCents(200), index.getRate("budget1", "person1", formatter.parse("01.06.2015")));
+        assertEquals(MoneyUtil.createMoneyFromCents(200), index.getRate("budget1", "person1", formatter.parse("31.12.2999")));
+    }
+
+    /**
+     * The lookup used before the index was introduced: the first rate in the list whose period contains the date.
+     */
+    private Money scan(List<DailyRateEntity> rates, String budget, String person, Date date) {
+        for (DailyRateEntity rate : rates) {
+            if (rate.getBudget().getImportKey().equals(budget) &&
+                    rate.getPerson().getImportKey().equals(person) &&
+                    !rate.getDateStart().after(date) &&
+                    !rate.getDateEnd().before(date)) {
+                return rate.getRate();
+            }
+        }
+        return null;
+    }
+
+    private DailyRateEntity rate(String budgetKey, String personKey, String start, String end, long cents) throws ParseException {
+        BudgetEntity budget = new BudgetEntity();
+        budget.setImportKey(budgetKey);
+        PersonEntity person = new PersonEntity();
+        person.setImportKey(personKey);
+        DailyRateEntity rate = new DailyRateEntity();
+        rate.setBudget(budget);
+        rate.setPerson(person);
+        rate.setDateStart(start == null ? null : formatter.parse(start));
+        rate.setDateEnd(end == null ? null : formatter.parse(end));
+        rate.setRate(MoneyUtil.createMoneyFromCents(cents));
+        return rate;
+    }
+}
@@ -3,6 +3,10 @@ package org.wickedsource.budgeteer.service.imports;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.wickedsource.budgeteer.importer.aproda.AprodaWorkRecordsImporter;
+import org.wickedsource.budgeteer.importer.ubw.UBWWorkRecordsImporter;
+import org.wickedsource.budgeteer.imports.api.Importer;
+import org.wickedsource.budgeteer.imports.api.WorkRecordsImporter;
 
 class ImporterRegistryTest {
 
@@ -11,4 +15,26 @@ class ImporterRegistryTest {
         ImporterRegistry registry = new ImporterRegistry();
         Assertions.assertEquals(2, registry.getWorkingRecordsImporters().size());
     }
+
+    @Test
+    void testLookups() {
+        ImporterRegistry registry = new ImporterRegistry();
+        Importer importer = registry.getImporter("UBW Working Hours Importer");
+        Assertions.assertTrue(importer instanceof UBWWorkRecordsImporter);
+        Assertions.assertNull(registry.getImporter("unknown"));
+        Assertions.assertTrue(registry.getImporters(".XLSX").contains(importer));
+        Assertions.assertTrue(registry.getImporters(".csv").isEmpty());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> registry.getWorkingRecordsImporters().clear());
+    }
+
+    @Test
+    void testCreateImporter() {
+        ImporterRegistry registry = new ImporterRegistry();
+        for (WorkRecordsImporter importer : registry.getWorkingRecordsImporters()) {
+            WorkRecordsImporter created = registry.createImporter(importer);
+            Assertions.assertNotSame(importer, created);
+            Assertions.assertSame(importer.getClass(), created.getClass());
+        }
+        Assertions.assertTrue(registry.createImporter(new AprodaWorkRecordsImporter()) instanceof AprodaWorkRecordsImporter);
+    }
 }
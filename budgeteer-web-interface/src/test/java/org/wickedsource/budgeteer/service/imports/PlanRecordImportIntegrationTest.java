@@ -7,23 +7,32 @@ import com.github.springtestdbunit.annotation.DatabaseTearDown;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.wickedsource.budgeteer.IntegrationTestTemplate;
+import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.importer.resourceplan.ResourcePlanImporter;
 import org.wickedsource.budgeteer.imports.api.ImportException;
 import org.wickedsource.budgeteer.imports.api.ImportFile;
+import org.wickedsource.budgeteer.imports.api.ImportedPlanRecord;
 import org.wickedsource.budgeteer.imports.api.InvalidFileFormatException;
 import org.wickedsource.budgeteer.persistence.budget.BudgetRepository;
 import org.wickedsource.budgeteer.persistence.imports.ImportEntity;
 import org.wickedsource.budgeteer.persistence.imports.ImportRepository;
 import org.wickedsource.budgeteer.persistence.person.PersonRepository;
+import org.wickedsource.budgeteer.persistence.record.MonthlyRecordRollupRepository;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordEntity;
 import org.wickedsource.budgeteer.persistence.record.PlanRecordRepository;
+import org.wickedsource.budgeteer.persistence.record.RecordType;
+import org.wickedsource.budgeteer.persistence.record.WeeklyRecordRollupRepository;
 
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 class PlanRecordImportIntegrationTest extends IntegrationTestTemplate {
 
@@ -44,6 +53,15 @@ class PlanRecordImportIntegrationTest extends IntegrationTestTemplate {
     @Autowired
     private ImportRepository importRepository;
 
+    @Autowired
+    private WeeklyRecordRollupRepository weeklyRollupRepository;
+
+    @Autowired
+    private MonthlyRecordRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Test
     @DatabaseSetup("doImportWithEmptyDatabase.xml")
     @DatabaseTearDown(value = "doImportWithEmptyDatabase.xml", type = DatabaseOperation.DELETE_ALL)
@@ -74,6 +92,80 @@ class PlanRecordImportIntegrationTest extends IntegrationTestTemplate {
         assertImportRecord();
     }
 
+    @Test
+    @DatabaseSetup("doImportWithEmptyDatabase.xml")
+    @DatabaseTearDown(value = "doImportWithEmptyDatabase.xml", type = DatabaseOperation.DELETE_ALL)
+    void testReimportMovesRecordsToNewImport() throws Exception {
+        doImport();
+        doImport();
+        Assertions.assertEquals(26, planRecordRepository.count());
+        Assertions.assertEquals(2, importRepository.count());
+        long latestImportId = 0;
+        for (ImportEntity importRecord : importRepository.findAll()) {
+            latestImportId = Math.max(latestImportId, importRecord.getId());
+        }
+        for (PlanRecordEntity record : planRecordRepository.findAll()) {
+            Assertions.assertEquals(latestImportId, record.getImportRecord().getId());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("doImportWithExistingDailyRates.xml")
+    @DatabaseTearDown(value = "doImportWithExistingDailyRates.xml", type = DatabaseOperation.DELETE_ALL)
+    void testReimportUpdatesChangedAndDeletesRemovedRecords() throws Exception {
+        doImport(Arrays.asList(
+                createRecord("Budget1", "Mustermann, Max", "06.01.2014", 480, 50000L),
+                createRecord("Budget1", "Mustermann, Max", "07.01.2014", 480, 50000L),
+                createRecord("Budget2", "Fall, Klara", "06.01.2014", 240, 40000L),
+                createRecord("Budget2", "Fall, Klara", "08.01.2014", 240, 40000L)));
+
+        PlanRecordDatabaseImporter importer = doImport(Arrays.asList(
+                createRecord("Budget1", "Mustermann, Max", "06.01.2014", 480, 50000L),
+                createRecord("Budget1", "Mustermann, Max", "07.01.2014", 240, 50000L),
+                createRecord("Budget2", "Fall, Klara", "06.01.2014", 240, 45000L),
+                createRecord("Budget2", "Fall, Klara", "09.01.2014", 360, 40000L),
+                createRecord("Budget1", "Mustermann, Max", "03.02.2014", 480, 50000L)));
+
+        Map<String, PlanRecordEntity> recordsByKey = new HashMap<String, PlanRecordEntity>();
+        for (PlanRecordEntity record : planRecordRepository.findAll()) {
+            recordsByKey.put(record.getPerson().getId() + "/" + format.format(record.getDate()), record);
+            Assertions.assertEquals(importer.getImportRecord().getId(), record.getImportRecord().getId());
+        }
+        Assertions.assertEquals(5, recordsByKey.size());
+        assertRecord(recordsByKey.get("1/06.01.2014"), 480, 50000L);
+        assertRecord(recordsByKey.get("1/07.01.2014"), 240, 50000L);
+        assertRecord(recordsByKey.get("2/06.01.2014"), 240, 45000L);
+        assertRecord(recordsByKey.get("2/09.01.2014"), 360, 40000L);
+        assertRecord(recordsByKey.get("1/03.02.2014"), 480, 50000L);
+        Assertions.assertFalse(recordsByKey.containsKey("2/08.01.2014"));
+
+        RollupAssertions.assertRollupsMatch(planRecordRepository.aggregateForRollupByProject(1L),
+                weeklyRollupRepository.findByBudgetsAndYears(RecordType.PLAN, Arrays.asList(1L, 2L), 2014, 2014),
+                monthlyRollupRepository.findByBudgetsAndYears(RecordType.PLAN, Arrays.asList(1L, 2L), 2014, 2014));
+    }
+
+    private PlanRecordDatabaseImporter doImport(List<ImportedPlanRecord> records) {
+        PlanRecordDatabaseImporter importer = applicationContext.getBean(PlanRecordDatabaseImporter.class, 1L, "Test");
+        importer.importRecords(records, "Test");
+        return importer;
+    }
+
+    private ImportedPlanRecord createRecord(String budgetName, String personName, String date, int minutes, long dailyRateInCents) throws ParseException {
+        ImportedPlanRecord record = new ImportedPlanRecord();
+        record.setBudgetName(budgetName);
+        record.setPersonName(personName);
+        record.setDate(format.parse(date));
+        record.setMinutesPlanned(minutes);
+        record.setDailyRate(MoneyUtil.createMoneyFromCents(dailyRateInCents));
+        return record;
+    }
+
+    private void assertRecord(PlanRecordEntity record, int minutes, long dailyRateInCents) {
+        Assertions.assertNotNull(record);
+        Assertions.assertEquals(minutes, record.getMinutes());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(dailyRateInCents), record.getDailyRate());
+    }
+
     private void doImport() throws ImportException, InvalidFileFormatException {
         List<ImportFile> importFiles = new ArrayList<ImportFile>();
         importFiles.add(new ImportFile("resource_plan.xlsx", getClass().getResourceAsStream("resource_plan.xlsx")));
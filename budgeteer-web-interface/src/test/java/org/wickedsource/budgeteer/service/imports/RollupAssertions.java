@@ -0,0 +1,55 @@
+package org.wickedsource.budgeteer.service.imports;
+
+import org.junit.jupiter.api.Assertions;
+import org.wickedsource.budgeteer.persistence.record.MonthlyRecordRollupEntity;
+import org.wickedsource.budgeteer.persistence.record.RecordRollupBean;
+import org.wickedsource.budgeteer.persistence.record.WeeklyRecordRollupEntity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the incrementally maintained rollups with a full aggregation of the records they were built from.
+ */
+class RollupAssertions {
+
+    private RollupAssertions() {
+    }
+
+    static void assertRollupsMatch(List<RecordRollupBean> aggregatedRecords, Iterable<WeeklyRecordRollupEntity> weeklyRows,
+                                   Iterable<MonthlyRecordRollupEntity> monthlyRows) {
+        Map<List<Long>, List<Long>> expectedWeeks = new HashMap<List<Long>, List<Long>>();
+        Map<List<Long>, List<Long>> expectedMonths = new HashMap<List<Long>, List<Long>>();
+        for (RecordRollupBean bean : aggregatedRecords) {
+            add(expectedWeeks, key(bean.getBudgetId(), bean.getPersonId(), bean.getYear(), bean.getWeek()), bean.getMinutes(), bean.getCentMinutes());
+            add(expectedMonths, key(bean.getBudgetId(), bean.getPersonId(), bean.getYear(), bean.getMonth()), bean.getMinutes(), bean.getCentMinutes());
+        }
+
+        Map<List<Long>, List<Long>> actualWeeks = new HashMap<List<Long>, List<Long>>();
+        for (WeeklyRecordRollupEntity row : weeklyRows) {
+            add(actualWeeks, key(row.getBudget().getId(), row.getPerson().getId(), row.getYear(), row.getWeek()), row.getMinutes(), row.getCentMinutes());
+        }
+        Map<List<Long>, List<Long>> actualMonths = new HashMap<List<Long>, List<Long>>();
+        for (MonthlyRecordRollupEntity row : monthlyRows) {
+            add(actualMonths, key(row.getBudget().getId(), row.getPerson().getId(), row.getYear(), row.getMonth()), row.getMinutes(), row.getCentMinutes());
+        }
+
+        Assertions.assertEquals(expectedWeeks, actualWeeks);
+        Assertions.assertEquals(expectedMonths, actualMonths);
+    }
+
+    private static List<Long> key(long budgetId, long personId, int year, int period) {
+        return Arrays.asList(budgetId, personId, (long) year, (long) period);
+    }
+
+    private static void add(Map<List<Long>, List<Long>> sums, List<Long> key, long minutes, long centMinutes) {
+        List<Long> sum = sums.get(key);
+        if (sum == null) {
+            sums.put(key, Arrays.asList(minutes, centMinutes));
+        } else {
+            sums.put(key, Arrays.asList(sum.get(0) + minutes, sum.get(1) + centMinutes));
+        }
+    }
+}
@@ -14,19 +14,28 @@ import org.wickedsource.budgeteer.MoneyUtil;
 import org.wickedsource.budgeteer.importer.aproda.AprodaWorkRecordsImporter;
 import org.wickedsource.budgeteer.imports.api.ImportException;
 import org.wickedsource.budgeteer.imports.api.ImportFile;
+import org.wickedsource.budgeteer.imports.api.ImportedWorkRecord;
 import org.wickedsource.budgeteer.imports.api.InvalidFileFormatException;
 import org.wickedsource.budgeteer.persistence.budget.BudgetRepository;
 import org.wickedsource.budgeteer.persistence.imports.ImportEntity;
 import org.wickedsource.budgeteer.persistence.imports.ImportRepository;
+import org.wickedsource.budgeteer.persistence.person.DailyRateEntity;
+import org.wickedsource.budgeteer.persistence.person.DailyRateRepository;
 import org.wickedsource.budgeteer.persistence.person.PersonRepository;
 import org.wickedsource.budgeteer.persistence.project.ProjectEntity;
+import org.wickedsource.budgeteer.persistence.record.MonthlyRecordRollupRepository;
+import org.wickedsource.budgeteer.persistence.record.RecordType;
+import org.wickedsource.budgeteer.persistence.record.WeeklyRecordRollupRepository;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordEntity;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+import org.wickedsource.budgeteer.service.record.RecordRollupService;
 
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 class WorkRecordImportIntegrationTest extends IntegrationTestTemplate {
@@ -48,6 +57,18 @@ class WorkRecordImportIntegrationTest extends IntegrationTestTemplate {
     @Autowired
     private ImportRepository importRepository;
 
+    @Autowired
+    private DailyRateRepository dailyRateRepository;
+
+    @Autowired
+    private WeeklyRecordRollupRepository weeklyRollupRepository;
+
+    @Autowired
+    private MonthlyRecordRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private RecordRollupService recordRollupService;
+
     @Autowired
     private ApplicationContext applicationContext;
 
@@ -81,11 +102,154 @@ class WorkRecordImportIntegrationTest extends IntegrationTestTemplate {
         assertImportRecord();
     }
 
+    @Test
+    @DatabaseSetup("doImportWithEmptyDatabase.xml")
+    @DatabaseTearDown(value = "doImportWithEmptyDatabase.xml", type = DatabaseOperation.DELETE_ALL)
+    void testDeltaImportSkipsUnchangedRecords() throws Exception {
+        doImport(true);
+        Assertions.assertEquals(16, importService.getImportCounts().getInsertedRecords());
+        Assertions.assertEquals(0, importService.getImportCounts().getUnchangedRecords());
+
+        doImport(true);
+        Assertions.assertEquals(0, importService.getImportCounts().getInsertedRecords());
+        Assertions.assertEquals(0, importService.getImportCounts().getUpdatedRecords());
+        Assertions.assertEquals(16, importService.getImportCounts().getUnchangedRecords());
+        Assertions.assertEquals(16, workRecordRepository.count());
+        Assertions.assertEquals(2, importRepository.count());
+    }
+
+    @Test
+    @DatabaseSetup("doImportWithEmptyDatabase.xml")
+    @DatabaseTearDown(value = "doImportWithEmptyDatabase.xml", type = DatabaseOperation.DELETE_ALL)
+    void testDeltaImportKeepsRecordsWhenDeletingEarlierImport() throws Exception {
+        doImport(true);
+        doImport(true);
+        List<ImportEntity> imports = Lists.newArrayList(importRepository.findAll());
+        Assertions.assertEquals(2, imports.size());
+        long firstImportId = Math.min(imports.get(0).getId(), imports.get(1).getId());
+        long secondImportId = Math.max(imports.get(0).getId(), imports.get(1).getId());
+
+        importService.deleteImport(firstImportId);
+        Assertions.assertEquals(16, workRecordRepository.count());
+        for (WorkRecordEntity record : workRecordRepository.findAll()) {
+            Assertions.assertEquals(secondImportId, record.getImportRecord().getId());
+        }
+    }
+
+    @Test
+    @DatabaseSetup("doImportWithExistingDailyRates.xml")
+    @DatabaseTearDown(value = "doImportWithExistingDailyRates.xml", type = DatabaseOperation.DELETE_ALL)
+    void testDeltaImportUpdatesChangedAndInsertsAdditionalRecords() throws Exception {
+        doDeltaImport(Arrays.asList(
+                createRecord("Budget1", "Mustermann, Max", "06.10.2014", 480),
+                createRecord("Budget1", "Mustermann, Max", "07.10.2014", 240),
+                createRecord("Budget2", "Fall, Klara", "06.10.2014", 300)));
+
+        WorkRecordDatabaseImporter importer = doDeltaImport(Arrays.asList(
+                createRecord("Budget1", "Mustermann, Max", "06.10.2014", 480),
+                createRecord("Budget1", "Mustermann, Max", "07.10.2014", 360),
+                createRecord("Budget2", "Fall, Klara", "06.10.2014", 300),
+                createRecord("Budget2", "Fall, Klara", "08.10.2014", 120),
+                createRecord("Budget1", "Mustermann, Max", "06.10.2014", 60)));
+
+        Assertions.assertEquals(2, importer.getImportCounts().getInsertedRecords());
+        Assertions.assertEquals(1, importer.getImportCounts().getUpdatedRecords());
+        Assertions.assertEquals(2, importer.getImportCounts().getUnchangedRecords());
+        Assertions.assertEquals(5, workRecordRepository.count());
+        Assertions.assertEquals(Arrays.asList(60, 480), getMinutes(1L, 1L, "06.10.2014"));
+        Assertions.assertEquals(Collections.singletonList(360), getMinutes(1L, 1L, "07.10.2014"));
+        Assertions.assertEquals(Collections.singletonList(300), getMinutes(2L, 2L, "06.10.2014"));
+        Assertions.assertEquals(Collections.singletonList(120), getMinutes(2L, 2L, "08.10.2014"));
+        for (WorkRecordEntity record : workRecordRepository.findAll()) {
+            Assertions.assertEquals(importer.getImportRecord().getId(), record.getImportRecord().getId());
+        }
+        assertRollupsMatchRecords();
+    }
+
+    @Test
+    @DatabaseSetup("doImportWithExistingDailyRates.xml")
+    @DatabaseTearDown(value = "doImportWithExistingDailyRates.xml", type = DatabaseOperation.DELETE_ALL)
+    void testDeltaImportAppliesChangedDailyRates() throws Exception {
+        List<ImportedWorkRecord> records = Arrays.asList(
+                createRecord("Budget1", "Mustermann, Max", "06.10.2014", 480),
+                createRecord("Budget2", "Fall, Klara", "06.10.2014", 300));
+        doDeltaImport(records);
+        for (WorkRecordEntity record : workRecordRepository.findAll()) {
+            if (record.getPerson().getId() == 1L) {
+                record.setDailyRate(MoneyUtil.createMoneyFromCents(12345L));
+                record.setEditedManually(true);
+                workRecordRepository.save(record);
+            }
+        }
+        recordRollupService.rebuildProject(1L);
+
+        DailyRateEntity rate = new DailyRateEntity();
+        rate.setPerson(personRepository.findOne(2L));
+        rate.setBudget(budgetRepository.findOne(2L));
+        rate.setDateStart(format.parse("01.01.2014"));
+        rate.setDateEnd(format.parse("31.12.2014"));
+        rate.setRate(MoneyUtil.createMoneyFromCents(30000L));
+        dailyRateRepository.save(rate);
+
+        WorkRecordDatabaseImporter importer = doDeltaImport(records);
+
+        Assertions.assertEquals(0, importer.getImportCounts().getInsertedRecords());
+        Assertions.assertEquals(1, importer.getImportCounts().getUpdatedRecords());
+        Assertions.assertEquals(1, importer.getImportCounts().getUnchangedRecords());
+        Assertions.assertEquals(2, workRecordRepository.count());
+        for (WorkRecordEntity record : workRecordRepository.findAll()) {
+            if (record.getPerson().getId() == 1L) {
+                Assertions.assertEquals(MoneyUtil.createMoneyFromCents(12345L), record.getDailyRate());
+            } else {
+                Assertions.assertEquals(MoneyUtil.createMoneyFromCents(30000L), record.getDailyRate());
+            }
+        }
+        assertRollupsMatchRecords();
+    }
+
+    private WorkRecordDatabaseImporter doDeltaImport(List<ImportedWorkRecord> records) {
+        WorkRecordDatabaseImporter importer = applicationContext.getBean(WorkRecordDatabaseImporter.class, 1L, "Test");
+        importer.setDeltaImport(true);
+        importer.importRecords(records);
+        return importer;
+    }
+
+    private ImportedWorkRecord createRecord(String budgetName, String personName, String date, int minutes) throws ParseException {
+        ImportedWorkRecord record = new ImportedWorkRecord();
+        record.setBudgetName(budgetName);
+        record.setPersonName(personName);
+        record.setDate(format.parse(date));
+        record.setMinutesWorked(minutes);
+        return record;
+    }
+
+    private List<Integer> getMinutes(long budgetId, long personId, String date) throws ParseException {
+        List<Integer> minutes = new ArrayList<Integer>();
+        for (WorkRecordEntity record : workRecordRepository.findAll()) {
+            if (record.getBudget().getId() == budgetId && record.getPerson().getId() == personId
+                    && record.getDate().getTime() == format.parse(date).getTime()) {
+                minutes.add(record.getMinutes());
+            }
+        }
+        Collections.sort(minutes);
+        return minutes;
+    }
+
+    private void assertRollupsMatchRecords() {
+        RollupAssertions.assertRollupsMatch(workRecordRepository.aggregateForRollupByProject(1L),
+                weeklyRollupRepository.findByBudgetsAndYears(RecordType.WORK, Arrays.asList(1L, 2L), 2014, 2014),
+                monthlyRollupRepository.findByBudgetsAndYears(RecordType.WORK, Arrays.asList(1L, 2L), 2014, 2014));
+    }
+
     private void doImport() throws ImportException, InvalidFileFormatException {
+        doImport(false);
+    }
+
+    private void doImport(boolean deltaImport) throws ImportException, InvalidFileFormatException {
         List<ImportFile> importFiles = new ArrayList<ImportFile>();
         importFiles.add(new ImportFile("file1", getClass().getResourceAsStream("testReport1.xlsx")));
         importFiles.add(new ImportFile("file2", getClass().getResourceAsStream("testReport2.xlsx")));
-        importService.doImport(1L, new AprodaWorkRecordsImporter(), importFiles);
+        importService.doImport(1L, new AprodaWorkRecordsImporter(), importFiles, deltaImport);
     }
 
     private void assertImportRecord() throws ParseException {
@@ -144,6 +144,25 @@ class RecordJoinerTest extends ServiceTestTemplate{
         Assertions.assertEquals(6d, records.get(2).getHours(), 0.1d);
     }
 
+    @Test
+    void testJoinWeeklyWithTaxKeepsPeriodsApart() throws Exception {
+        // week 1 with 10% tax and week 11 without tax used to share the same key
+        List<WeeklyAggregatedRecordWithTaxBean> workRecords = new ArrayList<WeeklyAggregatedRecordWithTaxBean>();
+        workRecords.add(new WeeklyAggregatedRecordWithTaxBean(2015, 11, 5d, 20000, BigDecimal.ZERO));
+        workRecords.add(new WeeklyAggregatedRecordWithTaxBean(2015, 1, 5d, 10000, BigDecimal.TEN));
+        List<AggregatedRecord> records = joiner.joinWeeklyWithTax(workRecords, new ArrayList<WeeklyAggregatedRecordWithTaxBean>());
+        Assertions.assertEquals(2, records.size());
+
+        Assertions.assertEquals("Week #1", records.get(0).getAggregationPeriodTitle());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(10000), records.get(0).getBudgetBurned_net());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(11000), records.get(0).getBudgetBurned_gross());
+        Assertions.assertNull(records.get(0).getBudgetPlanned_net());
+
+        Assertions.assertEquals("Week #11", records.get(1).getAggregationPeriodTitle());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(20000), records.get(1).getBudgetBurned_net());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(20000), records.get(1).getBudgetBurned_gross());
+    }
+
     private List<WeeklyAggregatedRecordBean> createWeeklyWorkRecords() {
         List<WeeklyAggregatedRecordBean> beans = new ArrayList<WeeklyAggregatedRecordBean>();
         beans.add(new WeeklyAggregatedRecordBean(2015, 15, 5d, 50000));
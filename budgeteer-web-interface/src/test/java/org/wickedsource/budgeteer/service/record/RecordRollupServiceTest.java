@@ -0,0 +1,134 @@
+package org.wickedsource.budgeteer.service.record;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
+import org.wickedsource.budgeteer.persistence.budget.BudgetRepository;
+import org.wickedsource.budgeteer.persistence.person.PersonEntity;
+import org.wickedsource.budgeteer.persistence.person.PersonRepository;
+import org.wickedsource.budgeteer.persistence.record.*;
+import org.wickedsource.budgeteer.service.ServiceTestTemplate;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class RecordRollupServiceTest extends ServiceTestTemplate {
+
+    @Autowired
+    private WeeklyRecordRollupRepository weeklyRollupRepository;
+
+    @Autowired
+    private MonthlyRecordRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RecordRollupService service;
+
+    @Test
+    void testAddRecordsCreatesRollups() throws Exception {
+        BudgetEntity budget = createBudget();
+        PersonEntity person = createPerson();
+        when(budgetRepository.findOne(1L)).thenReturn(budget);
+        when(personRepository.findOne(2L)).thenReturn(person);
+        WorkRecordEntity record = createRecord(budget, person);
+
+        service.addRecords(RecordType.WORK, Collections.singletonList(record));
+
+        List<WeeklyRecordRollupEntity> weeklyRows = captureSavedWeeklyRows();
+        Assertions.assertEquals(1, weeklyRows.size());
+        Assertions.assertEquals(RecordType.WORK, weeklyRows.get(0).getRecordType());
+        Assertions.assertEquals(record.getWeek(), weeklyRows.get(0).getWeek());
+        Assertions.assertEquals(480L, weeklyRows.get(0).getMinutes());
+        Assertions.assertEquals(480L * 10000L, weeklyRows.get(0).getCentMinutes());
+        Assertions.assertSame(budget, weeklyRows.get(0).getBudget());
+        Assertions.assertSame(person, weeklyRows.get(0).getPerson());
+
+        List<MonthlyRecordRollupEntity> monthlyRows = captureSavedMonthlyRows();
+        Assertions.assertEquals(1, monthlyRows.size());
+        Assertions.assertEquals(record.getMonth(), monthlyRows.get(0).getMonth());
+        Assertions.assertEquals(480L, monthlyRows.get(0).getMinutes());
+    }
+
+    @Test
+    void testRemovingLastRecordDeletesRollup() throws Exception {
+        BudgetEntity budget = createBudget();
+        PersonEntity person = createPerson();
+        WorkRecordEntity record = createRecord(budget, person);
+
+        WeeklyRecordRollupEntity weeklyRow = new WeeklyRecordRollupEntity();
+        weeklyRow.setId(5L);
+        weeklyRow.setRecordType(RecordType.WORK);
+        weeklyRow.setBudget(budget);
+        weeklyRow.setPerson(person);
+        weeklyRow.setYear(record.getYear());
+        weeklyRow.setWeek(record.getWeek());
+        weeklyRow.add(480L, 480L * 10000L);
+        when(weeklyRollupRepository.findByBudgetsAndYears(eq(RecordType.WORK), anyList(), anyInt(), anyInt())).thenReturn(Collections.singletonList(weeklyRow));
+
+        service.removeRecords(RecordType.WORK, Collections.singletonList(record));
+
+        ArgumentCaptor<Iterable> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(weeklyRollupRepository).delete(captor.capture());
+        Assertions.assertTrue(captor.getValue().iterator().hasNext());
+        Assertions.assertSame(weeklyRow, captor.getValue().iterator().next());
+        Assertions.assertTrue(captureSavedWeeklyRows().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WeeklyRecordRollupEntity> captureSavedWeeklyRows() {
+        ArgumentCaptor<Iterable> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(weeklyRollupRepository).save(captor.capture());
+        List<WeeklyRecordRollupEntity> result = new ArrayList<>();
+        for (Object row : captor.getValue()) {
+            result.add((WeeklyRecordRollupEntity) row);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MonthlyRecordRollupEntity> captureSavedMonthlyRows() {
+        ArgumentCaptor<Iterable> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(monthlyRollupRepository).save(captor.capture());
+        List<MonthlyRecordRollupEntity> result = new ArrayList<>();
+        for (Object row : captor.getValue()) {
+            result.add((MonthlyRecordRollupEntity) row);
+        }
+        return result;
+    }
+
+    private WorkRecordEntity createRecord(BudgetEntity budget, PersonEntity person) throws Exception {
+        WorkRecordEntity record = new WorkRecordEntity();
+        record.setBudget(budget);
+        record.setPerson(person);
+        record.setDate(new SimpleDateFormat("dd.MM.yyyy").parse("02.01.2017"));
+        record.setMinutes(480);
+        record.setDailyRate(MoneyUtil.createMoneyFromCents(10000L));
+        return record;
+    }
+
+    private BudgetEntity createBudget() {
+        BudgetEntity budget = new BudgetEntity();
+        budget.setId(1L);
+        budget.setName("Budget");
+        return budget;
+    }
+
+    private PersonEntity createPerson() {
+        PersonEntity person = new PersonEntity();
+        person.setId(2L);
+        person.setName("Person");
+        return person;
+    }
+}
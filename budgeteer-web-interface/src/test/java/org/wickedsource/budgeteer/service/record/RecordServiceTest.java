@@ -8,13 +8,10 @@ import org.kubek2k.springockito.annotations.SpringockitoContextLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.wickedsource.budgeteer.MoneyUtil;
-import org.wickedsource.budgeteer.persistence.budget.BudgetEntity;
-import org.wickedsource.budgeteer.persistence.imports.ImportEntity;
-import org.wickedsource.budgeteer.persistence.person.PersonEntity;
 import org.wickedsource.budgeteer.persistence.record.MonthlyAggregatedRecordBean;
 import org.wickedsource.budgeteer.persistence.record.WeeklyAggregatedRecordBean;
-import org.wickedsource.budgeteer.persistence.record.WorkRecordEntity;
-import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordListRepository;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordRowBean;
 import org.wickedsource.budgeteer.service.ServiceTestTemplate;
 import org.wickedsource.budgeteer.service.budget.BudgetTagFilter;
 
@@ -34,8 +31,7 @@ class RecordServiceTest extends ServiceTestTemplate {
     private RecordJoiner recordJoiner;
 
     @Autowired
-    @ReplaceWithMock
-    private WorkRecordRepository workRecordRepository;
+    private WorkRecordListRepository workRecordListRepository;
 
     @Autowired
     private RecordService service;
@@ -90,24 +86,32 @@ class RecordServiceTest extends ServiceTestTemplate {
 
     @Test
     void testGetFilteredRecords() throws Exception {
-        List<WorkRecordEntity> recordList = createRecordList();
-        when(workRecordRepository.findAll(any(Predicate.class))).thenReturn(recordList);
+        List<WorkRecordRowBean> recordList = createRecordList();
+        when(workRecordListRepository.findRows(any(Predicate.class), anyString(), anyBoolean())).thenReturn(recordList);
         List<WorkRecord> filteredRecords = service.getFilteredRecords(new WorkRecordFilter(1L));
         Assertions.assertEquals(recordList.size(), filteredRecords.size());
         Assertions.assertEquals(WorkRecord.class, filteredRecords.get(0).getClass());
+        Assertions.assertEquals(MoneyUtil.createMoney(100d), filteredRecords.get(0).getBudgetBurned());
+        Assertions.assertEquals(8d, filteredRecords.get(0).getHours(), 1e-8);
+    }
+
+    @Test
+    void testGetFilteredRecordsPage() throws Exception {
+        List<WorkRecordRowBean> recordList = createRecordList();
+        when(workRecordListRepository.findRows(any(Predicate.class), eq("minutes"), eq(false), eq(25L), eq(25L))).thenReturn(recordList);
+        List<WorkRecord> filteredRecords = service.getFilteredRecords(new WorkRecordFilter(1L), "hours", false, 25L, 25L);
+        Assertions.assertEquals(recordList.size(), filteredRecords.size());
+    }
+
+    @Test
+    void testGetBudgetBurnedForFilteredRecords() throws Exception {
+        when(workRecordListRepository.sumBurnedCents(any(Predicate.class))).thenReturn(12345L);
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(12345L), service.getBudgetBurnedForFilteredRecords(new WorkRecordFilter(1L)));
     }
 
-    private List<WorkRecordEntity> createRecordList() {
-        List<WorkRecordEntity> list = new ArrayList<>();
-        WorkRecordEntity record = new WorkRecordEntity();
-        record.setDailyRate(MoneyUtil.createMoney(100d));
-        record.setDate(new Date());
-        record.setId(1L);
-        record.setBudget(new BudgetEntity());
-        record.setImportRecord(new ImportEntity());
-        record.setMinutes(480);
-        record.setPerson(new PersonEntity());
-        list.add(record);
+    private List<WorkRecordRowBean> createRecordList() {
+        List<WorkRecordRowBean> list = new ArrayList<>();
+        list.add(new WorkRecordRowBean(1L, "budget", "person", new Date(), 480, MoneyUtil.createMoney(100d), 10000L, false));
         return list;
     }
 
@@ -10,7 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.wickedsource.budgeteer.IntegrationTestTemplate;
 import org.wickedsource.budgeteer.ListUtil;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordEntity;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordListRepository;
 import org.wickedsource.budgeteer.persistence.record.WorkRecordRepository;
+import org.wickedsource.budgeteer.persistence.record.WorkRecordRowBean;
 import org.wickedsource.budgeteer.service.DateRange;
 import org.wickedsource.budgeteer.service.budget.BudgetBaseData;
 import org.wickedsource.budgeteer.service.person.PersonBaseData;
@@ -26,6 +28,9 @@ class WorkRecordQueriesIntegrationTest extends IntegrationTestTemplate {
     @Autowired
     private WorkRecordRepository repository;
 
+    @Autowired
+    private WorkRecordListRepository listRepository;
+
     @Test
     @DatabaseSetup("findByFilter.xml")
     @DatabaseTearDown(value = "findByFilter.xml", type = DatabaseOperation.DELETE_ALL)
@@ -82,4 +87,42 @@ class WorkRecordQueriesIntegrationTest extends IntegrationTestTemplate {
         Assertions.assertEquals(2, records.size());
     }
 
+    @Test
+    @DatabaseSetup("findByFilter.xml")
+    @DatabaseTearDown(value = "findByFilter.xml", type = DatabaseOperation.DELETE_ALL)
+    void testFindRowsPage() throws Exception {
+        Predicate query = WorkRecordQueries.findByFilter(new WorkRecordFilter(1L));
+        List<WorkRecordRowBean> rows = listRepository.findRows(query, "date", true, 1, 2);
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertEquals(1L, rows.get(0).getId());
+        Assertions.assertEquals("Budget 1", rows.get(0).getBudgetName());
+        Assertions.assertEquals("person1", rows.get(0).getPersonName());
+        Assertions.assertEquals(480, rows.get(0).getMinutes());
+        Assertions.assertEquals(Long.valueOf(4800000L), rows.get(0).getCentMinutes());
+        Assertions.assertEquals(2L, rows.get(1).getId());
+    }
+
+    @Test
+    @DatabaseSetup("findByFilter.xml")
+    @DatabaseTearDown(value = "findByFilter.xml", type = DatabaseOperation.DELETE_ALL)
+    void testFindRowsSortedDescending() throws Exception {
+        Predicate query = WorkRecordQueries.findByFilter(new WorkRecordFilter(1L));
+        List<WorkRecordRowBean> rows = listRepository.findRows(query, "budgetName", false);
+        Assertions.assertEquals(4, rows.size());
+        Assertions.assertEquals(4L, rows.get(0).getId());
+        Assertions.assertEquals(3L, rows.get(1).getId());
+        Assertions.assertEquals(1L, rows.get(3).getId());
+    }
+
+    @Test
+    @DatabaseSetup("findByFilter.xml")
+    @DatabaseTearDown(value = "findByFilter.xml", type = DatabaseOperation.DELETE_ALL)
+    void testCountAndSumRows() throws Exception {
+        WorkRecordFilter filter = new WorkRecordFilter(1L);
+        filter.getPersonList().add(new PersonBaseData(1L));
+        Predicate query = WorkRecordQueries.findByFilter(filter);
+        Assertions.assertEquals(2L, listRepository.countRows(query));
+        Assertions.assertEquals(30000L, listRepository.sumBurnedCents(query));
+    }
+
 }
@@ -0,0 +1,105 @@
+package org.wickedsource.budgeteer.service.report;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.wickedsource.budgeteer.service.ServiceTestTemplate;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ReportJobServiceTest extends ServiceTestTemplate {
+
+    @Autowired
+    private ReportJobService service;
+
+    @Test
+    void testIdenticalRequestsAreCoalesced() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        Callable<File> task = createTask(latch, executions);
+
+        String firstJob = service.submit(1L, Arrays.asList("report", 1L), task);
+        String secondJob = service.submit(1L, Arrays.asList("report", 1L), task);
+        String otherJob = service.submit(1L, Arrays.asList("report", 2L), task);
+        Assertions.assertEquals(firstJob, secondJob);
+        Assertions.assertNotEquals(firstJob, otherJob);
+        Assertions.assertEquals(ReportJobStatus.QUEUED, service.getStatus(otherJob));
+        Assertions.assertEquals(1, service.getJobsAhead(otherJob));
+
+        latch.countDown();
+        awaitDone(firstJob);
+        awaitDone(otherJob);
+        Assertions.assertEquals(ReportJobStatus.FINISHED, service.getStatus(firstJob));
+        Assertions.assertEquals(2, executions.get());
+
+        File result = service.getResult(firstJob);
+        Assertions.assertTrue(result.exists());
+        service.releaseResult(firstJob);
+        Assertions.assertTrue(result.exists());
+        service.releaseResult(firstJob);
+        Assertions.assertFalse(result.exists());
+        Assertions.assertNull(service.getStatus(firstJob));
+        service.releaseResult(otherJob);
+    }
+
+    @Test
+    void testRejectsJobsWhenProjectQueueIsFull() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        Callable<File> task = createTask(latch, new AtomicInteger());
+        String[] jobs = new String[ReportJobService.MAX_QUEUED_JOBS_PER_PROJECT];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = service.submit(2L, Arrays.asList("report", i), task);
+        }
+        String rejectedJob = service.submit(2L, Arrays.asList("report", -1), task);
+        String otherProjectJob = service.submit(3L, Arrays.asList("report", -1), task);
+        Assertions.assertEquals(ReportJobStatus.REJECTED, service.getStatus(rejectedJob));
+        Assertions.assertNotEquals(ReportJobStatus.REJECTED, service.getStatus(otherProjectJob));
+
+        latch.countDown();
+        for (String job : jobs) {
+            awaitDone(job);
+            service.releaseResult(job);
+        }
+        awaitDone(otherProjectJob);
+        service.releaseResult(otherProjectJob);
+        service.releaseResult(rejectedJob);
+    }
+
+    @Test
+    void testFailedJobDoesNotBlockProjectQueue() throws Exception {
+        String failedJob = service.submit(4L, Arrays.asList("report", 1), () -> {
+            throw new IllegalStateException("no template");
+        });
+        String nextJob = service.submit(4L, Arrays.asList("report", 2), createTask(new CountDownLatch(0), new AtomicInteger()));
+        awaitDone(failedJob);
+        awaitDone(nextJob);
+        Assertions.assertEquals(ReportJobStatus.FAILED, service.getStatus(failedJob));
+        Assertions.assertNull(service.getResult(failedJob));
+        Assertions.assertEquals(ReportJobStatus.FINISHED, service.getStatus(nextJob));
+        service.releaseResult(failedJob);
+        service.releaseResult(nextJob);
+    }
+
+    private Callable<File> createTask(CountDownLatch latch, AtomicInteger executions) {
+        return () -> {
+            latch.await();
+            executions.incrementAndGet();
+            return File.createTempFile("report", ".xlsx");
+        };
+    }
+
+    private void awaitDone(String jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ReportJobStatus status = service.getStatus(jobId);
+            if (status != ReportJobStatus.QUEUED && status != ReportJobStatus.RUNNING) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        Assertions.fail("job did not finish: " + jobId);
+    }
+}
@@ -6,11 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.wickedsource.budgeteer.MoneyUtil;
+import org.wickedsource.budgeteer.persistence.contract.ContractEntity;
+import org.wickedsource.budgeteer.persistence.contract.ContractMonthlySumBean;
+import org.wickedsource.budgeteer.persistence.contract.ContractRepository;
+import org.wickedsource.budgeteer.persistence.contract.ContractStatisticBean;
 import org.wickedsource.budgeteer.persistence.record.*;
 import org.wickedsource.budgeteer.service.DateProvider;
 import org.wickedsource.budgeteer.service.DateUtil;
 import org.wickedsource.budgeteer.service.ServiceTestTemplate;
 import org.wickedsource.budgeteer.service.budget.BudgetTagFilter;
+import org.wickedsource.budgeteer.service.contract.ContractStatisticsLoader;
 
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -27,7 +32,13 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     private WorkRecordRepository workRecordRepository;
 
     @Autowired
-    private PlanRecordRepository planRecordRepository;
+    private RecordAggregationRepository aggregationRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private ContractStatisticsLoader contractStatisticsLoader;
 
     @Autowired
     private DateProvider dateProvider;
@@ -45,7 +56,7 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeeklyBudgetBurnedForProject() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByWeekForProject(anyLong(), any(Date.class))).thenReturn(createLast5Weeks());
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(createLast5Weeks(RecordType.WORK));
         List<Money> resultList = service.getWeeklyBudgetBurnedForProject(1L, 5);
         Assertions.assertEquals(5, resultList.size());
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(100000L), resultList.get(0));
@@ -58,7 +69,7 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeeklyBudgetPlannedForProject() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(planRecordRepository.aggregateByWeekForProject(anyLong(), any(Date.class))).thenReturn(createLast5Weeks());
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(createLast5Weeks(RecordType.PLAN));
         List<Money> resultList = service.getWeeklyBudgetPlannedForProject(1L, 5);
         Assertions.assertEquals(5, resultList.size());
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(100000L), resultList.get(0));
@@ -71,7 +82,7 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeeklyBudgetBurnedForPerson() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByWeekForPerson(anyLong(), any(Date.class))).thenReturn(createLast5Weeks());
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(createLast5Weeks(RecordType.WORK));
         List<Money> resultList = service.getWeeklyBudgetBurnedForPerson(1L, 5);
         Assertions.assertEquals(5, resultList.size());
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(100000L), resultList.get(0));
@@ -84,7 +95,7 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeeklyBudgetPlannedForPerson() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(planRecordRepository.aggregateByWeekForPerson(anyLong(), any(Date.class))).thenReturn(createLast5Weeks());
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(createLast5Weeks(RecordType.PLAN));
         List<Money> resultList = service.getWeeklyBudgetPlannedForPerson(1L, 5);
         Assertions.assertEquals(5, resultList.size());
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(100000L), resultList.get(0));
@@ -94,22 +105,26 @@ class StatisticsServiceTest extends ServiceTestTemplate {
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(500000L), resultList.get(4));
     }
 
-    private List<WeeklyAggregatedRecordBean> createLast5Weeks() {
-        List<WeeklyAggregatedRecordBean> beans = new ArrayList<>();
-        beans.add(new WeeklyAggregatedRecordBean(2015, 1, 15d, 100000));
-        beans.add(new WeeklyAggregatedRecordBean(2015, 2, 15d, 200000));
-        beans.add(new WeeklyAggregatedRecordBean(2015, 4, 15d, 400000));
-        beans.add(new WeeklyAggregatedRecordBean(2015, 5, 15d, 500000));
-        return beans;
+    private List<AggregatedRow> createLast5Weeks(RecordType type) {
+        List<AggregatedRow> rows = new ArrayList<>();
+        rows.add(createRow(type, 2015, 1, null, 100000));
+        rows.add(createRow(type, 2015, 2, null, 200000));
+        rows.add(createRow(type, 2015, 4, null, 400000));
+        rows.add(createRow(type, 2015, 5, null, 500000));
+        return rows;
     }
 
-    private List<MonthlyAggregatedRecordBean> createLast5Months() {
-        List<MonthlyAggregatedRecordBean> beans = new ArrayList<>();
-        beans.add(new MonthlyAggregatedRecordBean(2014, 8, 15d, 100000));
-        beans.add(new MonthlyAggregatedRecordBean(2014, 9, 15d, 200000));
-        beans.add(new MonthlyAggregatedRecordBean(2014, 11, 15d, 400000));
-        beans.add(new MonthlyAggregatedRecordBean(2015, 0, 15d, 500000));
-        return beans;
+    private List<AggregatedRow> createLast5Months(RecordType type) {
+        List<AggregatedRow> rows = new ArrayList<>();
+        rows.add(createRow(type, 2014, 8, null, 100000));
+        rows.add(createRow(type, 2014, 9, null, 200000));
+        rows.add(createRow(type, 2014, 11, null, 400000));
+        rows.add(createRow(type, 2015, 0, null, 500000));
+        return rows;
+    }
+
+    private AggregatedRow createRow(RecordType type, int year, int period, String title, long valueInCents) {
+        return new AggregatedRow(type, year, period, title, null, 15 * 60, valueInCents * 60 * 8);
     }
 
 
@@ -137,7 +152,7 @@ class StatisticsServiceTest extends ServiceTestTemplate {
 
     @Test
     void testGetBudgetDistribution() throws Exception {
-        when(workRecordRepository.getBudgetShareForPerson(1L)).thenReturn(createShares());
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(createShares());
         List<Share> shares = service.getBudgetDistribution(1L);
         Assertions.assertEquals(4, shares.size());
         Assertions.assertEquals("share1", shares.get(0).getName());
@@ -150,18 +165,18 @@ class StatisticsServiceTest extends ServiceTestTemplate {
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(40000L), shares.get(3).getShare());
     }
 
-    private List<ShareBean> createShares() {
-        List<ShareBean> shares = new ArrayList<>();
-        shares.add(new ShareBean("share1", 10000L));
-        shares.add(new ShareBean("share2", 20000L));
-        shares.add(new ShareBean("share3", 30000L));
-        shares.add(new ShareBean("share4", 40000L));
+    private List<AggregatedRow> createShares() {
+        List<AggregatedRow> shares = new ArrayList<>();
+        shares.add(createRow(RecordType.WORK, 0, 0, "share1", 10000L));
+        shares.add(createRow(RecordType.WORK, 0, 0, "share2", 20000L));
+        shares.add(createRow(RecordType.WORK, 0, 0, "share3", 30000L));
+        shares.add(createRow(RecordType.WORK, 0, 0, "share4", 40000L));
         return shares;
     }
 
     @Test
     void testGetPeopleDistribution() throws Exception {
-        when(workRecordRepository.getPersonShareForBudget(1L)).thenReturn(createShares());
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(createShares());
         List<Share> shares = service.getPeopleDistribution(1L);
         Assertions.assertEquals(4, shares.size());
         Assertions.assertEquals("share1", shares.get(0).getName());
@@ -177,8 +192,9 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeekStatsForPerson() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByWeekAndBudgetForPerson(anyLong(), any(Date.class))).thenReturn(createLast5WeeksForBudget());
-        when(planRecordRepository.aggregateByWeekForPerson(anyLong(), any(Date.class))).thenReturn(createLast5Weeks());
+        List<AggregatedRow> rows = createLast5WeeksForBudget();
+        rows.addAll(createLast5Weeks(RecordType.PLAN));
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(rows);
         TargetAndActual targetAndActual = service.getWeekStatsForPerson(1L, 5);
 
         List<Money> targetSeries = targetAndActual.getTargetSeries().getValues();
@@ -214,8 +230,9 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeekStatsForBudget() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByWeekAndPersonForBudget(anyLong(), any(Date.class))).thenReturn(createLast5WeeksForPerson());
-        when(planRecordRepository.aggregateByWeekForBudget(anyLong(), any(Date.class))).thenReturn(createLast5Weeks());
+        List<AggregatedRow> rows = createLast5WeeksForPerson();
+        rows.addAll(createLast5Weeks(RecordType.PLAN));
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(rows);
         TargetAndActual targetAndActual = service.getWeekStatsForBudget(1L, 5);
 
         List<Money> targetSeries = targetAndActual.getTargetSeries().getValues();
@@ -251,8 +268,9 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetWeekStatsForBudgets() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByWeekAndPersonForBudgets(anyLong(), anyList(), any(Date.class))).thenReturn(createLast5WeeksForBudget());
-        when(planRecordRepository.aggregateByWeekForBudgets(anyLong(), anyList(), any(Date.class))).thenReturn(createLast5Weeks());
+        List<AggregatedRow> rows = createLast5WeeksForBudget();
+        rows.addAll(createLast5Weeks(RecordType.PLAN));
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(rows);
         TargetAndActual targetAndActual = service.getWeekStatsForBudgets(new BudgetTagFilter(Arrays.asList("tag1"), 1L), 5);
 
         List<Money> targetSeries = targetAndActual.getTargetSeries().getValues();
@@ -285,50 +303,51 @@ class StatisticsServiceTest extends ServiceTestTemplate {
         Assertions.assertEquals(MoneyUtil.createMoneyFromCents(500000L), actualSeries2.getValues().get(4));
     }
 
-    private List<WeeklyAggregatedRecordWithTitleBean> createLast5WeeksForBudget() {
-        List<WeeklyAggregatedRecordWithTitleBean> beans = new ArrayList<>();
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 1, 15d, 100000, "Budget 1"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 2, 15d, 200000, "Budget 1"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 4, 15d, 400000, "Budget 1"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 5, 15d, 500000, "Budget 1"));
-
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 1, 15d, 100000, "Budget 2"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 2, 15d, 200000, "Budget 2"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 5, 15d, 500000, "Budget 2"));
-        return beans;
+    private List<AggregatedRow> createLast5WeeksForBudget() {
+        List<AggregatedRow> rows = new ArrayList<>();
+        rows.add(createRow(RecordType.WORK, 2015, 1, "Budget 1", 100000));
+        rows.add(createRow(RecordType.WORK, 2015, 2, "Budget 1", 200000));
+        rows.add(createRow(RecordType.WORK, 2015, 4, "Budget 1", 400000));
+        rows.add(createRow(RecordType.WORK, 2015, 5, "Budget 1", 500000));
+
+        rows.add(createRow(RecordType.WORK, 2015, 1, "Budget 2", 100000));
+        rows.add(createRow(RecordType.WORK, 2015, 2, "Budget 2", 200000));
+        rows.add(createRow(RecordType.WORK, 2015, 5, "Budget 2", 500000));
+        return rows;
     }
 
-    private List<MonthlyAggregatedRecordWithTitleBean> createLast5MonthsForBudget() {
-        List<MonthlyAggregatedRecordWithTitleBean> beans = new ArrayList<>();
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2014, 8, 15d, 100000, "Budget 1"));
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2014, 9, 15d, 200000, "Budget 1"));
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2014, 11, 15d, 400000, "Budget 1"));
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2015, 0, 15d, 500000, "Budget 1"));
-
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2014, 8, 15d, 100000, "Budget 2"));
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2014, 9, 15d, 200000, "Budget 2"));
-        beans.add(new MonthlyAggregatedRecordWithTitleBean(2015, 0, 15d, 500000, "Budget 2"));
-        return beans;
+    private List<AggregatedRow> createLast5MonthsForBudget() {
+        List<AggregatedRow> rows = new ArrayList<>();
+        rows.add(createRow(RecordType.WORK, 2014, 8, "Budget 1", 100000));
+        rows.add(createRow(RecordType.WORK, 2014, 9, "Budget 1", 200000));
+        rows.add(createRow(RecordType.WORK, 2014, 11, "Budget 1", 400000));
+        rows.add(createRow(RecordType.WORK, 2015, 0, "Budget 1", 500000));
+
+        rows.add(createRow(RecordType.WORK, 2014, 8, "Budget 2", 100000));
+        rows.add(createRow(RecordType.WORK, 2014, 9, "Budget 2", 200000));
+        rows.add(createRow(RecordType.WORK, 2015, 0, "Budget 2", 500000));
+        return rows;
     }
 
-    private List<WeeklyAggregatedRecordWithTitleBean> createLast5WeeksForPerson() {
-        List<WeeklyAggregatedRecordWithTitleBean> beans = new ArrayList<>();
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 1, 15d, 100000, "Person 1"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 2, 15d, 200000, "Person 1"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 4, 15d, 400000, "Person 1"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 5, 15d, 500000, "Person 1"));
-
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 1, 15d, 100000, "Person 2"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 2, 15d, 200000, "Person 2"));
-        beans.add(new WeeklyAggregatedRecordWithTitleBean(2015, 5, 15d, 500000, "Person 2"));
-        return beans;
+    private List<AggregatedRow> createLast5WeeksForPerson() {
+        List<AggregatedRow> rows = new ArrayList<>();
+        rows.add(createRow(RecordType.WORK, 2015, 1, "Person 1", 100000));
+        rows.add(createRow(RecordType.WORK, 2015, 2, "Person 1", 200000));
+        rows.add(createRow(RecordType.WORK, 2015, 4, "Person 1", 400000));
+        rows.add(createRow(RecordType.WORK, 2015, 5, "Person 1", 500000));
+
+        rows.add(createRow(RecordType.WORK, 2015, 1, "Person 2", 100000));
+        rows.add(createRow(RecordType.WORK, 2015, 2, "Person 2", 200000));
+        rows.add(createRow(RecordType.WORK, 2015, 5, "Person 2", 500000));
+        return rows;
     }
 
     @Test
     void testGetMonthStatsForPerson() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByMonthAndBudgetForPerson(anyLong(), any(Date.class))).thenReturn(createLast5MonthsForBudget());
-        when(planRecordRepository.aggregateByMonthForPerson(anyLong(), any(Date.class))).thenReturn(createLast5Months());
+        List<AggregatedRow> rows = createLast5MonthsForBudget();
+        rows.addAll(createLast5Months(RecordType.PLAN));
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(rows);
         TargetAndActual targetAndActual = service.getMonthStatsForPerson(1L, 5);
 
         List<Money> targetSeries = targetAndActual.getTargetSeries().getValues();
@@ -364,8 +383,9 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetMonthStatsForBudgets() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByMonthAndPersonForBudgets(anyLong(), anyList(), any(Date.class))).thenReturn(createLast5MonthsForBudget());
-        when(planRecordRepository.aggregateByMonthForBudgets(anyLong(), anyList(), any(Date.class))).thenReturn(createLast5Months());
+        List<AggregatedRow> rows = createLast5MonthsForBudget();
+        rows.addAll(createLast5Months(RecordType.PLAN));
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(rows);
         TargetAndActual targetAndActual = service.getMonthStatsForBudgets(new BudgetTagFilter(Arrays.asList("tag1"), 1L), 5);
 
         List<Money> targetSeries = targetAndActual.getTargetSeries().getValues();
@@ -401,8 +421,9 @@ class StatisticsServiceTest extends ServiceTestTemplate {
     @Test
     void testGetMonthStatsForBudget() throws Exception {
         when(dateProvider.currentDate()).thenReturn(format.parse("29.01.2015"));
-        when(workRecordRepository.aggregateByMonthAndPersonForBudget(anyLong(), any(Date.class))).thenReturn(createLast5MonthsForBudget());
-        when(planRecordRepository.aggregateByMonthForBudget(anyLong(), any(Date.class))).thenReturn(createLast5Months());
+        List<AggregatedRow> rows = createLast5MonthsForBudget();
+        rows.addAll(createLast5Months(RecordType.PLAN));
+        when(aggregationRepository.aggregate(any(AggregationQuery.class))).thenReturn(rows);
         TargetAndActual targetAndActual = service.getMonthStatsForBudget(1L, 5);
 
         List<Money> targetSeries = targetAndActual.getTargetSeries().getValues();
@@ -459,4 +480,77 @@ class StatisticsServiceTest extends ServiceTestTemplate {
 
     }
 
+    @Test
+    void testGetMonthlyStatisticsForContract() {
+        Calendar start = createContractStatisticsStart();
+        createContractWithMonthlySums(start);
+
+        List<ContractStatisticBean> beans = service.getMonthlyStatisticsForContract(1L, start.getTime());
+
+        Assertions.assertEquals(3, beans.size());
+        Assertions.assertEquals(start.get(Calendar.MONTH), beans.get(0).getMonth());
+        Assertions.assertEquals(200L, beans.get(0).getSpentBudget());
+        Assertions.assertEquals(0L, beans.get(0).getInvoicedBudget());
+        Assertions.assertEquals(9800L, beans.get(0).getRemainingContractBudget());
+        Assertions.assertEquals(0.03, beans.get(0).getProgress(), 10e-8);
+        Assertions.assertEquals(0L, beans.get(1).getSpentBudget());
+        Assertions.assertEquals(50L, beans.get(1).getInvoicedBudget());
+        Assertions.assertEquals(300L, beans.get(2).getSpentBudget());
+        Assertions.assertEquals(0L, beans.get(2).getInvoicedBudget());
+        Assertions.assertEquals(0.06, beans.get(2).getProgress(), 10e-8);
+    }
+
+    @Test
+    void testGetMonthlyAggregatedStatisticsForContract() {
+        Calendar start = createContractStatisticsStart();
+        ContractEntity contract = createContractWithMonthlySums(start);
+
+        List<ContractStatisticBean> beans = contractStatisticsLoader.loadMonthlyStatistics(contract, start.getTime(), true);
+
+        Assertions.assertEquals(3, beans.size());
+        Assertions.assertEquals(300L, beans.get(0).getSpentBudget());
+        Assertions.assertEquals(0L, beans.get(0).getInvoicedBudget());
+        Assertions.assertEquals(9700L, beans.get(0).getRemainingContractBudget());
+        Assertions.assertEquals(300L, beans.get(1).getSpentBudget());
+        Assertions.assertEquals(50L, beans.get(1).getInvoicedBudget());
+        Assertions.assertEquals(600L, beans.get(2).getSpentBudget());
+        Assertions.assertEquals(50L, beans.get(2).getInvoicedBudget());
+        Assertions.assertEquals(9400L, beans.get(2).getRemainingContractBudget());
+    }
+
+    /**
+     * @return the first day of the month two months ago
+     */
+    private Calendar createContractStatisticsStart() {
+        Calendar start = Calendar.getInstance();
+        start.set(Calendar.DAY_OF_MONTH, 1);
+        start.set(Calendar.HOUR_OF_DAY, 0);
+        start.set(Calendar.MINUTE, 0);
+        start.set(Calendar.SECOND, 0);
+        start.set(Calendar.MILLISECOND, 0);
+        start.add(Calendar.MONTH, -2);
+        return start;
+    }
+
+    private ContractEntity createContractWithMonthlySums(Calendar start) {
+        ContractEntity contract = new ContractEntity();
+        contract.setId(1L);
+        contract.setBudget(MoneyUtil.createMoneyFromCents(10000L));
+        when(contractRepository.findOne(1L)).thenReturn(contract);
+
+        List<ContractMonthlySumBean> spent = new ArrayList<ContractMonthlySumBean>();
+        spent.add(createMonthlySum(start, -1, 100L));
+        spent.add(createMonthlySum(start, 0, 200L));
+        spent.add(createMonthlySum(start, 2, 300L));
+        when(contractRepository.getSpentBudgetByContractIdGroupedByMonth(1L)).thenReturn(spent);
+        when(contractRepository.getInvoicedBudgetByContractIdGroupedByMonth(1L)).thenReturn(Collections.singletonList(createMonthlySum(start, 1, 50L)));
+        return contract;
+    }
+
+    private ContractMonthlySumBean createMonthlySum(Calendar start, int monthsAfterStart, long valueInCents) {
+        Calendar c = (Calendar) start.clone();
+        c.add(Calendar.MONTH, monthsAfterStart);
+        return new ContractMonthlySumBean(c.get(Calendar.YEAR), c.get(Calendar.MONTH), valueInCents);
+    }
+
 }
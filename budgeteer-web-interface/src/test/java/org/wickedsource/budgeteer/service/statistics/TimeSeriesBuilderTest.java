@@ -0,0 +1,62 @@
+package org.wickedsource.budgeteer.service.statistics;
+
+import org.joda.money.Money;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.wickedsource.budgeteer.MoneyUtil;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+class TimeSeriesBuilderTest {
+
+    private SimpleDateFormat format = new SimpleDateFormat("dd.MM.yyyy");
+
+    @Test
+    void testFillsMissingMonthsWithZero() throws Exception {
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(format.parse("15.11.2016"), 4);
+        builder.add(2016, 11, 100L);
+        builder.add(2017, 1, 200L);
+        builder.add(2017, 1, 50L);
+        builder.add(2017, 5, 1000L);
+
+        List<Money> values = builder.getValues();
+        Assertions.assertEquals(4, values.size());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(0L), values.get(0));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(100L), values.get(1));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(0L), values.get(2));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(250L), values.get(3));
+    }
+
+    @Test
+    void testEmptyValue() throws Exception {
+        Money empty = MoneyUtil.createMoneyFromCents(-1L);
+        TimeSeriesBuilder builder = TimeSeriesBuilder.monthly(format.parse("01.01.2017"), 3);
+        builder.add(2017, 1, 0L);
+
+        List<Money> values = builder.getValues(empty);
+        Assertions.assertEquals(empty, values.get(0));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(0L), values.get(1));
+        Assertions.assertEquals(empty, values.get(2));
+    }
+
+    @Test
+    void testTitledSeriesWithTax() throws Exception {
+        TimeSeriesBuilder builder = TimeSeriesBuilder.weekly(format.parse("02.01.2017"), 2).withTax();
+        builder.add("Budget 1", 2017, 1, 1000L, new BigDecimal(10));
+        builder.add("Budget 2", 2017, 2, 500L, new BigDecimal(20));
+        builder.add("Budget 1", 2017, 2, 2000L, new BigDecimal(10));
+
+        List<MoneySeries> series = builder.getTitledSeries();
+        Assertions.assertEquals(2, series.size());
+        Assertions.assertEquals("Budget 1", series.get(0).getName());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(1000L), series.get(0).getValues().get(0));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(2000L), series.get(0).getValues().get(1));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(1100L), series.get(0).getValues_gross().get(0));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(2200L), series.get(0).getValues_gross().get(1));
+        Assertions.assertEquals("Budget 2", series.get(1).getName());
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(0L), series.get(1).getValues().get(0));
+        Assertions.assertEquals(MoneyUtil.createMoneyFromCents(600L), series.get(1).getValues_gross().get(1));
+    }
+}
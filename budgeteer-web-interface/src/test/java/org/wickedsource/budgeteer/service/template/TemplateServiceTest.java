@@ -8,7 +8,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.wickedsource.budgeteer.imports.api.ImportFile;
+import org.apache.poi.util.IOUtils;
 import org.wickedsource.budgeteer.persistence.template.TemplateEntity;
+import org.wickedsource.budgeteer.persistence.template.TemplateMetadataBean;
 import org.wickedsource.budgeteer.persistence.template.TemplateRepository;
 import org.wickedsource.budgeteer.service.ReportType;
 import org.wickedsource.budgeteer.service.ServiceTestTemplate;
@@ -19,6 +21,7 @@ import java.io.IOException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
 import static org.wicketstuff.lazymodel.LazyModel.from;
 import static org.wicketstuff.lazymodel.LazyModel.model;
 
@@ -75,5 +78,32 @@ class TemplateServiceTest extends ServiceTestTemplate {
             Assertions.fail();
         }
     }
-}
 
+    @Test
+    void getWorkbookParsesCachedBytes() throws IOException {
+        byte[] bytes = IOUtils.toByteArray(getClass().getResourceAsStream("exampleTemplate1.xlsx"));
+        when(templateRepository.findMetadataById(42L)).thenReturn(new TemplateMetadataBean(42L, 1L, "TEST", "TEST_D", ReportType.BUDGET_REPORT, false, 1L));
+        when(templateRepository.findTemplateBytes(42L)).thenReturn(bytes);
+
+        XSSFWorkbook first = templateService.getWorkbook(42L);
+        XSSFWorkbook second = templateService.getWorkbook(42L);
+
+        Assertions.assertNotNull(first);
+        Assertions.assertNotNull(second);
+        Assertions.assertNotSame(first, second);
+        Mockito.verify(templateRepository, times(1)).findTemplateBytes(42L);
+    }
+
+    @Test
+    void getWorkbookReloadsChangedTemplate() throws IOException {
+        byte[] bytes = IOUtils.toByteArray(getClass().getResourceAsStream("exampleTemplate1.xlsx"));
+        when(templateRepository.findMetadataById(43L)).thenReturn(new TemplateMetadataBean(43L, 1L, "TEST", "TEST_D", ReportType.BUDGET_REPORT, false, 1L));
+        when(templateRepository.findTemplateBytes(43L)).thenReturn(bytes);
+        templateService.getWorkbook(43L);
+
+        when(templateRepository.findMetadataById(43L)).thenReturn(new TemplateMetadataBean(43L, 1L, "TEST", "TEST_D", ReportType.BUDGET_REPORT, false, 2L));
+        templateService.getWorkbook(43L);
+
+        Mockito.verify(templateRepository, times(2)).findTemplateBytes(43L);
+    }
+}
@@ -4,14 +4,14 @@ import org.apache.wicket.util.tester.WicketTester;
 import org.junit.jupiter.api.Test;
 import org.wickedsource.budgeteer.service.record.WorkRecordFilter;
 import org.wickedsource.budgeteer.web.AbstractWebTestTemplate;
-import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsModel;
+import org.wickedsource.budgeteer.web.components.burntable.filter.FilteredRecordsProvider;
 
 public class BurnTableTest extends AbstractWebTestTemplate {
 
     @Test
     void render() {
         WicketTester tester = getTester();
-        BurnTable table = new BurnTable("table", new FilteredRecordsModel(new WorkRecordFilter(1L)));
+        BurnTable table = new BurnTable("table", new FilteredRecordsProvider(new WorkRecordFilter(1L)));
         tester.startComponentInPage(table);
     }
 